@@ -0,0 +1,131 @@
+package org.auscope.portal.mscl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.auscope.portal.core.services.namespaces.IterableNamespace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * JMH benchmark comparing the original DOM/XPath handling of MSCL observations (as previously done by
+ * MSCLController.getMsclObservationsForGraph) with MSCLObservationParser, with and without downsampling.
+ *
+ * The fixture is a synthetic mscl:scanned_data response with 8 metrics per observation, 2 of which are requested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MSCLObservationParserBenchmark {
+
+    private static final String[] ALL_METRICS = new String[] {"diameter", "p_wave_amplitude", "p_wave_velocity", "density",
+            "magnetic_susceptibility", "impedance", "natural_gamma", "resistivity"};
+    private static final String[] REQUESTED_METRICS = new String[] {"density", "magnetic_susceptibility"};
+
+    @Param({"1000", "50000"})
+    public int observations;
+
+    private byte[] xml;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:mscl=\"http://example.org/mscl\">\n");
+        sb.append("<gml:featureMembers>\n");
+        for (int i = 0; i < observations; i++) {
+            sb.append("<mscl:scanned_data gml:id=\"scanned_data.").append(i).append("\">\n");
+            sb.append("<mscl:borehole_header_id>18</mscl:borehole_header_id>\n");
+            sb.append("<mscl:depth>").append(10 + i * 0.02f).append("</mscl:depth>\n");
+            for (String metric : ALL_METRICS) {
+                sb.append("<mscl:").append(metric).append('>').append(random.nextInt(100000) / 100.0f).append("</mscl:").append(metric).append(">\n");
+            }
+            sb.append("<mscl:location><gml:Point><gml:pos>").append(10 + i * 0.02f).append(" 0.0</gml:pos></gml:Point></mscl:location>\n");
+            sb.append("</mscl:scanned_data>\n");
+        }
+        sb.append("</gml:featureMembers>\n");
+        sb.append("</wfs:FeatureCollection>\n");
+        xml = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int dom() throws Exception {
+        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(true);
+        Document msclDoc = domFactory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+
+        XPath xPath = XPathFactory.newInstance().newXPath();
+        xPath.setNamespaceContext(new IterableNamespace() {
+            {
+                map.put("mscl", MSCLObservationParser.MSCL_NAMESPACE);
+            }
+        });
+        StringBuilder xPathString = new StringBuilder("//mscl:scanned_data/mscl:depth");
+        for (String metric : REQUESTED_METRICS) {
+            xPathString.append(" | //mscl:scanned_data/mscl:" + metric);
+        }
+        NodeList results = (NodeList) xPath.compile(xPathString.toString()).evaluate(msclDoc, XPathConstants.NODESET);
+
+        List<Map<String, Float>> series = new ArrayList<Map<String, Float>>();
+        Map<String, Float> relatedValues = null;
+        Node targetParentNode = null;
+        for (int i = 0; i < results.getLength(); i++) {
+            Node result = results.item(i);
+            Node currentParentNode = result.getParentNode();
+            if (!currentParentNode.equals(targetParentNode)) {
+                targetParentNode = currentParentNode;
+                if (relatedValues != null && relatedValues.size() > 1) {
+                    series.add(relatedValues);
+                }
+                relatedValues = new HashMap<String, Float>();
+            }
+            relatedValues.put(result.getLocalName(), Float.parseFloat(result.getTextContent()));
+        }
+
+        Collections.sort(series, new Comparator<Map<String, Float>>() {
+            @Override
+            public int compare(Map<String, Float> o1, Map<String, Float> o2) {
+                return o1.get("depth").compareTo(o2.get("depth"));
+            }
+        });
+        return series.size();
+    }
+
+    @Benchmark
+    public int stax() throws Exception {
+        return new MSCLObservationParser(REQUESTED_METRICS).parse(new ByteArrayInputStream(xml)).size();
+    }
+
+    @Benchmark
+    public int staxDownsampled() throws Exception {
+        return new MSCLObservationParser(REQUESTED_METRICS).parse(new ByteArrayInputStream(xml)).downsample(1000).size();
+    }
+}
@@ -0,0 +1,79 @@
+package org.auscope.portal.nvcl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse;
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse.Bin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the scalar binning performed by NVCL2_0_DataService.doBinning (which only adds the
+ * HTTP request in front of ScalarBinningEngine).
+ *
+ * The fixture is a synthetic NVCL scalar CSV with a numeric and a categorical column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalarBinningEngineBenchmark {
+
+    private static final String[] MINERALS = new String[] {"Quartz", "Mica", "Kaolinite", "Illite", "Chlorite", "Epidote", "Muscovite", "Alunite-K"};
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private byte[] numericCsv;
+    private byte[] categoryCsv;
+
+    @Setup
+    public void setup() {
+        numericCsv = syntheticCsv(rows, false);
+        categoryCsv = syntheticCsv(rows, true);
+    }
+
+    /**
+     * Generates a two column NVCL style scalar CSV (depth + a single scalar)
+     */
+    private static byte[] syntheticCsv(int rows, boolean categorical) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("\"StartDepth\",\"scalar\"\n");
+        double depth = 100.0;
+        for (int row = 0; row < rows; row++) {
+            depth += 0.05 * (0.5 + random.nextDouble());
+            sb.append(depth).append(',');
+            if (categorical) {
+                sb.append('"').append(MINERALS[random.nextInt(MINERALS.length)]).append('"');
+            } else {
+                sb.append(random.nextInt(10000) / 100.0);
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Bin[] binNumeric() throws Exception {
+        return new ScalarBinningEngine(1.0, '"', 1, 2).bin(new BinnedCSVResponse(), new ByteArrayInputStream(numericCsv), "job-1");
+    }
+
+    @Benchmark
+    public Bin[] binCategorical() throws Exception {
+        return new ScalarBinningEngine(1.0, '"', 1, 2).bin(new BinnedCSVResponse(), new ByteArrayInputStream(categoryCsv), "job-1");
+    }
+}
@@ -0,0 +1,64 @@
+package org.auscope.portal.server.domain.xml;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark extracting every gml:id from a synthetic WFS GetFeature response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLStreamAttributeExtractorBenchmark {
+
+    @Param({"100", "10000"})
+    public int features;
+
+    private byte[] xml;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\">\n");
+        for (int i = 0; i < features; i++) {
+            sb.append("<gml:featureMember>\n");
+            sb.append("<gsmlp:BoreholeView gml:id=\"gsml.borehole.WTB").append(i).append("\">\n");
+            sb.append("<gsmlp:identifier>http://geossdi.dmp.wa.gov.au/resource/feature/borehole/WTB").append(i).append("</gsmlp:identifier>\n");
+            sb.append("<gsmlp:name>Borehole ").append(i).append("</gsmlp:name>\n");
+            sb.append("<gsmlp:nvclCollection>true</gsmlp:nvclCollection>\n");
+            sb.append("<gsmlp:shape><gml:Point srsName=\"EPSG:4326\"><gml:pos>-31.1 121.").append(i).append("</gml:pos></gml:Point></gsmlp:shape>\n");
+            sb.append("</gsmlp:BoreholeView>\n");
+            sb.append("</gml:featureMember>\n");
+        }
+        sb.append("</wfs:FeatureCollection>\n");
+        xml = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int extractAll() {
+        XMLStreamAttributeExtractor extractor = new XMLStreamAttributeExtractor("gsmlp:BoreholeView", "gml:id", new ByteArrayInputStream(xml), "UTF-8");
+        int count = 0;
+        while (extractor.hasNext()) {
+            if (extractor.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,135 @@
+package org.auscope.portal.server.vegl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.core.cloud.CloudFileOwner;
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.services.cloud.CloudStorageService;
+import org.auscope.portal.server.web.controllers.JobListController;
+import org.auscope.portal.server.web.service.cloud.CloudStorageServiceNci;
+import org.auscope.portal.server.web.service.cloud.RangedInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ui.ModelMap;
+
+/**
+ * JMH benchmark of the job log section parsing performed by VGLJobStatusAndLogReader.
+ *
+ * The log is a synthetic vl.sh.log with environment/python/output sections. The storage service
+ * serves it from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectionedLogBenchmark {
+
+    private static final String STORAGE_ID = "benchmark-storage";
+
+    /** Number of output lines in the log */
+    @Param({"100", "10000"})
+    public int lines;
+
+    private String logText;
+    private byte[] logBytes;
+    private byte[] appendedLine;
+    private VGLJobStatusAndLogReader reader;
+
+    /**
+     * Serves the synthetic log from memory (honouring offsets like a ranged read)
+     */
+    private static class InMemoryStorage extends CloudStorageServiceNci {
+        private byte[] contents;
+
+        public InMemoryStorage(byte[] contents) {
+            super("localhost", "nci", null);
+            this.contents = contents;
+            setId(STORAGE_ID);
+        }
+
+        @Override
+        public RangedInputStream getJobFile(CloudFileOwner job, String fileName, long offset) {
+            int start = (int) Math.min(offset, contents.length);
+            return new RangedInputStream(new ByteArrayInputStream(contents, start, contents.length - start), contents.length, 0);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("#### environment start ####\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append("VAR").append(i).append("=value").append(i).append('\n');
+        }
+        sb.append("#### environment end ####\n");
+        sb.append("#### Python start ####\n");
+        sb.append("import numpy\nprint('hello')\n");
+        sb.append("#### Python end ####\n");
+        sb.append("#### Execute start ####\n");
+        for (int i = 0; i < lines; i++) {
+            sb.append("Iteration ").append(i).append(": misfit=").append(1.0 / (i + 1)).append('\n');
+        }
+        logText = sb.toString();
+        logBytes = logText.getBytes(StandardCharsets.UTF_8);
+        appendedLine = "Iteration N: misfit=0.0\n".getBytes(StandardCharsets.UTF_8);
+
+        reader = new VGLJobStatusAndLogReader(null, new CloudStorageService[] {new InMemoryStorage(logBytes)},
+                new CloudComputeService[0]);
+    }
+
+    /**
+     * Parsing a complete log from scratch (what happens on every poll without incremental reads)
+     */
+    @Benchmark
+    public ModelMap parseFull() {
+        return SectionedLog.parse(logText).getSections();
+    }
+
+    /**
+     * Appending a single line to an already parsed log and re-sectioning it
+     */
+    @Benchmark
+    public ModelMap appendLine(IncrementalState state) {
+        state.log.append(appendedLine, 0, appendedLine.length);
+        return state.log.getSections();
+    }
+
+    /**
+     * A full reader request (new job object each call so the per status change sharing doesn't apply).
+     * After the first call only the (empty) tail of the log is read from storage.
+     */
+    @Benchmark
+    public ModelMap readerGetSectionedLogs() throws Exception {
+        VEGLJob job = new VEGLJob();
+        job.setId(1);
+        job.setStorageServiceId(STORAGE_ID);
+        return reader.getSectionedLogs(job, JobListController.VL_LOG_FILE);
+    }
+
+    /**
+     * A log that has already been parsed (rebuilt every iteration so it doesn't grow without bound)
+     */
+    @State(Scope.Thread)
+    public static class IncrementalState {
+        private SectionedLog log;
+
+        @Setup(Level.Iteration)
+        public void setup(SectionedLogBenchmark benchmark) {
+            log = SectionedLog.parse(benchmark.logText);
+        }
+    }
+}
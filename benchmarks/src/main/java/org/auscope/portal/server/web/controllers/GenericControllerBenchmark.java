@@ -0,0 +1,58 @@
+package org.auscope.portal.server.web.controllers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the SLD generation behind GenericController.doGenericFilterStyle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericControllerBenchmark {
+
+    @Param({"POINT", "LINE", "POLYGON"})
+    public String styleType;
+
+    private GenericController controller;
+    private String filter;
+
+    @Setup
+    public void setup() {
+        controller = new GenericController(null, new SLDStyleCache());
+
+        StringBuilder sb = new StringBuilder("<ogc:Filter><ogc:Or>");
+        for (int i = 0; i < 50; i++) {
+            sb.append("<ogc:PropertyIsLike escapeChar=\"!\" matchCase=\"false\" singleChar=\"#\" wildCard=\"*\">");
+            sb.append("<ogc:PropertyName>gsmlp:name</ogc:PropertyName><ogc:Literal>*feature").append(i).append("*</ogc:Literal>");
+            sb.append("</ogc:PropertyIsLike>");
+        }
+        sb.append("</ogc:Or></ogc:Filter>");
+        filter = sb.toString();
+    }
+
+    @Benchmark
+    public String getStyle() {
+        return controller.getStyle(filter, "gsmlp:BoreholeView", "gsmlp:shape", styleType, "#FF0000");
+    }
+
+    @Benchmark
+    public String getStyleWithLabel() {
+        return controller.getStyleWithLabel(filter, "gsmlp:BoreholeView", "gsmlp:shape", styleType, "#FF0000", "gsmlp:name");
+    }
+}
@@ -0,0 +1,60 @@
+package org.auscope.portal.server.web.controllers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.server.MineralTenementServiceProviderType;
+import org.auscope.portal.server.web.service.MineralTenementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the SLD generation behind MineralTenementController's /getMineralTenementStyle.do.
+ *
+ * The real MineralTenementService is used for filter generation - it makes no HTTP requests for styles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MineralTenementControllerBenchmark {
+
+    @Param({"TenementType", "TenementStatus"})
+    public String ccProperty;
+
+    private MineralTenementController controller;
+    private MineralTenementService service;
+
+    @Setup
+    public void setup() {
+        service = new MineralTenementService(null, null);
+        controller = new MineralTenementController(service, null);
+    }
+
+    @Benchmark
+    public String getStyle() {
+        return controller.getStyle(false, ccProperty, "mt:MineralTenement", null);
+    }
+
+    @Benchmark
+    public String getLegendStyle() {
+        return controller.getStyle(true, ccProperty, "mt:MineralTenement", null);
+    }
+
+    @Benchmark
+    public String getPolygonStyle() throws Exception {
+        MineralTenementServiceProviderType type = MineralTenementServiceProviderType.GeoServer;
+        String filter = service.getMineralTenementFilter(null, null, type);
+        return controller.getPolygonStyle(filter, type.featureType(), type.fillColour(), type.borderColour(), type.styleName());
+    }
+}
@@ -0,0 +1,201 @@
+package org.auscope.portal.server.web.repositories;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the VEGLJobRepository status queries against a seeded in memory H2 jobs table.
+ *
+ * The "legacy" benchmarks query a copy of the table with the previous JOB_LIST index using LOWER(status). They use
+ * lower case literals because H2 compares strings case sensitively (unlike the case insensitive collation of the
+ * MySQL jobs table, where the previous queries matched the mixed case status constants). The others query the
+ * indexed statusKey column instead.
+ *
+ * Most jobs are done, around 5% are deleted and only a handful are pending, active or queued (as is the case
+ * between job list calls and status polls).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class VEGLJobRepositoryBenchmark {
+
+    private static final int USERS = 1000;
+    private static final String[] STATUSES = {JobBuilderController.STATUS_PENDING, JobBuilderController.STATUS_ACTIVE,
+            JobBuilderController.STATUS_INQUEUE, JobBuilderController.STATUS_ERROR};
+
+    /** Number of jobs in the table */
+    @Param({"1000000"})
+    public int rows;
+
+    private Connection connection;
+    private PreparedStatement legacyByEmail;
+    private PreparedStatement legacyBySeries;
+    private PreparedStatement legacyPendingOrActive;
+    private PreparedStatement legacyInqueue;
+    private PreparedStatement byEmail;
+    private PreparedStatement bySeries;
+    private PreparedStatement pendingOrActive;
+    private PreparedStatement inqueue;
+
+    private static String status(int i) {
+        if (i % 2000 == 0) {
+            return STATUSES[(i / 2000) % STATUSES.length];
+        }
+        return i % 20 == 0 ? JobBuilderController.STATUS_DELETED : JobBuilderController.STATUS_DONE;
+    }
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:jobs-benchmark;DB_CLOSE_DELAY=-1");
+        Statement statement = connection.createStatement();
+        try {
+            for (String table : new String[] {"jobs", "jobs_legacy"}) {
+                statement.execute("CREATE TABLE " + table + " (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), "
+                        + "emailAddress VARCHAR(255), seriesId INT, status VARCHAR(255), statusKey VARCHAR(64), folderId INT)");
+            }
+            statement.execute("CREATE INDEX JOB_LIST ON jobs_legacy (emailAddress, status, folderId)");
+            statement.execute("CREATE INDEX JOB_STATUS ON jobs (statusKey)");
+            statement.execute("CREATE INDEX JOB_LIST_STATUS ON jobs (emailAddress, statusKey)");
+            statement.execute("CREATE INDEX JOB_SERIES_EMAIL ON jobs (seriesId, emailAddress)");
+        } finally {
+            statement.close();
+        }
+
+        connection.setAutoCommit(false);
+        PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO jobs (name, emailAddress, seriesId, status, statusKey) VALUES (?, ?, ?, ?, ?)");
+        try {
+            for (int i = 1; i <= rows; i++) {
+                String status = status(i);
+                insert.setString(1, "Job " + i);
+                insert.setString(2, "user" + (i % USERS) + "@example.org");
+                insert.setInt(3, i / 10);
+                insert.setString(4, status);
+                insert.setString(5, VEGLJob.normaliseStatus(status));
+                insert.addBatch();
+                if (i % 10000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        } finally {
+            insert.close();
+        }
+        statement = connection.createStatement();
+        try {
+            statement.execute("INSERT INTO jobs_legacy SELECT * FROM jobs");
+            statement.execute("ANALYZE");
+        } finally {
+            statement.close();
+        }
+        connection.commit();
+
+        legacyByEmail = connection.prepareStatement("SELECT * FROM jobs_legacy WHERE emailAddress = ? AND LOWER(status) <> 'deleted'");
+        legacyBySeries = connection.prepareStatement(
+                "SELECT * FROM jobs_legacy WHERE seriesId = ? AND emailAddress = ? AND LOWER(status) <> 'deleted'");
+        legacyPendingOrActive = connection.prepareStatement(
+                "SELECT * FROM jobs_legacy WHERE LOWER(status) = 'pending' OR LOWER(status) = 'active'");
+        legacyInqueue = connection.prepareStatement("SELECT * FROM jobs_legacy WHERE LOWER(status) = 'in queue'");
+        byEmail = connection.prepareStatement("SELECT * FROM jobs WHERE emailAddress = ? AND statusKey <> 'deleted'");
+        bySeries = connection.prepareStatement("SELECT * FROM jobs WHERE seriesId = ? AND emailAddress = ? AND statusKey <> 'deleted'");
+        pendingOrActive = connection.prepareStatement("SELECT * FROM jobs WHERE statusKey IN ('pending', 'active')");
+        inqueue = connection.prepareStatement("SELECT * FROM jobs WHERE statusKey = 'in queue'");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("SHUTDOWN");
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static int count(PreparedStatement query) throws SQLException {
+        int count = 0;
+        ResultSet rs = query.executeQuery();
+        try {
+            while (rs.next()) {
+                count++;
+            }
+        } finally {
+            rs.close();
+        }
+        return count;
+    }
+
+    private static int countByEmail(PreparedStatement query) throws SQLException {
+        query.setString(1, "user7@example.org");
+        return count(query);
+    }
+
+    private static int countBySeries(PreparedStatement query) throws SQLException {
+        query.setInt(1, 4200);
+        query.setString(2, "user7@example.org");
+        return count(query);
+    }
+
+    @Benchmark
+    public int legacyFindByEmail() throws SQLException {
+        return countByEmail(legacyByEmail);
+    }
+
+    @Benchmark
+    public int findByEmail() throws SQLException {
+        return countByEmail(byEmail);
+    }
+
+    @Benchmark
+    public int legacyFindBySeriesIdAndEmail() throws SQLException {
+        return countBySeries(legacyBySeries);
+    }
+
+    @Benchmark
+    public int findBySeriesIdAndEmail() throws SQLException {
+        return countBySeries(bySeries);
+    }
+
+    @Benchmark
+    public int legacyFindPendingOrActiveJobs() throws SQLException {
+        return count(legacyPendingOrActive);
+    }
+
+    @Benchmark
+    public int findPendingOrActiveJobs() throws SQLException {
+        return count(pendingOrActive);
+    }
+
+    @Benchmark
+    public int legacyFindInqueueJobs() throws SQLException {
+        return count(legacyInqueue);
+    }
+
+    @Benchmark
+    public int findInqueueJobs() throws SQLException {
+        return count(inqueue);
+    }
+}
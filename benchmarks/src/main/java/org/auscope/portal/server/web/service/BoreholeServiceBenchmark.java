@@ -0,0 +1,80 @@
+package org.auscope.portal.server.web.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
+import org.auscope.portal.server.web.service.BoreholeService.Mark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of BoreholeService filter and SLD generation.
+ *
+ * idCount is the size of the gml:id restriction list (eg - the boreholes matched by an NVCL analytics job).
+ * No HTTP requests are made so the service is created without a HttpServiceCaller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoreholeServiceBenchmark {
+
+    @Param({"0", "100", "5000"})
+    public int idCount;
+
+    private BoreholeService service;
+    private FilterBoundingBox bbox;
+    private List<String> ids;
+    private List<String> names;
+    private List<String> filters;
+    private List<String> colors;
+    private List<String> marks;
+
+    @Setup
+    public void setup() throws Exception {
+        service = new BoreholeService(null, null);
+        bbox = new FilterBoundingBox("EPSG:4326", new double[] {110.0, -45.0}, new double[] {155.0, -10.0});
+
+        ids = new ArrayList<String>();
+        for (int i = 0; i < idCount; i++) {
+            ids.add("gsml.borehole.WTB" + (5000 + i));
+        }
+
+        String filter = service.getFilter("WTB", "GSWA", null, null, 0, bbox, ids.isEmpty() ? null : ids, true, null);
+        names = new ArrayList<String>();
+        filters = new ArrayList<String>();
+        colors = new ArrayList<String>();
+        marks = new ArrayList<String>();
+        names.add("Hylogger boreholes");
+        filters.add(filter);
+        colors.add("#2242c7");
+        marks.add(Mark.CIRCLE.toString());
+        names.add("All boreholes");
+        filters.add("");
+        colors.add("#FF0000");
+        marks.add(Mark.SQUARE.toString());
+    }
+
+    @Benchmark
+    public String getFilter() throws Exception {
+        return service.getFilter("WTB", "GSWA", null, null, 0, bbox, ids.isEmpty() ? null : ids, true, null);
+    }
+
+    @Benchmark
+    public String getStyle() {
+        return service.getStyle(names, filters, colors, marks, null);
+    }
+}
@@ -0,0 +1,83 @@
+package org.auscope.portal.server.web.service;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.auscope.portal.server.web.service.UtmProjectionService.UtmBBoxes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jhlabs.map.proj.Projection;
+
+/**
+ * JMH benchmark (not a unit test) of bounding box throughput (boxes per second) for UTM reprojection.
+ *
+ * "uncached" creates a new Projection for every box which reproduces the previous behaviour of
+ * ReprojectionController.projectBBoxToUtm. "cached" projects one box per call through the shared projections
+ * and "batch" projects BATCH_SIZE boxes (spread over 3 zones) per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtmProjectionServiceBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private UtmProjectionService service;
+    private int[] zones;
+    private double[] north;
+    private double[] south;
+    private double[] east;
+    private double[] west;
+
+    @Setup
+    public void setup() {
+        service = new UtmProjectionService();
+        Random random = new Random(42);
+        zones = new int[BATCH_SIZE];
+        north = new double[BATCH_SIZE];
+        south = new double[BATCH_SIZE];
+        east = new double[BATCH_SIZE];
+        west = new double[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            zones[i] = 53 + (i * 3 / BATCH_SIZE);
+            west[i] = 132 + (zones[i] - 53) * 6 + random.nextDouble() * 5;
+            east[i] = west[i] + random.nextDouble() * 0.1;
+            south[i] = -40 + random.nextDouble() * 30;
+            north[i] = south[i] + random.nextDouble() * 0.1;
+        }
+    }
+
+    @Benchmark
+    public double singleUncached() {
+        Projection projection = UtmProjectionService.createUtmProjection(zones[0], UtmProjectionService.DEFAULT_ELLIPSOID);
+        Rectangle2D rect = new Rectangle2D.Double(east[0], south[0], (west[0] - east[0]), (north[0] - south[0]));
+        return projection.transform(rect).getMinY();
+    }
+
+    @Benchmark
+    public int singleCached() {
+        UtmBBoxes result = service.projectBBoxes(new int[] {zones[0]}, UtmProjectionService.DEFAULT_ELLIPSOID,
+                new double[] {north[0]}, new double[] {south[0]}, new double[] {east[0]}, new double[] {west[0]});
+        return result.getMinNorthings()[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int batch() {
+        return service.projectBBoxes(zones, UtmProjectionService.DEFAULT_ELLIPSOID, north, south, east, west).size();
+    }
+}
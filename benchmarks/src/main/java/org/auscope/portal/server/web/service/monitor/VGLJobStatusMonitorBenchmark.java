@@ -0,0 +1,250 @@
+package org.auscope.portal.server.web.service.monitor;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.auscope.portal.core.cloud.CloudFileInformation;
+import org.auscope.portal.core.cloud.CloudFileOwner;
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.services.cloud.CloudStorageService;
+import org.auscope.portal.core.services.cloud.monitor.JobStatusChangeListener;
+import org.auscope.portal.core.services.cloud.monitor.JobStatusMonitor;
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
+import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.auscope.portal.server.web.security.ANVGLUser;
+import org.auscope.portal.server.web.security.NCIDetails;
+import org.auscope.portal.server.web.service.ANVGLUserService;
+import org.auscope.portal.server.web.service.NCIDetailsService;
+import org.auscope.portal.server.web.service.cloud.CloudComputeServiceNci;
+import org.auscope.portal.server.web.service.cloud.CloudStorageServiceNci;
+import org.auscope.portal.server.web.service.cloud.SshCloudConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.jcraft.jsch.Session;
+
+/**
+ * JMH benchmark of a single VGLJobStatusMonitor poll cycle for increasing numbers of active jobs.
+ *
+ * The database, user lookups, credential decryption, SFTP listings and qstat calls are all faked with a
+ * fixed simulated latency so the numbers reflect the number of remote round trips made by a cycle
+ * rather than the speed of any real service. Each size is run sequentially (one qstat per job, the
+ * previous behaviour) and with a bounded pool and batched qstat.
+ *
+ * A cycle over 10,000 sequential jobs takes tens of seconds so every iteration times a single cycle.
+ * The benchmark lives in the monitor's package as VGLJobStatusMonitor.executeInternal is protected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class VGLJobStatusMonitorBenchmark {
+
+    private static final int USER_COUNT = 50;
+    private static final int POOL_SIZE = 8;
+    private static final long USER_LOOKUP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final long NCI_DETAILS_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long LIST_FILES_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long QSTAT_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /** Number of pending/active jobs polled by each cycle */
+    @Param({"10", "1000", "10000"})
+    public int jobCount;
+
+    /** Whether groups are polled on a bounded pool with a single qstat per group (rather than one per job) */
+    @Param({"false", "true"})
+    public boolean parallelAndBatched;
+
+    private FakeSshCloudConnector connector;
+    private FakeStorageService storageService;
+    private CloudComputeServiceNci computeService;
+    private ThreadPoolTaskExecutor executor;
+    private VGLJobStatusMonitor monitor;
+
+    private static void simulateLatency(long nanos) {
+        long end = System.nanoTime() + nanos;
+        for (long remaining = nanos; remaining > 0; remaining = end - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Answers any "qstat -s id1 id2 ..." with a running row for every id
+     */
+    private static class FakeSshCloudConnector extends SshCloudConnector {
+        public FakeSshCloudConnector() {
+            super("localhost", DEFAULT_SSH_PORT, null);
+        }
+
+        @Override
+        public Session getSession(CloudFileOwner job) {
+            return null;
+        }
+
+        @Override
+        public void releaseSession(Session session) {
+        }
+
+        @Override
+        public ExecResult executeCommand(Session session, String command) {
+            simulateLatency(QSTAT_NANOS);
+            StringBuilder out = new StringBuilder();
+            String[] parts = command.split(" ");
+            for (int i = 2; i < parts.length; i++) {
+                out.append(parts[i]).append("    user1    normal   nci-run.jo  12345   1   1    4gb 01:00 R 00:10\n");
+            }
+            return new ExecResult(out.toString(), "", 0);
+        }
+    }
+
+    private static class FakeStorageService extends CloudStorageServiceNci {
+        public FakeStorageService(SshCloudConnector connector) {
+            super("localhost", "nci", connector);
+            setId("fake-storage");
+        }
+
+        @Override
+        public InputStream getJobFile(CloudFileOwner job, String fileName) {
+            return null;
+        }
+
+        @Override
+        public List<String> getJobFileContents(List<? extends CloudFileOwner> jobs, String fileName) {
+            return new ArrayList<String>(Arrays.asList(new String[jobs.size()]));
+        }
+
+        @Override
+        public CloudFileInformation[] listJobFiles(CloudFileOwner job) {
+            simulateLatency(LIST_FILES_NANOS);
+            return new CloudFileInformation[0];
+        }
+    }
+
+    private static class FakeJobManager extends VEGLJobManager {
+        private final List<VEGLJob> jobs;
+        private final Map<Integer, VEGLJob> jobsById = new HashMap<Integer, VEGLJob>();
+
+        public FakeJobManager(List<VEGLJob> jobs) {
+            this.jobs = jobs;
+            for (VEGLJob job : jobs) {
+                jobsById.put(job.getId(), job);
+            }
+        }
+
+        @Override
+        public List<VEGLJob> getPendingOrActiveJobs() {
+            return jobs;
+        }
+
+        @Override
+        public VEGLJob getJobById(int jobId, String stsArn, String clientSecret, String s3Role, String userEmail, String nciUser, String nciProj, String nciKey) {
+            return jobsById.get(jobId);
+        }
+    }
+
+    private static class FakeUserService extends ANVGLUserService {
+        @Override
+        public ANVGLUser getByEmail(String email) {
+            simulateLatency(USER_LOOKUP_NANOS);
+            ANVGLUser user = new ANVGLUser();
+            user.setEmail(email);
+            return user;
+        }
+    }
+
+    private static class FakeNciDetailsService extends NCIDetailsService {
+        @Override
+        public NCIDetails getByUser(ANVGLUser user) {
+            simulateLatency(NCI_DETAILS_NANOS);
+            NCIDetails details = new NCIDetails();
+            details.setUsername(user.getEmail());
+            details.setProject("ab12");
+            details.setKey("fake-key");
+            return details;
+        }
+    }
+
+    private static List<VEGLJob> createJobs(int count, String computeServiceId, String storageServiceId) {
+        List<VEGLJob> jobs = new ArrayList<VEGLJob>(count);
+        for (int i = 0; i < count; i++) {
+            VEGLJob job = new VEGLJob();
+            job.setId(i);
+            job.setStatus(JobBuilderController.STATUS_PENDING);
+            job.setEmailAddress("user" + (i % USER_COUNT) + "@example.com");
+            job.setComputeServiceId(computeServiceId);
+            job.setStorageServiceId(storageServiceId);
+            job.setComputeInstanceId(i + ".gadi-pbs");
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    @Setup(Level.Trial)
+    public void setupServices() {
+        connector = new FakeSshCloudConnector();
+        storageService = new FakeStorageService(connector);
+        computeService = new CloudComputeServiceNci(storageService, "localhost", connector);
+        computeService.setId("fake-compute");
+
+        if (parallelAndBatched) {
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(POOL_SIZE);
+            executor.setMaxPoolSize(POOL_SIZE);
+            executor.initialize();
+        }
+    }
+
+    /**
+     * Every cycle polls a fresh set of jobs (and reader) so nothing is carried over from the previous cycle
+     */
+    @Setup(Level.Iteration)
+    public void setupMonitor() {
+        FakeJobManager jobManager = new FakeJobManager(createJobs(jobCount, computeService.getId(), storageService.getId()));
+        VGLJobStatusAndLogReader reader = new VGLJobStatusAndLogReader(jobManager,
+                new CloudStorageService[] {storageService}, new CloudComputeService[] {computeService});
+
+        monitor = new VGLJobStatusMonitor();
+        monitor.setJobManager(jobManager);
+        monitor.setJobStatusMonitor(new JobStatusMonitor(reader, new JobStatusChangeListener[0]));
+        monitor.setJobUserService(new FakeUserService());
+        monitor.setNciDetailsService(new FakeNciDetailsService());
+        if (parallelAndBatched) {
+            monitor.setExecutor(executor);
+            monitor.setCloudComputeServices(new CloudComputeService[] {computeService});
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void pollCycle() throws Exception {
+        monitor.executeInternal(null);
+    }
+}
@@ -0,0 +1,97 @@
+package org.auscope.portal.server.web.service.sld;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH comparison of the ways a polygon style SLD can be produced:
+ *
+ * concatenation - the String concatenation GenericController.getStyle used before SLDTemplate
+ * template - rendering a compiled SLDTemplate
+ * cacheHit - an SLDStyleCache lookup for a style that has already been rendered
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SLDRenderingBenchmark {
+
+    private static final String HEADER = "<sld:StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\" xsi:schemaLocation=\"http://schemas.opengis.net/sld/1.0.0/StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">";
+
+    private static final SLDTemplate TEMPLATE = SLDTemplate.compile(HEADER
+            + "<sld:NamedLayer><sld:Name>[layerName]</sld:Name><sld:UserStyle><sld:Name>portal-style</sld:Name><sld:FeatureTypeStyle>"
+            + "<sld:Rule>[filter]<sld:PolygonSymbolizer>"
+            + "<sld:Fill><sld:CssParameter name=\"fill\">[color]</sld:CssParameter><sld:CssParameter name=\"fill-opacity\">0.1</sld:CssParameter></sld:Fill>"
+            + "<sld:Stroke><sld:CssParameter name=\"stroke\">[color]</sld:CssParameter><sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter></sld:Stroke>"
+            + "</sld:PolygonSymbolizer></sld:Rule>"
+            + "</sld:FeatureTypeStyle></sld:UserStyle></sld:NamedLayer></sld:StyledLayerDescriptor>",
+            "layerName", "filter", "color");
+
+    /** The number of OR'd conditions in the filter */
+    @Param({"1", "50"})
+    public int filterTerms;
+
+    private String layerName = "gsmlp:BoreholeView";
+    private String color = "#FF0000";
+    private String filter;
+    private SLDStyleCache cache;
+    private Callable<String> renderer;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder sb = new StringBuilder("<ogc:Filter><ogc:Or>");
+        for (int i = 0; i < filterTerms; i++) {
+            sb.append("<ogc:PropertyIsLike escapeChar=\"!\" matchCase=\"false\" singleChar=\"#\" wildCard=\"*\">");
+            sb.append("<ogc:PropertyName>gsmlp:name</ogc:PropertyName><ogc:Literal>*feature").append(i).append("*</ogc:Literal>");
+            sb.append("</ogc:PropertyIsLike>");
+        }
+        sb.append("</ogc:Or></ogc:Filter>");
+        filter = sb.toString();
+
+        cache = new SLDStyleCache();
+        renderer = new Callable<String>() {
+            @Override
+            public String call() {
+                return TEMPLATE.render(layerName, filter, color);
+            }
+        };
+        cache.getStyle(renderer, "/doGenericFilterStyle.do", layerName, filter, color);
+    }
+
+    @Benchmark
+    public String concatenation() {
+        String header = HEADER
+                + "<sld:NamedLayer>" + "<sld:Name>" + layerName + "</sld:Name>" + "<sld:UserStyle>" + "<sld:Name>portal-style</sld:Name>"
+                + "<sld:FeatureTypeStyle>";
+        String tail = "</sld:FeatureTypeStyle>" + "</sld:UserStyle>" + "</sld:NamedLayer>" + "</sld:StyledLayerDescriptor>";
+        String rule = "<sld:Rule>" + filter + "<sld:PolygonSymbolizer>"
+                + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">" + color + "</sld:CssParameter>" + "<sld:CssParameter name=\"fill-opacity\">0.1</sld:CssParameter>" + "</sld:Fill>"
+                + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">" + color + "</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
+                + "</sld:PolygonSymbolizer>" + "</sld:Rule>";
+        return header + rule + tail;
+    }
+
+    @Benchmark
+    public String template() {
+        return TEMPLATE.render(layerName, filter, color);
+    }
+
+    @Benchmark
+    public byte[] cacheHit() throws Exception {
+        return cache.getStyle(renderer, "/doGenericFilterStyle.do", layerName, filter, color).getBytes();
+    }
+}
@@ -0,0 +1,103 @@
+package org.auscope.portal.view.knownlayer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.auscope.portal.core.view.knownlayer.KnownLayer;
+import org.auscope.portal.server.config.KnownLayers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * JMH benchmark (not a unit test) of the time taken to start a Spring context containing every known layer.
+ *
+ * "eagerBeans" reproduces the previous configuration - a singleton bean per known layer, each created (with its
+ * selector and filters) as the context is refreshed. The previous configuration also declared a bean per selector
+ * so this understates its cost. "registry" starts a context with KnownLayers and a KnownLayerList of every layer (as
+ * the profile configurations do) and "registryAllUsed" then creates every layer, as happens once KnownLayerService
+ * first updates its cache.
+ *
+ * Run with -prof gc to compare the memory allocated by each startup (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnownLayerRegistryBenchmark {
+
+    private KnownLayerRegistry definitions;
+    private String[] ids;
+
+    @Setup
+    public void setup() throws IOException {
+        definitions = KnownLayerRegistry.load(new ClassPathResource(KnownLayers.KNOWN_LAYERS_RESOURCE));
+        ids = definitions.getIds().toArray(new String[definitions.size()]);
+    }
+
+    @Benchmark
+    public int eagerBeans() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        try {
+            for (String id : ids) {
+                final KnownLayerDefinition definition = definitions.getDefinition(id);
+                context.registerBean(id, KnownLayer.class, new Supplier<KnownLayer>() {
+                    @Override
+                    public KnownLayer get() {
+                        return KnownLayerRegistry.createLayer(definition);
+                    }
+                });
+            }
+            context.refresh();
+            return context.getBeanDefinitionCount();
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int registry() {
+        return startRegistryContext(false);
+    }
+
+    @Benchmark
+    public int registryAllUsed() {
+        return startRegistryContext(true);
+    }
+
+    private int startRegistryContext(boolean useAll) {
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        try {
+            context.register(KnownLayers.class);
+            context.registerBean("knownTypes", KnownLayerList.class, new Supplier<KnownLayerList>() {
+                @Override
+                public KnownLayerList get() {
+                    return context.getBean(KnownLayerRegistry.class).getLayers(ids);
+                }
+            });
+            context.refresh();
+
+            KnownLayerList knownTypes = context.getBean(KnownLayerList.class);
+            if (useAll) {
+                for (KnownLayer layer : knownTypes) {
+                    layer.getId();
+                }
+            }
+            return context.getBean(KnownLayerRegistry.class).getMaterialisedCount();
+        } finally {
+            context.close();
+        }
+    }
+}
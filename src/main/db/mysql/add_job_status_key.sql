@@ -0,0 +1,8 @@
+ALTER TABLE `jobs` ADD COLUMN `statusKey` varchar(64) DEFAULT NULL AFTER `status`;
+
+UPDATE `jobs` SET `statusKey` = LOWER(TRIM(`status`));
+
+CREATE INDEX `JOB_STATUS` ON `jobs` (`statusKey`);
+CREATE INDEX `JOB_LIST_STATUS` ON `jobs` (`emailAddress`, `statusKey`);
+CREATE INDEX `JOB_SERIES_EMAIL` ON `jobs` (`seriesId`, `emailAddress`);
+DROP INDEX `JOB_LIST` ON `jobs`;
@@ -0,0 +1,18 @@
+CREATE TABLE `job_submissions` (
+    `id` int(11) NOT NULL AUTO_INCREMENT,
+    `jobId` int(11) NOT NULL,
+    `computeServiceId` varchar(255) NOT NULL,
+    `userEmail` varchar(255) DEFAULT NULL,
+    `userData` longtext DEFAULT NULL,
+    `queuedDate` datetime DEFAULT NULL,
+    `nextAttemptDate` datetime DEFAULT NULL,
+    `attempts` int(11) NOT NULL DEFAULT 0,
+    `leaseOwner` varchar(64) DEFAULT NULL,
+    `leaseExpiryDate` datetime DEFAULT NULL,
+    `lastError` varchar(1000) DEFAULT NULL,
+    PRIMARY KEY (`id`),
+    KEY `JOB_SUBMISSIONS_JOB` (`jobId`, `computeServiceId`),
+    FOREIGN KEY `jobId_submissions` (`jobId`)
+        REFERENCES jobs(`id`)
+        ON DELETE CASCADE
+);
@@ -47,6 +47,7 @@ CREATE TABLE `jobs` (
   `user` varchar(255) DEFAULT NULL,
   `submitDate` datetime DEFAULT NULL,
   `status` varchar(255) DEFAULT NULL,
+  `statusKey` varchar(64) DEFAULT NULL,
   `computeVmId` varchar(255) DEFAULT NULL,
   `computeInstanceId` varchar(255) DEFAULT NULL,
   `computeInstanceType` varchar(255) DEFAULT NULL,
@@ -70,7 +71,9 @@ CREATE TABLE `jobs` (
   FOREIGN KEY `SERIES` (`seriesId`)
      REFERENCES series(`id`)
      ON DELETE CASCADE,
-  KEY `JOB_LIST` (`emailAddress`,`status`,`folderId`),
+  KEY `JOB_STATUS` (`statusKey`),
+  KEY `JOB_LIST_STATUS` (`emailAddress`,`statusKey`),
+  KEY `JOB_SERIES_EMAIL` (`seriesId`,`emailAddress`),
   FOREIGN KEY (`emailAddress`)
      REFERENCES users(`email`)
      ON DELETE CASCADE ON UPDATE CASCADE
@@ -220,3 +223,22 @@ CREATE TABLE `job_annotations` (
         REFERENCES jobs(`id`)
         ON DELETE CASCADE
 );
+
+CREATE TABLE `job_submissions` (
+    `id` int(11) NOT NULL AUTO_INCREMENT,
+    `jobId` int(11) NOT NULL,
+    `computeServiceId` varchar(255) NOT NULL,
+    `userEmail` varchar(255) DEFAULT NULL,
+    `userData` longtext DEFAULT NULL,
+    `queuedDate` datetime DEFAULT NULL,
+    `nextAttemptDate` datetime DEFAULT NULL,
+    `attempts` int(11) NOT NULL DEFAULT 0,
+    `leaseOwner` varchar(64) DEFAULT NULL,
+    `leaseExpiryDate` datetime DEFAULT NULL,
+    `lastError` varchar(1000) DEFAULT NULL,
+    PRIMARY KEY (`id`),
+    KEY `JOB_SUBMISSIONS_JOB` (`jobId`, `computeServiceId`),
+    FOREIGN KEY `jobId_submissions` (`jobId`)
+        REFERENCES jobs(`id`)
+        ON DELETE CASCADE
+);
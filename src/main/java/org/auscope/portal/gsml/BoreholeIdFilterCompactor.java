@@ -0,0 +1,355 @@
+package org.auscope.portal.gsml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.auscope.portal.server.domain.nvcldataservice.BoreholeIdSet;
+
+/**
+ * Generates compact OGC filter fragments that match a (potentially very large) list of borehole identifiers.
+ *
+ * A naive filter contains a PropertyIsEqualTo for every identifier which, for analytics jobs that mark
+ * thousands of boreholes, produces filters that are megabytes in size. Identifiers are usually a shared
+ * stem followed by a number (eg - http://example.org/borehole/GSV/1234) so consecutive numbers with the same
+ * stem and digit count are collapsed into a single range predicate:
+ *
+ * PropertyIsBetween (stem + first, stem + last) AND PropertyIsLike (stem + all but the last digit + singleChar)
+ *
+ * A range never crosses a multiple of ten. The bounds then differ only in their last character, the PropertyIsLike
+ * pins everything before it (and the length) and so the (lexical) PropertyIsBetween can only admit a last character
+ * that lies between two digits - ie a digit within the range. A wider range can't be matched exactly: the singleChar
+ * wildcard matches any character, so (for example) a 1009 to 1011 range would also match 100Z. Remaining identifiers
+ * are matched with PropertyIsEqualTo or, where the service supports it, GeoServer's "in" function.
+ *
+ * A range predicate is much longer than a single "in" function value so a run is only collapsed when its range
+ * predicate is shorter than matching each of its identifiers individually.
+ *
+ * The resulting predicates are split into one or more filter fragments of at most maxPredicatesPerFilter
+ * predicates each (OR'd together) - a service that can't handle ranges still gets filters of a bounded size.
+ */
+public class BoreholeIdFilterCompactor {
+
+    /** The default maximum number of predicates (or in function values) in a single filter fragment */
+    public static final int DEFAULT_MAX_PREDICATES = 500;
+    /** Identifiers with more trailing digits than this are never part of a range */
+    private static final int MAX_RANGE_DIGITS = 18;
+    /** The length of an "in" function value less the identifier */
+    private static final int IN_VALUE_OVERHEAD = "<ogc:Literal></ogc:Literal>".length();
+
+    /** Plain OGC Filter 1.1 - ranges but no GeoServer functions */
+    public static final BoreholeIdFilterCompactor OGC_1_1 = new BoreholeIdFilterCompactor(true, false, DEFAULT_MAX_PREDICATES);
+    /** GeoServer - ranges and the "in" function */
+    public static final BoreholeIdFilterCompactor GEOSERVER = new BoreholeIdFilterCompactor(true, true, DEFAULT_MAX_PREDICATES);
+    /** Services that only handle PropertyIsEqualTo - nothing is compacted but the filters are still chunked */
+    public static final BoreholeIdFilterCompactor EQUALITY_ONLY = new BoreholeIdFilterCompactor(false, false, DEFAULT_MAX_PREDICATES);
+
+    private final boolean rangesSupported;
+    private final boolean inFunctionSupported;
+    private final int maxPredicatesPerFilter;
+
+    /**
+     * The output of a compaction
+     */
+    public static class CompactedIds {
+        private final List<String> fragments;
+        private final int idCount;
+        private final int predicateCount;
+        private final long originalLength;
+        private final long compactedLength;
+
+        public CompactedIds(List<String> fragments, int idCount, int predicateCount, long originalLength) {
+            this.fragments = fragments;
+            this.idCount = idCount;
+            this.predicateCount = predicateCount;
+            this.originalLength = originalLength;
+            long length = 0;
+            for (String fragment : fragments) {
+                length += fragment.length();
+            }
+            this.compactedLength = length;
+        }
+
+        /**
+         * The filter fragments - an identifier matches if it matches any of them. Empty if there were no identifiers.
+         * @return
+         */
+        public List<String> getFragments() {
+            return fragments;
+        }
+
+        /**
+         * The number of distinct identifiers that were compacted
+         * @return
+         */
+        public int getIdCount() {
+            return idCount;
+        }
+
+        /**
+         * The number of predicates across all fragments
+         * @return
+         */
+        public int getPredicateCount() {
+            return predicateCount;
+        }
+
+        /**
+         * The length (in characters) of a single filter with a PropertyIsEqualTo for every identifier
+         * @return
+         */
+        public long getOriginalLength() {
+            return originalLength;
+        }
+
+        /**
+         * The total length (in characters) of the compacted fragments
+         * @return
+         */
+        public long getCompactedLength() {
+            return compactedLength;
+        }
+
+        /**
+         * The fraction of the original length that compaction removed (0 if nothing was removed)
+         * @return
+         */
+        public double getReduction() {
+            return originalLength == 0 ? 0 : 1.0 - ((double) compactedLength / (double) originalLength);
+        }
+    }
+
+    /**
+     * @param rangesSupported Whether runs of consecutive identifiers can be matched with range predicates
+     * @param inFunctionSupported Whether the service supports GeoServer's "in" function
+     * @param maxPredicatesPerFilter The maximum number of predicates (or in function values) in a single fragment
+     */
+    public BoreholeIdFilterCompactor(boolean rangesSupported, boolean inFunctionSupported, int maxPredicatesPerFilter) {
+        if (maxPredicatesPerFilter < 1) {
+            throw new IllegalArgumentException("maxPredicatesPerFilter must be positive");
+        }
+        this.rangesSupported = rangesSupported;
+        this.inFunctionSupported = inFunctionSupported;
+        this.maxPredicatesPerFilter = maxPredicatesPerFilter;
+    }
+
+    /**
+     * Whether runs of consecutive identifiers are matched with range predicates
+     * @return
+     */
+    public boolean isRangesSupported() {
+        return rangesSupported;
+    }
+
+    /**
+     * Whether identifiers are matched with GeoServer's "in" function
+     * @return
+     */
+    public boolean isInFunctionSupported() {
+        return inFunctionSupported;
+    }
+
+    /**
+     * The maximum number of predicates (or in function values) in a single fragment
+     * @return
+     */
+    public int getMaxPredicatesPerFilter() {
+        return maxPredicatesPerFilter;
+    }
+
+    /**
+     * A group of identifiers with the same stem and the same number of trailing digits
+     */
+    private static class NumberedGroup {
+        private final String stem;
+        private final int digits;
+        private final List<Long> values = new ArrayList<Long>();
+
+        public NumberedGroup(String stem, int digits) {
+            this.stem = stem;
+            this.digits = digits;
+        }
+
+        public String format(long value) {
+            StringBuilder sb = new StringBuilder(stem.length() + digits).append(stem);
+            String number = Long.toString(value);
+            for (int i = number.length(); i < digits; i++) {
+                sb.append('0');
+            }
+            return sb.append(number).toString();
+        }
+    }
+
+    /**
+     * Generates filter fragments matching exactly the identifiers in ids against propertyName.
+     *
+     * @param propertyName The property holding the identifier (eg - gsmlp:identifier)
+     * @param ids Null and empty identifiers are ignored
+     * @return
+     */
+    public CompactedIds compact(String propertyName, Collection<String> ids) {
+        BoreholeIdSet sorted = BoreholeIdSet.copyOf(ids);
+        String escapedProperty = escapeXml(propertyName);
+
+        //Group numbered identifiers by stem and digit count. Within a group the sorted
+        //(lexical) order is also numeric order as every value has the same number of digits
+        List<String> singles = new ArrayList<String>();
+        Map<String, NumberedGroup> groups = new LinkedHashMap<String, NumberedGroup>();
+        long originalLength = 0;
+        int idCount = 0;
+        int equalsOverhead = equalsPredicate(escapedProperty, "").length();
+        for (String id : sorted) {
+            if (id.isEmpty()) {
+                continue;
+            }
+            idCount++;
+            originalLength += equalsOverhead + escapeXml(id).length();
+
+            int digitStart = id.length();
+            while (digitStart > 0 && id.charAt(digitStart - 1) >= '0' && id.charAt(digitStart - 1) <= '9') {
+                digitStart--;
+            }
+            int digits = id.length() - digitStart;
+            if (!rangesSupported || digits == 0 || digits > MAX_RANGE_DIGITS) {
+                singles.add(id);
+                continue;
+            }
+
+            String stem = id.substring(0, digitStart);
+            String key = digits + ":" + stem;
+            NumberedGroup group = groups.get(key);
+            if (group == null) {
+                group = new NumberedGroup(stem, digits);
+                groups.put(key, group);
+            }
+            group.values.add(Long.parseLong(id.substring(digitStart)));
+        }
+        if (idCount > 1) {
+            originalLength += "<ogc:Or></ogc:Or>".length();
+        }
+
+        //Collapse runs of consecutive values into ranges (where that's shorter)
+        List<String> predicates = new ArrayList<String>();
+        for (NumberedGroup group : groups.values()) {
+            int start = 0;
+            while (start < group.values.size()) {
+                int end = start + 1;
+                while (end < group.values.size() && group.values.get(end) == group.values.get(end - 1) + 1
+                        && group.values.get(end) / 10 == group.values.get(start) / 10) {
+                    end++;
+                }
+
+                String range = null;
+                if (end - start > 1) {
+                    range = rangePredicate(escapedProperty, group, group.values.get(start), group.values.get(end - 1));
+                    long singlesLength = 0;
+                    for (int i = start; i < end; i++) {
+                        int idLength = escapeXml(group.format(group.values.get(i))).length();
+                        singlesLength += idLength + (inFunctionSupported ? IN_VALUE_OVERHEAD : equalsOverhead);
+                    }
+                    if (range.length() >= singlesLength) {
+                        range = null;
+                    }
+                }
+
+                if (range != null) {
+                    predicates.add(range);
+                } else {
+                    for (int i = start; i < end; i++) {
+                        singles.add(group.format(group.values.get(i)));
+                    }
+                }
+                start = end;
+            }
+        }
+
+        if (inFunctionSupported) {
+            for (int i = 0; i < singles.size(); i += maxPredicatesPerFilter) {
+                predicates.add(inPredicate(escapedProperty, singles.subList(i, Math.min(singles.size(), i + maxPredicatesPerFilter))));
+            }
+        } else {
+            for (String id : singles) {
+                predicates.add(equalsPredicate(escapedProperty, escapeXml(id)));
+            }
+        }
+
+        List<String> fragments = new ArrayList<String>();
+        for (int i = 0; i < predicates.size(); i += maxPredicatesPerFilter) {
+            List<String> chunk = predicates.subList(i, Math.min(predicates.size(), i + maxPredicatesPerFilter));
+            if (chunk.size() == 1) {
+                fragments.add(chunk.get(0));
+            } else {
+                StringBuilder sb = new StringBuilder("<ogc:Or>");
+                for (String predicate : chunk) {
+                    sb.append(predicate);
+                }
+                fragments.add(sb.append("</ogc:Or>").toString());
+            }
+        }
+
+        return new CompactedIds(fragments, idCount, predicates.size(), originalLength);
+    }
+
+    private static String equalsPredicate(String escapedProperty, String escapedLiteral) {
+        return "<ogc:PropertyIsEqualTo matchCase=\"true\"><ogc:PropertyName>" + escapedProperty + "</ogc:PropertyName><ogc:Literal>"
+                + escapedLiteral + "</ogc:Literal></ogc:PropertyIsEqualTo>";
+    }
+
+    private static String inPredicate(String escapedProperty, List<String> ids) {
+        StringBuilder sb = new StringBuilder("<ogc:PropertyIsEqualTo><ogc:Function name=\"in\"><ogc:PropertyName>");
+        sb.append(escapedProperty).append("</ogc:PropertyName>");
+        for (String id : ids) {
+            sb.append("<ogc:Literal>").append(escapeXml(id)).append("</ogc:Literal>");
+        }
+        return sb.append("</ogc:Function><ogc:Literal>true</ogc:Literal></ogc:PropertyIsEqualTo>").toString();
+    }
+
+    private static String rangePredicate(String escapedProperty, NumberedGroup group, long first, long last) {
+        //first and last only differ in their final digit
+        String lower = group.format(first);
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < lower.length() - 1; i++) {
+            char c = lower.charAt(i);
+            if (c == '*' || c == '#' || c == '!') {
+                pattern.append('!');
+            }
+            pattern.append(c);
+        }
+        pattern.append('#');
+
+        return "<ogc:And>"
+                + "<ogc:PropertyIsBetween><ogc:PropertyName>" + escapedProperty + "</ogc:PropertyName>"
+                + "<ogc:LowerBoundary><ogc:Literal>" + escapeXml(lower) + "</ogc:Literal></ogc:LowerBoundary>"
+                + "<ogc:UpperBoundary><ogc:Literal>" + escapeXml(group.format(last)) + "</ogc:Literal></ogc:UpperBoundary>"
+                + "</ogc:PropertyIsBetween>"
+                + "<ogc:PropertyIsLike wildCard=\"*\" singleChar=\"#\" escapeChar=\"!\" matchCase=\"true\"><ogc:PropertyName>" + escapedProperty + "</ogc:PropertyName>"
+                + "<ogc:Literal>" + escapeXml(pattern.toString()) + "</ogc:Literal></ogc:PropertyIsLike>"
+                + "</ogc:And>";
+    }
+
+    private static String escapeXml(String s) {
+        int i = 0;
+        while (i < s.length() && "&<>\"'".indexOf(s.charAt(i)) < 0) {
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
+
+        StringBuilder sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '&': sb.append("&amp;"); break;
+            case '<': sb.append("&lt;"); break;
+            case '>': sb.append("&gt;"); break;
+            case '"': sb.append("&quot;"); break;
+            case '\'': sb.append("&apos;"); break;
+            default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
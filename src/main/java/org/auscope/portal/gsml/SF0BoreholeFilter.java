@@ -19,6 +19,7 @@ import org.springframework.stereotype.Service;
 public class SF0BoreholeFilter extends BoreholeFilter {
     protected Boolean justNVCL;
     protected List<String> identifiers;
+    protected String identifiersFragment;
     // ----------------------------------------------------------- Constructors
 
     public SF0BoreholeFilter() {
@@ -41,6 +42,16 @@ public class SF0BoreholeFilter extends BoreholeFilter {
 
     // --------------------------------------------------------- Public Methods
 
+    /**
+     * Sets a pre-generated filter fragment (eg - from a BoreholeIdFilterCompactor) that will be used to restrict
+     * gsmlp:identifier instead of a PropertyIsEqualTo for every member of identifiers.
+     *
+     * @param identifiersFragment
+     */
+    public void setIdentifiersFragment(String identifiersFragment) {
+        this.identifiersFragment = identifiersFragment;
+    }
+
     @Override
     public String getFilterStringAllRecords() {
         return this.generateFilter(this.generateFilterFragment());
@@ -117,7 +128,9 @@ public class SF0BoreholeFilter extends BoreholeFilter {
                             .toArray(new String[idFragments.size()])));
         }
 
-        if (this.identifiers != null && !this.identifiers.isEmpty()) {
+        if (this.identifiersFragment != null && !this.identifiersFragment.isEmpty()) {
+            parameterFragments.add(this.identifiersFragment);
+        } else if (this.identifiers != null && !this.identifiers.isEmpty()) {
             List<String> compareFragments = new ArrayList<String>();
             for (String identifier : identifiers) {
                 if (identifier != null && identifier.length() > 0) {
@@ -0,0 +1,257 @@
+package org.auscope.portal.mscl;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.auscope.portal.core.services.PortalServiceException;
+
+/**
+ * Streaming parser for the mscl:scanned_data WFS responses returned by MSCLWFSService.getObservations.
+ *
+ * The response is read with StAX and only the depth and the requested metrics of each mscl:scanned_data feature are
+ * kept (as floats in growable primitive columns). No DOM, XPath or per observation maps are created. Features that
+ * have no depth or none of the requested metrics are skipped. The resulting series is sorted by depth.
+ *
+ * Instances are immutable and thread safe.
+ */
+public class MSCLObservationParser {
+
+    /** The namespace of the MSCL observations feature type */
+    public static final String MSCL_NAMESPACE = "http://example.org/mscl";
+    /** The local name of the MSCL observations feature type */
+    public static final String SCANNED_DATA = "scanned_data";
+    /** The local name of the depth of each observation */
+    public static final String DEPTH = "depth";
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final String[] metrics;
+
+    /**
+     * @param metrics The local names of the mscl:scanned_data children to extract (depth is always extracted).
+     *            Duplicates are ignored.
+     */
+    public MSCLObservationParser(String[] metrics) {
+        Set<String> unique = new LinkedHashSet<String>(Arrays.asList(metrics));
+        unique.remove(DEPTH);
+        this.metrics = unique.toArray(new String[unique.size()]);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Gets the metrics that will be extracted (in the same order as the columns of the parsed series)
+     * @return
+     */
+    public String[] getMetrics() {
+        return Arrays.copyOf(metrics, metrics.length);
+    }
+
+    /**
+     * Parses a WFS response into a depth ordered series
+     *
+     * @param xml The WFS response. It will be read until the end of the document but will not be closed
+     * @return
+     * @throws PortalServiceException If the response is malformed, has a non numeric value or is an OWS exception report
+     */
+    public MSCLObservationSeries parse(InputStream xml) throws PortalServiceException {
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(xml);
+            return parse(reader);
+        } catch (XMLStreamException ex) {
+            throw new PortalServiceException("Unable to parse MSCL observations: " + ex.getMessage(), ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    //Nothing else we can do - the underlying stream is the caller's to close
+                }
+            }
+        }
+    }
+
+    private MSCLObservationSeries parse(XMLStreamReader reader) throws XMLStreamException, PortalServiceException {
+        reader.nextTag();
+        String rootName = reader.getLocalName();
+        if (rootName.equals("ExceptionReport") || rootName.equals("ServiceExceptionReport")) {
+            throw new PortalServiceException(readExceptionText(reader));
+        }
+
+        Columns columns = new Columns(metrics.length);
+        float[] row = new float[metrics.length];
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && SCANNED_DATA.equals(reader.getLocalName())
+                    && MSCL_NAMESPACE.equals(reader.getNamespaceURI())) {
+                Arrays.fill(row, Float.NaN);
+                float depth = readScannedData(reader, row);
+                if (!Float.isNaN(depth)) {
+                    columns.add(depth, row);
+                }
+            }
+        }
+
+        return columns.toSeries(metrics);
+    }
+
+    /**
+     * Reads the direct children of the current mscl:scanned_data element into row, leaving the reader at its end
+     * element.
+     *
+     * @return The depth or NaN if this observation has no depth or none of the requested metrics
+     */
+    private float readScannedData(XMLStreamReader reader, float[] row) throws XMLStreamException, PortalServiceException {
+        float depth = Float.NaN;
+        boolean hasMetric = false;
+        int level = 0;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (level == 0) {
+                    return hasMetric ? depth : Float.NaN;
+                }
+                level--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if (level > 0 || !MSCL_NAMESPACE.equals(reader.getNamespaceURI())) {
+                    level++;
+                    continue;
+                }
+
+                String name = reader.getLocalName();
+                if (DEPTH.equals(name)) {
+                    depth = parseValue(name, reader.getElementText());
+                    continue;
+                }
+
+                int metric = indexOf(name);
+                if (metric < 0) {
+                    level++;
+                } else {
+                    row[metric] = parseValue(name, reader.getElementText());
+                    hasMetric = true;
+                }
+            }
+        }
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < metrics.length; i++) {
+            if (metrics[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static float parseValue(String name, String text) throws PortalServiceException {
+        try {
+            return Float.parseFloat(text);
+        } catch (NumberFormatException ex) {
+            throw new PortalServiceException(String.format("Invalid value '%1$s' for mscl:%2$s", text, name), ex);
+        }
+    }
+
+    /**
+     * Concatenates every ExceptionText/ServiceException in the exception report that reader is positioned at
+     */
+    private static String readExceptionText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder message = new StringBuilder();
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT
+                    && (reader.getLocalName().equals("ExceptionText") || reader.getLocalName().equals("ServiceException"))) {
+                if (message.length() > 0) {
+                    message.append('\n');
+                }
+                message.append(reader.getElementText().trim());
+            }
+        }
+        return message.length() == 0 ? "The service returned an exception report" : message.toString();
+    }
+
+    /**
+     * Growable primitive columns for the depth and each metric
+     */
+    private static class Columns {
+        private float[] depths = new float[INITIAL_CAPACITY];
+        private final float[][] values;
+        private int size = 0;
+        private boolean sorted = true;
+
+        public Columns(int metricCount) {
+            values = new float[metricCount][INITIAL_CAPACITY];
+        }
+
+        public void add(float depth, float[] row) {
+            if (size == depths.length) {
+                int capacity = size * 2;
+                depths = Arrays.copyOf(depths, capacity);
+                for (int m = 0; m < values.length; m++) {
+                    values[m] = Arrays.copyOf(values[m], capacity);
+                }
+            }
+            if (size > 0 && Float.compare(depth, depths[size - 1]) < 0) {
+                sorted = false;
+            }
+
+            depths[size] = depth;
+            for (int m = 0; m < values.length; m++) {
+                values[m][size] = row[m];
+            }
+            size++;
+        }
+
+        public MSCLObservationSeries toSeries(String[] metrics) {
+            float[] sortedDepths;
+            float[][] sortedValues = new float[values.length][];
+            if (sorted) {
+                sortedDepths = Arrays.copyOf(depths, size);
+                for (int m = 0; m < values.length; m++) {
+                    sortedValues[m] = Arrays.copyOf(values[m], size);
+                }
+            } else {
+                //Stable sort of the row indexes so that equal depths keep their document order
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer o1, Integer o2) {
+                        return Float.compare(depths[o1], depths[o2]);
+                    }
+                });
+
+                sortedDepths = new float[size];
+                for (int i = 0; i < size; i++) {
+                    sortedDepths[i] = depths[order[i]];
+                }
+                for (int m = 0; m < values.length; m++) {
+                    float[] column = values[m];
+                    float[] sortedColumn = new float[size];
+                    for (int i = 0; i < size; i++) {
+                        sortedColumn[i] = column[order[i]];
+                    }
+                    sortedValues[m] = sortedColumn;
+                }
+            }
+
+            return new MSCLObservationSeries(metrics, sortedDepths, sortedValues);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.auscope.portal.mscl;
+
+import java.util.Arrays;
+
+/**
+ * A depth ordered set of MSCL observations stored as primitive columns - one for the depth and one for each metric.
+ *
+ * Observations that didn't report a particular metric hold Float.NaN in that metric's column. Instances are immutable.
+ */
+public class MSCLObservationSeries {
+
+    private final String[] metrics;
+    private final float[] depths;
+    private final float[][] values;
+
+    /**
+     * @param metrics The metric names (local names of the mscl:scanned_data children)
+     * @param depths The observation depths, in ascending order. Will not be copied
+     * @param values One column per metric, each the same length as depths. Will not be copied
+     */
+    public MSCLObservationSeries(String[] metrics, float[] depths, float[][] values) {
+        this.metrics = metrics;
+        this.depths = depths;
+        this.values = values;
+    }
+
+    /**
+     * Gets the number of observations in this series
+     * @return
+     */
+    public int size() {
+        return depths.length;
+    }
+
+    /**
+     * Gets the metric names (in the same order as their columns)
+     * @return
+     */
+    public String[] getMetrics() {
+        return Arrays.copyOf(metrics, metrics.length);
+    }
+
+    /**
+     * Gets the depth of the observation at index
+     * @param index
+     * @return
+     */
+    public float getDepth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Gets the value of a metric for the observation at index
+     * @param metricIndex The index of the metric in getMetrics()
+     * @param index The observation index
+     * @return The value or Float.NaN if the observation didn't report this metric
+     */
+    public float getValue(int metricIndex, int index) {
+        return values[metricIndex][index];
+    }
+
+    /**
+     * Reduces this series to at most maxPoints observations so that a graph payload is bounded by the resolution it
+     * will be drawn at rather than by the length of the core.
+     *
+     * The observations are split into maxPoints contiguous buckets (of near equal size) and each bucket is replaced by
+     * a single observation at the bucket's mean depth holding the mean of each metric's reported values.
+     *
+     * @param maxPoints The maximum number of observations to return. Values less than 1 disable downsampling
+     * @return This series if it's already small enough, otherwise a new downsampled series
+     */
+    public MSCLObservationSeries downsample(int maxPoints) {
+        int size = size();
+        if (maxPoints < 1 || size <= maxPoints) {
+            return this;
+        }
+
+        float[] bucketDepths = new float[maxPoints];
+        float[][] bucketValues = new float[metrics.length][maxPoints];
+        for (int bucket = 0; bucket < maxPoints; bucket++) {
+            int start = (int) ((long) bucket * size / maxPoints);
+            int end = (int) ((long) (bucket + 1) * size / maxPoints);
+
+            double depthSum = 0;
+            for (int i = start; i < end; i++) {
+                depthSum += depths[i];
+            }
+            bucketDepths[bucket] = (float) (depthSum / (end - start));
+
+            for (int m = 0; m < metrics.length; m++) {
+                float[] column = values[m];
+                double sum = 0;
+                int count = 0;
+                for (int i = start; i < end; i++) {
+                    if (!Float.isNaN(column[i])) {
+                        sum += column[i];
+                        count++;
+                    }
+                }
+                bucketValues[m][bucket] = count == 0 ? Float.NaN : (float) (sum / count);
+            }
+        }
+
+        return new MSCLObservationSeries(metrics, bucketDepths, bucketValues);
+    }
+}
@@ -1,5 +1,6 @@
 package org.auscope.portal.mscl;
 
+import java.io.InputStream;
 import java.net.ConnectException;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
@@ -8,8 +9,10 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.auscope.portal.core.server.http.HttpServiceCaller;
 import org.auscope.portal.core.services.BaseWFSService;
+import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
 import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker.ResultType;
+import org.auscope.portal.core.util.FileIOUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -74,6 +77,54 @@ public class MSCLWFSService extends BaseWFSService {
             final String startDepth,
             final String endDepth) throws ConnectException, ConnectTimeoutException, UnknownHostException, Exception {
 
+        HttpRequestBase method = makeObservationsMethod(serviceUrl, boreholeHeaderId, startDepth, endDepth);
+        return httpServiceCaller.getMethodResponseAsString(method);
+    }
+
+    /**
+     * Requests the observations of a borehole between two depths and streams the response through an
+     * MSCLObservationParser, keeping only the requested metrics.
+     *
+     * @param serviceUrl
+     *            The URL of the WFS's endpoint. It should be of the form: http://{domain}:{port}/{path}/wfs
+     * @param boreholeHeaderId
+     *            borehole identifier
+     * @param startDepth
+     *            starting depth
+     * @param endDepth
+     *            ending depth
+     * @param metrics
+     *            The local names of the observations to return
+     * @return The depth ordered observations
+     * @throws PortalServiceException
+     */
+    public MSCLObservationSeries getObservationSeries(
+            final String serviceUrl,
+            final String boreholeHeaderId,
+            final String startDepth,
+            final String endDepth,
+            final String[] metrics) throws PortalServiceException {
+
+        HttpRequestBase method = makeObservationsMethod(serviceUrl, boreholeHeaderId, startDepth, endDepth);
+        InputStream responseStream = null;
+        try {
+            responseStream = httpServiceCaller.getMethodResponseAsStream(method);
+            return new MSCLObservationParser(metrics).parse(responseStream);
+        } catch (PortalServiceException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new PortalServiceException(method, ex);
+        } finally {
+            FileIOUtil.closeQuietly(responseStream);
+            method.releaseConnection();
+        }
+    }
+
+    private HttpRequestBase makeObservationsMethod(
+            final String serviceUrl,
+            final String boreholeHeaderId,
+            final String startDepth,
+            final String endDepth) {
         // Remove the first part of the id.; we need to use the numerical part when looking up the observations:
         String boreholeHeaderIdDigitsOnly = boreholeHeaderId.replaceFirst("borehole\\.", "");
 
@@ -109,7 +160,7 @@ public class MSCLWFSService extends BaseWFSService {
                 WFSGetFeatureMethodMaker.ResultType.Results,
                 "");
 
-        return httpServiceCaller.getMethodResponseAsString(method);
+        return method;
     }
 
     /**
@@ -0,0 +1,356 @@
+package org.auscope.portal.nvcl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse;
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse.Bin;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Streaming implementation of the NVCL scalar binning algorithm.
+ *
+ * The CSV is read one line at a time and every column accumulates its bins into growable primitive
+ * buffers. Categorical values are interned into integer codes so that no per bin maps or boxed values
+ * are created while the stream is being read. The BinnedCSVResponse.Bin objects are only materialised
+ * once the stream has been exhausted and are identical to what the original map based binning produced.
+ *
+ * Instances are cheap and not thread safe - create one per stream.
+ */
+public class ScalarBinningEngine {
+
+    private static final String MISSING_DATA_STRING = "null";
+    private static final int INITIAL_CAPACITY = 512;
+
+    private final double binSizeMetres;
+    private final char quoteChar;
+    private final int startAtCol;
+    private final int stopAtCol;
+
+    /**
+     * @param binSizeMetres the size of each bin in metres
+     * @param quoteChar the CSV quote character
+     * @param startAtCol column number (1..N) where the data starts. If -1 use then it defaults to 2
+     * @param stopAtCol column number (1..N) where the data stops (non-inclusive) -1 = data goes all the way to the last column
+     */
+    public ScalarBinningEngine(double binSizeMetres, char quoteChar, int startAtCol, int stopAtCol) {
+        this.binSizeMetres = binSizeMetres;
+        this.quoteChar = quoteChar;
+        this.startAtCol = startAtCol;
+        this.stopAtCol = stopAtCol;
+    }
+
+    /**
+     * Reads csvStream and bins every data column into a series of binSizeMetres bins where each bin represents
+     * the average (or most common) value for that range of the borehole. The first column must be the depth.
+     *
+     * @param binnedResponse The response that will own the generated bins
+     * @param csvStream The CSV to bin. It will be read until exhausted but will not be closed
+     * @param altName alternative name for a bin. Use null to force it to use CSV header
+     * @return
+     * @throws IOException
+     * @throws CsvValidationException
+     */
+    public Bin[] bin(BinnedCSVResponse binnedResponse, InputStream csvStream, String altName) throws IOException, CsvValidationException {
+        CSVParser parser = new CSVParserBuilder().withSeparator(',').withQuoteChar(quoteChar).build();
+        CSVReader reader = new CSVReaderBuilder(new InputStreamReader(csvStream)).withCSVParser(parser).build();
+        String[] headerLine = reader.readNext();
+        if (headerLine == null || headerLine.length <= startAtCol) {
+            throw new IOException("No or malformed CSV header sent");
+        }
+
+        // Set start & stop columns to default
+        int stop = stopAtCol < 0 ? headerLine.length : stopAtCol;
+        int start = startAtCol < 0 ? 2 : startAtCol;
+
+        CategoryDictionary dictionary = new CategoryDictionary();
+        ColumnAccumulator[] columns = new ColumnAccumulator[stop - start];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnAccumulator(altName == null ? headerLine[start + i] : altName);
+        }
+
+        //Start parsing our data - loading it into the column accumulators
+        double currentBinStartDepth = -Double.MAX_VALUE;
+        int currentBinSize = 0;
+        String[] dataLine = null;
+        while ((dataLine = reader.readNext()) != null) {
+            if (dataLine.length != headerLine.length) {
+                continue; //skip malformed lines
+            }
+
+            //If we've exceeded our current bin size - save the data and start a new bin
+            double depth = Double.parseDouble(dataLine[0]);
+            if (depth - currentBinStartDepth >= binSizeMetres) {
+                if (currentBinStartDepth == -Double.MAX_VALUE) {
+                    currentBinStartDepth = depth;
+                }
+
+                for (ColumnAccumulator column : columns) {
+                    column.closeBin(currentBinStartDepth);
+                }
+
+                currentBinStartDepth = depth;
+                currentBinSize = 0;
+            }
+
+            //Build up our current bin
+            boolean dataAdded = false;
+            for (int i = 0; i < columns.length; i++) {
+                String rawBinData = dataLine[start + i];
+                if (rawBinData == null || rawBinData.isEmpty() || rawBinData.equals(MISSING_DATA_STRING)) {
+                    continue; //skip missing data
+                }
+
+                dataAdded = true;
+                columns[i].add(rawBinData, dictionary);
+            }
+            if (dataAdded) {
+                currentBinSize++;
+            }
+        }
+
+        //If we've got a partial bin at the end - let's include the data
+        if (currentBinSize > 0) {
+            for (ColumnAccumulator column : columns) {
+                column.closeBin(currentBinStartDepth);
+            }
+        }
+
+        Bin[] bins = new Bin[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            bins[i] = columns[i].toBin(binnedResponse, dictionary);
+        }
+        return bins;
+    }
+
+    /**
+     * Returns the key with the highest count. Ties are resolved by map iteration order.
+     * @param map
+     * @return
+     */
+    private static String getMostCountedValue(Map<String, Integer> map) {
+        String largestValue = null;
+        int largestCount = Integer.MIN_VALUE;
+
+        for (Entry<String, Integer> entry : map.entrySet()) {
+            if (entry.getValue() > largestCount) {
+                largestCount = entry.getValue();
+                largestValue = entry.getKey();
+            }
+        }
+
+        return largestValue;
+    }
+
+    /**
+     * Interns categorical values into dense integer codes shared by every column of a single stream.
+     */
+    private static class CategoryDictionary {
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        public int codeOf(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        public String valueOf(int code) {
+            return values.get(code);
+        }
+
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Accumulates the working bin and the completed bins for a single CSV column
+     */
+    private static class ColumnAccumulator {
+        private final String name;
+        private boolean numeric = true;
+
+        //Working bin
+        private double numericTotal;
+        private int numericCount;
+        private int[] categoryCounts = new int[0];
+        private int[] touchedCodes = new int[16];
+        private int touchedCount;
+
+        //Completed bins
+        private final DoubleColumn startDepths = new DoubleColumn();
+        private final DoubleColumn numericValues = new DoubleColumn();
+        private final IntColumn stringCodes = new IntColumn();
+        private final IntColumn stringCounts = new IntColumn();
+        private final IntColumn stringBinEnds = new IntColumn();
+
+        public ColumnAccumulator(String name) {
+            this.name = name;
+        }
+
+        public void add(String rawBinData, CategoryDictionary dictionary) {
+            if (numeric) {
+                try {
+                    numericTotal += Double.parseDouble(rawBinData);
+                    numericCount++;
+                } catch (NumberFormatException nfe) {
+                    //OK - this column isn't actually numeric
+                    numeric = false;
+                }
+            }
+
+            if (!numeric) {
+                int code = dictionary.codeOf(rawBinData);
+                if (code >= categoryCounts.length) {
+                    categoryCounts = Arrays.copyOf(categoryCounts, Math.max(dictionary.size(), categoryCounts.length * 2));
+                }
+                if (categoryCounts[code] == 0) {
+                    if (touchedCount == touchedCodes.length) {
+                        touchedCodes = Arrays.copyOf(touchedCodes, touchedCount * 2);
+                    }
+                    touchedCodes[touchedCount++] = code;
+                }
+                categoryCounts[code]++;
+            }
+        }
+
+        /**
+         * Saves the working bin (if it has any data) and resets it
+         */
+        public void closeBin(double binStartDepth) {
+            if (numeric) {
+                if (numericCount > 0) {
+                    numericValues.add(numericTotal / (double) numericCount);
+                    startDepths.add(binStartDepth);
+                }
+            } else if (touchedCount > 0) {
+                startDepths.add(binStartDepth);
+                for (int i = 0; i < touchedCount; i++) {
+                    stringCodes.add(touchedCodes[i]);
+                    stringCounts.add(categoryCounts[touchedCodes[i]]);
+                }
+                stringBinEnds.add(stringCodes.size());
+            }
+
+            numericTotal = 0.0;
+            numericCount = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                categoryCounts[touchedCodes[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+
+        /**
+         * Materialises the completed bins. Count maps are filled in first seen order so that
+         * their iteration order (and therefore the serialised response) matches the map based binning.
+         */
+        public Bin toBin(BinnedCSVResponse binnedResponse, CategoryDictionary dictionary) {
+            List<Map<String, Integer>> stringValues = new ArrayList<Map<String, Integer>>(stringBinEnds.size());
+            List<String> highStringValues = new ArrayList<String>(stringBinEnds.size());
+            int from = 0;
+            for (int i = 0; i < stringBinEnds.size(); i++) {
+                int to = stringBinEnds.get(i);
+                HashMap<String, Integer> valueCounts = new HashMap<String, Integer>();
+                for (int j = from; j < to; j++) {
+                    valueCounts.put(dictionary.valueOf(stringCodes.get(j)), stringCounts.get(j));
+                }
+                stringValues.add(valueCounts);
+                highStringValues.add(getMostCountedValue(valueCounts));
+                from = to;
+            }
+
+            Bin bin = binnedResponse.new Bin(name, startDepths.asList(), true, stringValues, highStringValues, numericValues.asList());
+            bin.setNumeric(numeric);
+            return bin;
+        }
+    }
+
+    /**
+     * Append only, growable double[]
+     */
+    private static class DoubleColumn {
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size;
+
+        public void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * A read only List view over the current contents. Values are only boxed as they are read.
+         */
+        public List<Double> asList() {
+            final double[] view = values;
+            final int viewSize = size;
+            return new ReadOnlyDoubleList(view, viewSize);
+        }
+    }
+
+    private static class ReadOnlyDoubleList extends AbstractList<Double> implements RandomAccess {
+        private final double[] values;
+        private final int size;
+
+        public ReadOnlyDoubleList(double[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Append only, growable int[]
+     */
+    private static class IntColumn {
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
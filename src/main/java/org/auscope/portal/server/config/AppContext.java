@@ -1,5 +1,6 @@
 package org.auscope.portal.server.config;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -19,7 +20,6 @@ import org.auscope.portal.core.configuration.ServiceConfigurationItem;
 import org.auscope.portal.core.server.PortalPropertySourcesPlaceholderConfigurer;
 import org.auscope.portal.core.server.http.HttpServiceCaller;
 import org.auscope.portal.core.server.http.download.FileDownloadService;
-import org.auscope.portal.core.services.CSWCacheService;
 import org.auscope.portal.core.services.CSWFilterService;
 import org.auscope.portal.core.services.GoogleCloudMonitoringCachedService;
 import org.auscope.portal.core.services.KnownLayerService;
@@ -56,7 +56,6 @@ import org.auscope.portal.core.services.responses.vocab.ConceptFactory;
 import org.auscope.portal.core.services.vocabs.VocabularyServiceItem;
 import org.auscope.portal.core.view.ViewCSWRecordFactory;
 import org.auscope.portal.core.view.ViewKnownLayerFactory;
-import org.auscope.portal.core.view.knownlayer.KnownLayer;
 import org.auscope.portal.core.xslt.GmlToHtml;
 import org.auscope.portal.core.xslt.WfsToKmlTransformer;
 import org.auscope.portal.mscl.MSCLWFSService;
@@ -65,20 +64,33 @@ import org.auscope.portal.server.vegl.VEGLJobManager;
 import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
 import org.auscope.portal.server.vegl.VglMachineImage;
 import org.auscope.portal.server.vegl.mail.JobCompletionMailSender;
+import org.auscope.portal.server.web.MeteredClientHttpRequestInterceptor;
+import org.auscope.portal.server.web.MeteredHttpServiceCaller;
+import org.auscope.portal.server.web.MeteredThreadPoolTaskExecutor;
 import org.auscope.portal.server.web.SearchHttpServiceCaller;
 import org.auscope.portal.server.web.service.ANVGLFileStagingService;
 import org.auscope.portal.server.web.service.ANVGLProvenanceService;
 import org.auscope.portal.server.web.service.ANVGLUserService;
+import org.auscope.portal.server.web.service.BoreholeService;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService;
+import org.auscope.portal.server.web.service.HyloggerBoreholeIndex;
 import org.auscope.portal.server.web.service.NCIDetailsService;
 import org.auscope.portal.server.web.service.NotificationService;
 import org.auscope.portal.server.web.service.NvclVocabService;
 import org.auscope.portal.server.web.service.SimpleWfsService;
+import org.auscope.portal.server.web.service.SnapshotCSWCacheService;
 import org.auscope.portal.server.web.service.VGLCryptoService;
 import org.auscope.portal.server.web.service.cloud.CloudComputeServiceNci;
 import org.auscope.portal.server.web.service.cloud.CloudStorageServiceNci;
+import org.auscope.portal.server.web.service.cloud.SshCloudConnector;
+import org.auscope.portal.server.web.service.cloud.SshSessionPool;
+import org.auscope.portal.server.web.service.monitor.HyloggerBoreholeIndexMonitor;
 import org.auscope.portal.server.web.service.monitor.KnownLayerStatusMonitor;
 import org.auscope.portal.server.web.service.monitor.VGLJobStatusChangeHandler;
 import org.auscope.portal.server.web.service.monitor.VGLJobStatusMonitor;
+import org.auscope.portal.server.web.service.scm.ScmEntryCache;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.auscope.portal.view.knownlayer.KnownLayerList;
 import org.quartz.Trigger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -93,8 +105,11 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.quartz.JobDetailFactoryBean;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 import org.springframework.scheduling.quartz.SimpleTriggerFactoryBean;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 
 /**
  * Bean definitions.
@@ -167,6 +182,9 @@ public class AppContext {
         @Value("${encryption.password}")
         private String encryptionPassword;
 
+        @Value("${encryption.versionedFormat:false}")
+        private boolean encryptionVersionedFormat;
+
         @Value("${solutions.url}")
         private String solutionsUrl;
 
@@ -184,7 +202,10 @@ public class AppContext {
     private ArrayList<CSWServiceItem> cswServiceList;
 
     @Autowired
-    private ArrayList<KnownLayer> knownTypes;
+    private KnownLayerList knownTypes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     @Bean
     public MailSender mailSender() {
@@ -307,7 +328,7 @@ public class AppContext {
         WFSGetFeatureMethodMaker methodMaker = new WFSGetFeatureMethodMaker();
         // give it a ERML 2.0 namespace context
         methodMaker.setNamespaces(new ErmlNamespaceContext("2.0"));
-        return new WFSGml32Service(new HttpServiceCaller(900000),
+        return new WFSGml32Service(new MeteredHttpServiceCaller(900000, meterRegistry, "gml32"),
                 methodMaker,
                 // can instantiate with a different XSLT for GML 32 mapping?
                 new GmlToHtml()
@@ -323,10 +344,12 @@ public class AppContext {
         jobData.put("jobStatusMonitor", jobStatusMonitor());
         jobData.put("jobUserService", userService);
         jobData.put("nciDetailsService", nciDetailsService);
+        jobData.put("cloudComputeServices", cloudComputeServices());
+        jobData.put("executor", jobStatusPollExecutor());
         jobDetail.setJobDataAsMap(jobData);        
         return jobDetail;
     }
-    
+
     /***
      * Returns a factory to create jobs that update the OpenStack service status
      * for known layer services 
@@ -344,6 +367,21 @@ public class AppContext {
         return jobDetail;
     }
 
+    /***
+     * Returns a factory to create jobs that refresh the hylogger borehole IDs held by hyloggerBoreholeIndex
+     * @return a factory to create jobs that refresh the hylogger borehole index
+     * @throws Exception
+     */
+    @Bean
+    public JobDetailFactoryBean hyloggerBoreholeIndexMonitorDetail() throws Exception {
+        JobDetailFactoryBean jobDetail = new JobDetailFactoryBean();
+        jobDetail.setJobClass(HyloggerBoreholeIndexMonitor.class);
+        Map<String, Object> jobData = new HashMap<String, Object>();
+        jobData.put("hyloggerBoreholeIndex", hyloggerBoreholeIndex());
+        jobDetail.setJobDataAsMap(jobData);
+        return jobDetail;
+    }
+
     @Bean
     public static PortalPropertySourcesPlaceholderConfigurer propertyConfigurer() {
         PortalPropertySourcesPlaceholderConfigurer pPropConf = new PortalPropertySourcesPlaceholderConfigurer();
@@ -375,38 +413,101 @@ public class AppContext {
         return trigger;
     }
 
+    /***
+     * Returns a factory bean that create trigger for the hylogger borehole index refresh job. The first refresh
+     * is delayed to give the CSW cache time to load.
+     * @return a factory bean that create trigger for the hylogger borehole index refresh job
+     * @throws Exception
+     */
+    @Bean
+    public SimpleTriggerFactoryBean hyloggerBoreholeIndexTriggerFactoryBean() throws Exception {
+        SimpleTriggerFactoryBean trigger = new SimpleTriggerFactoryBean();
+        trigger.setJobDetail(hyloggerBoreholeIndexMonitorDetail().getObject());
+        trigger.setRepeatInterval(60 * 60 * 1000);
+        trigger.setStartDelay(2 * 60 * 1000);
+        return trigger;
+    }
+
     @Bean
     public SchedulerFactoryBean schedulerFactoryBean() throws Exception {
         SchedulerFactoryBean schedulerFactory = new SchedulerFactoryBean();
         schedulerFactory.setTaskExecutor(taskExecutor());
-        Trigger[] triggers = new Trigger[2];
+        Trigger[] triggers = new Trigger[3];
         triggers[0] = jobMonitorTriggerFactoryBean().getObject();
         triggers[1] = knownLayerStatusTriggerFactoryBean().getObject();
+        triggers[2] = hyloggerBoreholeIndexTriggerFactoryBean().getObject();
         schedulerFactory.setTriggers(triggers);
         return schedulerFactory;
     }
 
-    /* This is the core threadpool shared by object instances throughout the portal */
+    @Value("${env.executors.task.poolSize:5}") private int taskPoolSize;
+    @Value("${env.executors.task.queueCapacity:25}") private int taskQueueCapacity;
+    @Value("${env.executors.cswCache.poolSize:5}") private int cswCachePoolSize;
+    @Value("${env.executors.cswCache.queueCapacity:25}") private int cswCacheQueueCapacity;
+    @Value("${env.executors.cswFilter.poolSize:5}") private int cswFilterPoolSize;
+    @Value("${env.executors.cswFilter.queueCapacity:25}") private int cswFilterQueueCapacity;
+    @Value("${env.executors.vocabularyCache.poolSize:2}") private int vocabularyCachePoolSize;
+    @Value("${env.executors.vocabularyCache.queueCapacity:10}") private int vocabularyCacheQueueCapacity;
+    @Value("${env.executors.jobStatusPoll.poolSize:8}") private int jobStatusPollPoolSize;
+    @Value("${env.executors.jobStatusPoll.queueCapacity:100}") private int jobStatusPollQueueCapacity;
+    @Value("${env.executors.nvclBinning.poolSize:4}") private int nvclBinningPoolSize;
+    @Value("${env.executors.nvclBinning.queueCapacity:64}") private int nvclBinningQueueCapacity;
+    @Value("${env.executors.hyloggerIndex.poolSize:8}") private int hyloggerIndexPoolSize;
+    @Value("${env.executors.hyloggerIndex.queueCapacity:32}") private int hyloggerIndexQueueCapacity;
+
+    /*
+     * Each subsystem that runs background work has its own pool (bulkhead) so that one blocked on a slow
+     * registry can't starve the others. taskExecutor is left for the scheduler and anything else.
+     */
     @Bean
     public ThreadPoolTaskExecutor taskExecutor() {
-        ThreadPoolTaskExecutor taskExec = new ThreadPoolTaskExecutor();
-        taskExec.setCorePoolSize(5);
-        taskExec.setMaxPoolSize(5);
-        taskExec.setQueueCapacity(25);
-        return taskExec;
+        return MeteredThreadPoolTaskExecutor.create("task", taskPoolSize, taskQueueCapacity, meterRegistry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cswCacheExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("cswCache", cswCachePoolSize, cswCacheQueueCapacity, meterRegistry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cswFilterExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("cswFilter", cswFilterPoolSize, cswFilterQueueCapacity, meterRegistry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor vocabularyCacheExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("vocabularyCache", vocabularyCachePoolSize, vocabularyCacheQueueCapacity, meterRegistry);
+    }
+
+    /* Used by VGLJobStatusMonitor to poll groups of jobs (per user/compute provider) in parallel */
+    @Bean
+    public ThreadPoolTaskExecutor jobStatusPollExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("jobStatusPoll", jobStatusPollPoolSize, jobStatusPollQueueCapacity, meterRegistry);
+    }
+
+    /* Used by NVCL2_0_DataService to fetch and bin the results of multiple analytics jobs in parallel */
+    @Bean
+    public ThreadPoolTaskExecutor nvclBinningExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("nvclBinning", nvclBinningPoolSize, nvclBinningQueueCapacity, meterRegistry);
+    }
+
+    /* Used by HyloggerBoreholeIndex to query NVCL endpoints in parallel */
+    @Bean
+    public ThreadPoolTaskExecutor hyloggerIndexExecutor() {
+        return MeteredThreadPoolTaskExecutor.create("hyloggerIndex", hyloggerIndexPoolSize, hyloggerIndexQueueCapacity, meterRegistry);
     }
 
     @Bean
     @Autowired
     @Primary
     public HttpServiceCaller httpServiceCallerApp() {
-        return new HttpServiceCaller(900000);
+        return new MeteredHttpServiceCaller(900000, meterRegistry, "default");
     }
     
     // Second HttpServiceCaller to reduce CSW record search timeout
     @Bean
     public SearchHttpServiceCaller searchHttpServiceCaller() {
-        return new SearchHttpServiceCaller(60000);
+        return new SearchHttpServiceCaller(60000, meterRegistry);
     }
     
     @Bean
@@ -429,17 +530,23 @@ public class AppContext {
         return new GriddedCSWRecordTransformerFactory();
     }
     
+    @Value("${env.cswCache.snapshotFile:}")
+    private String cswCacheSnapshotFile;
+
+    /* Restores the records of the last harvest at startup, see SnapshotCSWCacheService */
     @Bean
-    public CSWCacheService cswCacheService() {
-        CSWCacheService cacheService = new CSWCacheService(
-                taskExecutor(), httpServiceCallerApp(), cswServiceList, griddedCswTransformerFactory());
+    public SnapshotCSWCacheService cswCacheService() {
+        File snapshotFile = cswCacheSnapshotFile.isEmpty() ?
+                new File(new File(stageInDirectory, "csw-cache"), "csw-cache-snapshot.bin") : new File(cswCacheSnapshotFile);
+        SnapshotCSWCacheService cacheService = new SnapshotCSWCacheService(
+                cswCacheExecutor(), httpServiceCallerApp(), cswServiceList, griddedCswTransformerFactory(), snapshotFile);
         cacheService.setForceGetMethods(true);
         return cacheService;
     }
     
     @Bean
     public CSWFilterService cswFilterService() {
-        return new CSWFilterService(taskExecutor(), searchHttpServiceCaller(), cswServiceList, griddedCswTransformerFactory());
+        return new CSWFilterService(cswFilterExecutor(), searchHttpServiceCaller(), cswServiceList, griddedCswTransformerFactory());
     }
     
     @Bean
@@ -462,6 +569,12 @@ public class AppContext {
         return new WFSGetFeatureMethodMaker();
     }
 
+    /* GetCapabilities responses (parsed) shared by every service that needs them */
+    @Bean
+    public CapabilitiesCacheService capabilitiesCacheService() {
+        return new CapabilitiesCacheService(httpServiceCallerApp(), wfsMethodMaker());
+    }
+
     @Autowired
     VocabularyServiceItem vocabularyGeologicTimescales;
 
@@ -518,12 +631,14 @@ public class AppContext {
 
     @Bean
     public VocabularyCacheService vocabularyCacheService() {
-        return new VocabularyCacheService(taskExecutor(), vocabularyServiceList());
+        return new VocabularyCacheService(vocabularyCacheExecutor(), vocabularyServiceList());
     }
 
     @Bean
     public VGLCryptoService encryptionService() throws PortalServiceException {
-        return new VGLCryptoService(encryptionPassword);
+        VGLCryptoService cryptoService = new VGLCryptoService(encryptionPassword);
+        cryptoService.setVersionedFormat(encryptionVersionedFormat);
+        return cryptoService;
     }
 
     @Bean
@@ -556,9 +671,20 @@ public class AppContext {
         return storageService;
     }
 
+    /* Authenticated SSH sessions to NCI are shared between the NCI storage and compute services */
+    @Bean(destroyMethod = "close")
+    public SshSessionPool nciSshSessionPool() {
+        return new SshSessionPool();
+    }
+
+    @Bean
+    public SshCloudConnector nciSshCloudConnector() {
+        return new SshCloudConnector("gadi.nci.org.au", SshCloudConnector.DEFAULT_SSH_PORT, nciSshSessionPool());
+    }
+
     @Bean
     public CloudStorageServiceNci cloudStorageServiceNci() {
-        CloudStorageServiceNci cloudStorageService = new CloudStorageServiceNci("gadi.nci.org.au", "nci-gadi");
+        CloudStorageServiceNci cloudStorageService = new CloudStorageServiceNci("gadi.nci.org.au", "nci-gadi", nciSshCloudConnector());
         cloudStorageService.setId("nci-gadi-storage");
         cloudStorageService.setName("National Computing Infrastructure - Gadi");
         return cloudStorageService;
@@ -658,7 +784,7 @@ public class AppContext {
 
     @Bean
     public CloudComputeServiceNci cloudComputeServiceNci() {
-        CloudComputeServiceNci computeService = new CloudComputeServiceNci(cloudStorageServiceNci(), "gadi.nci.org.au");
+        CloudComputeServiceNci computeService = new CloudComputeServiceNci(cloudStorageServiceNci(), "gadi.nci.org.au", nciSshCloudConnector());
         computeService.setId("nci-gadi-compute");
         computeService.setName("National Computing Infrastructure - Gadi");
         return computeService;
@@ -674,6 +800,21 @@ public class AppContext {
         return new ANVGLFileStagingService(stagingInformation());
     }
 
+    // Shared cache (and pooled HTTP client) for all solutions centre requests, metered as caller "scm"
+    @Bean
+    public ScmEntryCache scmEntryCache() {
+        RestTemplate restTemplate = ScmEntryCache.createRestTemplate(ScmEntryCache.DEFAULT_MAX_CONNECTIONS, ScmEntryCache.DEFAULT_TIMEOUT_MILLIS);
+        restTemplate.getInterceptors().add(new MeteredClientHttpRequestInterceptor(meterRegistry, "scm"));
+        return new ScmEntryCache(restTemplate, ScmEntryCache.createObjectMapper(), ScmEntryCache.DEFAULT_MAX_ENTRIES,
+                ScmEntryCache.DEFAULT_TTL_MILLIS, ScmEntryCache.DEFAULT_STALE_WHILE_REVALIDATE_MILLIS);
+    }
+
+    // Rendered SLDs shared by the WMS style controllers
+    @Bean
+    public SLDStyleCache sldStyleCache() {
+        return new SLDStyleCache();
+    }
+
     // Inject the configured solutions centre URL
     @Bean
     public MethodInvokingBean injectSsscUrl() {
@@ -691,6 +832,21 @@ public class AppContext {
     @Value("${env.nvclVocabService.url}")
     private String nvclVocabServiceURL;
 
+    @Value("${env.nvclHyloggerIndex.file:}")
+    private String hyloggerIndexFile;
+
+    @Autowired
+    private BoreholeService boreholeService;
+
+    /* Hylogger borehole IDs per NVCL endpoint, refreshed by hyloggerBoreholeIndexTriggerFactoryBean */
+    @Bean
+    public HyloggerBoreholeIndex hyloggerBoreholeIndex() {
+        File snapshotFile = hyloggerIndexFile.isEmpty() ?
+                new File(new File(stageInDirectory, "hylogger-index"), "hylogger-borehole-index.json") : new File(hyloggerIndexFile);
+        return new HyloggerBoreholeIndex(boreholeService, cswCacheService(), snapshotFile, hyloggerIndexExecutor(),
+                HyloggerBoreholeIndex.DEFAULT_ENDPOINT_TIMEOUT_MILLIS);
+    }
+
     @Bean
     public ErmlNamespaceContext ermlNamespaceContext() {
         return new ErmlNamespaceContext();
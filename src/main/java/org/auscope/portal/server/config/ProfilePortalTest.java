@@ -1,9 +1,7 @@
 package org.auscope.portal.server.config;
 
-import java.util.ArrayList;
-
-import org.auscope.portal.core.view.knownlayer.KnownLayer;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.auscope.portal.view.knownlayer.KnownLayerList;
+import org.auscope.portal.view.knownlayer.KnownLayerRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -17,663 +15,234 @@ import org.springframework.context.annotation.Profile;
 @Profile("test")
 public class ProfilePortalTest {
 
-    @Autowired
-    KnownLayer knownTypeMine;
-    @Autowired
-    KnownLayer knownTypeErlMineView;
-    @Autowired
-    KnownLayer knownTypeMineralOccurrence;
-    @Autowired
-    KnownLayer knownTypeErlMineralOccurrenceView;
-    @Autowired
-    KnownLayer knownTypeErlCommodityResourceView  ;
-    @Autowired
-    KnownLayer knownTypeMiningActivity;
-    @Autowired
-    KnownLayer knownTypeMineralTenements;
-    @Autowired
-    KnownLayer knownTypeRemanentAnomalies;
-    @Autowired
-    KnownLayer knownTypeRemanentAnomaliesTMI;
-    @Autowired
-    KnownLayer knownTypeRemanentAnomaliesAutoSearch;
-    @Autowired
-    KnownLayer knownTypeEMAGRemanentAnomalies;
-    @Autowired
-    KnownLayer knownTypeEMAGRemanentAnomaliesTMI;
-    @Autowired
-    KnownLayer knownTypeMineralOccurrenceView;
-    @Autowired
-    KnownLayer knownTypeBoreholeNvclV2;
-    @Autowired
-    KnownLayer knownTypeReports;
-    @Autowired
-    KnownLayer knownTypePMDCRCReports;
-    @Autowired
-    KnownLayer knownTypeGeotransects;
-    @Autowired
-    KnownLayer knownTypeMagnetotellurics;
-    @Autowired
-    KnownLayer knownTypeTimaGeoSample;
-    @Autowired
-    KnownLayer knownTypeSHRIMPGeoSample;
-    @Autowired
-    KnownLayer knownTypeSamplingPoint;
-    @Autowired
-    KnownLayer knownTypeFeatureCollection;
-    @Autowired
-    KnownLayer knownTypePortals;
-    @Autowired
-    KnownLayer knownTypeGeoNetworks;
-    @Autowired
-    KnownLayer knownTypeAsterAloh;
-    @Autowired
-    KnownLayer knownTypeAsterFerrous;
-    @Autowired
-    KnownLayer knownTypeAsterOpaque;
-    @Autowired
-    KnownLayer knownTypeAsterFerricOxideContent;
-    @Autowired
-    KnownLayer knownTypeAsterFeoh;
-    @Autowired
-    KnownLayer knownTypeFerricOxideComp;
-    @Autowired
-    KnownLayer knownTypeGroupIndex;
-    @Autowired
-    KnownLayer knownTypeQuartzIndex;
-    @Autowired
-    KnownLayer knownTypeMgohContent;
-    @Autowired
-    KnownLayer knownTypeGreenVeg;
-    @Autowired
-    KnownLayer knownTypeFerrCarb;
-    @Autowired
-    KnownLayer knownTypeMgohGroupComp;
-    @Autowired
-    KnownLayer knownTypeAlohGroupContent;
-    // NB: Temporarily disabled until colour representation issues resolved
-    //@Autowired
-    //KnownLayer knownTypeGypsumContent;
-    @Autowired
-    KnownLayer knownTypeSilicaContent;
-    @Autowired
-    KnownLayer knownTypeBoreholeMSCL;
-    @Autowired
-    KnownLayer knownTypeSeismologyInSchool;
-    @Autowired
-    KnownLayer knownTypeSKIPPY;    
-    @Autowired
-    KnownLayer knownTypeKIMBA97;
-    @Autowired
-    KnownLayer knownTypeKIMBA98;
-    @Autowired
-    KnownLayer knownTypeWACRATON;
-    @Autowired
-    KnownLayer knownTypeSEAL;
-    @Autowired
-    KnownLayer knownTypeSEAL2;
-    @Autowired
-    KnownLayer knownTypeSEAL3;
-    @Autowired
-    KnownLayer knownTypeCAPRAL;
-    @Autowired
-    KnownLayer knownTypeSOC;
-    @Autowired
-    KnownLayer knownTypeGAWLER;
-    @Autowired
-    KnownLayer knownTypeBILBY;
-    @Autowired
-    KnownLayer knownTypeCURNAMONA;
-    @Autowired
-    KnownLayer knownTypeMINQ;
-    @Autowired
-    KnownLayer knownTypeEAL1;
-    @Autowired
-    KnownLayer knownTypeEAL2;
-    @Autowired
-    KnownLayer knownTypeEAL3;
-    @Autowired
-    KnownLayer knownTypeBASS;
-    @Autowired
-    KnownLayer knownTypeSQEAL;
-    @Autowired
-    KnownLayer knownTypeAQ3;
-    @Autowired
-    KnownLayer knownTypeAQT;
-    @Autowired
-    KnownLayer knownTypeBANDA;
-    @Autowired
-    KnownLayer knownTypeASR;
-    @Autowired
-    KnownLayer knownTypeMARLALINE;    
-    @Autowired
-    KnownLayer knownTypePassiveSeismic;
-    @Autowired
-    KnownLayer knownTypeSF0BoreholeNVCL;
-
-    /* Generated from former test "Registered" tab START */
-    @Autowired
-    KnownLayer knownTypeHighpSiteIronlayer;
-    @Autowired
-    KnownLayer knownTypeHighpfeaturetype;
-    @Autowired
-    KnownLayer knownTypeHighpReIronlayer;
-    @Autowired
-    KnownLayer knownTypeHighpSiteFeatureType;
-    @Autowired
-    KnownLayer knownTypeHighpSitePhoslayer;
-    @Autowired
-    KnownLayer knownTypeHighpRePhoslayer;
-    @Autowired
-    KnownLayer knownTypeLandDamaPolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswDrillhole;
-    @Autowired
-    KnownLayer knownTypeStrategicProspectivityZones;
-    @Autowired
-    KnownLayer knownTypeMineralFields;
-    @Autowired
-    KnownLayer knownTypeNswAssaySurface;
-    @Autowired
-    KnownLayer knownTypeNswFieldObservations;
-    @Autowired
-    KnownLayer knownTypeLandDamaPoinOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGravMeasOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswDownholeAssaySamples;
-    @Autowired
-    KnownLayer knownTypeCate6ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit50K;
-    @Autowired
-    KnownLayer knownTypeNswDrillholeAll;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit50KAge;
-    @Autowired
-    KnownLayer knownTypeNswDrillholesCoal;
-    @Autowired
-    KnownLayer knownTypeNswGeologicalFieldObservations;
-    @Autowired
-    KnownLayer knownTypeNswDrillholesMinerals;
-    @Autowired
-    KnownLayer knownTypeNswGeologySimplified;
-    @Autowired
-    KnownLayer knownTypeHistoricalExplorationActivityPoints;
-    @Autowired
-    KnownLayer knownTypeNswDrillholesPetroleum;
-    @Autowired
-    KnownLayer knownTypeCate1ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGravBaseStatOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeRadnlOperR25PcprrL3Knmi;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit250KAge;
-    @Autowired
-    KnownLayer knownTypeReleases;
-    @Autowired
-    KnownLayer knownTypeMineOccuPoinOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGsvShearDisplacementStructure50K;
-    @Autowired
-    KnownLayer knownTypeMineralOccurenceIndustryFull;
-    @Autowired
-    KnownLayer knownTypeNswHistoricExplorationTitles;
-    @Autowired
-    KnownLayer knownTypeCate2ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswMapBlockGraticule;
-    @Autowired
-    KnownLayer knownTypeSection574;
-    @Autowired
-    KnownLayer knownTypeBlLocalaboriginallandcouncil;
-    @Autowired
-    KnownLayer knownTypeLandLineOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeMiniLeasPolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswMineralOccurrenceIndustry;
-    @Autowired
-    KnownLayer knownTypeLandPoinOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeProcLandAreaOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit50KLithology;
-    @Autowired
-    KnownLayer knownTypeSection19;
-    @Autowired
-    KnownLayer knownTypeNsw100KMapSheetExtents;
-    @Autowired
-    KnownLayer knownTypeCate5ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeMinesAndMineralDepositsMinedex;
-    @Autowired
-    KnownLayer knownTypeNswFossickingDistricts;
-    @Autowired
-    KnownLayer knownTypeNswGeologicalFieldObservationsPhoto;
-    @Autowired
-    KnownLayer knownTypeGeopTotaMagnInteRtpTmiRtpTiltFilt;
-    @Autowired
-    KnownLayer knownTypeNswSeismic;
-    
-    @Autowired
-    KnownLayer knownTypeNswCurrMiniAndExplTitl;
-    @Autowired
-    KnownLayer knownTypeBorePoinOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGeopTotaMagnInte1StDeriReduToPole;
-    @Autowired
-    KnownLayer knownTypeNswGeologicalSpectralSamples;
-    @Autowired
-    KnownLayer knownTypeGeopTernRadiPota;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit250K;
-    @Autowired
-    KnownLayer knownTypeCate4ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeMineralisationZonesNonS572Aa;
-    @Autowired
-    KnownLayer knownTypeNswDrillholesCsg;
-    @Autowired
-    KnownLayer knownTypeNswCurrentMiningApplications;
-    @Autowired
-    KnownLayer knownTypeAmalgamations;
-    @Autowired
-    KnownLayer knownTypeNswOperatingMineralMines;
-    
-    @Autowired
-    KnownLayer knownTypeTenementsCurrent;
-    @Autowired
-    KnownLayer knownTypeBoreTracOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnitContact250K;
-    @Autowired
-    KnownLayer knownTypeGeophysicsElevation;
-    @Autowired
-    KnownLayer knownTypeNswGeolSimpRockUnitBoun;
-    @Autowired
-    KnownLayer knownTypeBlocksAndUnitsGraticule;
-    @Autowired
-    KnownLayer knownTypeAirbGeopSurvOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswMapUnitGraticule;
-    @Autowired
-    KnownLayer knownTypeCate3ExplLicePolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeNswGeochronology;
-    
-    @Autowired
-    KnownLayer knownTypeGeophysicsIsostaticBougerGravity;
-    @Autowired
-    KnownLayer knownTypeGeopTotaMagnInteReduToPole;
-    @Autowired
-    KnownLayer knownTypeNswCoreLibrarySamples;
-    @Autowired
-    KnownLayer knownTypeNswGeochemistrySamples;
-    @Autowired
-    KnownLayer knownTypeNswTitles;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnit250KLithology;
-    
-    @Autowired
-    KnownLayer knownTypeHistoricalExplorationActivityLines;
-    @Autowired
-    KnownLayer knownTypeRestorations;
-    @Autowired
-    KnownLayer knownTypeBorehole;
-    @Autowired
-    KnownLayer knownTypeNswGeology;
-    @Autowired
-    KnownLayer knownTypeGeopIsosGravOverTmiRtpTilt;
-    @Autowired
-    KnownLayer knownTypeGsvShearDisplacementStructure250K;
-    @Autowired
-    KnownLayer knownTypeNswLithologySamples;
-    @Autowired
-    KnownLayer knownTypeRadnlOperR25PcprrL3Color;
-    @Autowired
-    KnownLayer knownTypeNswBase;
-    @Autowired
-    KnownLayer knownTypeHist;
-    @Autowired
-    KnownLayer knownTypeNswMineralOccurrenceCommodity;
-    @Autowired
-    KnownLayer knownTypeLandPolyOfTasmMinResoTasm;
-    @Autowired
-    KnownLayer knownTypeGsvGeologicalUnitContact50K;
-    @Autowired
-    KnownLayer knownTypeL180MtIsaDeepCrusSeisSurvQld2006StacAndMigrDataAndImagForLine06GaTo06Ga;
-    @Autowired
-    KnownLayer knownTypeAreTherAnySandUranSystInTheEromBasi;
-    @Autowired
-    KnownLayer knownTypeL164CurnSeisSurvSa20032004StacAndMigrSeisDataAndImagForLine03Ga;
-    @Autowired
-    KnownLayer knownTypeLawnHillPlatAndLeicRiveFaulTrouMeasStraSectOnliGis;
-    @Autowired
-    KnownLayer knownTypePredMineDiscInTheEastYilgCratAnExamOfDistTargOfAnOrogGoldMineSyst;
-    @Autowired
-    KnownLayer knownTypeFinaRepo3DGeolModeOfTheEastYilgCratProjPmdY2Sept2001Dece2004;
-    
-    @Autowired
-    KnownLayer knownTypeGeoModels;
-    @Autowired
-    KnownLayer knownTypeGeologicalProvinces;
-    
-    /* UOW OCTOPUS Open Cosmogenic Isotope and Luminescence Database */
-    @Autowired
-    KnownLayer knownTypeUOWCrnAusBasins;
-    @Autowired
-    KnownLayer knownTypeUOWCrnAusOutlets;
-    @Autowired
-    KnownLayer knownTypeUOWCrnInprepBasins;
-    @Autowired
-    KnownLayer knownTypeUOWCrnInprepOutlets;
-    @Autowired
-    KnownLayer knownTypeUOWCrnIntBasins;
-    @Autowired
-    KnownLayer knownTypeUOWCrnIntOutlets;
-    @Autowired
-    KnownLayer knownTypeUOWCrnXXLBasins;
-    @Autowired
-    KnownLayer knownTypeUOWCrnXXLOutlets;
-    @Autowired
-    KnownLayer knownTypeUOWOSLTLBasins;
-    @Autowired
-    KnownLayer knownTypeUOWOSLTLOutlets;
-    
-    /* END UOW OCTOPUS */
-    /* IGSN sample layer */
-    @Autowired
-    KnownLayer knownTypeIGSNSample;
-    @Autowired
-    KnownLayer knownTypeIGSNGASample;
-    @Autowired
-    KnownLayer knownTypeIGSNANDSSample;
-    @Autowired
-    KnownLayer knownTypeIGSNWdcSample;
-
-    /* GA Geophysical Survey Datasets */
-    @Autowired
-    KnownLayer knownTypeGeophysSurveys;
-    @Autowired
-    KnownLayer knownTypeGeophysGravSurveys;
-    @Autowired
-    KnownLayer knownTypeGeophysRadioSurveys;
-    @Autowired
-    KnownLayer knownTypeGeophysMagSurveys;
-    @Autowired
-    KnownLayer knownTypeGeophysElevSurveys;
-    
-     /* GA Geophysical Layers */
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys1;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys2;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys3;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys4;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys5;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys6;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys7;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys8;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys9;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys10;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys11;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys12;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys13;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys14;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys15;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys16;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys17;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys18;
-     @Autowired
-     KnownLayer knownTypeGANatGeoPhys19;
-
-
-    
-    @Bean
- 	public ArrayList<KnownLayer> knownTypes() {
-		ArrayList<KnownLayer> knownLayers = new ArrayList<KnownLayer>();
-    
-        knownLayers.add(knownTypeMine);
-        knownLayers.add(knownTypeErlMineView);
-        knownLayers.add(knownTypeMineralOccurrence);
-        knownLayers.add(knownTypeErlMineralOccurrenceView);
-        knownLayers.add(knownTypeErlCommodityResourceView  );
-        knownLayers.add(knownTypeMiningActivity);
-        knownLayers.add(knownTypeMineralTenements);
-        knownLayers.add(knownTypeRemanentAnomalies);
-        knownLayers.add(knownTypeRemanentAnomaliesTMI);
-        knownLayers.add(knownTypeRemanentAnomaliesAutoSearch);
-        knownLayers.add(knownTypeEMAGRemanentAnomalies);
-        knownLayers.add(knownTypeEMAGRemanentAnomaliesTMI);
-        knownLayers.add(knownTypeMineralOccurrenceView);
-        knownLayers.add(knownTypeBoreholeNvclV2);
-        knownLayers.add(knownTypeReports);
-        knownLayers.add(knownTypePMDCRCReports);
-        knownLayers.add(knownTypeGeotransects);
-        knownLayers.add(knownTypeMagnetotellurics);
-        knownLayers.add(knownTypeTimaGeoSample);
-        knownLayers.add(knownTypeSHRIMPGeoSample);
-        knownLayers.add(knownTypeSamplingPoint);
-        knownLayers.add(knownTypeFeatureCollection);
-        knownLayers.add(knownTypePortals);
-        knownLayers.add(knownTypeGeoNetworks);
-        knownLayers.add(knownTypeAsterAloh);
-        knownLayers.add(knownTypeAsterFerrous);
-        knownLayers.add(knownTypeAsterOpaque);
-        knownLayers.add(knownTypeAsterFerricOxideContent);
-        knownLayers.add(knownTypeAsterFeoh);
-        knownLayers.add(knownTypeFerricOxideComp);
-        knownLayers.add(knownTypeGroupIndex);
-        knownLayers.add(knownTypeQuartzIndex);
-        knownLayers.add(knownTypeMgohContent);
-        knownLayers.add(knownTypeGreenVeg);
-        knownLayers.add(knownTypeFerrCarb);
-        knownLayers.add(knownTypeMgohGroupComp);
-        knownLayers.add(knownTypeAlohGroupContent);
-        // knownLayers.add(knownTypeGypsumContent);
-        knownLayers.add(knownTypeSilicaContent);
-        knownLayers.add(knownTypeBoreholeMSCL);
-        knownLayers.add(knownTypeSeismologyInSchool);
-        knownLayers.add(knownTypeSKIPPY);
-        knownLayers.add(knownTypeKIMBA97);
-        knownLayers.add(knownTypeKIMBA98);
-        knownLayers.add(knownTypeWACRATON);
-        knownLayers.add(knownTypeSEAL);
-        knownLayers.add(knownTypeSEAL2);
-        knownLayers.add(knownTypeSEAL3);
-        knownLayers.add(knownTypeCAPRAL);
-        knownLayers.add(knownTypeSOC);
-        knownLayers.add(knownTypeGAWLER);
-        knownLayers.add(knownTypeBILBY);
-        knownLayers.add(knownTypeCURNAMONA);
-        knownLayers.add(knownTypeMINQ);
-        knownLayers.add(knownTypeEAL1);
-        knownLayers.add(knownTypeEAL2);
-        knownLayers.add(knownTypeEAL3);
-        knownLayers.add(knownTypeBASS);
-        knownLayers.add(knownTypeSQEAL);
-        knownLayers.add(knownTypeAQ3);
-        knownLayers.add(knownTypeAQT);
-        knownLayers.add(knownTypeBANDA);
-        knownLayers.add(knownTypeASR);
-        knownLayers.add(knownTypeMARLALINE );        
-        knownLayers.add(knownTypePassiveSeismic);
-        knownLayers.add(knownTypeSF0BoreholeNVCL);
+    /**
+     * The ids of the known layers (see KnownLayers) in the order they are listed
+     */
+    private static final String[] KNOWN_LAYER_IDS = {
+        "erml-mine",
+        "erl-mineview",
+        "erml-mineraloccurrence",
+        "erl-mineraloccurrenceview",
+        "erl-commodityresourceview",
+        "erml-miningactivity",
+        "mineral-tenements",
+        "remanent-anomalies",
+        "remanent-anomaliesTMI",
+        "remanent-anomalies-AutoSearch",
+        "remanent-anomalies-EMAG",
+        "remanent-anomalies-EMAGTMI",
+        "mineral-occ-view",
+        "nvcl-v2-borehole",
+        "portal-reports",
+        "portal-pmd-crc-reports",
+        "ga-geotransects",
+        "magnetotellurics",
+        "tima-geosample",
+        "tima-shrimp-geosample",
+        "notused-samplingpoint",
+        "notused-featurecollection",
+        "notused-portals",
+        "notused-geonetwork",
+        "aster-aloh",
+        "aster-ferrous",
+        "aster-opaque",
+        "aster-ferric-oxide-content",
+        "aster-feoh",
+        "aster-ferric-oxide-comp",
+        "aster-group-index",
+        "aster-quartz-index",
+        "aster-mgoh-content",
+        "aster-green-veg",
+        "aster-ferr-carb",
+        "aster-mgoh-group-comp",
+        "aster-aloh-group-content",
+        // NB: Temporarily disabled until colour representation issues resolved
+        // "aster-gypsum-content",
+        "aster-silica-content",
+        "mscl-borehole",
+        "seismology-in-schools-site",
+        "seismology-skippy",
+        "seismology-kimba97",
+        "seismology-kimba98",
+        "seismology-wacraton",
+        "seismology-seal",
+        "seismology-seal2",
+        "seismology-seal3",
+        "seismology-capral",
+        "seismology-soc",
+        "seismology-gawler",
+        "seismology-bilby",
+        "seismology-curnamona",
+        "seismology-minq",
+        "seismology-eal1",
+        "seismology-eal2",
+        "seismology-eal3",
+        "seismology-bass",
+        "seismology-sqeal",
+        "seismology-aq3",
+        "seismology-aqt",
+        "seismology-banda",
+        "seismology-asr",
+        "seismology-marla-line",
+        "passive-seismic",
+        "sf0-borehole-nvcl",
 
         /* Generated from former test "Registered" tab START */
-        knownLayers.add(knownTypeHighpSiteIronlayer);
-        knownLayers.add(knownTypeHighpfeaturetype);
-        knownLayers.add(knownTypeHighpReIronlayer);
-        knownLayers.add(knownTypeHighpSiteFeatureType);
-        knownLayers.add(knownTypeHighpSitePhoslayer);
-        knownLayers.add(knownTypeHighpRePhoslayer);
-        knownLayers.add(knownTypeLandDamaPolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswDrillhole);
-        knownLayers.add(knownTypeStrategicProspectivityZones);
-        knownLayers.add(knownTypeMineralFields);
-        knownLayers.add(knownTypeNswAssaySurface);
-        knownLayers.add(knownTypeNswFieldObservations);
-        knownLayers.add(knownTypeLandDamaPoinOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGravMeasOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswDownholeAssaySamples);
-        knownLayers.add(knownTypeCate6ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGsvGeologicalUnit50K);
-        knownLayers.add(knownTypeNswDrillholeAll);
-        knownLayers.add(knownTypeGsvGeologicalUnit50KAge);
-        knownLayers.add(knownTypeNswDrillholesCoal);
-        knownLayers.add(knownTypeNswGeologicalFieldObservations);
-        knownLayers.add(knownTypeNswDrillholesMinerals);
-        knownLayers.add(knownTypeNswGeologySimplified);
-        knownLayers.add(knownTypeHistoricalExplorationActivityPoints);
-        knownLayers.add(knownTypeNswDrillholesPetroleum);
-        knownLayers.add(knownTypeCate1ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGravBaseStatOfTasmMinResoTasm);
-        knownLayers.add(knownTypeRadnlOperR25PcprrL3Knmi);
-        knownLayers.add(knownTypeGsvGeologicalUnit250KAge);
-        knownLayers.add(knownTypeReleases);
-        knownLayers.add(knownTypeMineOccuPoinOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGsvShearDisplacementStructure50K);
-        knownLayers.add(knownTypeMineralOccurenceIndustryFull);
-        knownLayers.add(knownTypeNswHistoricExplorationTitles);
-        knownLayers.add(knownTypeCate2ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswMapBlockGraticule);
-        knownLayers.add(knownTypeSection574);
-        knownLayers.add(knownTypeBlLocalaboriginallandcouncil);
-        knownLayers.add(knownTypeLandLineOfTasmMinResoTasm);
-        knownLayers.add(knownTypeMiniLeasPolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswMineralOccurrenceIndustry);
-        knownLayers.add(knownTypeLandPoinOfTasmMinResoTasm);
-        knownLayers.add(knownTypeProcLandAreaOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGsvGeologicalUnit50KLithology);
-        knownLayers.add(knownTypeSection19);
-        knownLayers.add(knownTypeNsw100KMapSheetExtents);
-        knownLayers.add(knownTypeCate5ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeMinesAndMineralDepositsMinedex);
-        knownLayers.add(knownTypeNswFossickingDistricts);
-        knownLayers.add(knownTypeNswGeologicalFieldObservationsPhoto);
-        knownLayers.add(knownTypeGeopTotaMagnInteRtpTmiRtpTiltFilt);
-        knownLayers.add(knownTypeNswSeismic);
-
-        knownLayers.add(knownTypeNswCurrMiniAndExplTitl);
-        knownLayers.add(knownTypeBorePoinOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGeopTotaMagnInte1StDeriReduToPole);
-        knownLayers.add(knownTypeNswGeologicalSpectralSamples);
-        knownLayers.add(knownTypeGeopTernRadiPota);
-        knownLayers.add(knownTypeGsvGeologicalUnit250K);
-        knownLayers.add(knownTypeCate4ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeMineralisationZonesNonS572Aa);
-        knownLayers.add(knownTypeNswDrillholesCsg);
-        knownLayers.add(knownTypeNswCurrentMiningApplications);
-        knownLayers.add(knownTypeAmalgamations);
-        knownLayers.add(knownTypeNswOperatingMineralMines);
-
-        knownLayers.add(knownTypeTenementsCurrent);
-        knownLayers.add(knownTypeBoreTracOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGsvGeologicalUnitContact250K);
-        knownLayers.add(knownTypeGeophysicsElevation);
-        knownLayers.add(knownTypeNswGeolSimpRockUnitBoun);
-        knownLayers.add(knownTypeBlocksAndUnitsGraticule);
-        knownLayers.add(knownTypeAirbGeopSurvOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswMapUnitGraticule);
-        knownLayers.add(knownTypeCate3ExplLicePolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeNswGeochronology);
-
-        knownLayers.add(knownTypeGeophysicsIsostaticBougerGravity);
-        knownLayers.add(knownTypeGeopTotaMagnInteReduToPole);
-        knownLayers.add(knownTypeNswCoreLibrarySamples);
-        knownLayers.add(knownTypeNswGeochemistrySamples);
-        knownLayers.add(knownTypeNswTitles);
-        knownLayers.add(knownTypeGsvGeologicalUnit250KLithology);
-
-        knownLayers.add(knownTypeHistoricalExplorationActivityLines);
-        knownLayers.add(knownTypeRestorations);
-        knownLayers.add(knownTypeBorehole);
-        knownLayers.add(knownTypeNswGeology);
-        knownLayers.add(knownTypeGeopIsosGravOverTmiRtpTilt);
-        knownLayers.add(knownTypeGsvShearDisplacementStructure250K);
-        knownLayers.add(knownTypeNswLithologySamples);
-        knownLayers.add(knownTypeRadnlOperR25PcprrL3Color);
-        knownLayers.add(knownTypeNswBase);
-        knownLayers.add(knownTypeHist);
-        knownLayers.add(knownTypeNswMineralOccurrenceCommodity);
-        knownLayers.add(knownTypeLandPolyOfTasmMinResoTasm);
-        knownLayers.add(knownTypeGsvGeologicalUnitContact50K);
-        knownLayers.add(knownTypeL180MtIsaDeepCrusSeisSurvQld2006StacAndMigrDataAndImagForLine06GaTo06Ga);
-        knownLayers.add(knownTypeAreTherAnySandUranSystInTheEromBasi);
-        knownLayers.add(knownTypeL164CurnSeisSurvSa20032004StacAndMigrSeisDataAndImagForLine03Ga);
-        knownLayers.add(knownTypeLawnHillPlatAndLeicRiveFaulTrouMeasStraSectOnliGis);
-        knownLayers.add(knownTypePredMineDiscInTheEastYilgCratAnExamOfDistTargOfAnOrogGoldMineSyst);
-        knownLayers.add(knownTypeFinaRepo3DGeolModeOfTheEastYilgCratProjPmdY2Sept2001Dece2004);
-                
-                
-        knownLayers.add(knownTypeGeoModels);
-        knownLayers.add(knownTypeGeologicalProvinces);
+        "highp-site-ironlayer",
+        "highpfeaturetype",
+        "highp-re-ironlayer",
+        "highp-site-feature-type",
+        "highp-site-phoslayer",
+        "highp-re-phoslayer",
+        "land-dama-poly-of-tasm-min-reso-tasm",
+        "nsw-drillhole",
+        "strategic-prospectivity-zones",
+        "mineral-fields",
+        "nsw-assay-surface",
+        "nsw-field-observations",
+        "land-dama-poin-of-tasm-min-reso-tasm",
+        "grav-meas-of-tasm-min-reso-tasm",
+        "nsw-downhole-assay-samples",
+        "cate-6-expl-lice-poly-of-tasm-min-reso-tasm",
+        "gsv-geological-unit-50k-",
+        "nsw-drillhole-all",
+        "gsv-geological-unit-50k-age",
+        "nsw-drillholes-coal",
+        "nsw-geological-field-observations",
+        "nsw-drillholes-minerals",
+        "nsw-geology-simplified",
+        "historical-exploration-activity-points",
+        "nsw-drillholes-petroleum",
+        "cate-1-expl-lice-poly-of-tasm-min-reso-tasm",
+        "grav-base-stat-of-tasm-min-reso-tasm",
+        "radnl-oper-r-25pcprr-l3-knmi",
+        "gsv-geological-unit-250k-age",
+        "releases",
+        "mine-occu-poin-of-tasm-min-reso-tasm",
+        "gsv-shear-displacement-structure-50k-",
+        "mineral-occurence-industry-full",
+        "nsw-historic-exploration-titles",
+        "cate-2-expl-lice-poly-of-tasm-min-reso-tasm",
+        "nsw-map-block-graticule",
+        "section-57-4",
+        "bl-localaboriginallandcouncil",
+        "land-line-of-tasm-min-reso-tasm",
+        "mini-leas-poly-of-tasm-min-reso-tasm",
+        "nsw-mineral-occurrence-industry",
+        "land-poin-of-tasm-min-reso-tasm",
+        "proc-land-area-of-tasm-min-reso-tasm",
+        "gsv-geological-unit-50k-lithology",
+        "section-19",
+        "nsw-100k-map-sheet-extents",
+        "cate-5-expl-lice-poly-of-tasm-min-reso-tasm",
+        "mines-and-mineral-deposits-minedex",
+        "nsw-fossicking-districts",
+        "nsw-geological-field-observations-photo",
+        "geop-tota-magn-inte-rtp-tmi-rtp-tilt-filt",
+        "nsw-seismic",
+
+        "nsw-curr-mini-and-expl-titl",
+        "bore-poin-of-tasm-min-reso-tasm",
+        "geop-tota-magn-inte-1st-deri-redu-to-pole",
+        "nsw-geological-spectral-samples",
+        "geop-tern-radi-pota",
+        "gsv-geological-unit-250k-",
+        "cate-4-expl-lice-poly-of-tasm-min-reso-tasm",
+        "mineralisation-zones-non-s57-2aa",
+        "nsw-drillholes-csg",
+        "nsw-current-mining-applications",
+        "amalgamations",
+        "nsw-operating-mineral-mines",
+
+        "tenements-current",
+        "bore-trac-of-tasm-min-reso-tasm",
+        "gsv-geological-unit-contact-250k-",
+        "geophysics-elevation",
+        "nsw-geol-simp-rock-unit-boun",
+        "blocks-and-units-graticule",
+        "airb-geop-surv-of-tasm-min-reso-tasm",
+        "nsw-map-unit-graticule",
+        "cate-3-expl-lice-poly-of-tasm-min-reso-tasm",
+        "nsw-geochronology",
+
+        "geophysics-isostatic-bouger-gravity",
+        "geop-tota-magn-inte-redu-to-pole",
+        "nsw-core-library-samples",
+        "nsw-geochemistry-samples",
+        "nsw-titles",
+        "gsv-geological-unit-250k-lithology",
+
+        "historical-exploration-activity-lines",
+        "restorations",
+        "borehole",
+        "nsw-geology",
+        "geop-isos-grav-over-tmi-rtp-tilt",
+        "gsv-shear-displacement-structure-250k-",
+        "nsw-lithology-samples",
+        "radnl-oper-r-25pcprr-l3-color",
+        "nsw-base",
+        "hist",
+        "nsw-mineral-occurrence-commodity",
+        "land-poly-of-tasm-min-reso-tasm",
+        "gsv-geological-unit-contact-50k-",
+        "l180-mt-isa-deep-crus-seis-surv-qld-2006-stac-and-migr-data-and-imag-for-line-06ga-to-06ga",
+        "are-ther-any-sand-uran-syst-in-the-erom-basi",
+        "l164-curn-seis-surv-sa-2003-2004-stac-and-migr-seis-data-and-imag-for-line-03ga",
+        "lawn-hill-plat-and-leic-rive-faul-trou-meas-stra-sect-onli-gis",
+        "pred-mine-disc-in-the-east-yilg-crat-an-exam-of-dist-targ-of-an-orog-gold-mine-syst",
+        "fina-repo-3d-geol-mode-of-the-east-yilg-crat-proj-pmd-y2-sept-2001-dece-2004",
+
+        "portal-geo-models",
+        "geological-provinces",
 
         /* UOW OCTOPUS Open Cosmogenic Isotope and Luminescence Database */
-        knownLayers.add(knownTypeUOWCrnAusBasins);
-        knownLayers.add(knownTypeUOWCrnAusOutlets);
-        knownLayers.add(knownTypeUOWCrnInprepBasins);
-        knownLayers.add(knownTypeUOWCrnInprepOutlets);
-        knownLayers.add(knownTypeUOWCrnIntBasins);
-        knownLayers.add(knownTypeUOWCrnIntOutlets);
-        knownLayers.add(knownTypeUOWCrnXXLBasins);
-        knownLayers.add(knownTypeUOWCrnXXLOutlets);
-        knownLayers.add(knownTypeUOWOSLTLBasins);
-        knownLayers.add(knownTypeUOWOSLTLOutlets);
+        "UOW-Crn-Aus-Basins",
+        "UOW-Crn-Aus-Outlets",
+        "UOW-Crn-Inprep-Basins",
+        "UOW-Crn-Inprep-Outlets",
+        "UOW-Crn-Int-Basins",
+        "UOW-Crn-Int-Outlets",
+        "UOW-Crn-XXL-Basins",
+        "UOW-Crn-XXL-Outlets",
+        "UOW-OSLTL-Basins",
+        "UOW-OSLTL-Outlets",
         /* END UOW OCTOPUS */
-        knownLayers.add(knownTypeIGSNSample);        
-        knownLayers.add(knownTypeIGSNGASample);        
-        knownLayers.add(knownTypeIGSNANDSSample);        
-        knownLayers.add(knownTypeIGSNWdcSample);
+        "IGSN-CSIRO-SAMPLE",
+        "IGSN-GA-SAMPLE",
+        "IGSN-ARDC-SAMPLE",
+        "IGSN-WDC-SAMPLE",
 
         /* GA Geophysical Survey Datasets */
-        knownLayers.add(knownTypeGeophysSurveys);
-        knownLayers.add(knownTypeGeophysGravSurveys);
-        knownLayers.add(knownTypeGeophysRadioSurveys);
-        knownLayers.add(knownTypeGeophysMagSurveys);
-        knownLayers.add(knownTypeGeophysElevSurveys);
+        "ga-geophysicalsurveys-all",
+        "ga-geophysicalsurveys-grav",
+        "ga-geophysicalsurveys-radio",
+        "ga-geophysicalsurveys-mag",
+        "ga-geophysicalsurveys-elev",
 
         /* GA National Geophysical Layers */
-        knownLayers.add(knownTypeGANatGeoPhys1);
-        knownLayers.add(knownTypeGANatGeoPhys2);
-        knownLayers.add(knownTypeGANatGeoPhys3);
-        knownLayers.add(knownTypeGANatGeoPhys4);
-        knownLayers.add(knownTypeGANatGeoPhys5);
-        knownLayers.add(knownTypeGANatGeoPhys6);
-        knownLayers.add(knownTypeGANatGeoPhys7);
-        knownLayers.add(knownTypeGANatGeoPhys8);
-        knownLayers.add(knownTypeGANatGeoPhys9);
-        knownLayers.add(knownTypeGANatGeoPhys10);
-        knownLayers.add(knownTypeGANatGeoPhys11);
-        knownLayers.add(knownTypeGANatGeoPhys12);
-        knownLayers.add(knownTypeGANatGeoPhys13);
-        knownLayers.add(knownTypeGANatGeoPhys14);
-        knownLayers.add(knownTypeGANatGeoPhys15);
-        knownLayers.add(knownTypeGANatGeoPhys16);
-        knownLayers.add(knownTypeGANatGeoPhys17);
-        knownLayers.add(knownTypeGANatGeoPhys18);
-        knownLayers.add(knownTypeGANatGeoPhys19);
-
-        return knownLayers;
-	}
-                
+        "ga-geophys-1",
+        "ga-geophys-2",
+        "ga-geophys-3",
+        "ga-geophys-4",
+        "ga-geophys-5",
+        "ga-geophys-6",
+        "ga-geophys-7",
+        "ga-geophys-8",
+        "ga-geophys-9",
+        "ga-geophys-10",
+        "ga-geophys-11",
+        "ga-geophys-12",
+        "ga-geophys-13",
+        "ga-geophys-14",
+        "ga-geophys-15",
+        "ga-geophys-16",
+        "ga-geophys-17",
+        "ga-geophys-18",
+        "ga-geophys-19",
+    };
 
+    @Bean
+    public KnownLayerList knownTypes(KnownLayerRegistry knownLayerRegistry) {
+        return knownLayerRegistry.getLayers(KNOWN_LAYER_IDS);
+    }
 }
@@ -0,0 +1,161 @@
+package org.auscope.portal.server.domain.nvcldataservice;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, sorted and de-duplicated list of borehole IDs stored compactly.
+ *
+ * Borehole IDs are typically URIs that share a long common prefix (eg - http://example.org/resource/feature/GSV/borehole/)
+ * so the prefix is stored once and the remaining suffixes are packed into a single char array. A set of
+ * thousands of IDs costs two arrays rather than thousands of String objects.
+ *
+ * Elements are materialised on demand by get(int) - callers iterating large sets repeatedly should keep
+ * that in mind.
+ */
+public class BoreholeIdSet extends AbstractList<String> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** An empty set of IDs */
+    public static final BoreholeIdSet EMPTY = new BoreholeIdSet("", new char[0], new int[] {0});
+
+    private final String prefix;
+    private final char[] suffixes;
+    /** offsets[i] to offsets[i + 1] is the suffix of element i */
+    private final int[] offsets;
+
+    private BoreholeIdSet(String prefix, char[] suffixes, int[] offsets) {
+        this.prefix = prefix;
+        this.suffixes = suffixes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Creates a BoreholeIdSet from ids. Null ids are ignored.
+     * @param ids
+     * @return
+     */
+    public static BoreholeIdSet copyOf(Collection<String> ids) {
+        if (ids instanceof BoreholeIdSet) {
+            return (BoreholeIdSet) ids;
+        }
+
+        String[] sorted = new String[ids.size()];
+        int count = 0;
+        for (String id : ids) {
+            if (id != null) {
+                sorted[count++] = id;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(sorted, 0, count);
+
+        //Drop duplicates
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (!sorted[i].equals(sorted[unique - 1])) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+
+        //The common prefix of a sorted list is the common prefix of its first and last elements
+        String first = sorted[0];
+        String last = sorted[unique - 1];
+        int prefixLength = 0;
+        while (prefixLength < first.length() && prefixLength < last.length() && first.charAt(prefixLength) == last.charAt(prefixLength)) {
+            prefixLength++;
+        }
+
+        int[] offsets = new int[unique + 1];
+        for (int i = 0; i < unique; i++) {
+            offsets[i + 1] = offsets[i] + sorted[i].length() - prefixLength;
+        }
+        char[] suffixes = new char[offsets[unique]];
+        for (int i = 0; i < unique; i++) {
+            sorted[i].getChars(prefixLength, sorted[i].length(), suffixes, offsets[i]);
+        }
+
+        return new BoreholeIdSet(first.substring(0, prefixLength), suffixes, offsets);
+    }
+
+    /**
+     * The prefix shared by every ID in this set
+     * @return
+     */
+    public String getCommonPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return prefix.concat(new String(suffixes, offsets[index], offsets[index + 1] - offsets[index]));
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Compares the suffix of element index against the suffix of id (from prefix.length() onwards)
+     */
+    private int compareSuffix(int index, String id) {
+        int start = offsets[index];
+        int length = offsets[index + 1] - start;
+        int idLength = id.length() - prefix.length();
+        int n = Math.min(length, idLength);
+        for (int i = 0; i < n; i++) {
+            char c1 = suffixes[start + i];
+            char c2 = id.charAt(prefix.length() + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length - idLength;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof String)) {
+            return -1;
+        }
+        String id = (String) o;
+        if (!id.startsWith(prefix)) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareSuffix(mid, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+}
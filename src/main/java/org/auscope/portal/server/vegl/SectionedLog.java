@@ -0,0 +1,184 @@
+package org.auscope.portal.server.vegl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.ui.ModelMap;
+
+/**
+ * An append only job log that is split into named sections as it grows.
+ *
+ * Text between "#### name start ####" and "#### name end ####" lines is a named section (sections
+ * can't be nested). Appended bytes are parsed only once - only the trailing incomplete line is
+ * re-examined whenever the sections are requested.
+ *
+ * Instances are thread safe.
+ */
+public class SectionedLog {
+
+    /** Matches section start/end delimiter lines */
+    static final Pattern SECTION_PATTERN = Pattern.compile("^#### (.*) (.+) ####$[\\n\\r]*", Pattern.MULTILINE);
+
+    /** The name of the section that always contains the entire log */
+    public static final String FULL_SECTION = "Full";
+
+    /** Decoded text of every byte up to (and including) the last newline byte received */
+    private final StringBuilder text = new StringBuilder();
+    /** Bytes received after the last newline (possibly an incomplete UTF-8 sequence) */
+    private byte[] pendingBytes = new byte[0];
+    private long byteLength = 0;
+    /** All text before this offset has been parsed into state */
+    private int parsedOffset = 0;
+    private final ParseState state = new ParseState();
+    /** Cached concatenation of text and pendingBytes (null if it needs rebuilding) */
+    private String fullText = "";
+
+    /**
+     * The section parsing state at a point in the log
+     */
+    private static class ParseState {
+        /** Closed sections - name to [start, end) offsets */
+        private final Map<String, int[]> sections = new LinkedHashMap<String, int[]>();
+        private String currentSectionName = null;
+        private int currentStart = 0;
+
+        public ParseState copy() {
+            ParseState copy = new ParseState();
+            copy.sections.putAll(sections);
+            copy.currentSectionName = currentSectionName;
+            copy.currentStart = currentStart;
+            return copy;
+        }
+
+        /**
+         * Applies every section delimiter in log between from and to (from must be the start of a line)
+         */
+        public void parse(CharSequence log, int from, int to) {
+            Matcher m = SECTION_PATTERN.matcher(log);
+            m.region(from, to);
+            while (m.find()) {
+                String sectionName = m.group(1);
+                String delimiter = m.group(2);
+
+                //On a new match - record the location and name
+                if (delimiter.equals("start")) {
+                    currentStart = m.end();
+                    currentSectionName = sectionName;
+                } else if (delimiter.equals("end")) {
+                    //On a closing pattern - ensure we are closing the current region (we don't support nesting)
+                    if (sectionName.equals(currentSectionName)) {
+                        sections.put(sectionName, new int[] {currentStart, m.start()});
+                        currentSectionName = null;
+                        currentStart = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a SectionedLog from the entire contents of a log
+     * @param contents
+     * @return
+     */
+    public static SectionedLog parse(String contents) {
+        SectionedLog log = new SectionedLog();
+        byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        log.append(bytes, 0, bytes.length);
+        return log;
+    }
+
+    /**
+     * The number of bytes that have been appended to this log
+     * @return
+     */
+    public synchronized long getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Appends len bytes of UTF-8 encoded log from data (starting at off)
+     * @param data
+     * @param off
+     * @param len
+     */
+    public synchronized void append(byte[] data, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+
+        byte[] combined = new byte[pendingBytes.length + len];
+        System.arraycopy(pendingBytes, 0, combined, 0, pendingBytes.length);
+        System.arraycopy(data, off, combined, pendingBytes.length, len);
+        byteLength += len;
+        fullText = null;
+
+        //A newline byte never occurs inside a multi byte UTF-8 sequence so everything up to it can be decoded
+        int lastNewline = combined.length - 1;
+        while (lastNewline >= 0 && combined[lastNewline] != '\n') {
+            lastNewline--;
+        }
+        if (lastNewline < 0) {
+            pendingBytes = combined;
+            return;
+        }
+        text.append(new String(combined, 0, lastNewline + 1, StandardCharsets.UTF_8));
+        pendingBytes = new byte[combined.length - lastNewline - 1];
+        System.arraycopy(combined, lastNewline + 1, pendingBytes, 0, pendingBytes.length);
+
+        //Only parse up to the start of the last non blank line. Delimiters swallow trailing blank
+        //lines so we can't be sure where a section begins until a non blank line follows
+        int end = text.length();
+        while (end > parsedOffset && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        int boundary = end;
+        while (boundary > parsedOffset && text.charAt(boundary - 1) != '\n') {
+            boundary--;
+        }
+        if (boundary > parsedOffset) {
+            state.parse(text, parsedOffset, boundary);
+            parsedOffset = boundary;
+        }
+    }
+
+    /**
+     * Gets the entire log as a String
+     * @return
+     */
+    public synchronized String getFullText() {
+        if (fullText == null) {
+            fullText = text.toString() + new String(pendingBytes, StandardCharsets.UTF_8);
+        }
+        return fullText;
+    }
+
+    /**
+     * Gets the log split into named sections. There will always be a FULL_SECTION containing
+     * the entire log. An unfinished section will contain everything after its start delimiter.
+     * @return
+     */
+    public synchronized ModelMap getSections() {
+        String full = getFullText();
+
+        //The unparsed tail might be incomplete so parse it without updating our state
+        ParseState tailState = state.copy();
+        tailState.parse(full, parsedOffset, full.length());
+
+        ModelMap namedSections = new ModelMap();
+        namedSections.put(FULL_SECTION, full);
+        for (Map.Entry<String, int[]> section : tailState.sections.entrySet()) {
+            namedSections.put(section.getKey(), full.substring(section.getValue()[0], section.getValue()[1]));
+        }
+
+        //We have an unfinished section... let's include it anyway
+        if (tailState.currentSectionName != null) {
+            namedSections.put(tailState.currentSectionName, full.substring(tailState.currentStart));
+        }
+
+        return namedSections;
+    }
+}
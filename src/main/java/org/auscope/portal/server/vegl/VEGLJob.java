@@ -8,6 +8,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,6 +21,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKey;
 import javax.persistence.OneToMany;
@@ -30,6 +32,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.auscope.portal.core.cloud.CloudJob;
 import org.auscope.portal.server.vegl.VglParameter.ParameterType;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 /**
  * A specialisation of a generic cloud job for the VEGL Portal
@@ -39,7 +43,10 @@ import org.auscope.portal.server.vegl.VglParameter.ParameterType;
  *
  */
 @Entity
-@Table(name = "jobs")
+@Table(name = "jobs", indexes = {
+        @Index(name = "JOB_STATUS", columnList = "statusKey"),
+        @Index(name = "JOB_LIST_STATUS", columnList = "emailAddress, statusKey"),
+        @Index(name = "JOB_SERIES_EMAIL", columnList = "seriesId, emailAddress")})
 public class VEGLJob extends CloudJob implements Cloneable {
     private static final long serialVersionUID = -57851899164623641L;
     
@@ -67,13 +74,21 @@ public class VEGLJob extends CloudJob implements Cloneable {
     /** Time when the job executes as opposed to when the job was submitted **/
     private Date executeDate;
 
+    /*
+     * The eager collections are read outside of a persistence context (eg by the job monitors and submission queue)
+     * so can't be lazy. They are fetched with a subselect so that loading many jobs only adds a query per collection
+     * (rather than one per job). Job lists should query VEGLJobSummary objects instead.
+     */
+
     /** A map of VglParameter objects keyed by their parameter names*/
     @OneToMany(mappedBy = "parent", fetch=FetchType.EAGER, cascade=CascadeType.ALL, orphanRemoval=true)
+    @Fetch(FetchMode.SUBSELECT)
     @MapKey(name="name")
     private Map<String, VglParameter> jobParameters;
     
     /** A list of VglDownload objects associated with this job*/
     @OneToMany(mappedBy="parent", fetch=FetchType.EAGER, cascade=CascadeType.ALL, orphanRemoval=true)
+    @Fetch(FetchMode.SUBSELECT)
     private List<VglDownload> jobDownloads;
 
     /** A list of FileInformation objects associated with this job*/
@@ -91,6 +106,7 @@ public class VEGLJob extends CloudJob implements Cloneable {
      * A set of annotations associated with this job.
      */
     @ElementCollection(fetch=FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name="job_annotations", joinColumns=@JoinColumn(name="job_id"))
     @Column(name="value")
     private Set<String> annotations;
@@ -112,6 +128,9 @@ public class VEGLJob extends CloudJob implements Cloneable {
     protected Date processDate;
     /** descriptive status of this job */
     protected String status;
+    /** status normalised by normaliseStatus (kept in step by setStatus) so status queries can use an index */
+    @Column(length = 64)
+    private String statusKey;
 
     /** the ID of the VM that will be used to run this job */
     protected String computeVmId;
@@ -629,6 +648,26 @@ public class VEGLJob extends CloudJob implements Cloneable {
      */
     public void setStatus(String status) {
         this.status = status;
+        this.statusKey = normaliseStatus(status);
+    }
+
+    /**
+     * The status of this job normalised by normaliseStatus
+     *
+     * @return
+     */
+    public String getStatusKey() {
+        return statusKey;
+    }
+
+    /**
+     * Normalises a job status for comparison (statuses are compared case insensitively)
+     *
+     * @param status Can be null
+     * @return
+     */
+    public static String normaliseStatus(String status) {
+        return status == null ? null : status.trim().toLowerCase(Locale.ENGLISH);
     }
 
     /**
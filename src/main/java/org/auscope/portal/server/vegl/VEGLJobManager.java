@@ -53,6 +53,18 @@ public class VEGLJobManager {
         return applyNCIDetails(jobs, user);
     }
 
+    /**
+     * Summaries of the (undeleted) jobs of a user ordered by job ID. Use afterJobId and limit to page through them.
+     *
+     * @param user
+     * @param afterJobId Only jobs with an ID greater than this are returned (can be null)
+     * @param limit The maximum number of summaries to return (null for all)
+     * @return
+     */
+    public List<VEGLJobSummary> getUserJobSummaries(ANVGLUser user, Integer afterJobId, Integer limit) {
+        return jobService.getJobSummariesOfUser(user, afterJobId, limit);
+    }
+
     public List<VEGLJob> getPendingOrActiveJobs() {
     	return jobService.getPendingOrActiveJobs();
     }
@@ -0,0 +1,147 @@
+package org.auscope.portal.server.vegl;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A read only summary of a VEGLJob holding only what the job list displays. Summaries are queried with a
+ * JPQL constructor expression (see VEGLJobRepository) so none of the job's parameters, downloads or annotations
+ * are loaded.
+ */
+public class VEGLJobSummary implements Serializable {
+
+    private static final long serialVersionUID = -3287160915871553320L;
+
+    private Integer id;
+    private String name;
+    private String description;
+    private Integer seriesId;
+    private String status;
+    private Date submitDate;
+    private Date processDate;
+    private Date executeDate;
+    private String computeServiceId;
+    private String storageServiceId;
+
+    /**
+     * Creates a summary from the individual job columns (used by VEGLJobRepository)
+     */
+    public VEGLJobSummary(Integer id, String name, String description, Integer seriesId, String status,
+            Date submitDate, Date processDate, Date executeDate, String computeServiceId, String storageServiceId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.seriesId = seriesId;
+        this.status = status;
+        this.submitDate = submitDate;
+        this.processDate = processDate;
+        this.executeDate = executeDate;
+        this.computeServiceId = computeServiceId;
+        this.storageServiceId = storageServiceId;
+    }
+
+    /**
+     * Creates a summary of an already loaded job
+     *
+     * @param job
+     */
+    public VEGLJobSummary(VEGLJob job) {
+        this(job.getId(), job.getName(), job.getDescription(), job.getSeriesId(), job.getStatus(), job.getSubmitDate(),
+                job.getProcessDate(), job.getExecuteDate(), job.getComputeServiceId(), job.getStorageServiceId());
+    }
+
+    /**
+     * Unique ID of the job
+     *
+     * @return
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Descriptive name of the job
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Long description of the job
+     *
+     * @return
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * The ID of the series (folder) the job belongs to (can be null)
+     *
+     * @return
+     */
+    public Integer getSeriesId() {
+        return seriesId;
+    }
+
+    /**
+     * Descriptive status of the job
+     *
+     * @return
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * date/time when the job was submitted
+     *
+     * @return
+     */
+    public Date getSubmitDate() {
+        return submitDate;
+    }
+
+    /**
+     * date/time when the job was processed
+     *
+     * @return
+     */
+    public Date getProcessDate() {
+        return processDate;
+    }
+
+    /**
+     * date/time when the job executes (as opposed to when it was submitted)
+     *
+     * @return
+     */
+    public Date getExecuteDate() {
+        return executeDate;
+    }
+
+    /**
+     * The ID of the compute service running the job
+     *
+     * @return
+     */
+    public String getComputeServiceId() {
+        return computeServiceId;
+    }
+
+    /**
+     * The ID of the storage service holding the job's files
+     *
+     * @return
+     */
+    public String getStorageServiceId() {
+        return storageServiceId;
+    }
+
+    @Override
+    public String toString() {
+        return "VEGLJobSummary [id=" + id + ", name=" + name + ", status=" + status + "]";
+    }
+}
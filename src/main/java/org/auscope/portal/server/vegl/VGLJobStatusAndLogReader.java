@@ -1,16 +1,21 @@
 package org.auscope.portal.server.vegl;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.auscope.portal.core.cloud.CloudFileInformation;
 import org.auscope.portal.core.cloud.CloudJob;
 import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.services.cloud.CloudComputeService.InstanceStatus;
 import org.auscope.portal.core.services.cloud.CloudStorageService;
 import org.auscope.portal.core.services.cloud.monitor.JobStatusReader;
 import org.auscope.portal.core.util.FileIOUtil;
@@ -19,12 +24,37 @@ import org.auscope.portal.server.web.controllers.JobBuilderController;
 import org.auscope.portal.server.web.controllers.JobListController;
 import org.auscope.portal.server.web.security.NCIDetails;
 import org.auscope.portal.server.web.service.CloudSubmissionService;
+import org.auscope.portal.server.web.service.cloud.RangedCloudStorage;
+import org.auscope.portal.server.web.service.cloud.RangedInputStream;
 import org.springframework.ui.ModelMap;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class VGLJobStatusAndLogReader extends BaseCloudController implements JobStatusReader {
 
+    /** How long (in milliseconds) parsed logs are shared between requests made with the same job object */
+    public static final long SHARED_LOG_MILLIS = 10 * 1000;
+    /** The maximum number of logs held for incremental (ranged) reading */
+    public static final int DEFAULT_LOG_CACHE_SIZE = 32;
+    /** How many of the bytes already read are read again (and compared) to check a modified log was only appended to */
+    public static final int VERIFY_BYTES = 64;
+    /**
+     * Job property holding the name of an InstanceStatus the caller has already looked up (eg - in a batch for
+     * many jobs). getJobStatus uses it rather than asking the compute service. It is never persisted.
+     */
+    public static final String PROPERTY_BATCHED_STATUS = "batched-instance-status";
 
     private CloudSubmissionService cloudSubmissionService;
+    /** Logs read via the same job object, weakly (identity) keyed by that object */
+    private final Cache<VEGLJob, ConcurrentMap<String, SectionedLog>> recentLogs = CacheBuilder.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(SHARED_LOG_MILLIS, TimeUnit.MILLISECONDS)
+            .build();
+    /** Logs read incrementally from RangedCloudStorage services keyed by storage/job/file */
+    private final Cache<String, CachedLog> logCache = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_LOG_CACHE_SIZE)
+            .build();
 
     public VGLJobStatusAndLogReader() {
         super(null, null, null);
@@ -67,6 +97,10 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
      * Will always contain a single section called "Full" containing the un-sectioned
      * original log.
      *
+     * Repeated requests using the same job object (eg - multiple listeners handling a single
+     * status change) within SHARED_LOG_MILLIS share a single download/parse. Storage services
+     * that support ranged reads will only have the newly appended part of a log transferred.
+     *
      * @param job
      * @return
      */
@@ -78,20 +112,29 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
                     "Please ensure you have chosen a storage provider for the job.");
         }
 
-        //Download the logs from cloud storage
-        String logContents = null;
-        InputStream is = null;
-        try {
-            is = cloudStorageService.getJobFile(job, logFile);
-            logContents = IOUtils.toString(is, StandardCharsets.UTF_8);
-        } catch (Exception ex) {
-            log.debug(String.format("The job %1$s hasn't uploaded %2$s yet", job.getId(), logFile));
-        } finally {
-            FileIOUtil.closeQuietly(is);
+        ConcurrentMap<String, SectionedLog> jobLogs = recentLogs.getIfPresent(job);
+        SectionedLog sectionedLog = jobLogs == null ? null : jobLogs.get(logFile);
+        if (sectionedLog != null) {
+            return sectionedLog.getSections();
+        }
+
+        if (cloudStorageService instanceof RangedCloudStorage) {
+            sectionedLog = readIncrementally(job, logFile, cloudStorageService);
+        } else {
+            //Download the logs from cloud storage
+            InputStream is = null;
+            try {
+                is = cloudStorageService.getJobFile(job, logFile);
+                sectionedLog = SectionedLog.parse(IOUtils.toString(is, StandardCharsets.UTF_8));
+            } catch (Exception ex) {
+                log.debug(String.format("The job %1$s hasn't uploaded %2$s yet", job.getId(), logFile));
+            } finally {
+                FileIOUtil.closeQuietly(is);
+            }
         }
 
         //If we fail at that, download direct from the running instance
-        if (logContents == null) {
+        if (sectionedLog == null) {
             CloudComputeService compute = getComputeService(job);
             if (compute == null) {
                 throw new PortalServiceException(
@@ -99,48 +142,126 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
                         "Please ensure you have chosen a compute provider for the job.");
             }
 
-            logContents = compute.getConsoleLog(job);
+            String logContents = compute.getConsoleLog(job);
             if (logContents == null) {
                 throw new PortalServiceException("The specified job hasn't uploaded any logs yet");
             }
+            sectionedLog = SectionedLog.parse(logContents);
+        }
+
+        if (jobLogs == null) {
+            jobLogs = new ConcurrentHashMap<String, SectionedLog>();
+            ConcurrentMap<String, SectionedLog> existing = recentLogs.asMap().putIfAbsent(job, jobLogs);
+            if (existing != null) {
+                jobLogs = existing;
+            }
+        }
+        jobLogs.put(logFile, sectionedLog);
+
+        return sectionedLog.getSections();
+    }
+
+    /**
+     * A log read incrementally along with what is needed to tell whether the file has changed other than by appending
+     */
+    private static class CachedLog {
+        private SectionedLog log = new SectionedLog();
+        /** The modification time of the file when it was last read */
+        private long lastModified = 0;
+        /** The last (up to VERIFY_BYTES) bytes read */
+        private byte[] tail = new byte[0];
+
+        public void append(byte[] data, int off, int len) {
+            log.append(data, off, len);
+            int keep = Math.min(VERIFY_BYTES, tail.length + len);
+            byte[] newTail = new byte[keep];
+            int fromTail = Math.max(0, keep - len);
+            System.arraycopy(tail, tail.length - fromTail, newTail, 0, fromTail);
+            System.arraycopy(data, off + len - (keep - fromTail), newTail, fromTail, keep - fromTail);
+            tail = newTail;
+        }
+
+        public void reset() {
+            log = new SectionedLog();
+            lastModified = 0;
+            tail = new byte[0];
         }
+    }
 
-        ModelMap namedSections = new ModelMap();
-        namedSections.put("Full", logContents); //always include the full log
-
-        //Iterate through looking for start/end matches. All text between a start/end
-        //tag will be snipped out and used in their own region/section
-        Pattern p = Pattern.compile("^#### (.*) (.+) ####$[\\n\\r]*", Pattern.MULTILINE);
-        Matcher m = p.matcher(logContents);
-        int start = 0;
-        String currentSectionName = null;
-        while (m.find()) {
-            String sectionName = m.group(1);
-            String delimiter = m.group(2);
-
-            //On a new match - record the location and name
-            if (delimiter.equals("start")) {
-                start = m.end();
-                currentSectionName = sectionName;
-            } else if (delimiter.equals("end")) {
-                //On a closing pattern - ensure we are closing the current region (we don't support nesting)
-                //Take the snippet of text and store it in our result map
-                if (sectionName.equals(currentSectionName)) {
-                    String regionText = logContents.substring(start, m.start());
-                    namedSections.put(sectionName, regionText);
-                    currentSectionName = null;
-                    start = 0;
+    /**
+     * Brings the cached copy of logFile up to date by reading only the bytes appended since it was last read.
+     *
+     * The cached copy is discarded (and the log read again from the start) if the file has shrunk, or if its
+     * modification time has changed and the last VERIFY_BYTES bytes read no longer match.
+     *
+     * @return null if the log can't be read and nothing has been read previously
+     */
+    private SectionedLog readIncrementally(VEGLJob job, String logFile, CloudStorageService cloudStorageService) {
+        String cacheKey = cloudStorageService.getId() + ":" + job.getId() + ":" + logFile;
+        CachedLog cachedLog = logCache.getIfPresent(cacheKey);
+        if (cachedLog == null) {
+            cachedLog = new CachedLog();
+        }
+
+        //Hold the log while reading so concurrent readers can't append the same bytes twice
+        synchronized (cachedLog) {
+            try {
+                if (!readAppended(job, logFile, (RangedCloudStorage) cloudStorageService, cachedLog)) {
+                    log.debug(String.format("%1$s of job %2$s has been rewritten - reading it again", logFile, job.getId()));
+                    cachedLog.reset();
+                    readAppended(job, logFile, (RangedCloudStorage) cloudStorageService, cachedLog);
+                }
+            } catch (FileNotFoundException ex) {
+                logCache.invalidate(cacheKey);
+                return null;
+            } catch (Exception ex) {
+                log.debug(String.format("The job %1$s hasn't uploaded %2$s yet", job.getId(), logFile));
+                if (cachedLog.log.getByteLength() == 0) {
+                    return null;
                 }
             }
         }
 
-        //We have an unfinished section... let's include it anyway
-        if (currentSectionName != null) {
-            String regionText = logContents.substring(start);
-            namedSections.put(currentSectionName, regionText);
+        logCache.put(cacheKey, cachedLog);
+        return cachedLog.log;
+    }
+
+    /**
+     * Appends the bytes added to logFile since it was last read to cachedLog
+     *
+     * @return false (leaving cachedLog unchanged) if logFile has changed other than by appending
+     * @throws FileNotFoundException if logFile doesn't exist
+     */
+    private static boolean readAppended(VEGLJob job, String logFile, RangedCloudStorage storage, CachedLog cachedLog)
+            throws PortalServiceException, IOException {
+        long length = cachedLog.log.getByteLength();
+        byte[] tail = cachedLog.tail;
+        RangedInputStream is = storage.getJobFile(job, logFile, length - tail.length);
+        if (is == null) {
+            throw new FileNotFoundException(logFile);
         }
 
-        return namedSections;
+        try {
+            if (is.getFileSize() < length) {
+                return false;
+            }
+
+            byte[] reread = new byte[tail.length];
+            IOUtils.readFully(is, reread);
+            if (is.getLastModified() != cachedLog.lastModified && !Arrays.equals(tail, reread)) {
+                return false;
+            }
+
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                cachedLog.append(buffer, 0, read);
+            }
+            cachedLog.lastModified = is.getLastModified();
+            return true;
+        } finally {
+            FileIOUtil.closeQuietly(is);
+        }
     }
 
     /**
@@ -172,6 +293,7 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
         String nciUser = cloudJob.getProperty(NCIDetails.PROPERTY_NCI_USER);
         String nciProj = cloudJob.getProperty(NCIDetails.PROPERTY_NCI_PROJECT);
         String nciKey = cloudJob.getProperty(NCIDetails.PROPERTY_NCI_KEY);
+        String batchedStatus = cloudJob.getProperty(PROPERTY_BATCHED_STATUS);
 
 
         //The service hangs onto the underlying job Object but the DB is the point of truth
@@ -259,7 +381,8 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
 
         //There is also a possibility that the cloud has had issues booting the VM... lets see what we can dig up
         try {
-            switch (cloudComputeService.getJobStatus(job)) {
+            InstanceStatus instanceStatus = batchedStatus == null ? cloudComputeService.getJobStatus(job) : InstanceStatus.valueOf(batchedStatus);
+            switch (instanceStatus) {
             case Missing:
                 if (jobFinished) {
                     return JobBuilderController.STATUS_DONE;
@@ -293,4 +416,4 @@ public class VGLJobStatusAndLogReader extends BaseCloudController implements Job
 
         return false;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
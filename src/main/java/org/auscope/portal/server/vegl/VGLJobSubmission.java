@@ -0,0 +1,168 @@
+package org.auscope.portal.server.vegl;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * A job that is waiting to be submitted (or resubmitted) to a cloud compute service. Persisting these
+ * means that queued/retrying submissions survive a restart of the portal.
+ *
+ * A submission is leased by a single portal instance while it is being submitted. Leases that aren't
+ * released (eg - the portal died mid submission) expire and the submission becomes available again.
+ */
+@Entity
+@Table(name = "job_submissions")
+public class VGLJobSubmission implements Serializable {
+
+    private static final long serialVersionUID = 2651394872309514377L;
+
+    /** The primary key for this submission */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    /** The id of the job being submitted */
+    private Integer jobId;
+    /** The id of the CloudComputeService receiving the job */
+    private String computeServiceId;
+    /** Email of the job owner (used to restore the job's credentials on recovery) */
+    private String userEmail;
+    /** The user data string to send with the submission */
+    @Lob
+    private String userData;
+    /** When the job was first queued for submission */
+    private Date queuedDate;
+    /** The submission should not be attempted before this time */
+    private Date nextAttemptDate;
+    /** How many times submission has been attempted */
+    private int attempts;
+    /** Identifies the portal instance currently submitting this job (if any) */
+    private String leaseOwner;
+    /** When the current lease (if any) expires */
+    private Date leaseExpiryDate;
+    /** The error from the most recent failed attempt (if any) */
+    @Column(length = 1000)
+    private String lastError;
+
+    /**
+     * Default constructor.
+     */
+    public VGLJobSubmission() {
+    }
+
+    /**
+     * @param jobId
+     * @param computeServiceId
+     * @param userEmail
+     * @param userData
+     */
+    public VGLJobSubmission(Integer jobId, String computeServiceId, String userEmail, String userData) {
+        this.jobId = jobId;
+        this.computeServiceId = computeServiceId;
+        this.userEmail = userEmail;
+        this.userData = userData;
+        this.queuedDate = new Date();
+        this.nextAttemptDate = this.queuedDate;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Integer jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getComputeServiceId() {
+        return computeServiceId;
+    }
+
+    public void setComputeServiceId(String computeServiceId) {
+        this.computeServiceId = computeServiceId;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getUserData() {
+        return userData;
+    }
+
+    public void setUserData(String userData) {
+        this.userData = userData;
+    }
+
+    public Date getQueuedDate() {
+        return queuedDate;
+    }
+
+    public void setQueuedDate(Date queuedDate) {
+        this.queuedDate = queuedDate;
+    }
+
+    public Date getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Date nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Date getLeaseExpiryDate() {
+        return leaseExpiryDate;
+    }
+
+    public void setLeaseExpiryDate(Date leaseExpiryDate) {
+        this.leaseExpiryDate = leaseExpiryDate;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "VGLJobSubmission [id=" + id + ", jobId=" + jobId + ", computeServiceId=" + computeServiceId
+                + ", attempts=" + attempts + ", nextAttemptDate=" + nextAttemptDate + ", leaseOwner=" + leaseOwner + "]";
+    }
+}
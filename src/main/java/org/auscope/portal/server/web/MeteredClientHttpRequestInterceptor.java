@@ -0,0 +1,77 @@
+package org.auscope.portal.server.web;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the same outbound request metrics as MeteredHttpServiceCaller (portal.outbound.requests,
+ * portal.outbound.response.size and portal.outbound.inflight) for requests made through a RestTemplate.
+ *
+ * Response sizes are only recorded when the remote service reports a content length. Hosts are tagged (and idle hosts
+ * evicted) in the same way as MeteredHttpServiceCaller.
+ */
+public class MeteredClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MeterRegistry registry;
+    private final String callerName;
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Set<String> hosts = ConcurrentHashMap.newKeySet();
+    private volatile int maxHosts = MeteredHttpServiceCaller.DEFAULT_MAX_HOSTS;
+
+    /**
+     * @param registry Where metrics are recorded
+     * @param callerName Distinguishes the metrics of this RestTemplate from those of other callers (eg - "scm")
+     */
+    public MeteredClientHttpRequestInterceptor(MeterRegistry registry, String callerName) {
+        this.registry = registry;
+        this.callerName = callerName;
+    }
+
+    /**
+     * Sets the number of distinct hosts that are given their own host tag, requests to any other host are tagged as
+     * MeteredHttpServiceCaller.OTHER_HOST. Defaults to MeteredHttpServiceCaller.DEFAULT_MAX_HOSTS.
+     * @param maxHosts
+     */
+    public void setMaxHosts(int maxHosts) {
+        this.maxHosts = maxHosts;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String host = MeteredHttpServiceCaller.getHostTag(hosts, maxHosts, request.getURI());
+        MeteredHttpServiceCaller.startInFlight(registry, inFlight, callerName, host);
+        Timer.Sample sample = Timer.start(registry);
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException ex) {
+            MeteredHttpServiceCaller.stopInFlight(registry, inFlight, callerName, host);
+            MeteredHttpServiceCaller.stopRequestTimer(registry, sample, callerName, host, MeteredHttpServiceCaller.OUTCOME_ERROR, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            MeteredHttpServiceCaller.stopInFlight(registry, inFlight, callerName, host);
+            MeteredHttpServiceCaller.stopRequestTimer(registry, sample, callerName, host, MeteredHttpServiceCaller.OUTCOME_ERROR, ex);
+            throw ex;
+        }
+
+        MeteredHttpServiceCaller.stopInFlight(registry, inFlight, callerName, host);
+        MeteredHttpServiceCaller.stopRequestTimer(registry, sample, callerName, host,
+                MeteredHttpServiceCaller.getOutcome(response.getRawStatusCode()), null);
+        long contentLength = response.getHeaders().getContentLength();
+        if (contentLength >= 0) {
+            MeteredHttpServiceCaller.recordResponseSize(registry, callerName, host, contentLength);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,350 @@
+package org.auscope.portal.server.web;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.auscope.portal.core.server.http.HttpClientInputStream;
+import org.auscope.portal.core.server.http.HttpClientResponse;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A HttpServiceCaller that records Micrometer metrics for every outbound request, tagged by the remote host so a slow
+ * WFS/WMS/CSW/NVCL/SSC provider can be identified:
+ *
+ * portal.outbound.requests - A timer (with a percentile histogram) of the time taken for the remote service to respond.
+ * Tagged by caller, host, outcome (SUCCESS, CLIENT_ERROR, SERVER_ERROR or ERROR if no response was received) and
+ * exception. The error rate of a host is the rate of its non SUCCESS outcomes.
+ *
+ * portal.outbound.response.size - The size of each response body. Stream responses are only measured once they are
+ * closed and HttpResponses only when the remote service reports a content length.
+ *
+ * portal.outbound.inflight - The number of requests to each host that are awaiting a response. A host's gauge is
+ * removed whenever it has nothing in flight.
+ *
+ * Request URLs are largely supplied by the caller so only the first maxHosts distinct hosts are given their own host
+ * tag, every other host is tagged as OTHER_HOST. This bounds the number of meters (and the memory they hold).
+ *
+ * Only the outermost call is measured if HttpServiceCaller delegates between its own request methods. Requests made
+ * through a RestTemplate (eg - the SSC requests of ScmEntryCache) are measured by MeteredClientHttpRequestInterceptor.
+ */
+public class MeteredHttpServiceCaller extends HttpServiceCaller {
+
+    public static final String REQUESTS_METRIC = "portal.outbound.requests";
+    public static final String RESPONSE_SIZE_METRIC = "portal.outbound.response.size";
+    public static final String IN_FLIGHT_METRIC = "portal.outbound.inflight";
+
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+    public static final String OUTCOME_CLIENT_ERROR = "CLIENT_ERROR";
+    public static final String OUTCOME_SERVER_ERROR = "SERVER_ERROR";
+    public static final String OUTCOME_ERROR = "ERROR";
+
+    /** The host tag of requests to hosts beyond the first maxHosts */
+    public static final String OTHER_HOST = "other";
+    /** The default number of distinct hosts that are given their own host tag */
+    public static final int DEFAULT_MAX_HOSTS = 100;
+
+    private static final String UNKNOWN_HOST = "unknown";
+    private static final String NO_EXCEPTION = "None";
+
+    private final MeterRegistry registry;
+    private final String callerName;
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Set<String> hosts = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Boolean> measuring = new ThreadLocal<Boolean>();
+    private volatile int maxHosts = DEFAULT_MAX_HOSTS;
+
+    /**
+     * @param connectionTimeOut The connection timeout (in milliseconds)
+     * @param registry Where metrics are recorded
+     * @param callerName Distinguishes the metrics of this caller from those of other callers (eg - "default" or "search")
+     */
+    public MeteredHttpServiceCaller(int connectionTimeOut, MeterRegistry registry, String callerName) {
+        super(connectionTimeOut);
+        this.registry = registry;
+        this.callerName = callerName;
+    }
+
+    /**
+     * Sets the number of distinct hosts that are given their own host tag, requests to any other host are tagged as
+     * OTHER_HOST. Defaults to DEFAULT_MAX_HOSTS.
+     * @param maxHosts
+     */
+    public void setMaxHosts(int maxHosts) {
+        this.maxHosts = maxHosts;
+    }
+
+    @Override
+    public String getMethodResponseAsString(HttpRequestBase method) throws IOException {
+        if (Boolean.TRUE.equals(measuring.get())) {
+            return super.getMethodResponseAsString(method);
+        }
+
+        String host = getHost(method);
+        Timer.Sample sample = start(host);
+        String response;
+        try {
+            response = super.getMethodResponseAsString(method);
+        } catch (IOException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        }
+
+        stop(sample, host, OUTCOME_SUCCESS, null);
+        if (response != null) {
+            //The XML/JSON returned by OGC services is almost entirely ASCII so characters approximate bytes
+            recordSize(host, response.length());
+        }
+        return response;
+    }
+
+    @Override
+    public HttpClientInputStream getMethodResponseAsStream(HttpRequestBase method) throws IOException {
+        if (Boolean.TRUE.equals(measuring.get())) {
+            return super.getMethodResponseAsStream(method);
+        }
+
+        final String host = getHost(method);
+        Timer.Sample sample = start(host);
+        HttpClientInputStream response;
+        try {
+            response = super.getMethodResponseAsStream(method);
+        } catch (IOException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        }
+
+        stop(sample, host, OUTCOME_SUCCESS, null);
+        if (response == null) {
+            return null;
+        }
+
+        //Closing the wrapper closes response (and with it the underlying client)
+        return new HttpClientInputStream(new FilterInputStream(response) {
+            private long size = 0;
+            private boolean closed = false;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    size++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    size += count;
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                size += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    recordSize(host, size);
+                }
+                super.close();
+            }
+        }, null);
+    }
+
+    @Override
+    public HttpClientResponse getMethodResponseAsHttpResponse(HttpRequestBase method) throws IOException {
+        if (Boolean.TRUE.equals(measuring.get())) {
+            return super.getMethodResponseAsHttpResponse(method);
+        }
+
+        String host = getHost(method);
+        Timer.Sample sample = start(host);
+        HttpClientResponse response;
+        try {
+            response = super.getMethodResponseAsHttpResponse(method);
+        } catch (IOException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            stop(sample, host, OUTCOME_ERROR, ex);
+            throw ex;
+        }
+
+        StatusLine statusLine = response == null ? null : response.getStatusLine();
+        stop(sample, host, statusLine == null ? OUTCOME_SUCCESS : getOutcome(statusLine.getStatusCode()), null);
+        HttpEntity entity = response == null ? null : response.getEntity();
+        if (entity != null && entity.getContentLength() >= 0) {
+            recordSize(host, entity.getContentLength());
+        }
+        return response;
+    }
+
+    /**
+     * Gets the outcome tag for a HTTP status code
+     * @param statusCode
+     * @return
+     */
+    public static String getOutcome(int statusCode) {
+        if (statusCode >= 500) {
+            return OUTCOME_SERVER_ERROR;
+        } else if (statusCode >= 400) {
+            return OUTCOME_CLIENT_ERROR;
+        }
+        return OUTCOME_SUCCESS;
+    }
+
+    private String getHost(HttpRequestBase method) {
+        return getHostTag(hosts, maxHosts, method.getURI());
+    }
+
+    private Timer.Sample start(String host) {
+        measuring.set(Boolean.TRUE);
+        startInFlight(registry, inFlight, callerName, host);
+        return Timer.start(registry);
+    }
+
+    private void stop(Timer.Sample sample, String host, String outcome, Exception ex) {
+        measuring.remove();
+        stopInFlight(registry, inFlight, callerName, host);
+        stopRequestTimer(registry, sample, callerName, host, outcome, ex);
+    }
+
+    private void recordSize(String host, long size) {
+        recordResponseSize(registry, callerName, host, size);
+    }
+
+    /**
+     * Gets the host tag for a request URI
+     */
+    static String getHost(URI uri) {
+        String host = uri == null ? null : uri.getHost();
+        return host == null ? UNKNOWN_HOST : host.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Gets the host tag for a request URI, adding its host to hosts unless hosts already holds maxHosts hosts (in
+     * which case OTHER_HOST is returned)
+     */
+    static String getHostTag(Set<String> hosts, int maxHosts, URI uri) {
+        String host = getHost(uri);
+        if (hosts.contains(host)) {
+            return host;
+        }
+
+        synchronized (hosts) {
+            if (hosts.contains(host)) {
+                return host;
+            }
+            if (hosts.size() >= maxHosts) {
+                return OTHER_HOST;
+            }
+            hosts.add(host);
+            return host;
+        }
+    }
+
+    /**
+     * Records sample against the REQUESTS_METRIC timer of callerName/host/outcome/ex
+     */
+    static void stopRequestTimer(MeterRegistry registry, Timer.Sample sample, String callerName, String host, String outcome, Exception ex) {
+        sample.stop(Timer.builder(REQUESTS_METRIC)
+                .description("Time taken for remote services to respond to portal requests")
+                .tag("caller", callerName)
+                .tag("host", host)
+                .tag("outcome", outcome)
+                .tag("exception", ex == null ? NO_EXCEPTION : ex.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Records size against the RESPONSE_SIZE_METRIC of callerName/host
+     */
+    static void recordResponseSize(MeterRegistry registry, String callerName, String host, long size) {
+        DistributionSummary.builder(RESPONSE_SIZE_METRIC)
+                .description("Size of the responses returned by remote services")
+                .baseUnit("bytes")
+                .tag("caller", callerName)
+                .tag("host", host)
+                .register(registry)
+                .record(size);
+    }
+
+    /**
+     * Increments the in flight count of host in inFlight, registering its IN_FLIGHT_METRIC gauge if host had nothing
+     * in flight
+     */
+    static void startInFlight(final MeterRegistry registry, ConcurrentMap<String, AtomicInteger> inFlight, final String callerName, String host) {
+        inFlight.compute(host, new BiFunction<String, AtomicInteger, AtomicInteger>() {
+            @Override
+            public AtomicInteger apply(String key, AtomicInteger count) {
+                if (count == null) {
+                    count = new AtomicInteger();
+                    Gauge.builder(IN_FLIGHT_METRIC, count, new ToDoubleFunction<AtomicInteger>() {
+                        @Override
+                        public double applyAsDouble(AtomicInteger value) {
+                            return value.get();
+                        }
+                    })
+                            .description("Requests to remote services that are awaiting a response")
+                            .tag("caller", callerName)
+                            .tag("host", key)
+                            .register(registry);
+                }
+                count.incrementAndGet();
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Decrements the in flight count of host in inFlight, removing it (and its IN_FLIGHT_METRIC gauge) once host has
+     * nothing in flight so that idle hosts aren't held onto
+     */
+    static void stopInFlight(final MeterRegistry registry, ConcurrentMap<String, AtomicInteger> inFlight, final String callerName, String host) {
+        inFlight.computeIfPresent(host, new BiFunction<String, AtomicInteger, AtomicInteger>() {
+            @Override
+            public AtomicInteger apply(String key, AtomicInteger count) {
+                if (count.decrementAndGet() > 0) {
+                    return count;
+                }
+
+                Gauge gauge = registry.find(IN_FLIGHT_METRIC).tag("caller", callerName).tag("host", key).gauge();
+                if (gauge != null) {
+                    registry.remove(gauge);
+                }
+                return null;
+            }
+        });
+    }
+}
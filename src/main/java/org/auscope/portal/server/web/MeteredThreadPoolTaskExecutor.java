@@ -0,0 +1,91 @@
+package org.auscope.portal.server.web;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * A named ThreadPoolTaskExecutor intended to be dedicated to a single subsystem (a bulkhead) so that a subsystem
+ * blocked on a slow remote service can only exhaust its own threads.
+ *
+ * Once initialised the pool reports the standard Micrometer executor metrics (executor.active, executor.queued,
+ * executor.pool.size, executor.completed etc) along with executor.rejected - the number of tasks rejected because the
+ * pool and its queue were full. Every metric is tagged with the executor name.
+ *
+ * By default queued and running tasks are given up to DEFAULT_AWAIT_TERMINATION_SECONDS to complete on shutdown.
+ */
+public class MeteredThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String REJECTED_METRIC = "executor.rejected";
+    public static final int DEFAULT_AWAIT_TERMINATION_SECONDS = 30;
+
+    private final String name;
+    private final transient MeterRegistry registry;
+
+    /**
+     * @param name Identifies the pool (its threads are prefixed with this name)
+     * @param registry Where the pool's metrics are recorded
+     */
+    public MeteredThreadPoolTaskExecutor(String name, MeterRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+        setBeanName(name);
+        setThreadNamePrefix(name + "-");
+        setWaitForTasksToCompleteOnShutdown(true);
+        setAwaitTerminationSeconds(DEFAULT_AWAIT_TERMINATION_SECONDS);
+    }
+
+    /**
+     * Creates a pool with a fixed number of threads
+     *
+     * @param name Identifies the pool (its threads are prefixed with this name)
+     * @param poolSize The number of threads
+     * @param queueCapacity How many tasks can wait for a thread before further tasks are rejected
+     * @param registry Where the pool's metrics are recorded
+     * @return An uninitialised executor
+     */
+    public static MeteredThreadPoolTaskExecutor create(String name, int poolSize, int queueCapacity, MeterRegistry registry) {
+        MeteredThreadPoolTaskExecutor executor = new MeteredThreadPoolTaskExecutor(name, registry);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    /**
+     * The name this pool was created with
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, final RejectedExecutionHandler rejectedExecutionHandler) {
+        final Counter rejected = Counter.builder(REJECTED_METRIC)
+                .description("Tasks rejected because the executor and its queue were full")
+                .tag("name", name)
+                .register(registry);
+        ExecutorService executor = super.initializeExecutor(threadFactory, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor pool) {
+                rejected.increment();
+                logger.warn(String.format("Executor '%1$s' is saturated (%2$d active, %3$d queued) - rejecting task", name,
+                        pool.getActiveCount(), pool.getQueue().size()));
+                rejectedExecutionHandler.rejectedExecution(r, pool);
+            }
+        });
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+        return executor;
+    }
+}
@@ -1,6 +1,6 @@
 package org.auscope.portal.server.web;
 
-import org.auscope.portal.core.server.http.HttpServiceCaller;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * A separate HttpServiceCaller for searches with a smaller timeout period.
@@ -8,10 +8,10 @@ import org.auscope.portal.core.server.http.HttpServiceCaller;
  * @author woo392
  *
  */
-public class SearchHttpServiceCaller extends HttpServiceCaller {
+public class SearchHttpServiceCaller extends MeteredHttpServiceCaller {
 
-	public SearchHttpServiceCaller(int connectionTimeOut) {
-		super(connectionTimeOut);
+	public SearchHttpServiceCaller(int connectionTimeOut, MeterRegistry registry) {
+		super(connectionTimeOut, registry, "search");
 	}
 
 }
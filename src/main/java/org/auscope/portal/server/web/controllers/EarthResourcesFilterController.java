@@ -1,11 +1,11 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.util.Hashtable;
+import java.util.concurrent.Callable;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.auscope.portal.core.configuration.ServiceConfiguration;
@@ -13,9 +13,11 @@ import org.auscope.portal.core.configuration.ServiceConfigurationItem;
 import org.auscope.portal.core.server.controllers.BasePortalController;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.uifilter.GenericFilterAdapter;
-import org.auscope.portal.core.util.FileIOUtil;
 import org.auscope.portal.core.util.SLDLoader;
 import org.auscope.portal.server.web.service.MineralOccurrenceService;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache.RenderedStyle;
+import org.auscope.portal.server.web.service.sld.SLDTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -43,17 +45,52 @@ public class EarthResourcesFilterController extends BasePortalController {
     private MineralOccurrenceService mineralOccurrenceService;
 
     private ServiceConfiguration serviceConfig;
+
+    private SLDStyleCache styleCache;
     // ----------------------------------------------------------- Constructors
 
     @Autowired
     public EarthResourcesFilterController(MineralOccurrenceService mineralOccurrenceService, 
-            ServiceConfiguration serviceConfig) {
+            ServiceConfiguration serviceConfig, SLDStyleCache styleCache) {
         this.mineralOccurrenceService = mineralOccurrenceService;
         this.serviceConfig = serviceConfig;
+        this.styleCache = styleCache;
     }
     
     public static final String MIN_OCCUR_VIEW_TYPE = "mo:MinOccView";
 
+    //Compiled once - only the namespaces, name, filter and colour vary between requests
+    private static final SLDTemplate STYLE = SLDTemplate.compile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<StyledLayerDescriptor version=\"1.0.0\" xmlns:mo=\"http://xmlns.geoscience.gov.au/minoccml/1.0\" "
+            + "[namespaces]"
+            + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<NamedLayer>" + "<Name>"
+            + "[name]" + "</Name>"
+            + "<UserStyle>"
+            + "<Title>" + "[name]" + "</Title>"
+            + "<FeatureTypeStyle>"
+            + "<Rule>"
+            + "[filter]"
+            + "<PointSymbolizer>"
+            + "<Graphic>"
+            + "<Mark>"
+            + "<WellKnownName>circle</WellKnownName>"
+            + "<Fill>"
+            + "<CssParameter name=\"fill\">" + "[color]" + "</CssParameter>"
+            + "<CssParameter name=\"fill-opacity\">0.4</CssParameter>"
+            + "</Fill>"
+            + "<Stroke>"
+            + "<CssParameter name=\"stroke\">" + "[color]" + "</CssParameter>"  
+            + "<CssParameter name=\"stroke-width\">1</CssParameter>"
+            + "</Stroke>"
+            + "</Mark>"
+            + "<Size>8</Size>"
+            + "</Graphic>"
+            + "</PointSymbolizer>"
+            + "</Rule>"
+            + "</FeatureTypeStyle>"
+            + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>", "namespaces", "name", "filter", "color");
+
     // ------------------------------------------- Property Setters and Getters
 
     /**
@@ -71,6 +108,7 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/doMiningActivityFilterStyle.do")
     public void doMiningActivityFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = true, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(required = false, value = "mineName", defaultValue = "") String mineName,
@@ -83,25 +121,21 @@ public class EarthResourcesFilterController extends BasePortalController {
             @RequestParam(required = false, value = "bbox", defaultValue = "") String bboxJson,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        FilterBoundingBox bbox = null;
-        // Get the mining activities
-        // VT: Currently not working as GeoServer is returning strange error for this filer
-        String filter = this.mineralOccurrenceService.getMiningActivityFilter(
-                mineName, startDate, endDate, oreProcessed, producedMaterial,
-                cutOffGrade, production, bbox);
-
-        String style = this.getStyle(serviceUrl, filter, "er:MiningFeatureOccurrence", "#FF9900");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = null;
+                // Get the mining activities
+                // VT: Currently not working as GeoServer is returning strange error for this filer
+                String filter = mineralOccurrenceService.getMiningActivityFilter(
+                        mineName, startDate, endDate, oreProcessed, producedMaterial,
+                        cutOffGrade, production, bbox);
+
+                return getStyle(serviceUrl, filter, "er:MiningFeatureOccurrence", "#FF9900");
+            }
+        }, "/doMiningActivityFilterStyle.do", serviceUrl, mineName, startDate, endDate, oreProcessed, producedMaterial, cutOffGrade, production);
+
+        styleCache.writeStyle(request, response, style);
     }
 
     /**
@@ -116,6 +150,7 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/doMineFilterStyle.do")
     public void doMineFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = true, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(required = false, value = "mineName", defaultValue = "") String mineName,
@@ -123,22 +158,18 @@ public class EarthResourcesFilterController extends BasePortalController {
             @RequestParam(required = false, value = "optionalFilters") String optionalFilters,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        // Get the mining activities
-        GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape");
-        String filter = filterObject.getFilterStringAllRecords();
-
-        String style = this.getStyle(serviceUrl, filter, "er:MiningFeatureOccurrence", "#AA0078");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                // Get the mining activities
+                GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape");
+                String filter = filterObject.getFilterStringAllRecords();
+
+                return getStyle(serviceUrl, filter, "er:MiningFeatureOccurrence", "#AA0078");
+            }
+        }, "/doMineFilterStyle.do", serviceUrl, optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
     
     /**
@@ -151,26 +182,23 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/getErlMineViewStyle.do")
     public void getErlMineViewStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "optionalFilters") String optionalFilters,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        // Get the mining activities
-        GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
-        String filter = filterObject.getFilterStringAllRecords();
-
-        String style = this.getErLStyle(filter, "erl:MineView", "#a51f2f");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                // Get the mining activities
+                GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
+                String filter = filterObject.getFilterStringAllRecords();
+
+                return getErLStyle(filter, "erl:MineView", "#a51f2f");
+            }
+        }, "/getErlMineViewStyle.do", optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
     
     /**
@@ -184,26 +212,23 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/getErlMineralOccurrenceViewStyle.do")
     public void getErlMineralOccurrenceViewStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "optionalFilters") String optionalFilters,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        // Get the mining activities
-        GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
-        String filter = filterObject.getFilterStringAllRecords();
-
-        String style = this.getErLStyle(filter, "erl:MineralOccurrenceView", "#e02e16");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                // Get the mining activities
+                GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
+                String filter = filterObject.getFilterStringAllRecords();
+
+                return getErLStyle(filter, "erl:MineralOccurrenceView", "#e02e16");
+            }
+        }, "/getErlMineralOccurrenceViewStyle.do", optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
     
     /**
@@ -217,26 +242,23 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/getErlCommodityResourceViewStyle.do")
     public void getErlCommodityResourceViewStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "optionalFilters") String optionalFilters,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        // Get the mining activities
-        GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
-        String filter = filterObject.getFilterStringAllRecords();
-
-        String style = this.getErLStyle(filter, "erl:CommodityResourceView", "#940ea3");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                // Get the mining activities
+                GenericFilterAdapter filterObject = new GenericFilterAdapter(optionalFilters,"shape"); 
+                String filter = filterObject.getFilterStringAllRecords();
+
+                return getErLStyle(filter, "erl:CommodityResourceView", "#940ea3");
+            }
+        }, "/getErlCommodityResourceViewStyle.do", optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
                     
                     
@@ -252,6 +274,7 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/doMineralOccurrenceFilterStyle.do")
     public void doMineralOccurrenceFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = true, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(value = "commodityName", required = false) String commodityName,
@@ -259,27 +282,23 @@ public class EarthResourcesFilterController extends BasePortalController {
             @RequestParam(required = false, defaultValue="", value = "optionalFilters") String optionalFilters,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        FilterBoundingBox bbox = null;
-        // Get the mining activities
-        String unescapeCommodityName = "";
-        if (commodityName != null) {
-            unescapeCommodityName = URLDecoder.decode(commodityName, "UTF-8");
-        }
-        String filter = this.mineralOccurrenceService.getMineralOccurrenceFilter(unescapeCommodityName,
-                bbox,optionalFilters);
-
-        String style = this.getStyle(serviceUrl, filter, "gsml:MappedFeature", "#8C489F");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = null;
+                // Get the mining activities
+                String unescapeCommodityName = "";
+                if (commodityName != null) {
+                    unescapeCommodityName = URLDecoder.decode(commodityName, "UTF-8");
+                }
+                String filter = mineralOccurrenceService.getMineralOccurrenceFilter(unescapeCommodityName,
+                        bbox,optionalFilters);
+
+                return getStyle(serviceUrl, filter, "gsml:MappedFeature", "#8C489F");
+            }
+        }, "/doMineralOccurrenceFilterStyle.do", serviceUrl, commodityName, optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
 
     /**
@@ -293,6 +312,7 @@ public class EarthResourcesFilterController extends BasePortalController {
      */
     @RequestMapping("/doMinOccurViewFilterStyle.do")
     public void doMinOccurViewFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = true, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(value = "commodityName", required = false) String commodityName,
@@ -303,27 +323,23 @@ public class EarthResourcesFilterController extends BasePortalController {
             @RequestParam(required = false, value = "bbox") String bboxJson,
             @RequestParam(required = false, value = "maxFeatures", defaultValue = "0") int maxFeatures)
                     throws Exception {
-        FilterBoundingBox bbox = null;
-        // Get the mining activities
-        String unescapeCommodityName = "";
-        if (commodityName != null) {
-            unescapeCommodityName = URLDecoder.decode(commodityName, "UTF-8");
-        }
-        String filter = this.mineralOccurrenceService.getMinOccurViewFilter(unescapeCommodityName, minOreAmount,
-                minReserves, minResources, bbox);
-
-        String style = this.getStyle(serviceUrl, filter, MIN_OCCUR_VIEW_TYPE, "#ed9c38");
-
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = null;
+                // Get the mining activities
+                String unescapeCommodityName = "";
+                if (commodityName != null) {
+                    unescapeCommodityName = URLDecoder.decode(commodityName, "UTF-8");
+                }
+                String filter = mineralOccurrenceService.getMinOccurViewFilter(unescapeCommodityName, minOreAmount,
+                        minReserves, minResources, bbox);
+
+                return getStyle(serviceUrl, filter, MIN_OCCUR_VIEW_TYPE, "#ed9c38");
+            }
+        }, "/doMinOccurViewFilterStyle.do", serviceUrl, commodityName, minOreAmount, minReserves, minResources);
+
+        styleCache.writeStyle(request, response, style);
     }
     
     public String getErLStyle(String filter, String name, String color) throws IOException{
@@ -340,38 +356,7 @@ public class EarthResourcesFilterController extends BasePortalController {
         // https://jira.csiro.au/browse/SISS-1374
         // there are currently no available fix as wms request are made prior to
         // knowing app-schema mapping.
-
-        String style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
-                + "<StyledLayerDescriptor version=\"1.0.0\" xmlns:mo=\"http://xmlns.geoscience.gov.au/minoccml/1.0\" "
-                + getERMLNamespaces(serviceUrl) 
-                + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-                + "<NamedLayer>" + "<Name>"
-                + name + "</Name>"
-                + "<UserStyle>"
-                + "<Title>" + name + "</Title>"
-                + "<FeatureTypeStyle>"
-                + "<Rule>"
-                + filter
-                + "<PointSymbolizer>"
-                + "<Graphic>"
-                + "<Mark>"
-                + "<WellKnownName>circle</WellKnownName>"
-                + "<Fill>"
-                + "<CssParameter name=\"fill\">" + color + "</CssParameter>"
-                + "<CssParameter name=\"fill-opacity\">0.4</CssParameter>"
-                + "</Fill>"
-                + "<Stroke>"
-                + "<CssParameter name=\"stroke\">" + color + "</CssParameter>"  
-                + "<CssParameter name=\"stroke-width\">1</CssParameter>"
-                + "</Stroke>"
-                + "</Mark>"
-                + "<Size>8</Size>"
-                + "</Graphic>"
-                + "</PointSymbolizer>"
-                + "</Rule>"
-                + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-        return style;
+        return STYLE.render(getERMLNamespaces(serviceUrl), name, filter, color);
     }
     
     private String getERMLNamespaces(String serviceUrl) {
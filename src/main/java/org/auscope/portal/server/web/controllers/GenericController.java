@@ -2,12 +2,17 @@ package org.auscope.portal.server.web.controllers;
 
 import java.io.ByteArrayInputStream;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.auscope.portal.core.server.controllers.BasePortalController;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.util.FileIOUtil;
 import org.auscope.portal.server.web.service.GenericService;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache.RenderedStyle;
+import org.auscope.portal.server.web.service.sld.SLDTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,10 +26,50 @@ import org.springframework.web.bind.annotation.RequestParam;
  */
 @Controller
 public class GenericController extends BasePortalController {
+
+    private static final String STYLE_HEADER = "<sld:StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\" xsi:schemaLocation=\"http://schemas.opengis.net/sld/1.0.0/StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<sld:NamedLayer>" + "<sld:Name>[layerName]</sld:Name>" + "<sld:UserStyle>" + "<sld:Name>portal-style</sld:Name>"
+            + "<sld:FeatureTypeStyle>";
+    private static final String LABEL_STYLE_HEADER = "<sld:StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\" xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<sld:NamedLayer>" + "<sld:Name>[layerName]</sld:Name>" + "<sld:UserStyle>" + "<sld:Name>portal-style</sld:Name>"
+            + "<sld:FeatureTypeStyle>";
+    private static final String STYLE_TAIL = "</sld:FeatureTypeStyle>" + "</sld:UserStyle>" + "</sld:NamedLayer>" + "</sld:StyledLayerDescriptor>";
+
+    private static final String POLYGON_SYMBOLIZER = "<sld:PolygonSymbolizer>"
+            + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">[color]</sld:CssParameter>" + "<sld:CssParameter name=\"fill-opacity\">0.1</sld:CssParameter>" + "</sld:Fill>"
+            + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">[color]</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
+            + "</sld:PolygonSymbolizer>";
+    private static final String LINE_SYMBOLIZER = "<sld:LineSymbolizer>"
+            + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">[color]</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
+            + "</sld:LineSymbolizer>";
+    private static final String POINT_SYMBOLIZER = "<sld:PointSymbolizer>" + "<sld:Graphic>" + "<sld:Mark>" + "<sld:WellKnownName>circle</sld:WellKnownName>"
+            + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">[color]</sld:CssParameter>"
+            + "<sld:CssParameter name=\"fill-opacity\">0.4</sld:CssParameter>" + "</sld:Fill>"
+            + "</sld:Mark>" + "<sld:Size>8</sld:Size>" + "</sld:Graphic>" + "</sld:PointSymbolizer>";
+    private static final String TEXT_SYMBOLIZER = "<TextSymbolizer><Label><ogc:PropertyName>[labelProperty]</ogc:PropertyName></Label><Font><CssParameter name=\"font-family\">Arial</CssParameter><CssParameter name=\"font-size\">12</CssParameter><CssParameter name=\"font-style\">normal</CssParameter><CssParameter name=\"font-weight\">normal</CssParameter></Font><LabelPlacement><PointPlacement><Displacement><DisplacementX>6</DisplacementX><DisplacementY>-6</DisplacementY></Displacement></PointPlacement></LabelPlacement><Fill><CssParameter name=\"fill\">#000000</CssParameter></Fill></TextSymbolizer>";
+
+    //Compiled once - only the layer name, filter, colour (and label) vary between requests
+    private static final SLDTemplate POLYGON_STYLE = compileStyle(STYLE_HEADER, POLYGON_SYMBOLIZER, false);
+    private static final SLDTemplate LINE_STYLE = compileStyle(STYLE_HEADER, LINE_SYMBOLIZER, false);
+    private static final SLDTemplate POINT_STYLE = compileStyle(STYLE_HEADER, POINT_SYMBOLIZER, false);
+    private static final SLDTemplate POLYGON_LABEL_STYLE = compileStyle(LABEL_STYLE_HEADER, POLYGON_SYMBOLIZER, true);
+    private static final SLDTemplate LINE_LABEL_STYLE = compileStyle(LABEL_STYLE_HEADER, LINE_SYMBOLIZER, true);
+    private static final SLDTemplate POINT_LABEL_STYLE = compileStyle(LABEL_STYLE_HEADER, POINT_SYMBOLIZER, true);
+
   private GenericService genericService;
+  private SLDStyleCache styleCache;
     @Autowired
-    public GenericController(GenericService genericService) {
+    public GenericController(GenericService genericService, SLDStyleCache styleCache) {
         this.genericService = genericService;
+        this.styleCache = styleCache;
+    }
+
+    private static SLDTemplate compileStyle(String header, String symbolizer, boolean withLabel) {
+        String rule = "<sld:Rule>" + "[filter]" + symbolizer + (withLabel ? TEXT_SYMBOLIZER : "") + "</sld:Rule>";
+        if (withLabel) {
+            return SLDTemplate.compile(header + rule + STYLE_TAIL, "layerName", "filter", "color", "labelProperty");
+        }
+        return SLDTemplate.compile(header + rule + STYLE_TAIL, "layerName", "filter", "color");
     }
     /**
      * Handles getting the filter of the generic borehole queries. (If the bbox elements are specified, they will limit the output response to 200 records
@@ -65,6 +110,8 @@ public class GenericController extends BasePortalController {
      * Handles getting the style of the generic borehole filter queries. (If the bbox elements are specified, they will limit the output response to 200 records
      * implicitly)
      *
+     * Styles are cached (by request parameters) and returned with an ETag so repeat requests can be revalidated.
+     *
      * @param layerName
      *            the name of the mine to query for
      * @param spatialPropertyName
@@ -77,6 +124,7 @@ public class GenericController extends BasePortalController {
      */
     @RequestMapping("/doGenericFilterStyle.do")
     public void doGenericFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "layerName", defaultValue = "") String layerName,
             @RequestParam(required = false, value = "spatialPropertyName", defaultValue = "") String spatialPropertyName,
@@ -88,25 +136,23 @@ public class GenericController extends BasePortalController {
 
                     throws Exception {
 
-        FilterBoundingBox bbox = FilterBoundingBox.attemptParseFromJSON(bboxJson);
-        response.setContentType("text/xml");
-        String filter = "";
-        String style = "";
-        if (optionalFilters != null) {
-          filter = this.genericService.getFilter(bbox,optionalFilters);
-        }
-        if (labelProperty == null) {
-          style = this.getStyle(filter, layerName, spatialPropertyName, styleType, styleColor);
-        } else {
-          style = this.getStyleWithLabel(filter, layerName, spatialPropertyName, styleType, styleColor, labelProperty);
-        }
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = FilterBoundingBox.attemptParseFromJSON(bboxJson);
+                String filter = "";
+                if (optionalFilters != null) {
+                  filter = genericService.getFilter(bbox,optionalFilters);
+                }
+                if (labelProperty == null) {
+                  return getStyle(filter, layerName, spatialPropertyName, styleType, styleColor);
+                } else {
+                  return getStyleWithLabel(filter, layerName, spatialPropertyName, styleType, styleColor, labelProperty);
+                }
+            }
+        }, "/doGenericFilterStyle.do", layerName, spatialPropertyName, bboxJson, styleType, styleColor, labelProperty, optionalFilters);
+
+        styleCache.writeStyle(request, response, style);
     }
        
     /**
@@ -119,34 +165,20 @@ public class GenericController extends BasePortalController {
      * @return
      */    
     public String getStyle(String filter, String layerName, String spatialPropertyName, String styleType, String styleColor) {
-      String header = "<sld:StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\" xsi:schemaLocation=\"http://schemas.opengis.net/sld/1.0.0/StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-          + "<sld:NamedLayer>" + "<sld:Name>" + layerName + "</sld:Name>" + "<sld:UserStyle>" + "<sld:Name>portal-style</sld:Name>"
-          + "<sld:FeatureTypeStyle>";
-      String tail = "</sld:FeatureTypeStyle>" + "</sld:UserStyle>" + "</sld:NamedLayer>" + "</sld:StyledLayerDescriptor>";
-
-      String rule = "";
-    switch (styleType) {
+      SLDTemplate template;
+      switch (styleType) {
       case "POLYGON":
-          rule = "<sld:Rule>" + filter + "<sld:PolygonSymbolizer>" 
-          + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"fill-opacity\">0.1</sld:CssParameter>" + "</sld:Fill>"
-          + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
-          + "</sld:PolygonSymbolizer>" + "</sld:Rule>";
+          template = POLYGON_STYLE;
           break;
-	  case "LINE":
-          rule = "<sld:Rule>" + filter + "<sld:LineSymbolizer>" 
-          + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
-          + "</sld:LineSymbolizer>" + "</sld:Rule>";
+      case "LINE":
+          template = LINE_STYLE;
           break;
       case "POINT":
       default:
-          rule = "<sld:Rule>" + filter + "<sld:PointSymbolizer>" + "<sld:Graphic>" + "<sld:Mark>" + "<sld:WellKnownName>circle</sld:WellKnownName>" 
-                  + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">" + styleColor + "</sld:CssParameter>"
-                  + "<sld:CssParameter name=\"fill-opacity\">0.4</sld:CssParameter>" + "</sld:Fill>"
-                  + "</sld:Mark>" + "<sld:Size>8</sld:Size>" + "</sld:Graphic>" + "</sld:PointSymbolizer>" + "</sld:Rule>";
+          template = POINT_STYLE;
           break;
       }
-      String style = header + rule + tail;
-      return style;
+      return template.render(layerName, filter, styleColor);
     } 
     
     /**
@@ -159,36 +191,20 @@ public class GenericController extends BasePortalController {
      * @return
      */    
     public String getStyleWithLabel(String filter, String layerName, String spatialPropertyName, String styleType, String styleColor, String labelProperty) {
-      String header = "<sld:StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"http://xmlns.geosciml.org/geosciml-portrayal/4.0\" xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-          + "<sld:NamedLayer>" + "<sld:Name>" + layerName + "</sld:Name>" + "<sld:UserStyle>" + "<sld:Name>portal-style</sld:Name>"
-          + "<sld:FeatureTypeStyle>";
-      String tail = "</sld:FeatureTypeStyle>" + "</sld:UserStyle>" + "</sld:NamedLayer>" + "</sld:StyledLayerDescriptor>";
-
-      String rule = "";
-      String textSymbolizer = "<TextSymbolizer><Label><ogc:PropertyName>" + labelProperty + "</ogc:PropertyName></Label><Font><CssParameter name=\"font-family\">Arial</CssParameter><CssParameter name=\"font-size\">12</CssParameter><CssParameter name=\"font-style\">normal</CssParameter><CssParameter name=\"font-weight\">normal</CssParameter></Font><LabelPlacement><PointPlacement><Displacement><DisplacementX>6</DisplacementX><DisplacementY>-6</DisplacementY></Displacement></PointPlacement></LabelPlacement><Fill><CssParameter name=\"fill\">#000000</CssParameter></Fill></TextSymbolizer>";
-
-    switch (styleType) {
+      SLDTemplate template;
+      switch (styleType) {
       case "POLYGON":
-          rule = "<sld:Rule>" + filter + "<sld:PolygonSymbolizer>" 
-          + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"fill-opacity\">0.1</sld:CssParameter>" + "</sld:Fill>"
-          + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
-          + "</sld:PolygonSymbolizer>" + textSymbolizer + "</sld:Rule>";
+          template = POLYGON_LABEL_STYLE;
           break;
-	  case "LINE":
-          rule = "<sld:Rule>" + filter + "<sld:LineSymbolizer>" 
-          + "<sld:Stroke>" + "<sld:CssParameter name=\"stroke\">" + styleColor + "</sld:CssParameter>" + "<sld:CssParameter name=\"stroke-width\">0.1</sld:CssParameter>" + "</sld:Stroke>"
-          + "</sld:LineSymbolizer>" + textSymbolizer + "</sld:Rule>";
+      case "LINE":
+          template = LINE_LABEL_STYLE;
           break;
       case "POINT":
       default:
-          rule = "<sld:Rule>" + filter + "<sld:PointSymbolizer>" + "<sld:Graphic>" + "<sld:Mark>" + "<sld:WellKnownName>circle</sld:WellKnownName>" 
-                  + "<sld:Fill>" + "<sld:CssParameter name=\"fill\">" + styleColor + "</sld:CssParameter>"
-                  + "<sld:CssParameter name=\"fill-opacity\">0.4</sld:CssParameter>" + "</sld:Fill>"
-                  + "</sld:Mark>" + "<sld:Size>8</sld:Size>" + "</sld:Graphic>" + "</sld:PointSymbolizer>" + textSymbolizer + "</sld:Rule>";
+          template = POINT_LABEL_STYLE;
           break;
       }
-      String style = header + rule + tail;
-      return style;
+      return template.render(layerName, filter, styleColor, labelProperty);
     }     
 
 }
@@ -1,15 +1,12 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.auscope.portal.core.server.http.HttpServiceCaller;
-import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
-import org.auscope.portal.core.util.DOMUtil;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService.WFSCapabilities;
 
 
 /**
@@ -20,18 +17,21 @@ import org.w3c.dom.Element;
  */
 
 public class GsmlpNameSpaceTable {
-    protected HttpServiceCaller httpServiceCaller;
-    protected WFSGetFeatureMethodMaker wfsMethodMaker;    
-    private ConcurrentMap <String, String> gsmlpNameSpaceCache; 
-    private final Log log = LogFactory.getLog(getClass());  
+    /** Used when an endpoint's capabilities can't be fetched */
+    public static final String DEFAULT_GSMLP_NAMESPACE = "http://xmlns.geosciml.org/geosciml-portrayal/2.0";
+
+    private CapabilitiesCacheService capabilitiesCache;
+    /** The endpoints this table has looked up (the only entries clearCache evicts from the shared cache) */
+    private Set<String> serviceUrls = ConcurrentHashMap.newKeySet();
+    private final Log log = LogFactory.getLog(getClass());
     /**
      * Constructor Construct all the member variables.
      * 
+     * @param capabilitiesCache
+     *            The shared cache of endpoint capabilities
      */    
-    public GsmlpNameSpaceTable() {
-        httpServiceCaller = new HttpServiceCaller(9000);
-        wfsMethodMaker = new WFSGetFeatureMethodMaker();
-        gsmlpNameSpaceCache = new ConcurrentHashMap<String, String>();
+    public GsmlpNameSpaceTable(CapabilitiesCacheService capabilitiesCache) {
+        this.capabilitiesCache = capabilitiesCache;
     }
     /**
      * Get gsmlp namespace based on the serviceUrl
@@ -41,47 +41,24 @@ public class GsmlpNameSpaceTable {
      * @return string of gsmlp namespace
      */    
     public String getGsmlpNameSpace(String serviceUrl) {
-        String gsmlpNameSpace = gsmlpNameSpaceCache.get(serviceUrl);
-        if (gsmlpNameSpace == null) {
-            gsmlpNameSpace = getOnlineGsmlpNameSpace(serviceUrl);
-            gsmlpNameSpaceCache.put(serviceUrl, gsmlpNameSpace);            
+        serviceUrls.add(serviceUrl);
+        try {
+            WFSCapabilities capabilities = capabilitiesCache.getCapabilities(serviceUrl);
+            String gsmlpNameSpace = capabilities.getNamespaceUri("gsmlp");
+            return gsmlpNameSpace == null ? "" : gsmlpNameSpace;
+        } catch (Exception ex) {
+            log.warn(String.format("Get onlineGsmlpNameSpace for '%s' failed", serviceUrl));
+            return DEFAULT_GSMLP_NAMESPACE;
         }
-        return gsmlpNameSpace;
     }
     /**
-     * Clear cache of gsmlpNameSpaceCache 
+     * Clear cache of the endpoints this table has looked up (other users of the shared cache are unaffected)
      * @return void
      */     
     public void clearCache() {
-        gsmlpNameSpaceCache.clear();        
-    }
-    
-    /**
-     * Get gsmlp namespace from online request of the serviceUrl
-     * 
-     * @param serviceUrl
-     *            The serviceUrl
-     * @return string of gsmlp namespace
-     */     
-    private String getOnlineGsmlpNameSpace(String serviceUrl) {
-        HttpRequestBase method = null;
-        String gsmlpNameSpace = "http://xmlns.geosciml.org/geosciml-portrayal/2.0";
-        try {
-            method = wfsMethodMaker.makeGetCapabilitiesMethod(serviceUrl);
-            String responseString = httpServiceCaller.getMethodResponseAsString(method);
-            Document responseDoc = DOMUtil.buildDomFromString(responseString);
-            Element elem = responseDoc.getDocumentElement();
-            gsmlpNameSpace = elem.getAttribute("xmlns:gsmlp");             
-            //XPathExpression exprWFS_Cap = DOMUtil.compileXPathExpr("wfs:WFS_Capabilities");
-            //Element elem2 = (Element) exprWFS_Cap.evaluate(responseDoc, XPathConstants.STRING); 
-        }catch (Exception ex) {
-            log.warn(String.format("Get onlineGsmlpNameSpace for '%s' failed", serviceUrl));         
-        } finally {
-            if (method != null) {
-                method.releaseConnection();
-            }
-        }        
-        return gsmlpNameSpace;
+        for (String serviceUrl : serviceUrls) {
+            serviceUrls.remove(serviceUrl);
+            capabilitiesCache.invalidate(serviceUrl);
+        }
     }
-    
-}
\ No newline at end of file
+}
@@ -41,6 +41,7 @@ import org.auscope.portal.core.util.FileIOUtil;
 import org.auscope.portal.core.util.TextUtil;
 import org.auscope.portal.server.vegl.VEGLJob;
 import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VEGLJobSummary;
 import org.auscope.portal.server.vegl.VEGLSeries;
 import org.auscope.portal.server.vegl.VGLJobAuditLog;
 import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
@@ -746,35 +747,75 @@ public class JobListController extends BaseCloudController  {
     }
 
     /**
-     * Returns a JSON array of jobStatus and jobId tuples
+     * Updates the status of every job of the user (the full jobs are required to query their compute services)
+     *
+     * @return The updated jobs or null if they couldn't be looked up
      * @throws PortalServiceException
+     */
+    private List<VEGLJob> refreshJobStatuses(ANVGLUser user) throws PortalServiceException {
+        List<VEGLJob> userJobs = jobManager.getUserJobs(user);
+        if (userJobs == null) {
+            return null;
+        }
+
+        try {
+            jobStatusMonitor.statusUpdate(userJobs);
+        } catch (JobStatusException e) {
+            log.info("There was an error updating one or more jobs: " + e.getMessage());
+            log.debug("Exception(s): ", e);
+        }
+        return userJobs;
+    }
+
+    /**
+     * Sends a 400 response if limit is set but less than 1
+     *
+     * @return true if the response was sent
+     * @throws IOException
+     */
+    private boolean rejectInvalidLimit(HttpServletResponse response, Integer limit) throws IOException {
+        if (limit != null && limit < 1) {
+            response.sendError(HttpStatus.SC_BAD_REQUEST, "limit must be at least 1");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a JSON array of jobStatus and jobId tuples ordered by jobId
+     *
+     * The jobs can be paged through with limit (at least 1, otherwise a 400 response is sent) and afterJobId (the
+     * last jobId of the previous page). A status refresh applies to all of the user's jobs.
+     * @throws PortalServiceException
+     * @throws IOException
      *
      */
     @RequestMapping("/secure/jobsStatuses.do")
     public ModelAndView jobStatuses(HttpServletRequest request,
             HttpServletResponse response,
-            @RequestParam(required=false, value="forceStatusRefresh", defaultValue="false") boolean forceStatusRefresh) throws PortalServiceException {
+            @RequestParam(required=false, value="forceStatusRefresh", defaultValue="false") boolean forceStatusRefresh,
+            @RequestParam(required=false, value="afterJobId") Integer afterJobId,
+            @RequestParam(required=false, value="limit") Integer limit) throws PortalServiceException, IOException {
+        if (rejectInvalidLimit(response, limit)) {
+            return null;
+        }
+
     	ANVGLUser user = userService.getLoggedInUser();
         if (user == null) {
             return generateJSONResponseMAV(false);
         }
 
-        List<VEGLJob> userJobs = jobManager.getUserJobs(user);
-        if (userJobs == null) {
+        if (forceStatusRefresh && refreshJobStatuses(user) == null) {
             return generateJSONResponseMAV(false, null, "Unable to lookup jobs.");
         }
 
-        if (forceStatusRefresh) {
-            try {
-                jobStatusMonitor.statusUpdate(userJobs);
-            } catch (JobStatusException e) {
-                log.info("There was an error updating one or more jobs: " + e.getMessage());
-                log.debug("Exception(s): ", e);
-            }
+        List<VEGLJobSummary> userJobs = jobManager.getUserJobSummaries(user, afterJobId, limit);
+        if (userJobs == null) {
+            return generateJSONResponseMAV(false, null, "Unable to lookup jobs.");
         }
 
         List<ModelMap> tuples = new ArrayList<>(userJobs.size());
-        for (VEGLJob job : userJobs) {
+        for (VEGLJobSummary job : userJobs) {
             ModelMap tuple = new ModelMap();
             tuple.put("jobId", job.getId());
             tuple.put("status", job.getStatus());
@@ -786,39 +827,61 @@ public class JobListController extends BaseCloudController  {
 
     /**
      * Returns a JSON object containing an tree of all jobs, grouped by series.
-     * Also returns an array of job objects
+     * Also returns an array of job summaries
+     *
+     * The jobs can be paged through with limit (at least 1, otherwise a 400 response is sent) and afterJobId (the
+     * last job id of the previous page). Every series is returned with each page.
      *
      * @param request The servlet request including a seriesId parameter
      * @param response The servlet response
      *
-     * @return A JSON object with a jobs attribute which is an array of
-     *         <code>VEGLJob</code> objects.
+     * @return A JSON object with a jobs attribute. Without limit or afterJobId it is an array of every
+     *         <code>VEGLJob</code> of the user (as it always has been), otherwise an array of
+     *         <code>VEGLJobSummary</code> objects ordered by id.
      * @throws PortalServiceException
+     * @throws IOException
      */
     @SuppressWarnings("unchecked")
     @RequestMapping("/secure/treeJobs.do")
     public ModelAndView treeJobs(HttpServletRequest request,
             HttpServletResponse response,
-            @RequestParam(required=false, value="forceStatusRefresh", defaultValue="false") boolean forceStatusRefresh) throws PortalServiceException {
+            @RequestParam(required=false, value="forceStatusRefresh", defaultValue="false") boolean forceStatusRefresh,
+            @RequestParam(required=false, value="afterJobId") Integer afterJobId,
+            @RequestParam(required=false, value="limit") Integer limit) throws PortalServiceException, IOException {
+        if (rejectInvalidLimit(response, limit)) {
+            return null;
+        }
+
     	ANVGLUser user = userService.getLoggedInUser();
         if (user == null) {
             return generateJSONResponseMAV(false);
         }
 
-        List<VEGLSeries> userSeries = jobManager.querySeries(user.getEmail(), null, null);
-        List<VEGLJob> userJobs = jobManager.getUserJobs(user);
-        if (userSeries == null || userJobs == null) {
-            return generateJSONResponseMAV(false, null, "Unable to lookup jobs.");
+        //Unpaged requests get the full jobs (the original response), paged requests only the job summaries
+        boolean paged = afterJobId != null || limit != null;
+        List<VEGLJob> fullJobs = null;
+        if (forceStatusRefresh) {
+            fullJobs = refreshJobStatuses(user);
+            if (fullJobs == null) {
+                return generateJSONResponseMAV(false, null, "Unable to lookup jobs.");
+            }
+        } else if (!paged) {
+            fullJobs = jobManager.getUserJobs(user);
         }
 
-        if (forceStatusRefresh) {
-            try {
-                jobStatusMonitor.statusUpdate(userJobs);
-            } catch (JobStatusException e) {
-                log.info("There was an error updating one or more jobs: " + e.getMessage());
-                log.debug("Exception(s): ", e);
+        List<VEGLSeries> userSeries = jobManager.querySeries(user.getEmail(), null, null);
+        List<VEGLJobSummary> userJobs = null;
+        if (paged) {
+            userJobs = jobManager.getUserJobSummaries(user, afterJobId, limit);
+        } else if (fullJobs != null) {
+            userJobs = new ArrayList<>(fullJobs.size());
+            for (VEGLJob job : fullJobs) {
+                userJobs.add(new VEGLJobSummary(job));
             }
         }
+        if (userSeries == null || userJobs == null) {
+            return generateJSONResponseMAV(false, null, "Unable to lookup jobs.");
+        }
 
         //Now we organise into a tree structure
         ModelMap rootNode = new ModelMap();
@@ -844,7 +907,7 @@ public class JobListController extends BaseCloudController  {
             ((ArrayList<ModelMap>) rootNode.get("children")).add(node);
         }
 
-        for (VEGLJob job : userJobs) {
+        for (VEGLJobSummary job : userJobs) {
             ModelMap nodeParent = nodeMap.get(job.getSeriesId());
             if (nodeParent == null) {
                 nodeParent = rootNode;
@@ -863,7 +926,7 @@ public class JobListController extends BaseCloudController  {
 
         ModelMap resultObj = new ModelMap();
         resultObj.put("nodes", rootNode);
-        resultObj.put("jobs", userJobs);
+        resultObj.put("jobs", paged ? userJobs : fullJobs);
 
         return generateJSONResponseMAV(true, resultObj, "");
     }
@@ -1,20 +1,9 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 
 import org.auscope.portal.core.server.controllers.BasePortalController;
-import org.auscope.portal.core.services.namespaces.IterableNamespace;
-import org.auscope.portal.core.services.responses.ows.OWSExceptionParser;
+import org.auscope.portal.mscl.MSCLObservationSeries;
 import org.auscope.portal.mscl.MSCLWFSService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -22,9 +11,6 @@ import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * This class handles requests for MSCL observation data; it does so without requiring the same to have defined SRSs. This is important as the GML Point, into
@@ -97,6 +83,9 @@ public class MSCLController extends BasePortalController {
      *            ending depth
      * @param observationsToReturn
      *            string which specifies which observations to return
+     * @param maxPoints
+     *            [Optional] the maximum number of points to return. Longer series are downsampled by averaging
+     *            neighbouring observations (see MSCLObservationSeries.downsample)
      * @return A ModelAndView object encapsulating the data series to plot along with an indicator of success or failure.
      * @throws Exception
      */
@@ -106,78 +95,35 @@ public class MSCLController extends BasePortalController {
             @RequestParam("boreholeHeaderId") final String boreholeHeaderId,
             @RequestParam("startDepth") final String startDepth,
             @RequestParam("endDepth") final String endDepth,
-            @RequestParam("observationsToReturn") final String[] observationsToReturn) {
+            @RequestParam("observationsToReturn") final String[] observationsToReturn,
+            @RequestParam(required = false, value = "maxPoints") final Integer maxPoints) {
 
         try {
-            String wfsResponse = msclWfsService.getObservations(serviceUrl, boreholeHeaderId, startDepth, endDepth);
-
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setNamespaceAware(true); // never forget this!
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-            Document msclDoc = builder.parse(new ByteArrayInputStream(wfsResponse.getBytes("UTF-8")));
-
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            xPath.setNamespaceContext(new IterableNamespace() {
-                {
-                    map.put("mscl", "http://example.org/mscl");
-                    map.put("ogc", "http://www.opengis.net/ogc");
-                    map.put("sa", "http://www.opengis.net/sampling/1.0");
-                    map.put("om", "http://www.opengis.net/om/1.0");
-                    map.put("wfs", "http://www.opengis.net/wfs");
-                    map.put("xsi", "http://www.w3.org/2001/XMLSchema-instance");
-                    map.put("gsml", "urn:cgi:xmlns:CGI:GeoSciML:2.0");
-                    map.put("ows", "http://www.opengis.net/ows");
-                    map.put("gml", "http://www.opengis.net/gml");
-                    map.put("xlink", "http://www.w3.org/1999/xlink");
-                }
-            });
-
-            // Do some rudimentary error testing:
-            OWSExceptionParser.checkForExceptionResponse(msclDoc);
-            ModelMap data = new ModelMap();
-
-            // Build the XPath, always including depth:
-            StringBuilder xPathString = new StringBuilder("//mscl:scanned_data/mscl:depth");
-            for (int i = 0; i < observationsToReturn.length; i++) {
-                xPathString.append(" | //mscl:scanned_data/mscl:" + observationsToReturn[i]);
+            MSCLObservationSeries observations = msclWfsService.getObservationSeries(serviceUrl, boreholeHeaderId, startDepth, endDepth, observationsToReturn);
+            if (maxPoints != null) {
+                observations = observations.downsample(maxPoints);
             }
 
-            XPathExpression expr = xPath.compile(xPathString.toString());
-            NodeList results = (NodeList) expr.evaluate(msclDoc, XPathConstants.NODESET);
-            ArrayList<ModelMap> series = new ArrayList<ModelMap>();
-
-            ModelMap relatedValues = null;
-            Node targetParentNode = null;
-
-            for (int i = 0; i < results.getLength(); i++) {
-                Node result = results.item(i);
-                Node currentParentNode = result.getParentNode();
-                if (!currentParentNode.equals(targetParentNode)) {
-                    targetParentNode = currentParentNode;
-
-                    // relatedValues will be null on the first entry so we don't add it.
-                    // We also don't want to add it if it only has one value; if this has
-                    // occurred it basically means that we have a depth but no observations.
-                    if (relatedValues != null && relatedValues.size() > 1) {
-                        series.add(relatedValues);
+            // Each point only includes the metrics that were actually observed at that depth
+            String[] metrics = observations.getMetrics();
+            ArrayList<ModelMap> series = new ArrayList<ModelMap>(observations.size());
+            for (int i = 0; i < observations.size(); i++) {
+                ModelMap point = new ModelMap();
+                point.put("depth", observations.getDepth(i));
+                for (int m = 0; m < metrics.length; m++) {
+                    float value = observations.getValue(m, i);
+                    if (!Float.isNaN(value)) {
+                        point.put(metrics[m], value);
                     }
-                    relatedValues = new ModelMap();
                 }
-
-                relatedValues.put(result.getLocalName(), Float.parseFloat(result.getTextContent()));
+                series.add(point);
             }
 
-            Collections.<ModelMap> sort(series, new Comparator<ModelMap>() {
-                public int compare(ModelMap o1, ModelMap o2) {
-                    // Just use float's comparison implementation:
-                    return ((Float) o1.get("depth")).compareTo((Float) o2.get("depth"));
-                }
-            });
-
+            ModelMap data = new ModelMap();
             data.put("series", series);
             return generateJSONResponseMAV(true, data, null);
         } catch (Exception e) {
             return generateJSONResponseMAV(false, null, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -20,7 +20,6 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.auscope.portal.core.server.controllers.BasePortalController;
-import org.auscope.portal.core.services.CSWCacheService;
 import org.auscope.portal.core.services.csw.CSWRecordsHostFilter;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
@@ -40,6 +39,7 @@ import org.auscope.portal.server.domain.nvcldataservice.TSGDownloadResponse;
 import org.auscope.portal.server.domain.nvcldataservice.TSGStatusResponse;
 import org.auscope.portal.server.domain.nvcldataservice.TrayThumbNailResponse;
 import org.auscope.portal.server.web.service.BoreholeService;
+import org.auscope.portal.server.web.service.HyloggerBoreholeIndex;
 import org.auscope.portal.server.web.service.NVCL2_0_DataService;
 import org.auscope.portal.server.web.service.NVCLDataService;
 import org.auscope.portal.server.web.service.SF0BoreholeService;
@@ -61,20 +61,20 @@ public class NVCLController extends BasePortalController {
     private BoreholeService boreholeService;
     private NVCLDataService dataService;
     private NVCL2_0_DataService dataService2_0;
-    private CSWCacheService cswService;
+    private HyloggerBoreholeIndex hyloggerBoreholeIndex;
     private SF0BoreholeService sf0BoreholeService;
 
     private int BUFFERSIZE = 1024 * 1024;
 
     @Autowired
     public NVCLController(BoreholeService boreholeService,
-            CSWCacheService cswService,
+            HyloggerBoreholeIndex hyloggerBoreholeIndex,
             NVCLDataService dataService,
             NVCL2_0_DataService dataService2_0,
             SF0BoreholeService sf0BoreholeService) {
 
         this.boreholeService = boreholeService;
-        this.cswService = cswService;
+        this.hyloggerBoreholeIndex = hyloggerBoreholeIndex;
         this.dataService = dataService;
         this.dataService2_0 = dataService2_0;
         this.sf0BoreholeService = sf0BoreholeService;
@@ -100,8 +100,7 @@ public class NVCLController extends BasePortalController {
         List<String> hyloggerBoreholeIDs = null;
         if (onlyHylogger) {
             try {
-                hyloggerBoreholeIDs = this.boreholeService.discoverHyloggerBoreholeIDs(this.cswService,
-                        new CSWRecordsHostFilter(serviceUrl));
+                hyloggerBoreholeIDs = this.hyloggerBoreholeIndex.getHyloggerBoreholeIDs(new CSWRecordsHostFilter(serviceUrl));
             } catch (Exception e) {
                 log.warn(String
                         .format("Error requesting list of hylogger borehole ID's from %1$s: %2$s", serviceUrl, e));
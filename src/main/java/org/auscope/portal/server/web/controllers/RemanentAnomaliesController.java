@@ -1,14 +1,18 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.io.ByteArrayInputStream;
-import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.auscope.portal.core.server.controllers.BasePortalController;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
-import org.auscope.portal.core.util.FileIOUtil;
 import org.auscope.portal.server.web.service.RemanentAnomaliesService;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache.RenderedStyle;
+import org.auscope.portal.server.web.service.sld.SLDTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,12 +25,39 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class RemanentAnomaliesController extends BasePortalController {
 
     private RemanentAnomaliesService remanentAnomaliesService;
+    private SLDStyleCache styleCache;
 
     public static final String REMANENT_ANOMALIES_TYPE = "RemAnom:Anomaly";
 
+    private static final String MODEL_PATH = "RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member[1]/RemAnom:Model/";
+
+    //Compiled once (keyed by styleSwitch) - only the filter and colour vary between requests
+    private static final Map<String, SLDTemplate> STYLES = new HashMap<String, SLDTemplate>();
+    private static final SLDTemplate DEFAULT_STYLE = compileStyle("defaultRemAnomStyle", "[color]");
+    static {
+        STYLES.put("ARRA", compileStyle("ARRARemAnomStyle", categorize(MODEL_PATH + "RemAnom:Apparent_resultant_rotation_angle", "45", "90", "135")));
+        STYLES.put("inc", compileStyle("incRemAnomStyle", categorize(MODEL_PATH + "RemAnom:resultant_inclination", "-45", "0", "45")));
+        STYLES.put("dec", compileStyle("decRemAnomStyle", categorize(MODEL_PATH + "RemAnom:resultant_declination", "90", "180", "270")));
+        STYLES.put("models", compileStyle("modelsRemAnomStyle", "<Function name=\"Categorize\">"
+                + "<Function name=\"attributeCount\">"
+                + "<PropertyName>RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member/RemAnom:Model</PropertyName>"
+                + "</Function>"
+                + "<Literal>#000000</Literal>"
+                + "<Literal>1</Literal>"
+                + "<Literal>#0000ff</Literal>"
+                + "<Literal>2</Literal>"
+                + "<Literal>#00ff00</Literal>"
+                + "<Literal>3</Literal>"
+                + "<Literal>#ffff00</Literal>"
+                + "<Literal>4</Literal>"
+                + "<Literal>#ff0000</Literal>"
+                + "</Function>"));
+    }
+
     @Autowired
-    public RemanentAnomaliesController(RemanentAnomaliesService remanentAnomaliesService) {
+    public RemanentAnomaliesController(RemanentAnomaliesService remanentAnomaliesService, SLDStyleCache styleCache) {
         this.remanentAnomaliesService = remanentAnomaliesService;
+        this.styleCache = styleCache;
     }
 
 
@@ -74,145 +105,62 @@ public class RemanentAnomaliesController extends BasePortalController {
             @RequestParam(required = false, value = "modelCountMax") Integer modelCountMax,
             @RequestParam(required = false, value = "styleSwitch", defaultValue="default") String styleSwitch,
             @RequestParam(required = false, value = "optionalFilters") String optionalFilters,
+            HttpServletRequest request,
             HttpServletResponse response) throws Exception {
 
-        //Vt: wms shouldn't need the bbox because it is tiled.
-        FilterBoundingBox bbox = null;
-        //String stylefilter=this.remanentAnomaliesService.getRemanentAnomaliesWithStyling(name); //VT:get filter from service
-        Boolean modelsfilter = "models".equals(styleSwitch);
-        String filter = this.remanentAnomaliesService.getRemanentAnomaliesFilter(name, ARRAMin, ARRAMax, decMin, decMax, incMin, incMax, modelCountMin, modelCountMax,modelsfilter,optionalFilters, bbox); //VT:get filter from service
+        RenderedStyle style = styleCache.getStyle(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                //Vt: wms shouldn't need the bbox because it is tiled.
+                FilterBoundingBox bbox = null;
+                //String stylefilter=this.remanentAnomaliesService.getRemanentAnomaliesWithStyling(name); //VT:get filter from service
+                Boolean modelsfilter = "models".equals(styleSwitch);
+                String filter = remanentAnomaliesService.getRemanentAnomaliesFilter(name, ARRAMin, ARRAMax, decMin, decMax, incMin, incMax, modelCountMin, modelCountMax,modelsfilter,optionalFilters, bbox); //VT:get filter from service
 
-        String style = this.getStyle(filter, "#000000",styleSwitch);
+                return getStyle(filter, "#000000",styleSwitch);
+            }
+        }, "/getRemanentAnomaliesStyle.do", name, ARRAMin, ARRAMax, decMin, decMax, incMin, incMax, modelCountMin, modelCountMax, styleSwitch, optionalFilters);
 
-        response.setContentType("text/xml");
-
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(
-                style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        styleCache.writeStyle(request, response, style);
     }
 
     public String getStyle(String filter, String color, String styleSwitch) {
+        SLDTemplate template = STYLES.get(styleSwitch);
+        if (template == null) {
+            template = DEFAULT_STYLE;
+        }
+        return template.render(filter, color);
+    }
 
-    	String style;
-    	switch (styleSwitch) {
-        case "ARRA":  style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
-                + "<StyledLayerDescriptor version=\"1.0.0\" "
-                + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd http://remanentanomalies.csiro.au/schemas/anomaly.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns=\"http://www.opengis.net/sld\" xmlns:RemAnom=\"http://remanentanomalies.csiro.au\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-                + "<NamedLayer>" + "<Name>"
-                + REMANENT_ANOMALIES_TYPE
-                + "</Name>"
-                + "<UserStyle>"
-                + "<Name>ARRARemAnomStyle</Name>"
-                + "<Title>ARRARemAnomStyle</Title>"
-                + "<Abstract>ARRARemAnomStyle</Abstract>"
-                + "<IsDefault>1</IsDefault>"
-                + "<FeatureTypeStyle>"
-                + "<Rule>"
-                + "<Name>Anomaly</Name>"
-                + filter
-                + "<PointSymbolizer>"
-                + "<Graphic>"
-                + "<Mark>"
-                + "<WellKnownName>circle</WellKnownName>"
-                + "<Fill>"
-                + "<CssParameter name=\"fill\">"
-                + "<Function name=\"Categorize\">"
-                + "<PropertyName>RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member[1]/RemAnom:Model/RemAnom:Apparent_resultant_rotation_angle</PropertyName>"
-                + "<Literal>#0000ff</Literal>"
-                + "<Literal>45</Literal>"
-                + "<Literal>#00ff00</Literal>"
-                + "<Literal>90</Literal>"
-                + "<Literal>#ffff00</Literal>"
-                + "<Literal>135</Literal>"
-                + "<Literal>#ff0000</Literal>"
-                + "</Function>"
-                + "</CssParameter>"
-                + "</Fill>"
-                + "</Mark>"
-                + "<Size>8</Size>"
-                + "</Graphic>"
-                + "</PointSymbolizer>"
-                + "</Rule>"
-                + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-                 break;
-        case "inc":  style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
-                + "<StyledLayerDescriptor version=\"1.0.0\" "
-                + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd http://remanentanomalies.csiro.au/schemas/anomaly.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns=\"http://www.opengis.net/sld\" xmlns:RemAnom=\"http://remanentanomalies.csiro.au\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-                + "<NamedLayer>" + "<Name>"
-                + REMANENT_ANOMALIES_TYPE
-                + "</Name>"
-                + "<UserStyle>"
-                + "<Name>incRemAnomStyle</Name>"
-                + "<Title>incRemAnomStyle</Title>"
-                + "<Abstract>incRemAnomStyle</Abstract>"
-                + "<IsDefault>1</IsDefault>"
-                + "<FeatureTypeStyle>"
-                + "<Rule>"
-                + "<Name>Anomaly</Name>"
-                + filter
-                + "<PointSymbolizer>"
-                + "<Graphic>"
-                + "<Mark>"
-                + "<WellKnownName>circle</WellKnownName>"
-                + "<Fill>"
-                + "<CssParameter name=\"fill\">"
-                + "<Function name=\"Categorize\">"
-                + "<PropertyName>RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member[1]/RemAnom:Model/RemAnom:resultant_inclination</PropertyName>"
-                + "<Literal>#0000ff</Literal>"
-                + "<Literal>-45</Literal>"
-                + "<Literal>#00ff00</Literal>"
-                + "<Literal>0</Literal>"
-                + "<Literal>#ffff00</Literal>"
-                + "<Literal>45</Literal>"
-                + "<Literal>#ff0000</Literal>"
-                + "</Function>"
-                + "</CssParameter>"
-                + "</Fill>"
-                + "</Mark>"
-                + "<Size>8</Size>"
-                + "</Graphic>"
-                + "</PointSymbolizer>"
-                + "</Rule>"
-                + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-                 break;
-        case "dec":  style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+    /**
+     * Compiles the SLD for a single anomaly style
+     * @param styleName The name of the SLD UserStyle
+     * @param fill The content of the fill CssParameter (may reference [color])
+     * @return
+     */
+    private static SLDTemplate compileStyle(String styleName, String fill) {
+        return SLDTemplate.compile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
                 + "<StyledLayerDescriptor version=\"1.0.0\" "
                 + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd http://remanentanomalies.csiro.au/schemas/anomaly.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns=\"http://www.opengis.net/sld\" xmlns:RemAnom=\"http://remanentanomalies.csiro.au\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
                 + "<NamedLayer>" + "<Name>"
                 + REMANENT_ANOMALIES_TYPE
                 + "</Name>"
                 + "<UserStyle>"
-                + "<Name>decRemAnomStyle</Name>"
-                + "<Title>decRemAnomStyle</Title>"
-                + "<Abstract>decRemAnomStyle</Abstract>"
+                + "<Name>" + styleName + "</Name>"
+                + "<Title>" + styleName + "</Title>"
+                + "<Abstract>" + styleName + "</Abstract>"
                 + "<IsDefault>1</IsDefault>"
                 + "<FeatureTypeStyle>"
                 + "<Rule>"
                 + "<Name>Anomaly</Name>"
-                + filter
+                + "[filter]"
                 + "<PointSymbolizer>"
                 + "<Graphic>"
                 + "<Mark>"
                 + "<WellKnownName>circle</WellKnownName>"
                 + "<Fill>"
                 + "<CssParameter name=\"fill\">"
-                + "<Function name=\"Categorize\">"
-                + "<PropertyName>RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member[1]/RemAnom:Model/RemAnom:resultant_declination</PropertyName>"
-                + "<Literal>#0000ff</Literal>"
-                + "<Literal>90</Literal>"
-                + "<Literal>#00ff00</Literal>"
-                + "<Literal>180</Literal>"
-                + "<Literal>#ffff00</Literal>"
-                + "<Literal>270</Literal>"
-                + "<Literal>#ff0000</Literal>"
-                + "</Function>"
+                + fill
                 + "</CssParameter>"
                 + "</Fill>"
                 + "</Mark>"
@@ -221,89 +169,23 @@ public class RemanentAnomaliesController extends BasePortalController {
                 + "</PointSymbolizer>"
                 + "</Rule>"
                 + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-                 break;
-        case "models":  style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
-                + "<StyledLayerDescriptor version=\"1.0.0\" "
-                + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd http://remanentanomalies.csiro.au/schemas/anomaly.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns=\"http://www.opengis.net/sld\" xmlns:RemAnom=\"http://remanentanomalies.csiro.au\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-                + "<NamedLayer>" + "<Name>"
-                + REMANENT_ANOMALIES_TYPE
-                + "</Name>"
-                + "<UserStyle>"
-                + "<Name>modelsRemAnomStyle</Name>"
-                + "<Title>modelsRemAnomStyle</Title>"
-                + "<Abstract>modelsRemAnomStyle</Abstract>"
-                + "<IsDefault>1</IsDefault>"
-                + "<FeatureTypeStyle>"
-                + "<Rule>"
-                + "<Name>Anomaly</Name>"
-                + filter
-                + "<PointSymbolizer>"
-                + "<Graphic>"
-                + "<Mark>"
-                + "<WellKnownName>circle</WellKnownName>"
-                + "<Fill>"
-                + "<CssParameter name=\"fill\">"
-                + "<Function name=\"Categorize\">"
-                + "<Function name=\"attributeCount\">"
-                + "<PropertyName>RemAnom:modelCollection/RemAnom:ModelCollection/RemAnom:member/RemAnom:Model</PropertyName>"
-                + "</Function>"
-                + "<Literal>#000000</Literal>"
-                + "<Literal>1</Literal>"
+                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>", "filter", "color");
+    }
+
+    /**
+     * Colours anomalies by categorising propertyName into four classes split at the three thresholds
+     */
+    private static String categorize(String propertyName, String low, String mid, String high) {
+        return "<Function name=\"Categorize\">"
+                + "<PropertyName>" + propertyName + "</PropertyName>"
                 + "<Literal>#0000ff</Literal>"
-                + "<Literal>2</Literal>"
+                + "<Literal>" + low + "</Literal>"
                 + "<Literal>#00ff00</Literal>"
-                + "<Literal>3</Literal>"
+                + "<Literal>" + mid + "</Literal>"
                 + "<Literal>#ffff00</Literal>"
-                + "<Literal>4</Literal>"
+                + "<Literal>" + high + "</Literal>"
                 + "<Literal>#ff0000</Literal>"
-                + "</Function>"
-                + "</CssParameter>"
-                + "</Fill>"
-                + "</Mark>"
-                + "<Size>8</Size>"
-                + "</Graphic>"
-                + "</PointSymbolizer>"
-                + "</Rule>"
-                + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-                 break;
-        default: style = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
-                + "<StyledLayerDescriptor version=\"1.0.0\" "
-                + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd http://remanentanomalies.csiro.au/schemas/anomaly.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns=\"http://www.opengis.net/sld\" xmlns:RemAnom=\"http://remanentanomalies.csiro.au\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
-                + "<NamedLayer>" + "<Name>"
-                + REMANENT_ANOMALIES_TYPE
-                + "</Name>"
-                + "<UserStyle>"
-                + "<Name>defaultRemAnomStyle</Name>"
-                + "<Title>defaultRemAnomStyle</Title>"
-                + "<Abstract>defaultRemAnomStyle</Abstract>"
-                + "<IsDefault>1</IsDefault>"
-                + "<FeatureTypeStyle>"
-                + "<Rule>"
-                + "<Name>Anomaly</Name>"
-                + filter
-                + "<PointSymbolizer>"
-                + "<Graphic>"
-                + "<Mark>"
-                + "<WellKnownName>circle</WellKnownName>"
-                + "<Fill>"
-                + "<CssParameter name=\"fill\">"
-                + color
-                + "</CssParameter>"
-                + "</Fill>"
-                + "</Mark>"
-                + "<Size>8</Size>"
-                + "</Graphic>"
-                + "</PointSymbolizer>"
-                + "</Rule>"
-                + "</FeatureTypeStyle>"
-                + "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
-                 break;
-    	}
-    	
-
-        return style;
+                + "</Function>";
     }
 
 }
@@ -1,19 +1,17 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.awt.geom.Rectangle2D;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.auscope.portal.core.server.controllers.BasePortalController;
+import org.auscope.portal.server.web.service.UtmProjectionService;
+import org.auscope.portal.server.web.service.UtmProjectionService.UtmBBoxes;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
-import com.jhlabs.map.proj.Projection;
-import com.jhlabs.map.proj.ProjectionFactory;
-
 /**
  * Controller for performing simplistic BBox reprojection
  * @author Josh Vote
@@ -23,8 +21,11 @@ import com.jhlabs.map.proj.ProjectionFactory;
 public class ReprojectionController extends BasePortalController {
     protected final Log logger = LogFactory.getLog(getClass());
 
-    public ReprojectionController() {
+    private UtmProjectionService utmProjectionService;
 
+    @Autowired
+    public ReprojectionController(UtmProjectionService utmProjectionService) {
+        this.utmProjectionService = utmProjectionService;
     }
 
     /**
@@ -99,7 +100,8 @@ public class ReprojectionController extends BasePortalController {
                                 @RequestParam("southBoundLatitude") double southBoundLatitude,
                                 @RequestParam("eastBoundLongitude") double eastBoundLongitude,
                                 @RequestParam("westBoundLongitude") double westBoundLongitude,
-                                @RequestParam(required=false, value="mgaZone") Integer mgaZone) {
+                                @RequestParam(required=false, value="mgaZone") Integer mgaZone,
+                                @RequestParam(required=false, value="ellipsoid", defaultValue=UtmProjectionService.DEFAULT_ELLIPSOID) String ellipsoid) {
 
         if (mgaZone == null) {
             mgaZone = calculateIdealMgaZone(northBoundLatitude, southBoundLatitude, eastBoundLongitude, westBoundLongitude);
@@ -109,29 +111,108 @@ public class ReprojectionController extends BasePortalController {
             }
         }
 
-        // create new projection object
-        Projection projection = ProjectionFactory.fromPROJ4Specification(
-            new String[] {
-                "+proj=utm", // Projection name
-                "+zone=" + mgaZone, //UTM zone
-                "+ellps=WGS84", // Ellipsoid name
-                "+x_0=500000", // False easting
-                "+y_0=10000000", // False northing
-                "+k_0=0.99960000" // Scaling factor (new name)
-            }
-        );
-
         // project the selected region into appropriate UTM projection
-        Rectangle2D rect = new Rectangle2D.Double(eastBoundLongitude, southBoundLatitude, (westBoundLongitude - eastBoundLongitude), (northBoundLatitude - southBoundLatitude));
-        Rectangle2D approxAreaMga = projection.transform(rect);
+        UtmBBoxes approxAreaMga;
+        try {
+            approxAreaMga = utmProjectionService.projectBBoxes(new int[] {mgaZone}, ellipsoid,
+                    new double[] {northBoundLatitude}, new double[] {southBoundLatitude},
+                    new double[] {eastBoundLongitude}, new double[] {westBoundLongitude});
+        } catch (IllegalArgumentException ex) {
+            return generateJSONResponseMAV(false, null, ex.getMessage());
+        }
 
         // Calculate bounding box which fully encompasses this polygon
         ModelMap data = new ModelMap();
-        data.put("minNorthing", (int)Math.floor(approxAreaMga.getMinY()));
-        data.put("maxNorthing", (int)Math.ceil(approxAreaMga.getMaxY()));
-        data.put("minEasting", (int)Math.floor(approxAreaMga.getMinX()));
-        data.put("maxEasting", (int)Math.ceil(approxAreaMga.getMaxX()));
+        data.put("minNorthing", approxAreaMga.getMinNorthings()[0]);
+        data.put("maxNorthing", approxAreaMga.getMaxNorthings()[0]);
+        data.put("minEasting", approxAreaMga.getMinEastings()[0]);
+        data.put("maxEasting", approxAreaMga.getMaxEastings()[0]);
         data.put("mgaZone", mgaZone);
         return generateJSONResponseMAV(true, data, "");
     }
+
+    /**
+     * Batch version of projectBBoxToUtm. The i'th element of each bound array describes the i'th bounding box.
+     *
+     * The response has one array per field (mgaZone, minNorthing, maxNorthing, minEasting and maxEasting) whose i'th
+     * element is the result for the i'th bounding box. If mga zone is not specified it will be estimated for each box.
+     *
+     * @return
+     */
+    @RequestMapping("/projectBBoxesToUtm.do")
+    public ModelAndView projectBBoxesToUtm(@RequestParam("northBoundLatitude") double[] northBoundLatitudes,
+                                @RequestParam("southBoundLatitude") double[] southBoundLatitudes,
+                                @RequestParam("eastBoundLongitude") double[] eastBoundLongitudes,
+                                @RequestParam("westBoundLongitude") double[] westBoundLongitudes,
+                                @RequestParam(required=false, value="mgaZone") Integer mgaZone,
+                                @RequestParam(required=false, value="ellipsoid", defaultValue=UtmProjectionService.DEFAULT_ELLIPSOID) String ellipsoid) {
+
+        int[] zones = new int[northBoundLatitudes.length];
+        for (int i = 0; i < zones.length; i++) {
+            if (mgaZone != null) {
+                zones[i] = mgaZone;
+            } else if (i < southBoundLatitudes.length && i < eastBoundLongitudes.length && i < westBoundLongitudes.length) {
+                zones[i] = calculateIdealMgaZone(northBoundLatitudes[i], southBoundLatitudes[i], eastBoundLongitudes[i], westBoundLongitudes[i]);
+                if (zones[i] < 0) {
+                    return generateJSONResponseMAV(false, null, "Could not calculate MGA zone for bounding box " + i);
+                }
+            }
+        }
+
+        UtmBBoxes approxAreasMga;
+        try {
+            approxAreasMga = utmProjectionService.projectBBoxes(zones, ellipsoid, northBoundLatitudes, southBoundLatitudes,
+                    eastBoundLongitudes, westBoundLongitudes);
+        } catch (IllegalArgumentException ex) {
+            return generateJSONResponseMAV(false, null, ex.getMessage());
+        }
+
+        ModelMap data = new ModelMap();
+        data.put("minNorthing", approxAreasMga.getMinNorthings());
+        data.put("maxNorthing", approxAreasMga.getMaxNorthings());
+        data.put("minEasting", approxAreasMga.getMinEastings());
+        data.put("maxEasting", approxAreasMga.getMaxEastings());
+        data.put("mgaZone", approxAreasMga.getMgaZones());
+        return generateJSONResponseMAV(true, data, "");
+    }
+
+    /**
+     * Projects a series of lat/lng points to UTM. The i'th latitude and longitude describe the i'th point.
+     *
+     * The response has one array per field (mgaZone, easting and northing) whose i'th element is the result for the i'th
+     * point. If mga zone is not specified it will be estimated for each point.
+     *
+     * @return
+     */
+    @RequestMapping("/projectPointsToUtm.do")
+    public ModelAndView projectPointsToUtm(@RequestParam("latitude") double[] latitudes,
+                                @RequestParam("longitude") double[] longitudes,
+                                @RequestParam(required=false, value="mgaZone") Integer mgaZone,
+                                @RequestParam(required=false, value="ellipsoid", defaultValue=UtmProjectionService.DEFAULT_ELLIPSOID) String ellipsoid) {
+
+        int[] zones = new int[latitudes.length];
+        for (int i = 0; i < zones.length; i++) {
+            if (mgaZone != null) {
+                zones[i] = mgaZone;
+            } else if (i < longitudes.length) {
+                zones[i] = calculateIdealMgaZone(latitudes[i], longitudes[i]);
+                if (zones[i] < 0) {
+                    return generateJSONResponseMAV(false, null, "Could not calculate MGA zone for point " + i);
+                }
+            }
+        }
+
+        double[][] projected;
+        try {
+            projected = utmProjectionService.projectPoints(zones, ellipsoid, latitudes, longitudes);
+        } catch (IllegalArgumentException ex) {
+            return generateJSONResponseMAV(false, null, ex.getMessage());
+        }
+
+        ModelMap data = new ModelMap();
+        data.put("easting", projected[0]);
+        data.put("northing", projected[1]);
+        data.put("mgaZone", zones);
+        return generateJSONResponseMAV(true, data, "");
+    }
 }
@@ -1,26 +1,33 @@
 package org.auscope.portal.server.web.controllers;
 
 import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.nio.charset.StandardCharsets;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.auscope.portal.core.server.controllers.BasePortalController;
 import org.auscope.portal.core.services.CSWCacheService;
-import org.auscope.portal.core.services.WFSService;
+import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
 import org.auscope.portal.core.util.FileIOUtil;
-import org.auscope.portal.gsml.SF0BoreholeFilter;
 import org.auscope.portal.server.domain.nvcldataservice.AnalyticalJobResults;
-import org.auscope.portal.server.web.service.NVCL2_0_DataService;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService.WFSCapabilities;
+import org.auscope.portal.server.web.service.NVCLAnalyticsResultsCache;
 import org.auscope.portal.server.web.service.SF0BoreholeService;
+import org.auscope.portal.server.web.service.StreamingDownloadService;
+import org.auscope.portal.server.web.service.StreamingDownloadService.StreamResult;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache;
+import org.auscope.portal.server.web.service.sld.SLDStyleCache.RenderedStyle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -39,16 +46,34 @@ public class SF0BoreholeController extends BasePortalController {
     private SF0BoreholeService boreholeService;
 
     // private GsmlpNameSpaceTable gsmlpNameSpaceTable;
-    private NVCL2_0_DataService nvclDataService;
-    private WFSService wfsService;
+    private NVCLAnalyticsResultsCache analyticsResultsCache;
+    private StreamingDownloadService downloadService;
+    private SLDStyleCache styleCache;
+    private CapabilitiesCacheService capabilitiesCache;
 
     @Autowired
-    public SF0BoreholeController(SF0BoreholeService sf0BoreholeService, CSWCacheService cswService, NVCL2_0_DataService nvclDataService, WFSService wfsService) {
+    public SF0BoreholeController(SF0BoreholeService sf0BoreholeService, CSWCacheService cswService, NVCLAnalyticsResultsCache analyticsResultsCache, StreamingDownloadService downloadService,
+            SLDStyleCache styleCache, CapabilitiesCacheService capabilitiesCache) {
         this.boreholeService = sf0BoreholeService;
-        this.nvclDataService = nvclDataService;
-        // GsmlpNameSpaceTable _gsmlpNameSpaceTable = new GsmlpNameSpaceTable();
+        this.analyticsResultsCache = analyticsResultsCache;
+        // GsmlpNameSpaceTable _gsmlpNameSpaceTable = new GsmlpNameSpaceTable(capabilitiesCache);
         // this.gsmlpNameSpaceTable = _gsmlpNameSpaceTable;
-        this.wfsService = wfsService;
+        this.downloadService = downloadService;
+        this.styleCache = styleCache;
+        this.capabilitiesCache = capabilitiesCache;
+    }
+
+    /**
+     * Returns false only if the capabilities of serviceUrl are known and don't list outputFormat for GetFeature. An
+     * endpoint whose capabilities can't be fetched is given the benefit of the doubt.
+     */
+    private boolean mayOfferOutputFormat(String serviceUrl, String outputFormat) {
+        try {
+            WFSCapabilities capabilities = capabilitiesCache.getCapabilities(serviceUrl);
+            return capabilities.getOutputFormats().isEmpty() || capabilities.supportsOutputFormat(outputFormat);
+        } catch (PortalServiceException ex) {
+            return true;
+        }
     }
 
     /**
@@ -95,32 +120,32 @@ public class SF0BoreholeController extends BasePortalController {
     public void doNVCLBoreholeViewCSVDownload(String serviceUrl,String typeName,
     		@RequestParam(required=false, value="bbox") String bbox,
             @RequestParam(required=false, value="outputFormat") String outputFormat,
+            HttpServletRequest request,
             HttpServletResponse response) throws Exception {
-    	
-    	OutputStream outputStream = response.getOutputStream();
+
         try {
-        	response.setContentType("text/csv");
-        	
+            //Endpoints without CSV output would otherwise have their OWS exception streamed out as the "CSV"
+            if (!mayOfferOutputFormat(serviceUrl, "csv")) {
+                throw new PortalServiceException(String.format("'%1$s' does not offer CSV output", serviceUrl));
+            }
+
             FilterBoundingBox box = FilterBoundingBox.attemptParseFromJSON(bbox);
-            
-            String filterString;
-            SF0BoreholeFilter sf0BoreholeFilter = new SF0BoreholeFilter(true);
-            if (box == null) {
-                filterString = sf0BoreholeFilter.getFilterStringAllRecords();
-            } else {
-                filterString = sf0BoreholeFilter.getFilterStringBoundingBox(box);
+            HttpRequestBase method = boreholeService.makeCSVDownloadMethod(serviceUrl, typeName, box);
+
+            //Whole continent downloads can be hundreds of megabytes so the response is piped straight through
+            StreamResult result = downloadService.streamResponse(method, request, response, "text/csv");
+            if (result != StreamResult.COMPLETE) {
+                log.info(String.format("CSV download from '%1$s' was not completed: %2$s", serviceUrl, result));
             }
-            
-            
-            InputStream result = wfsService.downloadCSV(serviceUrl, typeName, filterString,0);
-            FileIOUtil.writeInputToOutputStream(result, outputStream, 8 * 1024, true);
-            outputStream.close();
-            
         } catch (Exception e) {
         	log.warn(String.format("Unable to request/transform WFS response from '%1$s': %2$s", serviceUrl,e));
-            log.debug("Exception: ", e);  
-            IOUtils.write("An error has occurred: "+ e.getMessage(), outputStream, StandardCharsets.UTF_8);
-            outputStream.close();
+            log.debug("Exception: ", e);
+            if (!response.isCommitted()) {
+                response.setContentType("text/csv");
+                OutputStream outputStream = response.getOutputStream();
+                IOUtils.write("An error has occurred: "+ e.getMessage(), outputStream, StandardCharsets.UTF_8);
+                outputStream.close();
+            }
         }
     }
     /**
@@ -175,6 +200,7 @@ public class SF0BoreholeController extends BasePortalController {
      */
     @RequestMapping("/doNvclV2FilterStyle.do")
     public void doNvclV2FilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(required = false, value = "boreholeName", defaultValue = "") String boreholeName,
@@ -192,65 +218,65 @@ public class SF0BoreholeController extends BasePortalController {
 
                     throws Exception {
 
-        FilterBoundingBox bbox = null;
-        List<String> hyloggerBoreholeIDs = null;
-
-        List<String> filterNames = new ArrayList<String>();
-        List<String> filterColors = new ArrayList<String>();
-        List<String> filters = new ArrayList<String>();
-        List<String> filterMarks = new ArrayList<String>();
-        String gsmlpNameSpace = "http://xmlns.geosciml.org/geosciml-portrayal/4.0";
-		// gsmlpNameSpaceTable is no longer required as all data providers support v4
-		// However it may be required again for future versions of boreholeview 		
-		// String gsmlpNameSpace = gsmlpNameSpaceTable.getGsmlpNameSpace(serviceUrl);
-        if (StringUtils.isNotEmpty(analyticsJobId)) {
-            //Generate a style for displaying pass/fail/error holes
-            AnalyticalJobResults analyticsResults = nvclDataService.getProcessingResults(analyticsJobId);
-
-            if (!analyticsResults.getErrorBoreholes().isEmpty()) {
-                filterNames.add("Error Boreholes");
-                filterColors.add("#ff8000");
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getErrorBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0073");
-                filterMarks.add("circle");
-            }
-
-            if (!analyticsResults.getFailBoreholes().isEmpty()) {
-                filterNames.add("Fail Boreholes");
-                filterColors.add("#cc0000");
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getFailBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0072");
-                filterMarks.add("circle");
+        final AnalyticalJobResults analyticsResults = StringUtils.isNotEmpty(analyticsJobId) ? analyticsResultsCache.getResults(analyticsJobId) : null;
+        Callable<String> renderer = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = null;
+                List<String> hyloggerBoreholeIDs = null;
+
+                List<String> filterNames = new ArrayList<String>();
+                List<String> filterColors = new ArrayList<String>();
+                List<String> filters = new ArrayList<String>();
+                List<String> filterMarks = new ArrayList<String>();
+                String gsmlpNameSpace = "http://xmlns.geosciml.org/geosciml-portrayal/4.0";
+                // gsmlpNameSpaceTable is no longer required as all data providers support v4
+                // However it may be required again for future versions of boreholeview 		
+                // String gsmlpNameSpace = gsmlpNameSpaceTable.getGsmlpNameSpace(serviceUrl);
+                if (analyticsResults != null) {
+                    //Generate a style for displaying pass/fail/error holes (large ID lists may be split across several rules)
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getErrorBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Error Boreholes");
+                        filterColors.add("#ff8000");
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0073");
+                        filterMarks.add("circle");
+                    }
+
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getFailBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Fail Boreholes");
+                        filterColors.add("#cc0000");
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0072");
+                        filterMarks.add("circle");
+                    }
+
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getPassBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Pass Boreholes");
+                        filterColors.add(color.isEmpty() ? "#0000ff" : color);
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0061");
+                        filterMarks.add("circle");
+                    }
+                } else {
+                    if (boreholeService.namespaceSupportsHyloggerFilter(gsmlpNameSpace)) {
+                        filters.add(boreholeService.getFilter(boreholeName,
+                                custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox,
+                                hyloggerBoreholeIDs, true,optionalFilters));
+                        filterColors.add("#FF0000");
+                        filterNames.add("Hylogged");
+                        filterMarks.add("circle");
+                    }
+                }
+
+                return boreholeService.getStyle(filterNames, filters, filterColors, filterMarks, gsmlpNameSpace);
             }
+        };
 
-            if (!analyticsResults.getPassBoreholes().isEmpty()) {
-                filterNames.add("Pass Boreholes");
-                filterColors.add(color.isEmpty() ? "#0000ff" : color);
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getPassBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0061");
-                filterMarks.add("circle");
-            }
-        } else {
-            if (this.boreholeService.namespaceSupportsHyloggerFilter(gsmlpNameSpace)) {
-                filters.add(this.boreholeService.getFilter(boreholeName,
-                        custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox,
-                        hyloggerBoreholeIDs, true,optionalFilters));
-                filterColors.add("#FF0000");
-                filterNames.add("Hylogged");
-                filterMarks.add("circle");
-            }
-        }
-
-        response.setContentType("text/xml");
-
-        String style = this.boreholeService.getStyle(filterNames, filters, filterColors, filterMarks, gsmlpNameSpace);
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        //Analytics results change while their job is running so those styles are only cached once it completes
+        RenderedStyle style = analyticsResults != null && !analyticsResultsCache.isComplete(analyticsJobId) ? new RenderedStyle(renderer.call()) :
+            styleCache.getStyle(renderer, "/doNvclV2FilterStyle.do", serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, color, analyticsJobId, optionalFilters);
+        styleCache.writeStyle(request, response, style);
     }
     /**
      * Handles getting the style of the SF0 borehole filter queries. (If the bbox elements are specified, they will limit the output response to 200 records
@@ -264,6 +290,7 @@ public class SF0BoreholeController extends BasePortalController {
      */
     @RequestMapping("/doBoreholeViewFilterStyle.do")
     public void doFilterStyle(
+            HttpServletRequest request,
             HttpServletResponse response,
             @RequestParam(required = false, value = "serviceUrl", defaultValue = "") String serviceUrl,
             @RequestParam(required = false, value = "boreholeName", defaultValue = "") String boreholeName,
@@ -282,94 +309,94 @@ public class SF0BoreholeController extends BasePortalController {
 
                     throws Exception {
 
-        FilterBoundingBox bbox = null;
-        //				FilterBoundingBox
-        //				.attemptParseFromJSON(bboxJson);
-
-        List<String> hyloggerBoreholeIDs = null;
-        // AUS-2445
-        // RA: we can't show WMS for NVCL for now because the way GeoServer filter WMS isn't very efficient and
-        // it will cause services with a lot of scanned boreholes (e.g. SA) to run out of memory!
-        //		try {
-        //			// don't get hylogger IDs if this is only to populate the legend
-        //			if (!serviceUrl.isEmpty()) {
-        //				hyloggerBoreholeIDs = this.boreholeService
-        //						.discoverHyloggerBoreholeIDs(this.cswService,
-        //								new CSWRecordsHostFilter(serviceUrl));
-        //			}
-        //		} catch (Exception e) {
-        //			log.warn(String
-        //					.format("Error requesting list of hylogger borehole ID's from %1$s: %2$s",
-        //							serviceUrl, e));
-        //			log.debug("Exception:", e);
-        //		}
-
-        //Generate a style. Either generate a Hylogged/Non Hylogged style OR generate a style for NVCL analytics
-        //that includes pass/fail/error boreholes
-        List<String> filterNames = new ArrayList<String>();
-        List<String> filterColors = new ArrayList<String>();
-        List<String> filters = new ArrayList<String>();
-        List<String> filterMarks = new ArrayList<String>();
-		String gsmlpNameSpace = "http://xmlns.geosciml.org/geosciml-portrayal/4.0";
-		// gsmlpNameSpaceTable is no longer required as all data providers support v4
-		// However it may be required again for future versions of boreholeview 
-        // String gsmlpNameSpace = gsmlpNameSpaceTable.getGsmlpNameSpace(serviceUrl);
-        if (StringUtils.isNotEmpty(analyticsJobId)) {
-            //Generate a style for displaying pass/fail/error holes
-            AnalyticalJobResults analyticsResults = nvclDataService.getProcessingResults(analyticsJobId);
-
-            if (!analyticsResults.getErrorBoreholes().isEmpty()) {
-                filterNames.add("Error Boreholes");
-                filterColors.add("#ff8000");
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getErrorBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0073");
-                filterMarks.add("circle");
-            }
-
-            if (!analyticsResults.getFailBoreholes().isEmpty()) {
-                filterNames.add("Fail Boreholes");
-                filterColors.add("#cc0000");
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getFailBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0072");
-                filterMarks.add("circle");
-            }
-
-            if (!analyticsResults.getPassBoreholes().isEmpty()) {
-                filterNames.add("Pass Boreholes");
-                filterColors.add(color.isEmpty() ? "#0000ff" : color);
-                filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, analyticsResults.getPassBoreholes(), true,optionalFilters));
-                //filterMarks.add("ttf://Webdings#0x0061");
-                filterMarks.add("circle");
-            }
-        } else {
-            //Generate a Hylogged vs Non Hylogged style
-            filters.add(this.boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, null, null,optionalFilters));
-            filterColors.add(color.isEmpty() ? "#2242c7" : color);
-            filterNames.add("Boreholes");
-            filterMarks.add("circle");
-
-            //Not all borehole services support the hylogged attribute
-            Boolean justNVCL = showNoneHylogged;
-            if (justNVCL && this.boreholeService.namespaceSupportsHyloggerFilter(gsmlpNameSpace)) {
-                filters.add(this.boreholeService.getFilter(boreholeName,
-                        custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox,
-                        hyloggerBoreholeIDs, justNVCL,optionalFilters));
-                filterColors.add("#FF0000");
-                filterNames.add("Hylogged");
-                filterMarks.add("circle");
+        final AnalyticalJobResults analyticsResults = StringUtils.isNotEmpty(analyticsJobId) ? analyticsResultsCache.getResults(analyticsJobId) : null;
+        Callable<String> renderer = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                FilterBoundingBox bbox = null;
+                //				FilterBoundingBox
+                //				.attemptParseFromJSON(bboxJson);
+
+                List<String> hyloggerBoreholeIDs = null;
+                // AUS-2445
+                // RA: we can't show WMS for NVCL for now because the way GeoServer filter WMS isn't very efficient and
+                // it will cause services with a lot of scanned boreholes (e.g. SA) to run out of memory!
+                //		try {
+                //			// don't get hylogger IDs if this is only to populate the legend
+                //			if (!serviceUrl.isEmpty()) {
+                //				hyloggerBoreholeIDs = boreholeService
+                //						.discoverHyloggerBoreholeIDs(this.cswService,
+                //								new CSWRecordsHostFilter(serviceUrl));
+                //			}
+                //		} catch (Exception e) {
+                //			log.warn(String
+                //					.format("Error requesting list of hylogger borehole ID's from %1$s: %2$s",
+                //							serviceUrl, e));
+                //			log.debug("Exception:", e);
+                //		}
+
+                //Generate a style. Either generate a Hylogged/Non Hylogged style OR generate a style for NVCL analytics
+                //that includes pass/fail/error boreholes
+                List<String> filterNames = new ArrayList<String>();
+                List<String> filterColors = new ArrayList<String>();
+                List<String> filters = new ArrayList<String>();
+                List<String> filterMarks = new ArrayList<String>();
+                String gsmlpNameSpace = "http://xmlns.geosciml.org/geosciml-portrayal/4.0";
+                // gsmlpNameSpaceTable is no longer required as all data providers support v4
+                // However it may be required again for future versions of boreholeview 
+                // String gsmlpNameSpace = gsmlpNameSpaceTable.getGsmlpNameSpace(serviceUrl);
+                if (analyticsResults != null) {
+                    //Generate a style for displaying pass/fail/error holes (large ID lists may be split across several rules)
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getErrorBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Error Boreholes");
+                        filterColors.add("#ff8000");
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0073");
+                        filterMarks.add("circle");
+                    }
+
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getFailBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Fail Boreholes");
+                        filterColors.add("#cc0000");
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0072");
+                        filterMarks.add("circle");
+                    }
+
+                    for (String idFilter : boreholeService.getIdentifierFilters(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, analyticsResults.getPassBoreholes(), true, optionalFilters)) {
+                        filterNames.add("Pass Boreholes");
+                        filterColors.add(color.isEmpty() ? "#0000ff" : color);
+                        filters.add(idFilter);
+                        //filterMarks.add("ttf://Webdings#0x0061");
+                        filterMarks.add("circle");
+                    }
+                } else {
+                    //Generate a Hylogged vs Non Hylogged style
+                    filters.add(boreholeService.getFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, null, null, null,optionalFilters));
+                    filterColors.add(color.isEmpty() ? "#2242c7" : color);
+                    filterNames.add("Boreholes");
+                    filterMarks.add("circle");
+
+                    //Not all borehole services support the hylogged attribute
+                    Boolean justNVCL = showNoneHylogged;
+                    if (justNVCL && boreholeService.namespaceSupportsHyloggerFilter(gsmlpNameSpace)) {
+                        filters.add(boreholeService.getFilter(boreholeName,
+                                custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox,
+                                hyloggerBoreholeIDs, justNVCL,optionalFilters));
+                        filterColors.add("#FF0000");
+                        filterNames.add("Hylogged");
+                        filterMarks.add("circle");
+                    }
+                }
+
+                return boreholeService.getStyle(filterNames, filters, filterColors, filterMarks, gsmlpNameSpace);
             }
-        }
+        };
 
-        response.setContentType("text/xml");
-
-        String style = this.boreholeService.getStyle(filterNames, filters, filterColors, filterMarks, gsmlpNameSpace);
-        ByteArrayInputStream styleStream = new ByteArrayInputStream(style.getBytes());
-        OutputStream outputStream = response.getOutputStream();
-
-        FileIOUtil.writeInputToOutputStream(styleStream, outputStream, 1024, false);
-
-        styleStream.close();
-        outputStream.close();
+        //Analytics results change while their job is running so those styles are only cached once it completes
+        RenderedStyle style = analyticsResults != null && !analyticsResultsCache.isComplete(analyticsJobId) ? new RenderedStyle(renderer.call()) :
+            styleCache.getStyle(renderer, "/doBoreholeViewFilterStyle.do", serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, color, showNoneHylogged, analyticsJobId, optionalFilters);
+        styleCache.writeStyle(request, response, style);
     }
 
     /**
@@ -1,28 +1,58 @@
 package org.auscope.portal.server.web.repositories;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.vegl.VEGLJobSummary;
 import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Status comparisons use the indexed VEGLJob.statusKey column (the normalised status) rather than LOWER(status)
+ * which can't use an index.
+ *
+ * The summary queries select a VEGLJobSummary per job (ordered by id) rather than the job entities (and their
+ * eagerly fetched collections). They can be paged by offset (with a Pageable) or scrolled through with a keyset -
+ * the id of the last job of the previous page.
+ */
 @Repository
 public interface VEGLJobRepository extends JpaRepository<VEGLJob, Integer> {
-	
-	
-	@Query("SELECT j FROM VEGLJob j WHERE j.seriesId= ?1 AND j.emailAddress = ?2 AND LOWER(j.status) <> 'deleted'")
+
+	/** The normalised status of deleted jobs */
+	String DELETED_STATUS_KEY = "deleted";
+
+	@Query("SELECT j FROM VEGLJob j WHERE j.seriesId= ?1 AND j.emailAddress = ?2 AND j.statusKey <> '" + DELETED_STATUS_KEY + "'")
 	List<VEGLJob> findBySeriesIdAndEmail(Integer seriesId, String email);
-	
-	@Query("SELECT j FROM VEGLJob j WHERE j.emailAddress = ?1 AND LOWER(j.status) <> 'deleted'")
+
+	@Query("SELECT j FROM VEGLJob j WHERE j.emailAddress = ?1 AND j.statusKey <> '" + DELETED_STATUS_KEY + "'")
 	List<VEGLJob> findByEmail(String email);
-	
-	@Query("SELECT j FROM VEGLJob j WHERE LOWER(j.status)='" + JobBuilderController.STATUS_PENDING +
-			"' OR LOWER(j.status)='" + JobBuilderController.STATUS_ACTIVE + "'")
-	List<VEGLJob> findPendingOrActiveJobs();
-	
-	@Query("SELECT j FROM VEGLJob j WHERE LOWER(j.status)='" + JobBuilderController.STATUS_INQUEUE + "'")
-	List<VEGLJob> findInqueueJobs();
-	
+
+	/** The select clause of the summary queries */
+	String SUMMARY_SELECT = "SELECT new org.auscope.portal.server.vegl.VEGLJobSummary(j.id, j.name, j.description, j.seriesId, "
+			+ "j.status, j.submitDate, j.processDate, j.executeDate, j.computeServiceId, j.storageServiceId) FROM VEGLJob j ";
+
+	@Query(SUMMARY_SELECT + "WHERE j.emailAddress = ?1 AND j.statusKey <> '" + DELETED_STATUS_KEY + "' ORDER BY j.id")
+	List<VEGLJobSummary> findSummariesByEmail(String email, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + "WHERE j.emailAddress = ?1 AND j.statusKey <> '" + DELETED_STATUS_KEY + "' AND j.id > ?2 ORDER BY j.id")
+	List<VEGLJobSummary> findSummariesByEmailAfter(String email, Integer afterJobId, Pageable pageable);
+
+	@Query("SELECT j FROM VEGLJob j WHERE j.statusKey IN :statusKeys")
+	List<VEGLJob> findByStatusKeys(@Param("statusKeys") Collection<String> statusKeys);
+
+	default List<VEGLJob> findPendingOrActiveJobs() {
+		return findByStatusKeys(Arrays.asList(VEGLJob.normaliseStatus(JobBuilderController.STATUS_PENDING),
+				VEGLJob.normaliseStatus(JobBuilderController.STATUS_ACTIVE)));
+	}
+
+	default List<VEGLJob> findInqueueJobs() {
+		return findByStatusKeys(Arrays.asList(VEGLJob.normaliseStatus(JobBuilderController.STATUS_INQUEUE)));
+	}
+
 }
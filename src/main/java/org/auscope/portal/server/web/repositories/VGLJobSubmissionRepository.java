@@ -0,0 +1,51 @@
+package org.auscope.portal.server.web.repositories;
+
+import java.util.Date;
+
+import org.auscope.portal.server.vegl.VGLJobSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface VGLJobSubmissionRepository extends JpaRepository<VGLJobSubmission, Integer> {
+
+	VGLJobSubmission findByJobIdAndComputeServiceId(Integer jobId, String computeServiceId);
+
+	/**
+	 * Atomically leases submission id to owner (until leaseExpiryDate). Fails if another owner holds an unexpired lease.
+	 * @return 1 if the lease was acquired, 0 otherwise
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE VGLJobSubmission s SET s.leaseOwner = ?2, s.leaseExpiryDate = ?3 WHERE s.id = ?1 AND "
+			+ "(s.leaseExpiryDate IS NULL OR s.leaseExpiryDate <= ?4 OR s.leaseOwner = ?2)")
+	int acquireLease(Integer id, String owner, Date leaseExpiryDate, Date now);
+
+	/**
+	 * Releases owner's lease on submission id and schedules its next attempt
+	 * @return 1 if the submission was updated, 0 otherwise
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE VGLJobSubmission s SET s.leaseOwner = NULL, s.leaseExpiryDate = NULL, s.attempts = ?3, "
+			+ "s.nextAttemptDate = ?4, s.lastError = ?5 WHERE s.id = ?1 AND s.leaseOwner = ?2")
+	int releaseLease(Integer id, String owner, int attempts, Date nextAttemptDate, String lastError);
+
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("DELETE FROM VGLJobSubmission s WHERE s.id = ?1")
+	int deleteSubmission(Integer id);
+
+	/**
+	 * Deletes the submission for the specified job/compute service unless it is currently leased
+	 * @return the number of deleted submissions
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("DELETE FROM VGLJobSubmission s WHERE s.jobId = ?1 AND s.computeServiceId = ?2 AND "
+			+ "(s.leaseExpiryDate IS NULL OR s.leaseExpiryDate <= ?3)")
+	int deleteUnleased(Integer jobId, String computeServiceId, Date now);
+}
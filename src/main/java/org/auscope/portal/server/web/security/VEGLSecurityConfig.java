@@ -70,6 +70,11 @@ public class VEGLSecurityConfig extends WebSecurityConfigurerAdapter {
 			.authorizeRequests()			
 				.antMatchers("/secure/**")
 					.authenticated()
+				// Actuator metrics describe remote services and load so are limited to administrators
+				.antMatchers("/actuator/health")
+					.permitAll()
+				.antMatchers("/actuator/**")
+					.hasRole("ADMINISTRATOR")
 				.antMatchers("/**")
 					.permitAll()
 			.and()
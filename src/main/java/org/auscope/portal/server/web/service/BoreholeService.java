@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,8 +27,11 @@ import org.auscope.portal.core.services.responses.ows.OWSExceptionParser;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
 import org.auscope.portal.core.util.DOMUtil;
 import org.auscope.portal.gsml.BoreholeFilter;
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor;
 import org.auscope.portal.gsml.BoreholeWithConfigurableFilter;
 import org.auscope.portal.nvcl.NVCLNamespaceContext;
+import org.auscope.portal.server.domain.nvcldataservice.BoreholeIdSet;
+import org.auscope.portal.server.web.service.sld.SLDTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
@@ -72,7 +76,83 @@ public class BoreholeService extends BaseWFSService {
 
     private final Log log = LogFactory.getLog(getClass());
 
+    //Compiled once - getStyle only splices the per filter values into these
+    private static final SLDTemplate STYLE_HEADER = SLDTemplate.compile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"[gsmlpNameSpace]\" "
+            + "xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<NamedLayer>" + "<Name>"
+            + "[typeName]"
+            + "</Name>"
+            + "<UserStyle>"
+            + "<Name>portal-style</Name>"
+            + "<Title>portal-style</Title>"
+            + "<Abstract>portal-style</Abstract>"
+            + "<IsDefault>1</IsDefault>", "gsmlpNameSpace", "typeName");
+    private static final String FILTER_SYMBOLIZER = "<PointSymbolizer>"
+            + "<Geometry><ogc:PropertyName>[geometryName]</ogc:PropertyName></Geometry>"
+            + "<Graphic>"
+            + "<Mark>"
+            + "<WellKnownName>[mark]</WellKnownName>"
+            + "<Fill>"
+            + "<CssParameter name=\"fill\">[color]</CssParameter>"
+            + "<CssParameter name=\"fill-opacity\">0.4</CssParameter>"
+            + "</Fill>"
+            + "<Stroke>"
+            + "<CssParameter name=\"stroke\">[color]</CssParameter>"
+            + "<CssParameter name=\"stroke-width\">0.5</CssParameter>"
+            + "</Stroke>"
+            + "</Mark>"
+            + "<Size>8</Size>"
+            + "</Graphic>"
+            + "</PointSymbolizer>";
+    private static final SLDTemplate FILTER_STYLE = SLDTemplate.compile("<FeatureTypeStyle>"
+            + "<Rule>"
+            + "<Name>[name]</Name>"
+            + "<Abstract>[name]</Abstract>"
+            + "<MaxScaleDenominator>4000000</MaxScaleDenominator>"
+            + "[filter]"
+            + FILTER_SYMBOLIZER
+            + "<TextSymbolizer>"
+            + "<Label>"
+            + "<ogc:Function name=\"strSubstringStart\">"
+            + "<ogc:PropertyName>gsmlp:name</ogc:PropertyName>"
+            + "<ogc:Function name=\"parseInt\">"
+            + "<ogc:Literal>27</ogc:Literal>"
+            + "</ogc:Function>"
+            + "</ogc:Function>"
+            + "</Label>"
+            + "<Font>"
+            + "<CssParameter name=\"font-family\">Arial</CssParameter>"
+            + "<CssParameter name=\"font-size\">12</CssParameter>"
+            + "<CssParameter name=\"font-style\">normal</CssParameter>"
+            + "<CssParameter name=\"font-weight\">normal</CssParameter>"
+            + "</Font>"
+            + "<LabelPlacement>"
+            + "<PointPlacement>"
+            + "<Displacement>"
+            + "<DisplacementX>6</DisplacementX>"
+            + "<DisplacementY>-6</DisplacementY>"
+            + "</Displacement>"
+            + "</PointPlacement>"
+            + "</LabelPlacement>"
+            + "<Fill>"
+            + "<CssParameter name=\"fill\">#000000</CssParameter>"
+            + "</Fill>"
+            + "</TextSymbolizer>"
+            + "</Rule>"
+            // No Labels at high zoom levels
+            + "<Rule>"
+            + "<Name>[name]</Name>"
+            + "<Abstract>[name]</Abstract>"
+            + "<MinScaleDenominator>4000000</MinScaleDenominator>"
+            + "[filter]"
+            + FILTER_SYMBOLIZER
+            + "</Rule>"
+            + "</FeatureTypeStyle>", "name", "filter", "geometryName", "mark", "color");
+    private static final String STYLE_TAIL = "</UserStyle>" + "</NamedLayer>" + "</StyledLayerDescriptor>";
+
     private String gsmlpNameSpace = null;
+    private int maxIdsPerFilter = BoreholeIdFilterCompactor.DEFAULT_MAX_PREDICATES;
     // ----------------------------------------------------------- Constructors
 
     @Autowired
@@ -97,6 +177,7 @@ public class BoreholeService extends BaseWFSService {
             String dateOfDrillingStart,String dateOfDrillingEnd, int maxFeatures, FilterBoundingBox bbox, List<String> restrictToIDList, String outputFormat,String optionalFilters)
                     throws Exception {
         String filterString;
+        restrictToIDList = distinctIds(restrictToIDList);
 
 
 
@@ -145,6 +226,17 @@ public class BoreholeService extends BaseWFSService {
     public int countAllBoreholes(String serviceUrl, String boreholeName, String custodian,
             String dateOfDrillingStart,String dateOfDrillingEnd, int maxFeatures, FilterBoundingBox bbox, List<String> restrictToIDList)
                     throws Exception {
+        //Feature ID restrictions have no range form so thousands of (hylogger) IDs are counted a bounded chunk at a time
+        restrictToIDList = distinctIds(restrictToIDList);
+        if (restrictToIDList != null && restrictToIDList.size() > maxIdsPerFilter) {
+            int count = 0;
+            for (int i = 0; i < restrictToIDList.size(); i += maxIdsPerFilter) {
+                List<String> chunk = restrictToIDList.subList(i, Math.min(restrictToIDList.size(), i + maxIdsPerFilter));
+                count += countAllBoreholes(serviceUrl, boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, maxFeatures, bbox, chunk);
+            }
+            return count;
+        }
+
         String filterString;
         BoreholeFilter nvclFilter = new BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd,restrictToIDList,null);
         if (bbox == null) {
@@ -184,9 +276,9 @@ public class BoreholeService extends BaseWFSService {
             //Get our ID's
             NodeList publishedDatasets = (NodeList) DOMUtil.compileXPathExpr("/wfs:FeatureCollection/gml:featureMembers/" + NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME + "/nvcl:scannedBorehole", nc)
                     .evaluate(doc, XPathConstants.NODESET);
+            XPathExpression holeIdentifierExpr = DOMUtil.compileXPathExpr("@xlink:href", nc);
             for (int i = 0; i < publishedDatasets.getLength(); i++) {
-                Node holeIdentifier = (Node) DOMUtil.compileXPathExpr("@xlink:href", nc)
-                        .evaluate(publishedDatasets.item(i), XPathConstants.NODE);
+                Node holeIdentifier = (Node) holeIdentifierExpr.evaluate(publishedDatasets.item(i), XPathConstants.NODE);
                 if (holeIdentifier != null) {
                     String[] urnBlocks = holeIdentifier.getTextContent().split("/");
                     if (urnBlocks.length > 1) {
@@ -201,6 +293,21 @@ public class BoreholeService extends BaseWFSService {
         }
     }
 
+    /**
+     * Queries a single service for the ID's of every borehole it publishes Hylogger data for.
+     *
+     * @param url
+     *            The WFS endpoint serving PUBLISHED_DATASETS_TYPENAME
+     * @return
+     * @throws PortalServiceException
+     * @throws URISyntaxException
+     */
+    public List<String> getHyloggerBoreholeIDs(String url) throws PortalServiceException, URISyntaxException {
+        List<String> ids = new ArrayList<String>();
+        appendHyloggerBoreholeIDs(url, NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME, ids);
+        return ids;
+    }
+
     /**
      * Goes to the CSWService to get all services that support the PUBLISHED_DATASETS_TYPENAME and queries them to generate a list of borehole ID's that
      * represent every borehole with Hylogger data.
@@ -233,10 +340,44 @@ public class BoreholeService extends BaseWFSService {
 
     public String getFilter(String boreholeName, String custodian, String dateOfDrillingStart,String dateOfDrillingEnd,
             int maxFeatures, FilterBoundingBox bbox, List<String> ids, Boolean justNVCL,String optionalFilters) throws Exception {
-        BoreholeFilter filter = new BoreholeFilter(boreholeName, custodian, dateOfDrillingStart,dateOfDrillingEnd, ids,optionalFilters);
+        BoreholeFilter filter = new BoreholeFilter(boreholeName, custodian, dateOfDrillingStart,dateOfDrillingEnd, distinctIds(ids),optionalFilters);
         return generateFilterString(filter, bbox);
     }
 
+    /**
+     * The sorted, de-duplicated and non empty members of ids (null if ids is null). IDs gathered from several
+     * endpoints repeat (a borehole is listed once per published dataset) and each repeat costs a filter predicate.
+     *
+     * @param ids
+     * @return
+     */
+    protected static List<String> distinctIds(List<String> ids) {
+        if (ids == null) {
+            return null;
+        }
+        BoreholeIdSet distinct = BoreholeIdSet.copyOf(ids);
+        if (!distinct.isEmpty() && distinct.get(0).isEmpty()) {
+            return distinct.subList(1, distinct.size());
+        }
+        return distinct;
+    }
+
+    /**
+     * The maximum number of feature IDs restricting a single count request
+     * @return
+     */
+    public int getMaxIdsPerFilter() {
+        return maxIdsPerFilter;
+    }
+
+    /**
+     * Sets the maximum number of feature IDs restricting a single count request
+     * @param maxIdsPerFilter
+     */
+    public void setMaxIdsPerFilter(int maxIdsPerFilter) {
+        this.maxIdsPerFilter = maxIdsPerFilter;
+    }
+
     /**
      * Utility for turning a filter and optional bounding box into a OGC filter string
      *
@@ -277,107 +418,11 @@ public class BoreholeService extends BaseWFSService {
         }
 
         StringBuilder sb = new StringBuilder();
-        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        sb.append("<StyledLayerDescriptor version=\"1.0.0\" xmlns:gsmlp=\"" + getGsmlpNameSpace() + "\" ");
-        sb.append("xsi:schemaLocation=\"http://www.opengis.net/sld StyledLayerDescriptor.xsd\" xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:gsml=\"urn:cgi:xmlns:CGI:GeoSciML:2.0\" xmlns:sld=\"http://www.opengis.net/sld\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">");
-        sb.append("<NamedLayer>" + "<Name>");
-        sb.append(getTypeName());
-        sb.append("</Name>");
-        sb.append("<UserStyle>");
-        sb.append("<Name>portal-style</Name>");
-        sb.append("<Title>portal-style</Title>");
-        sb.append("<Abstract>portal-style</Abstract>");
-        sb.append("<IsDefault>1</IsDefault>");
+        STYLE_HEADER.render(sb, getGsmlpNameSpace(), getTypeName());
         for (int i = 0; i < filters.size(); i++) {
-            sb.append("<FeatureTypeStyle>");
-            sb.append("<Rule>");
-            sb.append("<Name>" + names.get(i) + "</Name>");
-            sb.append("<Abstract>" + names.get(i) + "</Abstract>");
-            sb.append("<MaxScaleDenominator>4000000</MaxScaleDenominator>");
-            sb.append(filters.get(i));
-            sb.append("<PointSymbolizer>");
-            sb.append("<Geometry><ogc:PropertyName>" + getGeometryName() + "</ogc:PropertyName></Geometry>");
-            sb.append("<Graphic>");
-            sb.append("<Mark>");
-            sb.append("<WellKnownName>" + marks.get(i) + "</WellKnownName>");
-            sb.append("<Fill>");
-            sb.append("<CssParameter name=\"fill\">");
-            sb.append(colors.get(i));
-            sb.append("</CssParameter>");
-            sb.append("<CssParameter name=\"fill-opacity\">0.4</CssParameter>");            
-            sb.append("</Fill>");
-            sb.append("<Stroke>");
-            sb.append("<CssParameter name=\"stroke\">");
-            sb.append(colors.get(i));
-            sb.append("</CssParameter>");
-            sb.append("<CssParameter name=\"stroke-width\">0.5</CssParameter>");            
-            sb.append("</Stroke>");
-            sb.append("</Mark>");
-            sb.append("<Size>8</Size>");
-            sb.append("</Graphic>");
-            sb.append("</PointSymbolizer>");
-            sb.append("<TextSymbolizer>");
-            sb.append("<Label>");
-            sb.append("<ogc:Function name=\"strSubstringStart\">");
-            sb.append("<ogc:PropertyName>gsmlp:name</ogc:PropertyName>");
-            sb.append("<ogc:Function name=\"parseInt\">");
-            sb.append("<ogc:Literal>27</ogc:Literal>");
-            sb.append("</ogc:Function>");
-            sb.append("</ogc:Function>");
-            sb.append("</Label>");
-            sb.append("<Font>");
-            sb.append("<CssParameter name=\"font-family\">Arial</CssParameter>");
-            sb.append("<CssParameter name=\"font-size\">12</CssParameter>");
-            sb.append("<CssParameter name=\"font-style\">normal</CssParameter>");
-            sb.append("<CssParameter name=\"font-weight\">normal</CssParameter>");
-            sb.append("</Font>");
-            sb.append("<LabelPlacement>");
-            sb.append("<PointPlacement>");
-            sb.append("<Displacement>");
-            sb.append("<DisplacementX>6</DisplacementX>");
-            sb.append("<DisplacementY>-6</DisplacementY>");
-            sb.append("</Displacement>");
-            sb.append("</PointPlacement>");
-            sb.append("</LabelPlacement>");
-            sb.append("<Fill>");
-            sb.append("<CssParameter name=\"fill\">#000000</CssParameter>");
-            sb.append("</Fill>");
-            sb.append("</TextSymbolizer>");
-            sb.append("</Rule>");
-            // No Labels at high zoom levels
-            sb.append("<Rule>");
-            sb.append("<Name>" + names.get(i) + "</Name>");
-            sb.append("<Abstract>" + names.get(i) + "</Abstract>");
-			sb.append("<MinScaleDenominator>4000000</MinScaleDenominator>");
-            sb.append(filters.get(i));
-            sb.append("<PointSymbolizer>");
-            sb.append("<Geometry><ogc:PropertyName>" + getGeometryName() + "</ogc:PropertyName></Geometry>");
-            sb.append("<Graphic>");
-            sb.append("<Mark>");
-            sb.append("<WellKnownName>" + marks.get(i) + "</WellKnownName>");
-            sb.append("<Fill>");
-            sb.append("<CssParameter name=\"fill\">");
-            sb.append(colors.get(i));
-            sb.append("</CssParameter>");
-            sb.append("<CssParameter name=\"fill-opacity\">0.4</CssParameter>");            
-            sb.append("</Fill>");
-            sb.append("<Stroke>");
-            sb.append("<CssParameter name=\"stroke\">");
-            sb.append(colors.get(i));
-            sb.append("</CssParameter>");
-            sb.append("<CssParameter name=\"stroke-width\">0.5</CssParameter>");            
-            sb.append("</Stroke>");
-            sb.append("</Mark>");
-            sb.append("<Size>8</Size>");
-            sb.append("</Graphic>");
-            sb.append("</PointSymbolizer>");
-            sb.append("</Rule>");
-            sb.append("</FeatureTypeStyle>");
+            FILTER_STYLE.render(sb, names.get(i), filters.get(i), getGeometryName(), marks.get(i), colors.get(i));
         }
-
-        sb.append("</UserStyle>");
-        sb.append("</NamedLayer>");
-        sb.append("</StyledLayerDescriptor>");
+        sb.append(STYLE_TAIL);
 
         return sb.toString();
     }
@@ -0,0 +1,447 @@
+package org.auscope.portal.server.web.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
+import org.auscope.portal.core.services.responses.ows.OWSExceptionParser;
+import org.auscope.portal.core.util.DOMUtil;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * A size bounded (least recently used) cache of parsed WFS GetCapabilities documents, shared by every service that needs
+ * to know what an endpoint offers.
+ *
+ * Capabilities documents from large GeoServers are several megabytes so only the parsed summary (namespaces, feature types
+ * and output formats) is held. Entries expire after the TTL configured for their endpoint (or the default TTL).
+ * Endpoints that fail are remembered for failureTtlMillis so an endpoint that is down isn't hammered by every request.
+ * Concurrent requests for an endpoint that isn't cached share a single fetch.
+ */
+public class CapabilitiesCacheService {
+
+    /** The default maximum number of endpoints whose capabilities are held */
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+    /** The default time (in milliseconds) capabilities are reused before being refetched */
+    public static final long DEFAULT_TTL_MILLIS = 60 * 60 * 1000;
+    /** The default time (in milliseconds) a failed fetch is remembered */
+    public static final long DEFAULT_FAILURE_TTL_MILLIS = 60 * 1000;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HttpServiceCaller httpServiceCaller;
+    private final WFSGetFeatureMethodMaker wfsMethodMaker;
+    private final long defaultTtlMillis;
+    private final long failureTtlMillis;
+    private final Map<String, CachedCapabilities> cache;
+    private final Map<String, Long> endpointTtls = new ConcurrentHashMap<String, Long>();
+    private final AtomicInteger fetchCount = new AtomicInteger();
+
+    /**
+     * The capabilities (or failure) of a single endpoint. Also used as the lock that prevents concurrent fetches of the same endpoint.
+     */
+    private static class CachedCapabilities {
+        private WFSCapabilities capabilities;
+        private String failure;
+        private long expiryTime;
+    }
+
+    /**
+     * The parts of a WFS GetCapabilities document that the portal uses. Instances are immutable.
+     */
+    public static class WFSCapabilities {
+        private final String version;
+        private final Map<String, String> namespaces;
+        private final Map<String, String> featureTypes;
+        private final Set<String> outputFormats;
+        private final Set<String> comparisonOperators;
+        private final Set<String> filterFunctions;
+
+        public WFSCapabilities(String version, Map<String, String> namespaces, Map<String, String> featureTypes, Set<String> outputFormats) {
+            this(version, namespaces, featureTypes, outputFormats, Collections.<String>emptySet(), Collections.<String>emptySet());
+        }
+
+        public WFSCapabilities(String version, Map<String, String> namespaces, Map<String, String> featureTypes, Set<String> outputFormats,
+                Set<String> comparisonOperators, Set<String> filterFunctions) {
+            this.version = version;
+            this.namespaces = Collections.unmodifiableMap(new LinkedHashMap<String, String>(namespaces));
+            this.featureTypes = Collections.unmodifiableMap(new LinkedHashMap<String, String>(featureTypes));
+            this.outputFormats = Collections.unmodifiableSet(new LinkedHashSet<String>(outputFormats));
+            this.comparisonOperators = Collections.unmodifiableSet(new LinkedHashSet<String>(comparisonOperators));
+            this.filterFunctions = Collections.unmodifiableSet(new LinkedHashSet<String>(filterFunctions));
+        }
+
+        /**
+         * Parses a WFS 1.0.0, 1.1.0 or 2.0.0 GetCapabilities response
+         * @param doc A namespace aware DOM
+         * @return
+         */
+        public static WFSCapabilities parse(Document doc) {
+            Element root = doc.getDocumentElement();
+            Map<String, String> namespaces = new LinkedHashMap<String, String>();
+            addNamespaceDeclarations(root, namespaces);
+
+            //GeoServer declares most namespaces on the individual FeatureType elements
+            Map<String, String> featureTypes = new LinkedHashMap<String, String>();
+            NodeList featureTypeNodes = root.getElementsByTagNameNS("*", "FeatureType");
+            for (int i = 0; i < featureTypeNodes.getLength(); i++) {
+                Element featureType = (Element) featureTypeNodes.item(i);
+                addNamespaceDeclarations(featureType, namespaces);
+                Element name = firstChild(featureType, "Name");
+                if (name == null) {
+                    continue;
+                }
+                addNamespaceDeclarations(name, namespaces);
+
+                String typeName = name.getTextContent().trim();
+                int colon = typeName.indexOf(':');
+                String namespaceUri = colon < 0 ? null : name.lookupNamespaceURI(typeName.substring(0, colon));
+                featureTypes.put(typeName, namespaceUri);
+            }
+
+            //1.1.0 and 2.0.0 list output formats as an OperationsMetadata parameter
+            Set<String> outputFormats = new LinkedHashSet<String>();
+            NodeList operations = root.getElementsByTagNameNS("*", "Operation");
+            for (int i = 0; i < operations.getLength(); i++) {
+                Element operation = (Element) operations.item(i);
+                if (!"GetFeature".equals(operation.getAttribute("name"))) {
+                    continue;
+                }
+                NodeList parameters = operation.getElementsByTagNameNS("*", "Parameter");
+                for (int j = 0; j < parameters.getLength(); j++) {
+                    Element parameter = (Element) parameters.item(j);
+                    if ("outputFormat".equals(parameter.getAttribute("name"))) {
+                        NodeList values = parameter.getElementsByTagNameNS("*", "Value");
+                        for (int k = 0; k < values.getLength(); k++) {
+                            outputFormats.add(values.item(k).getTextContent().trim());
+                        }
+                    }
+                }
+            }
+
+            //1.0.0 lists them as child elements of Capability/Request/GetFeature/ResultFormat
+            NodeList resultFormats = root.getElementsByTagNameNS("*", "ResultFormat");
+            for (int i = 0; i < resultFormats.getLength(); i++) {
+                for (Node child = resultFormats.item(i).getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getNodeType() == Node.ELEMENT_NODE) {
+                        outputFormats.add(child.getLocalName());
+                    }
+                }
+            }
+
+            //Filter 1.1 and FES 2.0 list comparison operators as ComparisonOperator text (or name attributes), Filter 1.0
+            //as child elements of Comparison_Operators. Either way they are held without their "PropertyIs" prefix
+            Set<String> comparisonOperators = new LinkedHashSet<String>();
+            NodeList comparisonNodes = root.getElementsByTagNameNS("*", "ComparisonOperator");
+            for (int i = 0; i < comparisonNodes.getLength(); i++) {
+                Element operator = (Element) comparisonNodes.item(i);
+                String name = operator.hasAttribute("name") ? operator.getAttribute("name") : operator.getTextContent();
+                comparisonOperators.add(stripPrefix(name.trim(), "PropertyIs"));
+            }
+            NodeList comparisonLists = root.getElementsByTagNameNS("*", "Comparison_Operators");
+            for (int i = 0; i < comparisonLists.getLength(); i++) {
+                for (Node child = comparisonLists.item(i).getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getNodeType() == Node.ELEMENT_NODE) {
+                        comparisonOperators.add(child.getLocalName());
+                    }
+                }
+            }
+
+            //Filter 1.0 and 1.1 name functions in Function_Name/FunctionName text, FES 2.0 in Functions/Function name attributes
+            Set<String> filterFunctions = new LinkedHashSet<String>();
+            for (String tagName : new String[] {"FunctionName", "Function_Name"}) {
+                NodeList functionNames = root.getElementsByTagNameNS("*", tagName);
+                for (int i = 0; i < functionNames.getLength(); i++) {
+                    filterFunctions.add(functionNames.item(i).getTextContent().trim());
+                }
+            }
+            NodeList functions = root.getElementsByTagNameNS("*", "Function");
+            for (int i = 0; i < functions.getLength(); i++) {
+                Element function = (Element) functions.item(i);
+                if (function.hasAttribute("name") && "Functions".equals(function.getParentNode().getLocalName())) {
+                    filterFunctions.add(function.getAttribute("name"));
+                }
+            }
+
+            return new WFSCapabilities(root.getAttribute("version"), namespaces, featureTypes, outputFormats, comparisonOperators, filterFunctions);
+        }
+
+        private static String stripPrefix(String s, String prefix) {
+            return s.startsWith(prefix) ? s.substring(prefix.length()) : s;
+        }
+
+        private static void addNamespaceDeclarations(Element element, Map<String, String> namespaces) {
+            NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attr = (Attr) attributes.item(i);
+                if ("xmlns".equals(attr.getPrefix()) && !namespaces.containsKey(attr.getLocalName())) {
+                    namespaces.put(attr.getLocalName(), attr.getValue());
+                }
+            }
+        }
+
+        private static Element firstChild(Element parent, String localName) {
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE && localName.equals(child.getLocalName())) {
+                    return (Element) child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The WFS version of the capabilities document
+         * @return
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Every namespace prefix declared by the document (mapped to its URI)
+         * @return
+         */
+        public Map<String, String> getNamespaces() {
+            return namespaces;
+        }
+
+        /**
+         * Gets the namespace URI bound to prefix, null if the document doesn't declare it
+         * @param prefix
+         * @return
+         */
+        public String getNamespaceUri(String prefix) {
+            return namespaces.get(prefix);
+        }
+
+        /**
+         * The (prefixed) names of every feature type offered, mapped to their namespace URI (null if unknown)
+         * @return
+         */
+        public Map<String, String> getFeatureTypes() {
+            return featureTypes;
+        }
+
+        /**
+         * Returns true if the (prefixed) feature type is offered
+         * @param typeName
+         * @return
+         */
+        public boolean hasFeatureType(String typeName) {
+            return featureTypes.containsKey(typeName);
+        }
+
+        /**
+         * Every output format GetFeature supports
+         * @return
+         */
+        public Set<String> getOutputFormats() {
+            return outputFormats;
+        }
+
+        /**
+         * Returns true if GetFeature supports outputFormat (case insensitive)
+         * @param outputFormat
+         * @return
+         */
+        public boolean supportsOutputFormat(String outputFormat) {
+            for (String format : outputFormats) {
+                if (format.equalsIgnoreCase(outputFormat)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The filter comparison operators offered (eg - Between, Like), without any "PropertyIs" prefix. Empty if the
+         * document has no filter capabilities.
+         * @return
+         */
+        public Set<String> getComparisonOperators() {
+            return comparisonOperators;
+        }
+
+        /**
+         * Returns true if the filter comparison operator (with or without its "PropertyIs" prefix) is offered (case insensitive)
+         * @param operator
+         * @return
+         */
+        public boolean supportsComparisonOperator(String operator) {
+            String name = stripPrefix(operator, "PropertyIs");
+            for (String offered : comparisonOperators) {
+                if (offered.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The names of the filter functions offered. Empty if the document has no filter capabilities.
+         * @return
+         */
+        public Set<String> getFilterFunctions() {
+            return filterFunctions;
+        }
+
+        /**
+         * Returns true if the named filter function is offered
+         * @param name
+         * @return
+         */
+        public boolean supportsFilterFunction(String name) {
+            return filterFunctions.contains(name);
+        }
+    }
+
+    /**
+     * @param httpServiceCaller Used for fetching capabilities
+     * @param wfsMethodMaker Used for making GetCapabilities requests
+     */
+    public CapabilitiesCacheService(HttpServiceCaller httpServiceCaller, WFSGetFeatureMethodMaker wfsMethodMaker) {
+        this(httpServiceCaller, wfsMethodMaker, DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_FAILURE_TTL_MILLIS);
+    }
+
+    /**
+     * @param httpServiceCaller Used for fetching capabilities
+     * @param wfsMethodMaker Used for making GetCapabilities requests
+     * @param maxEntries The maximum number of endpoints that will be held (least recently used are dropped first)
+     * @param defaultTtlMillis How long (in milliseconds) capabilities are reused unless their endpoint has its own TTL
+     * @param failureTtlMillis How long (in milliseconds) a failed fetch is remembered
+     */
+    public CapabilitiesCacheService(HttpServiceCaller httpServiceCaller, WFSGetFeatureMethodMaker wfsMethodMaker,
+            final int maxEntries, long defaultTtlMillis, long failureTtlMillis) {
+        this.httpServiceCaller = httpServiceCaller;
+        this.wfsMethodMaker = wfsMethodMaker;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.failureTtlMillis = failureTtlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedCapabilities>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCapabilities> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Overrides the default TTL for a single endpoint (eg - for services whose capabilities change frequently)
+     * @param serviceUrl
+     * @param ttlMillis
+     */
+    public void setEndpointTtl(String serviceUrl, long ttlMillis) {
+        endpointTtls.put(serviceUrl, ttlMillis);
+    }
+
+    private long getTtl(String serviceUrl) {
+        Long ttl = endpointTtls.get(serviceUrl);
+        return ttl == null ? defaultTtlMillis : ttl;
+    }
+
+    /**
+     * Gets the capabilities of the WFS at serviceUrl, fetching them only if they aren't cached (or have expired). Concurrent
+     * requests for the same endpoint share a single fetch.
+     *
+     * @param serviceUrl
+     * @return
+     * @throws PortalServiceException If the capabilities can't be fetched (or a recent fetch failed)
+     */
+    public WFSCapabilities getCapabilities(String serviceUrl) throws PortalServiceException {
+        CachedCapabilities entry;
+        synchronized (cache) {
+            entry = cache.get(serviceUrl);
+            if (entry == null) {
+                entry = new CachedCapabilities();
+                cache.put(serviceUrl, entry);
+            }
+        }
+
+        synchronized (entry) {
+            if (System.currentTimeMillis() < entry.expiryTime) {
+                if (entry.failure != null) {
+                    throw new PortalServiceException(String.format("Capabilities of '%1$s' are unavailable: %2$s", serviceUrl, entry.failure));
+                }
+                return entry.capabilities;
+            }
+
+            try {
+                entry.capabilities = fetchCapabilities(serviceUrl);
+                entry.failure = null;
+                entry.expiryTime = System.currentTimeMillis() + getTtl(serviceUrl);
+                return entry.capabilities;
+            } catch (PortalServiceException ex) {
+                log.warn(String.format("Unable to fetch capabilities of '%1$s': %2$s", serviceUrl, ex.getMessage()));
+                log.debug("Exception:", ex);
+                entry.capabilities = null;
+                entry.failure = ex.getMessage();
+                entry.expiryTime = System.currentTimeMillis() + failureTtlMillis;
+                throw ex;
+            }
+        }
+    }
+
+    private WFSCapabilities fetchCapabilities(String serviceUrl) throws PortalServiceException {
+        fetchCount.incrementAndGet();
+        HttpRequestBase method = null;
+        try {
+            method = wfsMethodMaker.makeGetCapabilitiesMethod(serviceUrl);
+            String responseString = httpServiceCaller.getMethodResponseAsString(method);
+            Document responseDoc = DOMUtil.buildDomFromString(responseString, true);
+            OWSExceptionParser.checkForExceptionResponse(responseDoc);
+            return WFSCapabilities.parse(responseDoc);
+        } catch (Exception ex) {
+            throw new PortalServiceException(method, ex);
+        } finally {
+            if (method != null) {
+                method.releaseConnection();
+            }
+        }
+    }
+
+    /**
+     * Removes the cached capabilities (or failure) of a single endpoint
+     * @param serviceUrl
+     */
+    public void invalidate(String serviceUrl) {
+        cache.remove(serviceUrl);
+    }
+
+    /**
+     * Removes every cached capabilities document (and failure)
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * The number of endpoints currently cached
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * The number of times capabilities have been fetched since this cache was created
+     * @return
+     */
+    public int getFetchCount() {
+        return fetchCount.get();
+    }
+}
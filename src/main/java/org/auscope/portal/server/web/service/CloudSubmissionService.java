@@ -1,12 +1,17 @@
 package org.auscope.portal.server.web.service;
 
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
 
 import javax.annotation.PostConstruct;
 
@@ -17,31 +22,81 @@ import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.cloud.CloudComputeService;
 import org.auscope.portal.server.vegl.VEGLJob;
 import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VGLJobSubmission;
 import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.auscope.portal.server.web.repositories.VGLJobSubmissionRepository;
+import org.auscope.portal.server.web.security.ANVGLUser;
 import org.auscope.portal.server.web.service.monitor.VGLJobStatusChangeHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 /**
  * A service class for handling the provisioning of VM's using a CloudComputeService asynchronously.
+ *
+ * If a VGLJobSubmissionRepository is available, every queued submission is persisted until it has either
+ * succeeded or permanently failed. Submissions are leased while they are being attempted and any that are
+ * outstanding when the portal starts are recovered (and resubmitted once their lease/backoff has expired).
+ * Recovered submissions are "at least once" - a portal that dies part way through a submission may have
+ * already provisioned the VM that it will request again.
+ *
+ * As a MeterBinder the service reports cloud.submissions.queued (the queue depth), cloud.submissions.submitted and
+ * the average/longest time submitted jobs spent queued (cloud.submissions.wait.average and cloud.submissions.wait.max).
+ *
  * @author Josh Vote (CSIRO)
  *
  */
 @Service
-public class CloudSubmissionService {
+public class CloudSubmissionService implements MeterBinder {
 
     public static final int THREAD_POOL_SIZE = 5;
     public static final long QUOTA_RESUBMIT_MINUTES = 30;
+    /** The quota resubmit delay doubles with each failed attempt, up to this many times */
+    public static final int MAX_BACKOFF_DOUBLINGS = 3;
+    /** The default number of concurrent submissions to a single compute service */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_PROVIDER = 3;
+    /** How long a submission may run before another attempt can take it over */
+    public static final long DEFAULT_LEASE_MILLIS = 15 * 60 * 1000;
+    /** How long to wait before retrying a submission that couldn't start because its provider was busy */
+    public static final long PROVIDER_BUSY_RETRY_MILLIS = 5000;
+    /** How long to wait before retrying a submission whose attempt failed unexpectedly (doubling with every subsequent failure) */
+    public static final long DEFAULT_ERROR_RETRY_MILLIS = 5000;
+
+    public static final String QUEUED_METRIC = "cloud.submissions.queued";
+    public static final String SUBMITTED_METRIC = "cloud.submissions.submitted";
+    public static final String AVERAGE_WAIT_METRIC = "cloud.submissions.wait.average";
+    public static final String MAX_WAIT_METRIC = "cloud.submissions.wait.max";
 
     private final Log logger = LogFactory.getLog(getClass());
     @Autowired
     private VEGLJobManager jobManager;
     @Autowired
     private VGLJobStatusChangeHandler vglJobStatusChangeHandler;
+    @Autowired(required = false)
+    private VGLJobSubmissionRepository submissionRepository;
+    @Autowired(required = false)
+    private ANVGLUserService userService;
+    @Autowired(required = false)
+    private CloudComputeService[] cloudComputeServices;
     private ScheduledExecutorService executor;
     private ConcurrentHashMap<String, Future<?>> submittingJobs;
+    private ConcurrentHashMap<String, Semaphore> providerPermits;
     private long quotaResubmitTime = QUOTA_RESUBMIT_MINUTES;
     private TimeUnit quotaResubmitUnits = TimeUnit.MINUTES;
+    private int maxConcurrentPerProvider = DEFAULT_MAX_CONCURRENT_PER_PROVIDER;
+    private long leaseMillis = DEFAULT_LEASE_MILLIS;
+    private long errorRetryMillis = DEFAULT_ERROR_RETRY_MILLIS;
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    //Metrics
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
 
     public CloudSubmissionService() {
         this(Executors.newScheduledThreadPool(THREAD_POOL_SIZE));
@@ -50,12 +105,14 @@ public class CloudSubmissionService {
     public CloudSubmissionService(ScheduledExecutorService executor) {
         super();
         this.submittingJobs = new ConcurrentHashMap<String, Future<?>>();
+        this.providerPermits = new ConcurrentHashMap<String, Semaphore>();
         this.executor = executor;
     }
 
     @PostConstruct
     public void init() {
         this.vglJobStatusChangeHandler.getJobStatusLogReader().setCloudSubmissionService(this);
+        recoverSubmissions();
     }
 
     public VEGLJobManager getJobManager() {
@@ -74,6 +131,30 @@ public class CloudSubmissionService {
         this.vglJobStatusChangeHandler = vglJobStatusChangeHandler;
     }
 
+    public VGLJobSubmissionRepository getSubmissionRepository() {
+        return submissionRepository;
+    }
+
+    /**
+     * Sets the repository used to persist queued submissions. If null, submissions are only held in memory.
+     * @param submissionRepository
+     */
+    public void setSubmissionRepository(VGLJobSubmissionRepository submissionRepository) {
+        this.submissionRepository = submissionRepository;
+    }
+
+    public void setUserService(ANVGLUserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * The compute services that recovered submissions may be sent to
+     * @param cloudComputeServices
+     */
+    public void setCloudComputeServices(CloudComputeService[] cloudComputeServices) {
+        this.cloudComputeServices = cloudComputeServices;
+    }
+
     private String generateKey(VEGLJob job, CloudComputeService cloudComputeService) {
         return String.format("%1$s-%2$s", job.getId(), cloudComputeService.getId());
     }
@@ -86,27 +167,77 @@ public class CloudSubmissionService {
         this.quotaResubmitUnits = quotaResubmitUnits;
     }
 
+    /**
+     * The maximum number of submissions that will be made to a single compute service at the same time
+     * @param maxConcurrentPerProvider
+     */
+    public void setMaxConcurrentPerProvider(int maxConcurrentPerProvider) {
+        this.maxConcurrentPerProvider = maxConcurrentPerProvider;
+    }
+
+    /**
+     * How long a submission attempt can hold its lease before other attempts may take it over
+     * @param leaseMillis
+     */
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * How long to wait before retrying a submission attempt that failed unexpectedly (eg - the submission couldn't
+     * be read from/written to the database). The delay doubles with each consecutive failure.
+     * @param errorRetryMillis
+     */
+    public void setErrorRetryMillis(long errorRetryMillis) {
+        this.errorRetryMillis = errorRetryMillis;
+    }
+
     /**
      * Using the internal executor, submits a Runnable for submitting this job using the specified cloudComputeService.
      *
      * If the submission fails due to quota errors then the runnable will be rescheduled to run in QUOTA_RESUBMIT_MINUTES minutes
+     * (doubling with every subsequent failure)
      * @param cloudComputeService The cloud compute service for recieving the job submission
      * @param job The job to be submitted
      * @param userDataString The user data string to be sent to the cloud
      * @throws PortalServiceException
      */
     public void queueSubmission(CloudComputeService cloudComputeService, VEGLJob job, String userDataString) throws PortalServiceException {
-        SubmissionRunnable runnable = new SubmissionRunnable(cloudComputeService, job, userDataString, jobManager, vglJobStatusChangeHandler, submittingJobs, executor, quotaResubmitTime, quotaResubmitUnits);
+        VGLJobSubmission submission = new VGLJobSubmission(job.getId(), cloudComputeService.getId(), job.getEmailAddress(), userDataString);
+        if (submissionRepository != null) {
+            try {
+                VGLJobSubmission existing = submissionRepository.findByJobIdAndComputeServiceId(job.getId(), cloudComputeService.getId());
+                if (existing != null) {
+                    submissionRepository.deleteSubmission(existing.getId());
+                }
+                submission = submissionRepository.save(submission);
+            } catch (Exception ex) {
+                logger.warn("Unable to persist job submission: " + ex.getMessage());
+                logger.debug("Exception:", ex);
+                throw new PortalServiceException("Unable to queue job for submission", ex);
+            }
+        }
+
+        schedule(new SubmissionRunnable(cloudComputeService, job, submission), 0);
+    }
+
+    /**
+     * Schedules runnable to run after delayMillis and records it as submitting
+     */
+    private void schedule(SubmissionRunnable runnable, long delayMillis) throws PortalServiceException {
         try {
             //Make sure we synchronize so that updates to the job/cache can't start until
             //this future is properly put in the cache
             synchronized(submittingJobs) {
-                Future<?> future = executor.submit(runnable);
-                submittingJobs.put(generateKey(job, cloudComputeService), future);
+                Future<?> future = delayMillis > 0 ?
+                        executor.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS) :
+                        executor.submit(runnable);
+                submittingJobs.put(generateKey(runnable.curJob, runnable.cloudComputeService), future);
             }
         } catch (RejectedExecutionException ex) {
             logger.warn("Unable to start thread for submitting job: " + ex.getMessage());
             logger.debug("Exception:", ex);
+            deleteSubmission(runnable.submission);
             throw new PortalServiceException("Unable to start thread for submitting job", ex);
         }
     }
@@ -123,6 +254,15 @@ public class CloudSubmissionService {
             submittingJobs.remove(generateKey(job, cloudComputeService));
             future.cancel(false);
         }
+
+        if (submissionRepository != null) {
+            try {
+                submissionRepository.deleteUnleased(job.getId(), cloudComputeService.getId(), new Date());
+            } catch (Exception ex) {
+                logger.warn(String.format("Unable to remove queued submission for job %1$s: %2$s", job.getId(), ex.getMessage()));
+                logger.debug("Exception:", ex);
+            }
+        }
     }
 
     /**
@@ -141,39 +281,293 @@ public class CloudSubmissionService {
         }
     }
 
+    /**
+     * Reschedules every persisted submission that was queued (or part way through submitting) when this
+     * portal last stopped. Submissions for jobs that have since been cancelled/deleted/submitted are discarded.
+     */
+    public void recoverSubmissions() {
+        if (submissionRepository == null) {
+            return;
+        }
+
+        List<VGLJobSubmission> submissions;
+        try {
+            submissions = submissionRepository.findAll();
+        } catch (Exception ex) {
+            logger.error("Unable to load queued job submissions: " + ex.getMessage());
+            logger.debug("Exception:", ex);
+            return;
+        }
+
+        int recovered = 0;
+        for (VGLJobSubmission submission : submissions) {
+            try {
+                if (recoverSubmission(submission)) {
+                    recovered++;
+                }
+            } catch (Exception ex) {
+                logger.error(String.format("Unable to recover submission of job %1$s: %2$s", submission.getJobId(), ex.getMessage()));
+                logger.debug("Exception:", ex);
+            }
+        }
+
+        if (recovered > 0) {
+            logger.info(String.format("Recovered %1$d queued job submission(s)", recovered));
+        }
+    }
+
+    private boolean recoverSubmission(VGLJobSubmission submission) throws PortalServiceException {
+        CloudComputeService cloudComputeService = getComputeService(submission.getComputeServiceId());
+        if (cloudComputeService == null) {
+            logger.warn(String.format("No compute service with id '%1$s' to recover submission of job %2$s", submission.getComputeServiceId(), submission.getJobId()));
+            return false;
+        }
+
+        VEGLJob job = null;
+        ANVGLUser user = userService == null ? null : userService.getByEmail(submission.getUserEmail());
+        if (user != null) {
+            job = jobManager.getJobById(submission.getJobId(), user);
+        }
+
+        //Only jobs still waiting on the submission can be resubmitted
+        if (job == null ||
+                !(JobBuilderController.STATUS_PROVISION.equals(job.getStatus()) || JobBuilderController.STATUS_INQUEUE.equals(job.getStatus()))) {
+            logger.debug("Discarding stale submission " + submission);
+            deleteSubmission(submission);
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        long startTime = submission.getNextAttemptDate() == null ? now : submission.getNextAttemptDate().getTime();
+        if (submission.getLeaseExpiryDate() != null) {
+            startTime = Math.max(startTime, submission.getLeaseExpiryDate().getTime());
+        }
+
+        schedule(new SubmissionRunnable(cloudComputeService, job, submission), Math.max(0, startTime - now));
+        return true;
+    }
+
+    private CloudComputeService getComputeService(String id) {
+        if (cloudComputeServices == null) {
+            return null;
+        }
+
+        for (CloudComputeService cloudComputeService : cloudComputeServices) {
+            if (cloudComputeService.getId().equals(id)) {
+                return cloudComputeService;
+            }
+        }
+        return null;
+    }
+
+    private Semaphore getProviderPermits(CloudComputeService cloudComputeService) {
+        Semaphore permits = providerPermits.get(cloudComputeService.getId());
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(maxConcurrentPerProvider);
+            permits = providerPermits.putIfAbsent(cloudComputeService.getId(), newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private void deleteSubmission(VGLJobSubmission submission) {
+        if (submissionRepository == null || submission.getId() == null) {
+            return;
+        }
+
+        try {
+            submissionRepository.deleteSubmission(submission.getId());
+        } catch (Exception ex) {
+            logger.error(String.format("Unable to remove submission of job %1$s: %2$s", submission.getJobId(), ex.getMessage()));
+            logger.debug("Exception:", ex);
+        }
+    }
+
+    /**
+     * The number of submissions waiting (or in progress). If submissions are persisted, this includes
+     * submissions queued by other portal instances.
+     * @return
+     */
+    public long getQueueDepth() {
+        if (submissionRepository != null) {
+            try {
+                return submissionRepository.count();
+            } catch (Exception ex) {
+                logger.debug("Unable to count queued submissions: " + ex.getMessage());
+            }
+        }
+        return submittingJobs.size();
+    }
+
+    /**
+     * The number of jobs successfully submitted by this service
+     * @return
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * The average time (in milliseconds) between a job being queued and successfully submitted
+     * @return
+     */
+    public long getAverageWaitMillis() {
+        long count = submittedCount.get();
+        return count == 0 ? 0 : totalWaitMillis.get() / count;
+    }
+
+    /**
+     * The longest time (in milliseconds) between a job being queued and successfully submitted
+     * @return
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(QUEUED_METRIC, this, new ToDoubleFunction<CloudSubmissionService>() {
+            @Override
+            public double applyAsDouble(CloudSubmissionService value) {
+                return value.getQueueDepth();
+            }
+        }).description("Cloud submissions waiting (or in progress)").register(registry);
+        FunctionCounter.builder(SUBMITTED_METRIC, this, new ToDoubleFunction<CloudSubmissionService>() {
+            @Override
+            public double applyAsDouble(CloudSubmissionService value) {
+                return value.getSubmittedCount();
+            }
+        }).description("Jobs successfully submitted to a compute service").register(registry);
+        TimeGauge.builder(AVERAGE_WAIT_METRIC, this, TimeUnit.MILLISECONDS, new ToDoubleFunction<CloudSubmissionService>() {
+            @Override
+            public double applyAsDouble(CloudSubmissionService value) {
+                return value.getAverageWaitMillis();
+            }
+        }).description("Average time between a job being queued and successfully submitted").register(registry);
+        TimeGauge.builder(MAX_WAIT_METRIC, this, TimeUnit.MILLISECONDS, new ToDoubleFunction<CloudSubmissionService>() {
+            @Override
+            public double applyAsDouble(CloudSubmissionService value) {
+                return value.getMaxWaitMillis();
+            }
+        }).description("Longest time between a job being queued and successfully submitted").register(registry);
+    }
+
+    private void recordWaitTime(VGLJobSubmission submission) {
+        if (submission.getQueuedDate() == null) {
+            return;
+        }
+
+        long waitMillis = System.currentTimeMillis() - submission.getQueuedDate().getTime();
+        submittedCount.incrementAndGet();
+        totalWaitMillis.addAndGet(waitMillis);
+        long max;
+        while (waitMillis > (max = maxWaitMillis.get()) && !maxWaitMillis.compareAndSet(max, waitMillis)) {
+            //retry
+        }
+        logger.debug(String.format("Job %1$s submitted after waiting %2$dms in queue", submission.getJobId(), waitMillis));
+    }
+
     private class SubmissionRunnable implements Runnable {
         private CloudComputeService cloudComputeService;
         private VEGLJob curJob;
-        private String userDataString;
-        private VEGLJobManager jobManager;
-        private VGLJobStatusChangeHandler vglJobStatusChangeHandler;
-        private ConcurrentHashMap<String, Future<?>> submittingJobs;
-        private ScheduledExecutorService executor;
-        private long quotaResubmitTime = QUOTA_RESUBMIT_MINUTES;
-        private TimeUnit quotaResubmitUnits = TimeUnit.MINUTES;
-
-        public SubmissionRunnable(CloudComputeService cloudComputeService, VEGLJob curJob, String userDataString, VEGLJobManager jobManager, VGLJobStatusChangeHandler vglJobStatusChangeHandler,
-                ConcurrentHashMap<String, Future<?>> submittingJobs, ScheduledExecutorService executor, long quotaResubmitTime, TimeUnit quotaResubmitUnits) {
+        private VGLJobSubmission submission;
+        private int errorCount;
+
+        public SubmissionRunnable(CloudComputeService cloudComputeService, VEGLJob curJob, VGLJobSubmission submission) {
             this.cloudComputeService = cloudComputeService;
             this.curJob = curJob;
-            this.userDataString = userDataString;
-            this.jobManager = jobManager;
-            this.vglJobStatusChangeHandler = vglJobStatusChangeHandler;
-            this.submittingJobs = submittingJobs;
-            this.executor = executor;
-            this.quotaResubmitTime = quotaResubmitTime;
-            this.quotaResubmitUnits = quotaResubmitUnits;
+            this.submission = submission;
+        }
+
+        /**
+         * The quota resubmit delay for the current attempt count
+         */
+        private long backoffMillis() {
+            int doublings = Math.min(Math.max(submission.getAttempts() - 1, 0), MAX_BACKOFF_DOUBLINGS);
+            return quotaResubmitUnits.toMillis(quotaResubmitTime) << doublings;
+        }
+
+        /**
+         * Reschedules this runnable (without touching the job) unless it has been dequeued in the meantime
+         */
+        private void retryLater(long delayMillis) {
+            synchronized(submittingJobs) {
+                String key = generateKey(curJob, cloudComputeService);
+                if (!submittingJobs.containsKey(key)) {
+                    return;
+                }
+                try {
+                    submittingJobs.put(key, executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS));
+                } catch (RejectedExecutionException ex) {
+                    logger.warn("Unable to reschedule job submission: " + ex.getMessage());
+                    submittingJobs.remove(key);
+                }
+            }
+        }
+
+        /**
+         * Leases this submission to this portal instance. Returns false if the submission shouldn't be attempted now.
+         */
+        private boolean acquireLease() {
+            if (submissionRepository == null || submission.getId() == null) {
+                return true;
+            }
+
+            long now = System.currentTimeMillis();
+            if (submissionRepository.acquireLease(submission.getId(), leaseOwner, new Date(now + leaseMillis), new Date(now)) == 1) {
+                return true;
+            }
+
+            VGLJobSubmission current = submissionRepository.findById(submission.getId()).orElse(null);
+            if (current == null) {
+                //Dequeued/completed elsewhere
+                synchronized(submittingJobs) {
+                    submittingJobs.remove(generateKey(curJob, cloudComputeService));
+                }
+            } else {
+                //Another attempt holds the lease - try again once it expires
+                long expiry = current.getLeaseExpiryDate() == null ? now : current.getLeaseExpiryDate().getTime();
+                retryLater(Math.max(expiry - now, PROVIDER_BUSY_RETRY_MILLIS));
+            }
+            return false;
         }
 
         @Override
         public void run() {
+            Semaphore permits = getProviderPermits(cloudComputeService);
+            if (!permits.tryAcquire()) {
+                retryLater(PROVIDER_BUSY_RETRY_MILLIS);
+                return;
+            }
+
+            try {
+                if (!acquireLease()) {
+                    return;
+                }
+                submit();
+            } catch (RuntimeException ex) {
+                //Most likely a persistence failure. Any lease is still ours (and can be reacquired) so just try again later
+                errorCount++;
+                long delayMillis = errorRetryMillis << Math.min(errorCount - 1, MAX_BACKOFF_DOUBLINGS);
+                logger.error(String.format("Unable to process submission of job %1$s (retrying in %2$dms): %3$s", curJob.getId(), delayMillis, ex.getMessage()));
+                logger.debug("Exception:", ex);
+                retryLater(delayMillis);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private void submit() {
             String instanceId = null;
             boolean successfulSubmit = false;
             boolean reschedule = false;
             Throwable caughtException = null;
 
+            submission.setAttempts(submission.getAttempts() + 1);
             try {
-                instanceId = cloudComputeService.executeJob(curJob, userDataString);
+                instanceId = cloudComputeService.executeJob(curJob, submission.getUserData());
                 if (StringUtils.isEmpty(instanceId)) {
                     throw new PortalServiceException(String.format("Null/Empty instance ID returned for submission to %1$s for job %2$s",cloudComputeService.getId(), curJob.getId()));
                 }
@@ -203,13 +597,22 @@ public class CloudSubmissionService {
                     jobManager.createJobAuditTrail(oldJobStatus, curJob, "Set job to Pending. Instance ID:" + instanceId);
                     curJob.setSubmitDate(new Date());
                     jobManager.saveJob(curJob);
+                    deleteSubmission(submission);
+                    recordWaitTime(submission);
                     vglJobStatusChangeHandler.handleStatusChange(curJob,curJob.getStatus(),oldJobStatus);
                     submittingJobs.remove(generateKey(curJob, cloudComputeService));
                 } else if (reschedule) {
                     //Can't get resources now - reschedule for future run
                     try {
-                        Future<?> newFuture = executor.schedule(this, this.quotaResubmitTime, this.quotaResubmitUnits); //reschedule this to run again in 30 minutes
+                        long delayMillis = backoffMillis();
+                        Future<?> newFuture = executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
                         submittingJobs.put(generateKey(curJob, cloudComputeService), newFuture);
+                        if (submissionRepository != null && submission.getId() != null) {
+                            submission.setNextAttemptDate(new Date(System.currentTimeMillis() + delayMillis));
+                            submission.setLastError(StringUtils.abbreviate(caughtException.getMessage(), 1000));
+                            submissionRepository.releaseLease(submission.getId(), leaseOwner, submission.getAttempts(),
+                                    submission.getNextAttemptDate(), submission.getLastError());
+                        }
                         curJob.setStatus(JobBuilderController.STATUS_INQUEUE);
                         jobManager.saveJob(curJob);
                         jobManager.createJobAuditTrail(oldJobStatus, curJob, "Job Placed in Queue");
@@ -220,6 +623,7 @@ public class CloudSubmissionService {
                         logger.debug("Exception:", ex);
                         curJob.setStatus(JobBuilderController.STATUS_ERROR);
                         submittingJobs.remove(generateKey(curJob, cloudComputeService));
+                        deleteSubmission(submission);
                         jobManager.saveJob(curJob);
                         jobManager.createJobAuditTrail(oldJobStatus, curJob, "Unable to queue job for resubmission: " + ex.getMessage());
                         vglJobStatusChangeHandler.handleStatusChange(curJob,curJob.getStatus(),oldJobStatus);
@@ -228,6 +632,7 @@ public class CloudSubmissionService {
                     //Error state
                     curJob.setStatus(JobBuilderController.STATUS_ERROR);
                     jobManager.saveJob(curJob);
+                    deleteSubmission(submission);
                     jobManager.createJobAuditTrail(oldJobStatus, curJob, caughtException);
                     vglJobStatusChangeHandler.handleStatusChange(curJob,curJob.getStatus(),oldJobStatus);
                     submittingJobs.remove(generateKey(curJob, cloudComputeService));
@@ -0,0 +1,342 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auscope.portal.core.services.CSWCacheService;
+import org.auscope.portal.core.services.responses.csw.AbstractCSWOnlineResource;
+import org.auscope.portal.core.services.responses.csw.AbstractCSWOnlineResource.OnlineResourceType;
+import org.auscope.portal.core.services.responses.csw.CSWRecord;
+import org.auscope.portal.core.services.csw.CSWRecordsFilterVisitor;
+import org.auscope.portal.nvcl.NVCLNamespaceContext;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * An in memory index of the hylogger borehole IDs published by every registered NVCL endpoint.
+ *
+ * Endpoints are the WFS online resources (in the CSW cache) that serve NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME.
+ * The index is refreshed in the background (see HyloggerBoreholeIndexMonitor) by querying every endpoint in parallel -
+ * an endpoint that fails or doesn't respond within endpointTimeoutMillis (of the refresh starting) keeps the IDs it had
+ * previously. After every refresh the index is written to a snapshot file which is reloaded at startup. Snapshots are
+ * written owner readable/writable only and a snapshot that other users could have written is ignored.
+ *
+ * Lookups never wait for an NVCL endpoint. They return the IDs of the endpoints that are already indexed and query any
+ * endpoint that has never been indexed in the background. An endpoint whose background query fails isn't queried
+ * again by lookups for failureRetryMillis.
+ */
+public class HyloggerBoreholeIndex {
+
+    /** How long a single endpoint may take to return its IDs before it is skipped */
+    public static final long DEFAULT_ENDPOINT_TIMEOUT_MILLIS = 60000;
+    /** How long a lookup waits before querying an endpoint again after it failed */
+    public static final long DEFAULT_FAILURE_RETRY_MILLIS = 10 * 60 * 1000;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final BoreholeService boreholeService;
+    private final CSWCacheService cswService;
+    private final File snapshotFile;
+    private final AsyncTaskExecutor executor;
+    private final long endpointTimeoutMillis;
+    private volatile long failureRetryMillis = DEFAULT_FAILURE_RETRY_MILLIS;
+
+    /** Endpoint URL to the (unmodifiable) hylogger borehole IDs it publishes */
+    private final Map<String, Set<String>> index = new ConcurrentHashMap<String, Set<String>>();
+    /** The endpoints that are being indexed in the background on behalf of a lookup */
+    private final Set<String> indexing = ConcurrentHashMap.newKeySet();
+    /** Endpoint URL to when (in milliseconds since the epoch) it last failed to respond */
+    private final Map<String, Long> failures = new ConcurrentHashMap<String, Long>();
+    /** Only a single refresh may run at a time */
+    private final Object refreshLock = new Object();
+    private volatile long lastRefreshTime = 0;
+
+    /**
+     * @param boreholeService Used for querying endpoints
+     * @param cswService Used for finding endpoints
+     * @param snapshotFile Where the index is persisted between restarts
+     * @param executor Used for querying endpoints in parallel
+     * @param endpointTimeoutMillis How long (in milliseconds) a single endpoint may take before it is skipped
+     */
+    public HyloggerBoreholeIndex(BoreholeService boreholeService, CSWCacheService cswService, File snapshotFile,
+            AsyncTaskExecutor executor, long endpointTimeoutMillis) {
+        this.boreholeService = boreholeService;
+        this.cswService = cswService;
+        this.snapshotFile = snapshotFile;
+        this.executor = executor;
+        this.endpointTimeoutMillis = endpointTimeoutMillis;
+    }
+
+    /**
+     * Sets how long (in milliseconds) lookups wait before querying an endpoint again after it failed. Defaults to
+     * DEFAULT_FAILURE_RETRY_MILLIS.
+     * @param failureRetryMillis
+     */
+    public void setFailureRetryMillis(long failureRetryMillis) {
+        this.failureRetryMillis = failureRetryMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        loadSnapshot();
+    }
+
+    /**
+     * Replaces the contents of this index with the snapshot file (if it exists). Failures are logged and ignored.
+     */
+    public void loadSnapshot() {
+        if (snapshotFile == null || !snapshotFile.isFile()) {
+            return;
+        }
+
+        try {
+            if (SnapshotFiles.isWritableByOthers(snapshotFile)) {
+                log.warn(String.format("Ignoring hylogger borehole index snapshot '%1$s' - it is writable by other users", snapshotFile));
+                return;
+            }
+
+            JSONObject snapshot = new JSONObject(new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.UTF_8));
+            JSONObject endpoints = snapshot.getJSONObject("endpoints");
+            Map<String, Set<String>> loaded = new LinkedHashMap<String, Set<String>>();
+            for (String endpoint : endpoints.keySet()) {
+                JSONArray ids = endpoints.getJSONArray(endpoint);
+                List<String> idList = new ArrayList<String>(ids.length());
+                for (int i = 0; i < ids.length(); i++) {
+                    idList.add(ids.getString(i));
+                }
+                loaded.put(endpoint, toIdSet(idList));
+            }
+
+            index.clear();
+            index.putAll(loaded);
+            lastRefreshTime = snapshot.optLong("refreshed", 0);
+            log.info(String.format("Loaded hylogger borehole IDs for %1$d endpoint(s) from '%2$s'", loaded.size(), snapshotFile));
+        } catch (Exception ex) {
+            log.warn(String.format("Unable to load hylogger borehole index snapshot '%1$s': %2$s", snapshotFile, ex.getMessage()));
+            log.debug("Exception:", ex);
+        }
+    }
+
+    /**
+     * Writes the contents of this index to the (owner only) snapshot file. The file is replaced atomically (where
+     * supported).
+     * @throws IOException
+     */
+    public void saveSnapshot() throws IOException {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        JSONObject endpoints = new JSONObject();
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            endpoints.put(entry.getKey(), new JSONArray(entry.getValue()));
+        }
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("refreshed", lastRefreshTime);
+        snapshot.put("endpoints", endpoints);
+
+        File tmp = SnapshotFiles.createTempFile(snapshotFile);
+        Files.write(tmp.toPath(), snapshot.toString().getBytes(StandardCharsets.UTF_8));
+        SnapshotFiles.replace(tmp, snapshotFile);
+    }
+
+    private static Set<String> toIdSet(List<String> ids) {
+        return Collections.unmodifiableSet(new LinkedHashSet<String>(ids));
+    }
+
+    /**
+     * Finds the URLs of every registered NVCL endpoint accepted by visitor (null accepts everything)
+     */
+    private Set<String> findEndpoints(CSWRecordsFilterVisitor visitor) {
+        Set<String> endpoints = new LinkedHashSet<String>();
+        for (CSWRecord record : cswService.getWFSRecords()) {
+            for (AbstractCSWOnlineResource resource : record.getOnlineResourcesByType(visitor, OnlineResourceType.WFS)) {
+                if (NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME.equals(resource.getName())) {
+                    endpoints.add(resource.getLinkage().toString());
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    private Future<List<String>> submitQuery(final String endpoint) {
+        return executor.submit(new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return boreholeService.getHyloggerBoreholeIDs(endpoint);
+            }
+        });
+    }
+
+    /**
+     * Waits (until deadline) for a submitted query and indexes its result. Returns false (leaving the index unchanged
+     * and recording the failure) if the query failed.
+     */
+    private boolean awaitQuery(String endpoint, Future<List<String>> query, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            index.put(endpoint, toIdSet(query.get(remaining, TimeUnit.MILLISECONDS)));
+            failures.remove(endpoint);
+            return true;
+        } catch (TimeoutException ex) {
+            query.cancel(true);
+            log.warn(String.format("Discovering boreholes at '%1$s' timed out after %2$dms", endpoint, endpointTimeoutMillis));
+        } catch (ExecutionException ex) {
+            log.warn(String.format("Discovering boreholes at '%1$s' failed: %2$s", endpoint, ex.getCause()));
+            log.debug("Exception:", ex.getCause());
+        } catch (InterruptedException ex) {
+            query.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        failures.put(endpoint, System.currentTimeMillis());
+        return false;
+    }
+
+    /**
+     * Queries endpoint in the background (if it isn't already being queried) and indexes its result
+     */
+    private void indexLater(final String endpoint) {
+        if (!indexing.add(endpoint)) {
+            return;
+        }
+
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        index.put(endpoint, toIdSet(boreholeService.getHyloggerBoreholeIDs(endpoint)));
+                        failures.remove(endpoint);
+                    } catch (Exception ex) {
+                        failures.put(endpoint, System.currentTimeMillis());
+                        log.warn(String.format("Discovering boreholes at '%1$s' failed: %2$s", endpoint, ex.getMessage()));
+                        log.debug("Exception:", ex);
+                    } finally {
+                        indexing.remove(endpoint);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //The pool is busy (most likely with a refresh) - a later lookup or refresh will pick the endpoint up
+            indexing.remove(endpoint);
+            log.debug(String.format("Unable to queue discovery of boreholes at '%1$s': %2$s", endpoint, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Whether endpoint failed to respond within the last failureRetryMillis
+     */
+    private boolean isFailing(String endpoint) {
+        Long failed = failures.get(endpoint);
+        return failed != null && System.currentTimeMillis() - failed < failureRetryMillis;
+    }
+
+    /**
+     * Queries every registered NVCL endpoint (in parallel) and updates the index and snapshot with the results.
+     * Endpoints that are no longer registered are dropped.
+     *
+     * @return The number of endpoints that were successfully refreshed
+     */
+    public int refresh() {
+        synchronized (refreshLock) {
+            Set<String> endpoints = findEndpoints(null);
+            if (endpoints.isEmpty()) {
+                //The CSW cache is most likely still loading - don't throw away what we have
+                log.debug("No NVCL endpoints registered - hylogger borehole index unchanged");
+                return 0;
+            }
+
+            //Every endpoint is queried at once so they share a single deadline
+            long deadline = System.currentTimeMillis() + endpointTimeoutMillis;
+            Map<String, Future<List<String>>> queries = new LinkedHashMap<String, Future<List<String>>>();
+            for (String endpoint : endpoints) {
+                try {
+                    queries.put(endpoint, submitQuery(endpoint));
+                } catch (RejectedExecutionException ex) {
+                    log.warn(String.format("Unable to queue discovery of boreholes at '%1$s': %2$s", endpoint, ex.getMessage()));
+                }
+            }
+
+            int refreshed = 0;
+            for (Map.Entry<String, Future<List<String>>> query : queries.entrySet()) {
+                if (awaitQuery(query.getKey(), query.getValue(), deadline)) {
+                    refreshed++;
+                }
+            }
+            index.keySet().retainAll(endpoints);
+            failures.keySet().retainAll(endpoints);
+            lastRefreshTime = System.currentTimeMillis();
+
+            try {
+                saveSnapshot();
+            } catch (IOException ex) {
+                log.warn(String.format("Unable to save hylogger borehole index snapshot '%1$s': %2$s", snapshotFile, ex.getMessage()));
+                log.debug("Exception:", ex);
+            }
+
+            log.info(String.format("Refreshed hylogger borehole IDs for %1$d of %2$d NVCL endpoint(s)", refreshed, endpoints.size()));
+            return refreshed;
+        }
+    }
+
+    /**
+     * Gets the hylogger borehole IDs published by every registered NVCL endpoint accepted by visitor. This never waits
+     * for an endpoint - those that have never been indexed are skipped and queried in the background (unless they
+     * failed within the last failureRetryMillis).
+     *
+     * @param visitor Restricts the endpoints (eg - a CSWRecordsHostFilter). Use null if not required
+     * @return
+     */
+    public List<String> getHyloggerBoreholeIDs(CSWRecordsFilterVisitor visitor) {
+        Set<String> endpoints = findEndpoints(visitor);
+
+        List<String> ids = new ArrayList<String>();
+        for (String endpoint : endpoints) {
+            Set<String> endpointIds = index.get(endpoint);
+            if (endpointIds != null) {
+                ids.addAll(endpointIds);
+            } else if (!isFailing(endpoint)) {
+                indexLater(endpoint);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The number of endpoints currently indexed
+     * @return
+     */
+    public int getEndpointCount() {
+        return index.size();
+    }
+
+    /**
+     * When (in milliseconds since the epoch) the index was last refreshed, 0 if never
+     * @return
+     */
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+}
@@ -0,0 +1,359 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.methods.HttpGet;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.util.FileIOUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for querying the station metadata of IRIS (Incorporated Research Institutions for Seismology) FDSN web services.
+ *
+ * Responses are fetched through the shared HttpServiceCaller and read with StAX - station KML is written with an
+ * XMLStreamWriter as the response is parsed. Results are held in a size bounded (least recently used) cache keyed by
+ * the query URL (ie - the service, network and station) for ttlMillis as station metadata rarely changes. Concurrent
+ * requests for a query that isn't cached share a single fetch. Failures are not cached.
+ */
+@Service
+public class IRISService {
+
+    /** The default time (in milliseconds) a response is reused before being refetched */
+    public static final long DEFAULT_TTL_MILLIS = 60 * 60 * 1000;
+    /** The maximum number of queries whose results are held */
+    public static final int MAX_ENTRIES = 100;
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HttpServiceCaller httpServiceCaller;
+    private final long ttlMillis;
+    private final Map<String, CachedResponse> cache;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+
+    /**
+     * The parsed result of a single query. Also used as the lock that prevents concurrent fetches of the same query.
+     */
+    private static class CachedResponse {
+        private Object value;
+        private long expiryTime;
+    }
+
+    /**
+     * Converts an FDSN station response into a cacheable value
+     */
+    private interface ResponseHandler<T> {
+        T parse(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    /**
+     * The channels of a single station. Instances are immutable.
+     */
+    public static class StationChannels {
+        private final String startDate;
+        private final String endDate;
+        private final String[] channelCodes;
+
+        public StationChannels(String startDate, String endDate, String[] channelCodes) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.channelCodes = channelCodes;
+        }
+
+        /**
+         * The start date of the station's first channel (empty if unknown)
+         * @return
+         */
+        public String getStartDate() {
+            return startDate;
+        }
+
+        /**
+         * The end date of the station's first channel (empty if unknown)
+         * @return
+         */
+        public String getEndDate() {
+            return endDate;
+        }
+
+        /**
+         * The code of every channel
+         * @return
+         */
+        public String[] getChannelCodes() {
+            return channelCodes.clone();
+        }
+    }
+
+    /**
+     * @param httpServiceCaller Used for making requests
+     * @param ttlMillis How long (in milliseconds) a response is reused before being refetched
+     */
+    @Autowired
+    public IRISService(HttpServiceCaller httpServiceCaller, @Value("${env.iris.cacheTtlMillis:3600000}") long ttlMillis) {
+        this.httpServiceCaller = httpServiceCaller;
+        this.ttlMillis = ttlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        });
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Gets every station of a network as a KML document with a placemark per station.
+     *
+     * The request will look something like this: http://service.iris.edu/fdsnws/station/1/query?net=S
+     *
+     * @param serviceUrl The IRIS web service URL (with a trailing forward slash)
+     * @param networkCode The network code that you're interested in
+     * @return
+     * @throws PortalServiceException
+     */
+    public String getStationsKml(String serviceUrl, String networkCode) throws PortalServiceException {
+        return getCachedResponse(serviceUrl + "fdsnws/station/1/query?net=" + networkCode, new ResponseHandler<String>() {
+            @Override
+            public String parse(XMLStreamReader reader) throws XMLStreamException {
+                return writeStationsKml(reader);
+            }
+        });
+    }
+
+    /**
+     * Gets the channels of a particular station.
+     *
+     * The request will look something like this: http://service.iris.edu/fdsnws/station/1/query?net=S&sta=AUDAR&level=chan
+     *
+     * @param serviceUrl The IRIS web service URL (with a trailing forward slash)
+     * @param networkCode The network code that you're interested in
+     * @param stationCode The code of the station to interrogate
+     * @return
+     * @throws PortalServiceException
+     */
+    public StationChannels getStationChannels(String serviceUrl, String networkCode, final String stationCode) throws PortalServiceException {
+        return getCachedResponse(serviceUrl + "fdsnws/station/1/query?net=" + networkCode + "&sta=" + stationCode + "&level=chan",
+                new ResponseHandler<StationChannels>() {
+                    @Override
+                    public StationChannels parse(XMLStreamReader reader) throws XMLStreamException {
+                        return readStationChannels(reader, stationCode);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getCachedResponse(String queryUrl, ResponseHandler<T> handler) throws PortalServiceException {
+        CachedResponse entry;
+        synchronized (cache) {
+            entry = cache.get(queryUrl);
+            if (entry == null) {
+                entry = new CachedResponse();
+                cache.put(queryUrl, entry);
+            }
+        }
+
+        synchronized (entry) {
+            if (System.currentTimeMillis() < entry.expiryTime) {
+                return (T) entry.value;
+            }
+
+            T value = fetch(queryUrl, handler);
+            entry.value = value;
+            entry.expiryTime = System.currentTimeMillis() + ttlMillis;
+            return value;
+        }
+    }
+
+    private <T> T fetch(String queryUrl, ResponseHandler<T> handler) throws PortalServiceException {
+        fetchCount.incrementAndGet();
+        HttpGet method = new HttpGet(queryUrl);
+        InputStream responseStream = null;
+        XMLStreamReader reader = null;
+        try {
+            responseStream = httpServiceCaller.getMethodResponseAsStream(method);
+            reader = INPUT_FACTORY.createXMLStreamReader(responseStream);
+            return handler.parse(reader);
+        } catch (Exception ex) {
+            log.warn(String.format("Unable to query IRIS '%1$s': %2$s", queryUrl, ex.getMessage()));
+            log.debug("Exception:", ex);
+            throw new PortalServiceException(method, ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    log.debug("Unable to close reader: ", ex);
+                }
+            }
+            FileIOUtil.closeQuietly(responseStream);
+            method.releaseConnection();
+        }
+    }
+
+    /**
+     * Writes a placemark for every Station as it is read
+     */
+    private static String writeStationsKml(XMLStreamReader reader) throws XMLStreamException {
+        StringWriter kml = new StringWriter();
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(kml);
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("kml");
+        writer.writeDefaultNamespace("http://www.opengis.net/kml/2.2");
+        writer.writeStartElement("Document");
+        writeElement(writer, "name", "GML Links to KML");
+        writer.writeStartElement("description");
+        writer.writeCData("GeoSciML data converted to KML");
+        writer.writeEndElement();
+
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "Station".equals(reader.getLocalName())) {
+                writeStationPlacemark(reader, writer);
+            }
+        }
+
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+        return kml.toString();
+    }
+
+    /**
+     * Reads the current Station (leaving reader at its end element) and writes it as a placemark
+     */
+    private static void writeStationPlacemark(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        String code = reader.getAttributeValue(null, "code");
+        String name = null;
+        String latitude = "";
+        String longitude = "";
+
+        //Only the direct children of Station (and Site/Name) are of interest - channels have their own locations
+        int level = 0;
+        boolean inSite = false;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (level == 0) {
+                    break;
+                }
+                level--;
+                if (level == 0) {
+                    inSite = false;
+                }
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                String localName = reader.getLocalName();
+                if (level == 0 && "Latitude".equals(localName)) {
+                    latitude = reader.getElementText().trim();
+                } else if (level == 0 && "Longitude".equals(localName)) {
+                    longitude = reader.getElementText().trim();
+                } else if (level == 1 && inSite && name == null && "Name".equals(localName)) {
+                    name = reader.getElementText();
+                } else {
+                    if (level == 0) {
+                        inSite = "Site".equals(localName);
+                    }
+                    level++;
+                }
+            }
+        }
+
+        writer.writeStartElement("Placemark");
+        writeElement(writer, "name", name == null ? "" : name);
+        writer.writeStartElement("description");
+        writer.writeCData("GENERIC_PARSER:" + code);
+        writer.writeEndElement();
+        writer.writeStartElement("MultiGeometry");
+        writer.writeStartElement("Point");
+        writeElement(writer, "coordinates", longitude + "," + latitude + ",0");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String localName, String text) throws XMLStreamException {
+        writer.writeStartElement(localName);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Reads the code of every Channel and the dates of the first channel of stationCode
+     */
+    private static StationChannels readStationChannels(XMLStreamReader reader, String stationCode) throws XMLStreamException {
+        List<String> channelCodes = new ArrayList<String>();
+        String currentStation = null;
+        String startDate = null;
+        String endDate = null;
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String localName = reader.getLocalName();
+            if ("Station".equals(localName)) {
+                currentStation = reader.getAttributeValue(null, "code");
+            } else if ("Channel".equals(localName)) {
+                String code = reader.getAttributeValue(null, "code");
+                if (code != null) {
+                    channelCodes.add(code);
+                }
+                if (stationCode.equals(currentStation)) {
+                    if (startDate == null) {
+                        startDate = reader.getAttributeValue(null, "startDate");
+                    }
+                    if (endDate == null) {
+                        endDate = reader.getAttributeValue(null, "endDate");
+                    }
+                }
+            }
+        }
+
+        return new StationChannels(startDate == null ? "" : startDate, endDate == null ? "" : endDate,
+                channelCodes.toArray(new String[channelCodes.size()]));
+    }
+
+    /**
+     * Removes every cached response
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * The number of times IRIS has been queried since this service was created
+     * @return
+     */
+    public int getFetchCount() {
+        return fetchCount.get();
+    }
+}
@@ -1,14 +1,17 @@
 package org.auscope.portal.server.web.service;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
@@ -20,7 +23,9 @@ import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.util.DOMUtil;
+import org.auscope.portal.nvcl.ScalarBinningEngine;
 import org.auscope.portal.server.domain.nvcldataservice.AlgorithmOutputClassification;
 import org.auscope.portal.server.domain.nvcldataservice.AlgorithmOutputResponse;
 import org.auscope.portal.server.domain.nvcldataservice.AlgorithmVersion;
@@ -34,17 +39,14 @@ import org.auscope.portal.server.domain.nvcldataservice.ImageTrayDepthResponse;
 import org.auscope.portal.server.domain.nvcldataservice.TrayThumbNailResponse;
 import org.auscope.portal.server.web.NVCL2_0_DataServiceMethodMaker;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-
 import org.apache.commons.lang3.ArrayUtils;
 
 @Service
@@ -53,18 +55,30 @@ public class NVCL2_0_DataService {
     private NVCL2_0_DataServiceMethodMaker nvclMethodMaker;
     private HttpServiceCaller httpServiceCaller;
     private String analyticalServicesUrl;
+    private AsyncTaskExecutor binningExecutor;
+    private long binningTimeoutMillis;
 
+    /**
+     * @param httpServiceCaller
+     * @param nvclMethodMaker
+     * @param analyticalServicesUrl Base endpoint for the NVCL Analytical Services
+     * @param binningExecutor Used for fetching and binning multiple analytics job results at the same time. Calls that
+     *            can't be queued (because the executor is saturated) fail rather than running outside of the timeout.
+     * @param binningTimeoutMillis How long a single getNVCL2_0_JobsScalarBinned call may take (in milliseconds)
+     */
     @Autowired
     public NVCL2_0_DataService(HttpServiceCaller httpServiceCaller,
             NVCL2_0_DataServiceMethodMaker nvclMethodMaker,
-            @Value("${env.nvclAnalyticalServices.url}") String analyticalServicesUrl) {
+            @Value("${env.nvclAnalyticalServices.url}") String analyticalServicesUrl,
+            @Qualifier("nvclBinningExecutor") AsyncTaskExecutor binningExecutor,
+            @Value("${env.nvclAnalyticalServices.binningTimeoutMillis:120000}") long binningTimeoutMillis) {
         this.nvclMethodMaker = nvclMethodMaker;
         this.httpServiceCaller = httpServiceCaller;
         this.analyticalServicesUrl = analyticalServicesUrl;
+        this.binningExecutor = binningExecutor;
+        this.binningTimeoutMillis = binningTimeoutMillis;
     }
 
-
-
     /**
      * Makes a CSV download request from NVCL 2.0 service and returns the resulting data in a CSVDownloadResponse
      *
@@ -89,35 +103,64 @@ public class NVCL2_0_DataService {
         return new CSVDownloadResponse(responseStream, contentHeader == null ? null : contentHeader.getValue());
     }
 
-    private String getMostCountedValue(HashMap<String, Integer> map) {
-        String largestValue = null;
-        int largestCount = Integer.MIN_VALUE;
-
-        for (Entry<String, Integer> entry : map.entrySet()) {
-            if (entry.getValue() > largestCount) {
-                largestCount = entry.getValue();
-                largestValue = entry.getKey();
-            }
-        }
-
-        return largestValue;
-    }
-
     /**
      * Makes a request for scalar data from NVCL Analytics job and initiates binning
-     * @param serviceUrl
-     * @param jobId
+     *
+     * Each job is fetched and binned in parallel. The resulting bins are always returned in
+     * the same order as jobIds. If any job fails (or the call takes longer than the binning timeout)
+     * every outstanding request is cancelled.
+     * @param jobIds
      * @param boreholeId
+     * @param binSizeMetres
      * @return
      * @throws Exception
      */
-    public BinnedCSVResponse getNVCL2_0_JobsScalarBinned(String[] jobIds, String boreholeId, double binSizeMetres) throws Exception {
-        BinnedCSVResponse binnedResponse = new BinnedCSVResponse();
+    public BinnedCSVResponse getNVCL2_0_JobsScalarBinned(String[] jobIds, String boreholeId, final double binSizeMetres) throws Exception {
+        final BinnedCSVResponse binnedResponse = new BinnedCSVResponse();
+        final long deadline = System.currentTimeMillis() + binningTimeoutMillis;
+        HttpRequestBase[] methods = new HttpRequestBase[jobIds.length];
+        List<Future<Bin[]>> futures = new ArrayList<Future<Bin[]>>(jobIds.length);
         Bin[] totalBins = new Bin[0];
-        for (String jobId: jobIds) {
-            HttpRequestBase method = nvclMethodMaker.getNVCLJobsScalarMethod(analyticalServicesUrl, jobId, boreholeId);
-            Bin[] bins = doBinning(binnedResponse, method, binSizeMetres, '"', 1, 2, jobId);
-            totalBins = (Bin[])ArrayUtils.addAll(totalBins, bins);
+        try {
+            for (int i = 0; i < jobIds.length; i++) {
+                final String jobId = jobIds[i];
+                final HttpRequestBase method = nvclMethodMaker.getNVCLJobsScalarMethod(analyticalServicesUrl, jobId, boreholeId);
+                methods[i] = method;
+                try {
+                    futures.add(binningExecutor.submit(new Callable<Bin[]>() {
+                        @Override
+                        public Bin[] call() throws Exception {
+                            return doBinning(binnedResponse, method, binSizeMetres, '"', 1, 2, jobId);
+                        }
+                    }));
+                } catch (RejectedExecutionException ex) {
+                    throw new PortalServiceException(String.format("Too many binning requests in progress - unable to bin job '%1$s' for borehole '%2$s'", jobId, boreholeId), ex);
+                }
+            }
+
+            //Merge in request order (not completion order) so the response is deterministic
+            for (int i = 0; i < futures.size(); i++) {
+                Bin[] bins;
+                try {
+                    bins = futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof Exception) {
+                        throw (Exception) ex.getCause();
+                    }
+                    throw ex;
+                } catch (TimeoutException ex) {
+                    throw new PortalServiceException(String.format("Timed out after %1$dms binning job '%2$s' for borehole '%3$s'", binningTimeoutMillis, jobIds[i], boreholeId));
+                }
+                totalBins = (Bin[])ArrayUtils.addAll(totalBins, bins);
+            }
+        } finally {
+            //Don't leave requests running (or connections leased) if we've failed, timed out or been interrupted
+            for (int i = 0; i < futures.size(); i++) {
+                if (!futures.get(i).isDone()) {
+                    futures.get(i).cancel(true);
+                    methods[i].abort();
+                }
+            }
         }
         binnedResponse.setBinnedValues(totalBins);
         binnedResponse.setBinSize(binSizeMetres);
@@ -136,139 +179,9 @@ public class NVCL2_0_DataService {
      * @return
      */     
     private Bin[] doBinning(BinnedCSVResponse binnedResponse, HttpRequestBase method, double binSizeMetres, char quoteChar, int startAtCol, int stopAtCol, String altName) throws Exception {
-        final String MISSING_DATA_STRING = "null";
-        final int INITIAL_LIST_SIZE = 512;
-        
-        Bin[] bins = null;
-        
-        //Prepare parsing
         InputStream responseStream = httpServiceCaller.getMethodResponseAsStream(method);
-        CSVParser parser = new CSVParserBuilder().withSeparator(',').withQuoteChar(quoteChar).build();
-        CSVReader reader = new CSVReaderBuilder(new InputStreamReader(responseStream)).withCSVParser(parser).build();
-        String[] headerLine = reader.readNext();
-        if (headerLine == null || headerLine.length <= startAtCol) {
-            throw new IOException("No or malformed CSV header sent");
-        }
-        // Set start & stop columns to default
-        if (stopAtCol<0) {
-            stopAtCol=headerLine.length;
-        }
-        if (startAtCol<0) {
-            startAtCol=2;
-        }
-        //Prepare our bins
-        bins = new Bin[stopAtCol - startAtCol];
-        List<HashMap<String, Integer>> valueCounts = new ArrayList<HashMap<String, Integer>>(bins.length);
-        double[] numericTotal = new double[bins.length];
-        int[] numericCount = new int[bins.length];
-        double currentBinStartDepth = -Double.MAX_VALUE;
-        int currentBinSize = 0;
-        for (int i = 0; i < bins.length; i++) {
-            String name = headerLine[startAtCol + i];
-            if (altName!=null) {
-                name=altName;
-            }
-            bins[i] = binnedResponse.new Bin(name, new ArrayList<Double>(INITIAL_LIST_SIZE), true, new ArrayList<Map<String, Integer>>(INITIAL_LIST_SIZE), new ArrayList<String>(INITIAL_LIST_SIZE), new ArrayList<Double>(INITIAL_LIST_SIZE));
-            bins[i].setNumeric(true);
-            valueCounts.add(new HashMap<String, Integer>());
-        }
-
-        //Start parsing our data - loading it into bins
-        String[] dataLine = null;
-        while ((dataLine = reader.readNext()) != null) {
-            if (dataLine.length != headerLine.length) {
-                continue; //skip malformed lines
-            }
-
-            //If we've exceeded our current bin size - save the data and start a new bin
-            double depth = Double.parseDouble(dataLine[0]);
-            if (depth - currentBinStartDepth >= binSizeMetres) {
-
-                if (currentBinStartDepth == -Double.MAX_VALUE) {
-                    currentBinStartDepth = depth;
-                }
-
-                for (int i = 0; i < bins.length; i++) {
-                    if (bins[i].isNumeric()) {
-                        if (numericCount[i] > 0) {
-                            bins[i].getNumericValues().add(numericTotal[i] / (double) numericCount[i]);
-                            bins[i].getStartDepths().add(currentBinStartDepth);
-                        }
-                    } else {
-                        String value = getMostCountedValue(valueCounts.get(i));
-                        if (value != null) {
-                            bins[i].getStartDepths().add(currentBinStartDepth);
-                            bins[i].getHighStringValues().add(value);
-                            bins[i].getStringValues().add(valueCounts.get(i));
-                        }
-                    }
-                }
-
-                //Reset our working bin data
-                for (int i = 0; i < bins.length; i++) {
-                    valueCounts.set(i, new HashMap<String, Integer>());
-                    numericTotal[i] = 0.0;
-                    numericCount[i] = 0;
-                }
-
-                currentBinStartDepth = depth;
-                currentBinSize = 0;
-            }
-
-            //Build up our current bin
-            boolean dataAdded = false;
-            for (int i = 0; i < bins.length; i++) {
-                String rawBinData = dataLine[startAtCol + i];
-                if (rawBinData == null || rawBinData.isEmpty() || rawBinData.equals(MISSING_DATA_STRING)) {
-                    continue; //skip missing data
-                } else {
-                    dataAdded = true;
-                }
-
-                if (bins[i].isNumeric()) {
-                    try {
-                        double newData = Double.parseDouble(rawBinData);
-                        numericCount[i]++;
-                        numericTotal[i] += newData;
-                    } catch (NumberFormatException nfe) {
-                        //OK - this column isn't actually numeric
-                        bins[i].setNumeric(false);
-                    }
-                }
-
-                if (!bins[i].isNumeric()) {
-                    Integer currentCount = valueCounts.get(i).get(rawBinData);
-                    if (currentCount == null) {
-                        valueCounts.get(i).put(rawBinData, 1);
-                    } else {
-                        valueCounts.get(i).put(rawBinData, currentCount + 1);
-                    }
-                }
-            }
-            if (dataAdded) {
-                currentBinSize++;
-            }
-        }
-
-        //If we've got a partial bin at the end - let's include the data
-        if (currentBinSize > 0) {
-            for (int i = 0; i < bins.length; i++) {
-                if (bins[i].isNumeric()) {
-                    if (numericCount[i] > 0) {
-                        bins[i].getNumericValues().add(numericTotal[i] / (double) numericCount[i]);
-                        bins[i].getStartDepths().add(currentBinStartDepth);
-                    }
-                } else {
-                    String value = getMostCountedValue(valueCounts.get(i));
-                    if (value != null) {
-                        bins[i].getStartDepths().add(currentBinStartDepth);
-                        bins[i].getHighStringValues().add(value);
-                        bins[i].getStringValues().add(valueCounts.get(i));
-                    }
-                }
-            }
-        }
-        return bins;
+        ScalarBinningEngine engine = new ScalarBinningEngine(binSizeMetres, quoteChar, startAtCol, stopAtCol);
+        return engine.bin(binnedResponse, responseStream, altName);
     }
         
     /**
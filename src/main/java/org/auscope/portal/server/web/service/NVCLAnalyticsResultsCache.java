@@ -0,0 +1,262 @@
+package org.auscope.portal.server.web.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auscope.portal.server.domain.nvcldataservice.AnalyticalJobResults;
+import org.auscope.portal.server.domain.nvcldataservice.AnalyticalJobStatus;
+import org.auscope.portal.server.domain.nvcldataservice.BoreholeIdSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * A size bounded (least recently used) cache of NVCL analytics job results.
+ *
+ * Styling the results of a single job generates a request for every WMS tile so results are fetched from
+ * the NVCL Analytical Services once per job rather than once per tile. Results of completed jobs are
+ * immutable and are never refetched. Results of jobs that are still running are reused for at most
+ * runningJobTtlMillis.
+ *
+ * The status of a job is looked up amongst the jobs of its submitter. Those lookups are shared between the
+ * submitter's jobs for runningJobTtlMillis. Results of a job whose status can't be determined are treated as those of
+ * a running job but are reused for twice as long after each consecutive failure (up to 2^MAX_STATUS_CHECK_BACKOFF_DOUBLINGS
+ * times runningJobTtlMillis) so they are refetched less and less often without ever being frozen.
+ *
+ * The pass/fail/error ID lists of cached results are stored as BoreholeIdSet instances and the returned
+ * results are shared between callers - they must not be modified.
+ */
+@Service
+public class NVCLAnalyticsResultsCache {
+
+    /** The default maximum number of jobs whose results are held */
+    public static final int DEFAULT_MAX_JOBS = 100;
+    /** The default time (in milliseconds) that the results of a running job will be reused */
+    public static final long DEFAULT_RUNNING_JOB_TTL_MILLIS = 30000;
+    /** The maximum number of times the reuse period of a job whose status can't be determined is doubled */
+    public static final int MAX_STATUS_CHECK_BACKOFF_DOUBLINGS = 4;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final NVCL2_0_DataService dataService;
+    private final long runningJobTtlMillis;
+    private final Map<String, CachedResults> cache;
+    private final Map<String, CachedStatuses> statusCache;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private final AtomicInteger statusCheckCount = new AtomicInteger();
+
+    /**
+     * The results of a single job. Also used as the lock that prevents concurrent fetches of the same job.
+     */
+    private static class CachedResults {
+        private AnalyticalJobResults results;
+        private boolean complete;
+        private long fetchTime;
+        private long ttlMillis;
+        private int statusCheckFailures;
+    }
+
+    /**
+     * The statuses of every job of a single submitter. Also used as the lock that prevents concurrent lookups.
+     */
+    private static class CachedStatuses {
+        private List<AnalyticalJobStatus> statuses;
+        private long fetchTime;
+    }
+
+    @Autowired
+    public NVCLAnalyticsResultsCache(NVCL2_0_DataService dataService) {
+        this(dataService, DEFAULT_MAX_JOBS, DEFAULT_RUNNING_JOB_TTL_MILLIS);
+    }
+
+    /**
+     * @param dataService Used for fetching results
+     * @param maxJobs The maximum number of jobs whose results will be held (least recently used are dropped first)
+     * @param runningJobTtlMillis How long (in milliseconds) the results of a job that hasn't finished will be reused
+     */
+    public NVCLAnalyticsResultsCache(NVCL2_0_DataService dataService, final int maxJobs, long runningJobTtlMillis) {
+        this.dataService = dataService;
+        this.runningJobTtlMillis = runningJobTtlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResults>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest) {
+                return size() > maxJobs;
+            }
+        });
+        this.statusCache = Collections.synchronizedMap(new LinkedHashMap<String, CachedStatuses>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatuses> eldest) {
+                return size() > maxJobs;
+            }
+        });
+    }
+
+    /**
+     * Returns true if status describes a job that will never produce different results
+     * @param status
+     * @return
+     */
+    public static boolean isCompleteStatus(String status) {
+        return "success".equalsIgnoreCase(status) || "failed".equalsIgnoreCase(status) || "error".equalsIgnoreCase(status);
+    }
+
+    /**
+     * Gets the results of the specified job, fetching them only if they aren't cached (or they belong to
+     * a running job and are older than runningJobTtlMillis, or longer if the job's status can't be determined). Concurrent requests for the same job share a
+     * single fetch.
+     *
+     * @param jobId
+     * @return
+     * @throws Exception If the results can't be fetched (nothing is cached)
+     */
+    public AnalyticalJobResults getResults(String jobId) throws Exception {
+        CachedResults entry;
+        synchronized (cache) {
+            entry = cache.get(jobId);
+            if (entry == null) {
+                entry = new CachedResults();
+                cache.put(jobId, entry);
+            }
+        }
+
+        synchronized (entry) {
+            if (entry.results != null && (entry.complete || System.currentTimeMillis() - entry.fetchTime < entry.ttlMillis)) {
+                return entry.results;
+            }
+
+            AnalyticalJobResults results;
+            try {
+                results = fetchResults(jobId);
+            } catch (Exception ex) {
+                if (entry.results == null) {
+                    cache.remove(jobId);
+                }
+                throw ex;
+            }
+
+            entry.results = results;
+            Boolean complete = isJobComplete(jobId, results.getEmail());
+            if (complete == null) {
+                entry.statusCheckFailures++;
+                entry.ttlMillis = runningJobTtlMillis << Math.min(entry.statusCheckFailures - 1, MAX_STATUS_CHECK_BACKOFF_DOUBLINGS);
+                log.debug(String.format("Unable to determine the status of NVCL analytics job %1$s (%2$d attempts) - reusing its results for %3$dms", jobId, entry.statusCheckFailures, entry.ttlMillis));
+            } else {
+                entry.statusCheckFailures = 0;
+                entry.ttlMillis = runningJobTtlMillis;
+            }
+            entry.complete = complete != null && complete;
+            entry.fetchTime = System.currentTimeMillis();
+            return results;
+        }
+    }
+
+    /**
+     * Returns true if the results of the specified job are cached and can never change.
+     * @param jobId
+     * @return
+     */
+    public boolean isComplete(String jobId) {
+        CachedResults entry = cache.get(jobId);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return entry.complete;
+        }
+    }
+
+    private AnalyticalJobResults fetchResults(String jobId) throws Exception {
+        fetchCount.incrementAndGet();
+        AnalyticalJobResults results = dataService.getProcessingResults(jobId);
+        results.setPassBoreholes(BoreholeIdSet.copyOf(results.getPassBoreholes()));
+        results.setFailBoreholes(BoreholeIdSet.copyOf(results.getFailBoreholes()));
+        results.setErrorBoreholes(BoreholeIdSet.copyOf(results.getErrorBoreholes()));
+        return results;
+    }
+
+    /**
+     * The results endpoint doesn't report a job's status so it's looked up amongst the jobs of its submitter.
+     * Returns null if the status can't be determined (no submitter, a failed lookup or the job isn't listed).
+     */
+    private Boolean isJobComplete(String jobId, String email) {
+        if (email == null || email.isEmpty()) {
+            return null;
+        }
+
+        try {
+            for (AnalyticalJobStatus status : getStatuses(email)) {
+                if (jobId.equals(status.getJobId())) {
+                    return isCompleteStatus(status.getStatus());
+                }
+            }
+        } catch (Exception ex) {
+            log.warn(String.format("Unable to check the status of NVCL analytics job %1$s: %2$s", jobId, ex.getMessage()));
+            log.debug("Exception:", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the statuses of every job submitted by email, reusing a lookup made within the last runningJobTtlMillis.
+     * Failed lookups aren't cached.
+     */
+    private List<AnalyticalJobStatus> getStatuses(String email) throws Exception {
+        CachedStatuses entry;
+        synchronized (statusCache) {
+            entry = statusCache.get(email);
+            if (entry == null) {
+                entry = new CachedStatuses();
+                statusCache.put(email, entry);
+            }
+        }
+
+        synchronized (entry) {
+            if (entry.statuses == null || System.currentTimeMillis() - entry.fetchTime >= runningJobTtlMillis) {
+                statusCheckCount.incrementAndGet();
+                entry.statuses = dataService.checkProcessingJobs(email);
+                entry.fetchTime = System.currentTimeMillis();
+            }
+            return entry.statuses;
+        }
+    }
+
+    /**
+     * The number of jobs whose results are currently cached
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * The number of times results have been fetched from the NVCL Analytical Services since this cache was created
+     * @return
+     */
+    public int getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * The number of times job statuses have been looked up from the NVCL Analytical Services since this cache was created
+     * @return
+     */
+    public int getStatusCheckCount() {
+        return statusCheckCount.get();
+    }
+
+    /**
+     * Removes every cached result (and job status)
+     */
+    public void clear() {
+        cache.clear();
+        statusCache.clear();
+    }
+}
@@ -1,7 +1,10 @@
 package org.auscope.portal.server.web.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.auscope.portal.core.server.http.HttpServiceCaller;
 import org.auscope.portal.core.services.PortalServiceException;
@@ -9,7 +12,10 @@ import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
 import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker.ResultType;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor;
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor.CompactedIds;
 import org.auscope.portal.gsml.SF0BoreholeFilter;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService.WFSCapabilities;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -24,11 +30,26 @@ public class SF0BoreholeService extends BoreholeService {
 
     // -------------------------------------------------------------- Constants
 
+    private final Log log = LogFactory.getLog(getClass());
+
+    private BoreholeIdFilterCompactor identifierCompactor = BoreholeIdFilterCompactor.OGC_1_1;
+    private CapabilitiesCacheService capabilitiesCache;
+
     // ----------------------------------------------------------- Constructors
 
-    @Autowired
     public SF0BoreholeService(HttpServiceCaller serviceCaller, WFSGetFeatureMethodMaker methodMaker) {
+        this(serviceCaller, methodMaker, null);
+    }
+
+    /**
+     * @param serviceCaller
+     * @param methodMaker
+     * @param capabilitiesCache [Optional] Used to detect the filter operators each service supports
+     */
+    @Autowired
+    public SF0BoreholeService(HttpServiceCaller serviceCaller, WFSGetFeatureMethodMaker methodMaker, CapabilitiesCacheService capabilitiesCache) {
         super(serviceCaller, methodMaker);
+        this.capabilitiesCache = capabilitiesCache;
     }
 
     // --------------------------------------------------------- Public Methods
@@ -83,19 +104,121 @@ public class SF0BoreholeService extends BoreholeService {
         }
     }
 
+    /**
+     * Makes (but doesn't execute) a request for every NVCL borehole of typeName as CSV. The response can be very large -
+     * it should be streamed (see StreamingDownloadService) rather than read into memory.
+     *
+     * @param serviceUrl
+     * @param typeName
+     * @param bbox
+     *            Set to the bounding box in which to fetch results, otherwise set it to null
+     * @return
+     * @throws PortalServiceException
+     */
+    public HttpRequestBase makeCSVDownloadMethod(String serviceUrl, String typeName, FilterBoundingBox bbox) throws PortalServiceException {
+        String filterString;
+        SF0BoreholeFilter sf0BoreholeFilter = new SF0BoreholeFilter(true);
+        if (bbox == null) {
+            filterString = sf0BoreholeFilter.getFilterStringAllRecords();
+        } else {
+            filterString = sf0BoreholeFilter.getFilterStringBoundingBox(bbox);
+        }
+
+        try {
+            return this.generateWFSRequest(serviceUrl, typeName, null, filterString, 0, null, ResultType.Results, "csv");
+        } catch (Exception ex) {
+            throw new PortalServiceException("Unable to make CSV download request for " + serviceUrl, ex);
+        }
+    }
+
     @Override
     public String getFilter(String boreholeName, String custodian, String dateOfDrillingStart, String dateOfDrillingEnd,
             int maxFeatures, FilterBoundingBox bbox, List<String> ids, Boolean justNVCL,String optionalFilters) throws Exception {
-        SF0BoreholeFilter filter = new SF0BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, ids, null, justNVCL,optionalFilters);
+        SF0BoreholeFilter filter = new SF0BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, distinctIds(ids), null, justNVCL,optionalFilters);
         return generateFilterString(filter, bbox);
     }
 
     public String getFilter(String boreholeName, String custodian, String dateOfDrillingStart, String dateOfDrillingEnd,
             int maxFeatures, FilterBoundingBox bbox, List<String> ids, List<String> identifiers, Boolean justNVCL,String optionalFilters) throws Exception {
-        SF0BoreholeFilter filter = new SF0BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, ids, identifiers, justNVCL,optionalFilters);
+        SF0BoreholeFilter filter = new SF0BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, distinctIds(ids), identifiers, justNVCL,optionalFilters);
         return generateFilterString(filter, bbox);
     }
 
+    /**
+     * Generates filters restricted to the borehole identifiers. The identifiers are compacted with the
+     * BoreholeIdFilterCompactor for serviceUrl and may be split across several filters - a borehole matches
+     * if it matches any of them.
+     *
+     * @param serviceUrl The service the filters are for
+     * @param identifiers gsmlp:identifier values
+     * @return
+     * @throws Exception
+     */
+    public List<String> getIdentifierFilters(String serviceUrl, String boreholeName, String custodian, String dateOfDrillingStart, String dateOfDrillingEnd,
+            int maxFeatures, FilterBoundingBox bbox, List<String> identifiers, Boolean justNVCL, String optionalFilters) throws Exception {
+        CompactedIds compacted = getIdentifierCompactor(serviceUrl).compact("gsmlp:identifier", identifiers);
+        log.debug(String.format("Compacted %1$d borehole identifiers into %2$d predicates across %3$d filter(s): %4$d -> %5$d characters (%6$.1f%% smaller)",
+                compacted.getIdCount(), compacted.getPredicateCount(), compacted.getFragments().size(),
+                compacted.getOriginalLength(), compacted.getCompactedLength(), compacted.getReduction() * 100.0));
+
+        List<String> filters = new ArrayList<String>();
+        for (String fragment : compacted.getFragments()) {
+            SF0BoreholeFilter filter = new SF0BoreholeFilter(boreholeName, custodian, dateOfDrillingStart, dateOfDrillingEnd, null, null, justNVCL, optionalFilters);
+            filter.setIdentifiersFragment(fragment);
+            filters.add(generateFilterString(filter, bbox));
+        }
+        return filters;
+    }
+
+    /**
+     * The compactor used for restricting filters to lists of borehole identifiers where a service's filter
+     * capabilities are unknown
+     * @return
+     */
+    public BoreholeIdFilterCompactor getIdentifierCompactor() {
+        return identifierCompactor;
+    }
+
+    /**
+     * The compactor for restricting filters sent to serviceUrl to lists of borehole identifiers. Ranges and the "in"
+     * function are only used if the service's capabilities offer them (Between and Like, and in respectively). Services
+     * whose capabilities can't be fetched (or don't list their filter capabilities) get the default compactor.
+     *
+     * @param serviceUrl
+     * @return
+     */
+    public BoreholeIdFilterCompactor getIdentifierCompactor(String serviceUrl) {
+        if (capabilitiesCache == null) {
+            return identifierCompactor;
+        }
+
+        WFSCapabilities capabilities;
+        try {
+            capabilities = capabilitiesCache.getCapabilities(serviceUrl);
+        } catch (PortalServiceException ex) {
+            return identifierCompactor;
+        }
+        if (capabilities.getComparisonOperators().isEmpty() && capabilities.getFilterFunctions().isEmpty()) {
+            return identifierCompactor;
+        }
+
+        boolean ranges = capabilities.supportsComparisonOperator("Between") && capabilities.supportsComparisonOperator("Like");
+        boolean in = capabilities.supportsFilterFunction("in");
+        if (ranges == identifierCompactor.isRangesSupported() && in == identifierCompactor.isInFunctionSupported()) {
+            return identifierCompactor;
+        }
+        return new BoreholeIdFilterCompactor(ranges, in, identifierCompactor.getMaxPredicatesPerFilter());
+    }
+
+    /**
+     * Sets the compactor used for restricting filters to lists of borehole identifiers where a service's filter
+     * capabilities are unknown
+     * @param identifierCompactor
+     */
+    public void setIdentifierCompactor(BoreholeIdFilterCompactor identifierCompactor) {
+        this.identifierCompactor = identifierCompactor;
+    }
+
     @Override
     public String getTypeName() {
         return "gsmlp:BoreholeView";
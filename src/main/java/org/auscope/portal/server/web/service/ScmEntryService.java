@@ -1,6 +1,7 @@
 package org.auscope.portal.server.web.service;
 
 import java.io.StringWriter;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,20 +31,16 @@ import org.auscope.portal.server.web.service.scm.Dependency;
 import org.auscope.portal.server.web.service.scm.Entries;
 import org.auscope.portal.server.web.service.scm.Entry;
 import org.auscope.portal.server.web.service.scm.Problem;
+import org.auscope.portal.server.web.service.scm.ScmEntryCache;
 import org.auscope.portal.server.web.service.scm.ScmLoader;
 import org.auscope.portal.server.web.service.scm.ScmLoaderFactory;
 import org.auscope.portal.server.web.service.scm.Solution;
 import org.auscope.portal.server.web.service.scm.SsscImage;
 import org.auscope.portal.server.web.service.scm.Toolbox;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-
-import com.fasterxml.jackson.databind.MapperFeature;
+import org.springframework.web.util.UriComponentsBuilder;
 
 
 /**
@@ -64,34 +61,27 @@ public class ScmEntryService implements ScmLoader {
     private VelocityEngine velocityEngine;
     private VEGLJobManager jobManager;
     private CloudComputeService[] cloudComputeServices;
-
-    private List<HttpMessageConverter<?>> converters;
+    private ScmEntryCache entryCache;
 
     static String solutionsUrl;
 
     /**
      * Create a new instance.
+     *
+     * @param entryCache All requests to the SSC will be made through this cache (the shared scmEntryCache bean)
      */
     @Autowired
     public ScmEntryService(VLScmSnapshotRepository vlScmSnapshotRepository,
             VEGLJobManager jobManager,
             VelocityEngine velocityEngine,
-            CloudComputeService[] cloudComputeServices) {
+            CloudComputeService[] cloudComputeServices,
+            ScmEntryCache entryCache) {
         super();
         this.vlScmSnapshotRepository = vlScmSnapshotRepository;
         this.jobManager = jobManager;
         this.setVelocityEngine(velocityEngine);
         this.cloudComputeServices = cloudComputeServices;
-
-        // Configure Jackson converters for use with RestTemplate
-        this.converters = new ArrayList<HttpMessageConverter<?>>();
-        this.converters.add(
-            new MappingJackson2HttpMessageConverter(
-                new Jackson2ObjectMapperBuilder()
-                .featuresToEnable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
-                .build()
-            )
-        );
+        this.entryCache = entryCache;
 
         // Register this bean as the ScmLoader instance to use
         ScmLoaderFactory.registerLoader(this);
@@ -182,10 +172,9 @@ public class ScmEntryService implements ScmLoader {
      */
     public Solution getScmSolution(String entryUrl) {
         Solution solution = null;
-        RestTemplate rest = this.restTemplate();
 
         try {
-            solution = rest.getForObject(entryUrl, Solution.class);
+            solution = entryCache.get(entryUrl, Solution.class);
         }
         catch (RestClientException ex) {
             logger.error("Failed to get SSC solution (" + entryUrl + ")", ex);
@@ -237,7 +226,6 @@ public class ScmEntryService implements ScmLoader {
     public SolutionResponse getSolutions(List<SearchFacet<? extends Object>> facets, CloudComputeService[] providers)
         throws PortalServiceException {
         StringBuilder url = new StringBuilder();
-        RestTemplate rest = this.restTemplate();
         Entries solutions;
 
         url.append(solutionsUrl).append("/solutions");
@@ -260,12 +248,15 @@ public class ScmEntryService implements ScmLoader {
         }
         if (problemIdFilter != null) {
             url.append("?problem={problem_id}");
-            solutions = rest.getForObject(url.toString(),
-                    Entries.class,
-                    problemIdFilter);
+            //Encoded once here and requested as is (the problem ID is a URL so must be fully encoded as a value)
+            URI expandedUrl = UriComponentsBuilder.fromUriString(url.toString())
+                    .encode()
+                    .buildAndExpand(problemIdFilter)
+                    .toUri();
+            solutions = entryCache.get(expandedUrl, Entries.class);
         }
         else {
-            solutions = rest.getForObject(url.toString(), Entries.class);
+            solutions = entryCache.get(url.toString(), Entries.class);
         }
 
         return usefulSolutions(solutions.getSolutions(), providerFilter, providers);
@@ -308,7 +299,7 @@ public class ScmEntryService implements ScmLoader {
             boolean foundUnconfigured = false;
             for (Dependency dep: solution.getDependencies()) {
                 if (dep.type == Dependency.Type.TOOLBOX) {
-                    Toolbox toolbox = restTemplate().getForObject(dep.identifier, Toolbox.class);
+                    Toolbox toolbox = entryCache.get(dep.identifier, Toolbox.class);
                     for (SsscImage image: toolbox.getImages()) {
                         String provider = image.getProvider();
 
@@ -567,7 +558,7 @@ public class ScmEntryService implements ScmLoader {
 
         for (Dependency dep: entry.getDependencies()) {
             if (dep.type == Dependency.Type.TOOLBOX) {
-                toolboxes.add(restTemplate().getForObject(dep.identifier, Toolbox.class));
+                toolboxes.add(entryCache.get(dep.identifier, Toolbox.class));
             }
         }
 
@@ -678,14 +669,17 @@ public class ScmEntryService implements ScmLoader {
         ScmEntryService.solutionsUrl = solutionsUrl;
     }
 
-    private RestTemplate restTemplate() {
-        return new RestTemplate(this.converters);
-	}
+    /**
+     * @return the cache used for all requests to the SSC
+     */
+    public ScmEntryCache getEntryCache() {
+        return entryCache;
+    }
 
 	@Override
 	public <T> T loadEntry(String id, Class<T> cls) {
       logger.debug(String.format("Loading ref-only %s from %s", cls.getName(), id));
-      T entry = restTemplate().getForObject(id, cls);
+      T entry = entryCache.get(id, cls);
       return entry;
 	}
 
@@ -0,0 +1,269 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.CSWCacheService;
+import org.auscope.portal.core.services.csw.CSWServiceItem;
+import org.auscope.portal.core.services.responses.csw.CSWRecord;
+import org.auscope.portal.core.services.responses.csw.CSWRecordTransformerFactory;
+import org.auscope.portal.core.util.FileIOUtil;
+
+/**
+ * A CSWCacheService that writes its records to a local snapshot file after every harvest that returns records and
+ * restores them as it is created. After a restart the portal can serve layers straight away while the first harvest
+ * runs in the background - once it finishes its records replace the snapshot contents.
+ *
+ * A registry that served records before but contributes none to a harvest is assumed to have failed - its previous
+ * records are kept (and saved) alongside the harvested ones rather than being dropped from the cache and the snapshot.
+ * Records are attributed to a registry by their record information URL (see registryOf).
+ *
+ * A snapshot is a GZIP compressed stream of a short header (SNAPSHOT_MAGIC, SNAPSHOT_VERSION and when the harvest
+ * finished) followed by the serialised record and keyword caches. A snapshot with an unexpected header is ignored.
+ *
+ * Snapshots are only deserialised through SNAPSHOT_FILTER (which rejects any class outside the CSW record graph) and
+ * are written owner readable/writable only. A snapshot that other users could have written is ignored.
+ */
+public class SnapshotCSWCacheService extends CSWCacheService {
+
+    /** Identifies a CSW cache snapshot ("CSWC") */
+    public static final int SNAPSHOT_MAGIC = 0x43535743;
+    /** Incremented whenever the snapshot contents change incompatibly */
+    public static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * The classes that may appear in a snapshot - the caches, CSW records and their fields. Anything else (and any
+     * graph beyond these limits) is rejected before it is instantiated.
+     */
+    public static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;maxrefs=5000000;maxarray=1000000;maxbytes=536870912;"
+            + "java.lang.String;java.lang.Number;java.lang.Integer;java.lang.Long;java.lang.Double;java.lang.Float;"
+            + "java.lang.Short;java.lang.Byte;java.lang.Character;java.lang.Boolean;java.lang.Enum;"
+            + "java.util.Map$Entry;java.util.HashMap;java.util.LinkedHashMap;java.util.HashSet;java.util.LinkedHashSet;java.util.ArrayList;"
+            + "java.util.Arrays$ArrayList;java.util.Collections$*;java.util.Date;java.net.URL;java.net.URI;"
+            + "org.auscope.portal.core.services.responses.csw.*;!*");
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final List<CSWServiceItem> registries;
+    private final File snapshotFile;
+    private volatile boolean servingSnapshot = false;
+    private volatile long snapshotTime = 0;
+
+    /**
+     * @param executor Runs the harvest of each registry
+     * @param serviceCaller Used for querying registries
+     * @param cswServiceList The registries to harvest
+     * @param transformerFactory Parses the records returned by registries
+     * @param snapshotFile Where records are persisted between restarts (null to disable snapshots)
+     */
+    public SnapshotCSWCacheService(Executor executor, HttpServiceCaller serviceCaller, ArrayList<CSWServiceItem> cswServiceList,
+            CSWRecordTransformerFactory transformerFactory, File snapshotFile) {
+        super(executor, serviceCaller, cswServiceList, transformerFactory);
+        this.registries = new ArrayList<CSWServiceItem>(cswServiceList);
+        this.snapshotFile = snapshotFile;
+        loadSnapshot();
+    }
+
+    /**
+     * Whether the records being served were restored from the snapshot (ie no harvest has finished since startup)
+     * @return
+     */
+    public boolean isServingSnapshot() {
+        return servingSnapshot;
+    }
+
+    /**
+     * When (in milliseconds since the epoch) the harvest that produced the current snapshot finished, 0 if unknown
+     * @return
+     */
+    public long getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    @Override
+    protected void updateFinished(Map<String, Set<CSWRecord>> newKeywordCache, Map<String, CSWRecord> newRecordCache) {
+        if (newRecordCache == null || newRecordCache.isEmpty()) {
+            //Don't replace a usable snapshot (or the records it restored) with a failed harvest
+            if (servingSnapshot) {
+                log.warn("CSW harvest returned no records - continuing to serve the snapshot");
+                super.updateFinished(getKeywordCache(), toRecordMap(getRecordCache()));
+            } else {
+                super.updateFinished(newKeywordCache, newRecordCache);
+            }
+            return;
+        }
+
+        keepFailedRegistries(newKeywordCache, newRecordCache);
+        super.updateFinished(newKeywordCache, newRecordCache);
+        servingSnapshot = false;
+        try {
+            saveSnapshot(newKeywordCache, newRecordCache);
+        } catch (IOException ex) {
+            log.warn(String.format("Unable to save CSW cache snapshot '%1$s': %2$s", snapshotFile, ex.getMessage()));
+            log.debug("Exception:", ex);
+        }
+    }
+
+    /**
+     * The registry that record was harvested from (the one whose record information URL it has) or null if unknown
+     */
+    private CSWServiceItem registryOf(CSWRecord record) {
+        String recordInfoUrl = record.getRecordInfoUrl();
+        if (recordInfoUrl == null) {
+            return null;
+        }
+
+        for (CSWServiceItem registry : registries) {
+            String template = registry.getRecordInformationUrl();
+            if (template != null && recordInfoUrl.equals(String.format(template, record.getFileIdentifier()))) {
+                return registry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the currently cached records of every registry that has no records in newRecordCache (ie its harvest
+     * failed) to newRecordCache and newKeywordCache
+     */
+    private void keepFailedRegistries(Map<String, Set<CSWRecord>> newKeywordCache, Map<String, CSWRecord> newRecordCache) {
+        Set<String> harvested = new HashSet<String>();
+        for (CSWRecord record : newRecordCache.values()) {
+            CSWServiceItem registry = registryOf(record);
+            if (registry != null) {
+                harvested.add(registry.getId());
+            }
+        }
+
+        Set<String> failed = new LinkedHashSet<String>();
+        Set<String> kept = new HashSet<String>();
+        for (CSWRecord record : getRecordCache()) {
+            CSWServiceItem registry = registryOf(record);
+            if (registry != null && !harvested.contains(registry.getId()) && !newRecordCache.containsKey(record.getFileIdentifier())) {
+                failed.add(registry.getId());
+                kept.add(record.getFileIdentifier());
+                newRecordCache.put(record.getFileIdentifier(), record);
+            }
+        }
+        if (kept.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Set<CSWRecord>> entry : getKeywordCache().entrySet()) {
+            for (CSWRecord record : entry.getValue()) {
+                if (kept.contains(record.getFileIdentifier())) {
+                    Set<CSWRecord> keywordRecords = newKeywordCache.get(entry.getKey());
+                    if (keywordRecords == null) {
+                        keywordRecords = new LinkedHashSet<CSWRecord>();
+                        newKeywordCache.put(entry.getKey(), keywordRecords);
+                    }
+                    keywordRecords.add(record);
+                }
+            }
+        }
+        log.warn(String.format("CSW harvest returned no records from %1$s - keeping %2$d record(s) from the previous harvest", failed, kept.size()));
+    }
+
+    private static Map<String, CSWRecord> toRecordMap(Iterable<CSWRecord> records) {
+        Map<String, CSWRecord> recordMap = new LinkedHashMap<String, CSWRecord>();
+        for (CSWRecord record : records) {
+            recordMap.put(record.getFileIdentifier(), record);
+        }
+        return recordMap;
+    }
+
+    /**
+     * Replaces the cached records with the contents of the snapshot file (if it exists). Failures are logged and
+     * ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private void loadSnapshot() {
+        if (snapshotFile == null || !snapshotFile.isFile()) {
+            return;
+        }
+
+        ObjectInputStream ois = null;
+        try {
+            if (SnapshotFiles.isWritableByOthers(snapshotFile)) {
+                log.warn(String.format("Ignoring CSW cache snapshot '%1$s' - it is writable by other users", snapshotFile));
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            ois = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(snapshotFile))));
+            ois.setObjectInputFilter(SNAPSHOT_FILTER);
+            if (ois.readInt() != SNAPSHOT_MAGIC || ois.readInt() != SNAPSHOT_VERSION) {
+                log.warn(String.format("Ignoring CSW cache snapshot '%1$s' - unrecognised format", snapshotFile));
+                return;
+            }
+            long harvested = ois.readLong();
+            Map<String, CSWRecord> recordCache = (Map<String, CSWRecord>) ois.readObject();
+            Map<String, Set<CSWRecord>> keywordCache = (Map<String, Set<CSWRecord>>) ois.readObject();
+
+            super.updateFinished(keywordCache, recordCache);
+            snapshotTime = harvested;
+            servingSnapshot = true;
+            log.info(String.format("Restored %1$d CSW record(s) from '%2$s' in %3$dms", recordCache.size(), snapshotFile,
+                    System.currentTimeMillis() - start));
+        } catch (Exception ex) {
+            log.warn(String.format("Unable to load CSW cache snapshot '%1$s': %2$s", snapshotFile, ex.getMessage()));
+            log.debug("Exception:", ex);
+        } finally {
+            FileIOUtil.closeQuietly(ois);
+        }
+    }
+
+    /**
+     * Writes records to the snapshot file. The file is replaced atomically (where supported).
+     */
+    private void saveSnapshot(Map<String, Set<CSWRecord>> keywordCache, Map<String, CSWRecord> recordCache) throws IOException {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        //Copies keep the serialised form independent of the map implementations used by CSWCacheService
+        Map<String, Set<CSWRecord>> keywords = new HashMap<String, Set<CSWRecord>>();
+        for (Map.Entry<String, Set<CSWRecord>> entry : keywordCache.entrySet()) {
+            keywords.put(entry.getKey(), new LinkedHashSet<CSWRecord>(entry.getValue()));
+        }
+        long harvested = System.currentTimeMillis();
+
+        File tmp = SnapshotFiles.createTempFile(snapshotFile);
+        ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))));
+        try {
+            oos.writeInt(SNAPSHOT_MAGIC);
+            oos.writeInt(SNAPSHOT_VERSION);
+            oos.writeLong(harvested);
+            oos.writeObject(new LinkedHashMap<String, CSWRecord>(recordCache));
+            oos.writeObject(keywords);
+        } finally {
+            oos.close();
+        }
+
+        SnapshotFiles.replace(tmp, snapshotFile);
+        snapshotTime = harvested;
+        log.info(String.format("Saved %1$d CSW record(s) to '%2$s'", recordCache.size(), snapshotFile));
+    }
+}
@@ -0,0 +1,85 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Helpers for the snapshot files that services persist between restarts. Snapshots are only readable/writable by
+ * their owner and are replaced atomically (where supported). Permissions are only applied where POSIX permissions are
+ * supported.
+ */
+final class SnapshotFiles {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private SnapshotFiles() {
+    }
+
+    /**
+     * Whether the group or other users may write to file (always false where POSIX permissions aren't supported)
+     */
+    static boolean isWritableByOthers(File file) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class);
+        if (view == null) {
+            return false;
+        }
+        Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+        return permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    /**
+     * Restricts file to permissions (where POSIX permissions are supported)
+     */
+    private static void restrict(File file, Set<PosixFilePermission> permissions) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class);
+        if (view != null) {
+            view.setPermissions(EnumSet.copyOf(permissions));
+        }
+    }
+
+    /**
+     * Creates the (owner only) directory that will hold snapshotFile if it doesn't already exist
+     * @return The directory
+     */
+    static File createDirectory(File snapshotFile) throws IOException {
+        File dir = snapshotFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory()) {
+            if (!dir.mkdirs()) {
+                throw new IOException("Unable to create " + dir);
+            }
+            restrict(dir, OWNER_ONLY_DIRECTORY);
+        }
+        return dir;
+    }
+
+    /**
+     * Creates an empty (owner only) temporary file next to snapshotFile to write a new snapshot to
+     * @return The temporary file
+     */
+    static File createTempFile(File snapshotFile) throws IOException {
+        File tmp = new File(createDirectory(snapshotFile), snapshotFile.getName() + ".tmp");
+        Files.deleteIfExists(tmp.toPath());
+        Files.createFile(tmp.toPath());
+        restrict(tmp, OWNER_ONLY_FILE);
+        return tmp;
+    }
+
+    /**
+     * Replaces snapshotFile with tmp (atomically where supported)
+     */
+    static void replace(File tmp, File snapshotFile) throws IOException {
+        try {
+            Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
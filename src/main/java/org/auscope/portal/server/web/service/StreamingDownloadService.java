@@ -0,0 +1,242 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pipes the body of a remote service response straight to a servlet response without ever holding it in memory.
+ *
+ * Data is copied through a single fixed size buffer and the next block is only read from the remote service once the
+ * previous block has been written to the client - a slow client slows the remote download rather than filling the heap.
+ * The response is sent without a Content-Length (ie - chunked) and is gzip compressed for clients that accept it.
+ *
+ * If the client goes away mid download, or the body exceeds the configured maximum size, the remote request is aborted
+ * so the connection isn't left draining data nobody will read. A truncated body ends with the truncation marker (on a
+ * line of its own) so the client can tell it apart from a complete one - by then the 200 status has already been sent.
+ */
+@Service
+public class StreamingDownloadService {
+
+    /** The default size (in bytes) of the copy buffer */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /** The default line appended to truncated bodies - formatted with the maximum size (in bytes) */
+    public static final String DEFAULT_TRUNCATION_MARKER = "# ERROR: download truncated - the response exceeded the limit of %1$d bytes\n";
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HttpServiceCaller httpServiceCaller;
+    private final long maxBytes;
+    private final int bufferSize;
+    private boolean gzipEnabled = true;
+    private String truncationMarker = DEFAULT_TRUNCATION_MARKER;
+
+    /**
+     * The outcome of a single streamed download
+     */
+    public enum StreamResult {
+        /** The entire remote body was sent to the client */
+        COMPLETE,
+        /** The client disconnected before the download finished */
+        CLIENT_ABORTED,
+        /** The remote body was larger than the maximum size and was truncated */
+        TRUNCATED
+    }
+
+    /**
+     * @param httpServiceCaller Used for making remote requests
+     * @param maxBytes The maximum number of (uncompressed) bytes that will be streamed for a single download. 0 for no limit.
+     */
+    @Autowired
+    public StreamingDownloadService(HttpServiceCaller httpServiceCaller, @Value("${env.download.maxBytes:0}") long maxBytes) {
+        this(httpServiceCaller, maxBytes, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param httpServiceCaller Used for making remote requests
+     * @param maxBytes The maximum number of (uncompressed) bytes that will be streamed for a single download. 0 for no limit.
+     * @param bufferSize The size (in bytes) of the copy buffer
+     */
+    public StreamingDownloadService(HttpServiceCaller httpServiceCaller, long maxBytes, int bufferSize) {
+        this.httpServiceCaller = httpServiceCaller;
+        this.maxBytes = maxBytes;
+        this.bufferSize = bufferSize;
+    }
+
+    public boolean isGzipEnabled() {
+        return gzipEnabled;
+    }
+
+    /**
+     * Sets whether responses are gzip compressed for clients that send Accept-Encoding: gzip
+     * @param gzipEnabled
+     */
+    public void setGzipEnabled(boolean gzipEnabled) {
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public String getTruncationMarker() {
+        return truncationMarker;
+    }
+
+    /**
+     * Sets the line appended to bodies truncated at the maximum size. It is formatted with the maximum size (in bytes).
+     * @param truncationMarker null to append nothing
+     */
+    public void setTruncationMarker(String truncationMarker) {
+        this.truncationMarker = truncationMarker;
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        if (!gzipEnabled || request == null) {
+            return false;
+        }
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * Makes method and streams the response body to response.
+     *
+     * Errors that occur before anything is written (eg - the remote service is unavailable or returns an error status) are
+     * thrown and response is left untouched. Once streaming has begun the response is committed - a client disconnect or
+     * exceeding the maximum size aborts method and is reported through the returned StreamResult (a truncated body also
+     * ends with the truncation marker).
+     *
+     * @param method The remote request to make
+     * @param request The client request (used for content negotiation). Can be null
+     * @param response Where the remote body will be written
+     * @param contentType The content type to report to the client
+     * @return
+     * @throws PortalServiceException If the remote request fails
+     */
+    public StreamResult streamResponse(HttpRequestBase method, HttpServletRequest request, HttpServletResponse response,
+            String contentType) throws PortalServiceException {
+        InputStream upstream = null;
+        try {
+            HttpResponse httpResponse;
+            try {
+                httpResponse = httpServiceCaller.getMethodResponseAsHttpResponse(method);
+            } catch (Exception ex) {
+                throw new PortalServiceException(method, ex);
+            }
+
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            HttpEntity entity = httpResponse.getEntity();
+            if (statusCode != HttpStatus.SC_OK || entity == null) {
+                method.abort();
+                throw new PortalServiceException(method, "Remote service returned status " + statusCode);
+            }
+            if (maxBytes > 0 && entity.getContentLength() > maxBytes) {
+                method.abort();
+                throw new PortalServiceException(method, String.format("Remote response of %1$d bytes exceeds the download limit of %2$d bytes",
+                        entity.getContentLength(), maxBytes));
+            }
+
+            try {
+                upstream = entity.getContent();
+            } catch (IOException ex) {
+                throw new PortalServiceException(method, ex);
+            }
+            Header upstreamEncoding = entity.getContentEncoding();
+            boolean gzip = upstreamEncoding == null && acceptsGzip(request);
+
+            response.setContentType(contentType);
+            response.setBufferSize(bufferSize);
+            if (gzip) {
+                response.setHeader("Content-Encoding", "gzip");
+                response.addHeader("Vary", "Accept-Encoding");
+            } else if (upstreamEncoding != null) {
+                response.setHeader("Content-Encoding", upstreamEncoding.getValue());
+            }
+
+            return copy(method, upstream, response, gzip);
+        } finally {
+            if (upstream != null) {
+                try {
+                    upstream.close();
+                } catch (IOException ex) {
+                    log.debug("Unable to close remote stream: ", ex);
+                }
+            }
+            method.releaseConnection();
+        }
+    }
+
+    private StreamResult copy(HttpRequestBase method, InputStream upstream, HttpServletResponse response, boolean gzip) throws PortalServiceException {
+        byte[] buffer = new byte[bufferSize];
+        long total = 0;
+        byte last = '\n';
+        OutputStream out = null;
+        try {
+            out = response.getOutputStream();
+            if (gzip) {
+                out = new GZIPOutputStream(out, bufferSize);
+            }
+
+            while (true) {
+                int read;
+                try {
+                    read = upstream.read(buffer);
+                } catch (IOException ex) {
+                    method.abort();
+                    throw new PortalServiceException(method, ex);
+                }
+                if (read < 0) {
+                    break;
+                }
+
+                if (maxBytes > 0 && total + read > maxBytes) {
+                    int remaining = (int) (maxBytes - total);
+                    out.write(buffer, 0, remaining);
+                    method.abort();
+                    log.warn(String.format("Download from '%1$s' truncated at %2$d bytes", method.getURI(), maxBytes));
+                    if (truncationMarker != null) {
+                        if ((remaining > 0 ? buffer[remaining - 1] : last) != '\n') {
+                            out.write('\n');
+                        }
+                        out.write(String.format(truncationMarker, maxBytes).getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.close();
+                    return StreamResult.TRUNCATED;
+                }
+
+                out.write(buffer, 0, read);
+                total += read;
+                if (read > 0) {
+                    last = buffer[read - 1];
+                }
+            }
+
+            out.close();
+            return StreamResult.COMPLETE;
+        } catch (IOException ex) {
+            //Writes only fail when the client has gone away
+            method.abort();
+            log.debug(String.format("Client aborted download from '%1$s' after %2$d bytes: %3$s", method.getURI(), total, ex));
+            return StreamResult.CLIENT_ABORTED;
+        }
+    }
+}
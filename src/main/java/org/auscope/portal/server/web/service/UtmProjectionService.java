@@ -0,0 +1,220 @@
+package org.auscope.portal.server.web.service;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Service;
+
+import com.jhlabs.map.proj.Projection;
+import com.jhlabs.map.proj.ProjectionFactory;
+
+/**
+ * Projects lat/lng co-ordinates into UTM (MGA) zones.
+ *
+ * Initialising a javaproj Projection (parsing the PROJ.4 specification and deriving the ellipsoid constants) is far more
+ * expensive than projecting a point with it, so one Projection is created per zone/ellipsoid and shared. Projections
+ * hold no per call state once initialised, so the shared instances are safe to use concurrently (and must never be
+ * modified). There are at most 60 zones per supported ellipsoid so the cache needs no eviction.
+ *
+ * The batch methods project many points or bounding boxes in a single loop over primitive arrays, reusing the same
+ * working objects and only looking up a new Projection when the zone changes.
+ */
+@Service
+public class UtmProjectionService {
+
+    /** The ellipsoid used when none is specified */
+    public static final String DEFAULT_ELLIPSOID = "WGS84";
+    /** The ellipsoids that can be projected onto. GRS80 is used by GDA94/GDA2020 (ie - MGA proper) */
+    public static final List<String> SUPPORTED_ELLIPSOIDS = Collections.unmodifiableList(Arrays.asList("WGS84", "GRS80"));
+
+    private final ConcurrentMap<String, Projection> projections = new ConcurrentHashMap<String, Projection>();
+
+    /**
+     * The bounding boxes (in UTM) that fully encompass a series of lat/lng bounding boxes. Every array has one element
+     * per bounding box.
+     */
+    public static class UtmBBoxes {
+        private final int[] mgaZones;
+        private final int[] minNorthings;
+        private final int[] maxNorthings;
+        private final int[] minEastings;
+        private final int[] maxEastings;
+
+        public UtmBBoxes(int[] mgaZones, int[] minNorthings, int[] maxNorthings, int[] minEastings, int[] maxEastings) {
+            this.mgaZones = mgaZones;
+            this.minNorthings = minNorthings;
+            this.maxNorthings = maxNorthings;
+            this.minEastings = minEastings;
+            this.maxEastings = maxEastings;
+        }
+
+        public int size() {
+            return mgaZones.length;
+        }
+
+        public int[] getMgaZones() {
+            return mgaZones;
+        }
+
+        public int[] getMinNorthings() {
+            return minNorthings;
+        }
+
+        public int[] getMaxNorthings() {
+            return maxNorthings;
+        }
+
+        public int[] getMinEastings() {
+            return minEastings;
+        }
+
+        public int[] getMaxEastings() {
+            return maxEastings;
+        }
+    }
+
+    /**
+     * Gets the (shared) projection for a UTM zone. The returned instance must not be modified.
+     *
+     * @param zone The UTM zone (1-60)
+     * @param ellipsoid One of SUPPORTED_ELLIPSOIDS
+     * @return
+     * @throws IllegalArgumentException If the zone or ellipsoid is not supported
+     */
+    public Projection getUtmProjection(int zone, String ellipsoid) {
+        if (zone < 1 || zone > 60) {
+            throw new IllegalArgumentException("Invalid UTM zone " + zone);
+        }
+        if (!SUPPORTED_ELLIPSOIDS.contains(ellipsoid)) {
+            throw new IllegalArgumentException("Unsupported ellipsoid " + ellipsoid);
+        }
+
+        String key = zone + ":" + ellipsoid;
+        Projection projection = projections.get(key);
+        if (projection == null) {
+            //Concurrent misses may both create a projection - only one is ever shared
+            Projection created = createUtmProjection(zone, ellipsoid);
+            projection = projections.putIfAbsent(key, created);
+            if (projection == null) {
+                projection = created;
+            }
+        }
+        return projection;
+    }
+
+    /**
+     * Creates a new (unshared) projection for a UTM zone
+     * @param zone
+     * @param ellipsoid
+     * @return
+     */
+    public static Projection createUtmProjection(int zone, String ellipsoid) {
+        return ProjectionFactory.fromPROJ4Specification(
+            new String[] {
+                "+proj=utm", // Projection name
+                "+zone=" + zone, //UTM zone
+                "+ellps=" + ellipsoid, // Ellipsoid name
+                "+x_0=500000", // False easting
+                "+y_0=10000000", // False northing
+                "+k_0=0.99960000" // Scaling factor (new name)
+            }
+        );
+    }
+
+    /**
+     * The number of projections that have been initialised
+     * @return
+     */
+    public int getProjectionCount() {
+        return projections.size();
+    }
+
+    /**
+     * Projects a series of lat/lng bounding boxes into UTM, returning the (whole metre) bounding boxes that fully
+     * encompass each projected region.
+     *
+     * @param zones The UTM zone for each bounding box
+     * @param ellipsoid One of SUPPORTED_ELLIPSOIDS
+     * @param northBoundLatitudes
+     * @param southBoundLatitudes
+     * @param eastBoundLongitudes
+     * @param westBoundLongitudes
+     * @return
+     * @throws IllegalArgumentException If the arrays differ in length or a zone is invalid
+     */
+    public UtmBBoxes projectBBoxes(int[] zones, String ellipsoid, double[] northBoundLatitudes, double[] southBoundLatitudes,
+            double[] eastBoundLongitudes, double[] westBoundLongitudes) {
+        int count = zones.length;
+        if (northBoundLatitudes.length != count || southBoundLatitudes.length != count
+                || eastBoundLongitudes.length != count || westBoundLongitudes.length != count) {
+            throw new IllegalArgumentException("Every bounding box must have a zone, north, south, east and west bound");
+        }
+
+        int[] minNorthings = new int[count];
+        int[] maxNorthings = new int[count];
+        int[] minEastings = new int[count];
+        int[] maxEastings = new int[count];
+        Rectangle2D.Double rect = new Rectangle2D.Double();
+        Projection projection = null;
+        int projectionZone = -1;
+        for (int i = 0; i < count; i++) {
+            if (zones[i] != projectionZone) {
+                projection = getUtmProjection(zones[i], ellipsoid);
+                projectionZone = zones[i];
+            }
+
+            rect.setRect(eastBoundLongitudes[i], southBoundLatitudes[i], (westBoundLongitudes[i] - eastBoundLongitudes[i]),
+                    (northBoundLatitudes[i] - southBoundLatitudes[i]));
+            Rectangle2D approxAreaMga = projection.transform(rect);
+            minNorthings[i] = (int) Math.floor(approxAreaMga.getMinY());
+            maxNorthings[i] = (int) Math.ceil(approxAreaMga.getMaxY());
+            minEastings[i] = (int) Math.floor(approxAreaMga.getMinX());
+            maxEastings[i] = (int) Math.ceil(approxAreaMga.getMaxX());
+        }
+
+        return new UtmBBoxes(zones, minNorthings, maxNorthings, minEastings, maxEastings);
+    }
+
+    /**
+     * Projects a series of lat/lng points into UTM
+     *
+     * @param zones The UTM zone for each point
+     * @param ellipsoid One of SUPPORTED_ELLIPSOIDS
+     * @param latitudes
+     * @param longitudes
+     * @return Two arrays - the eastings and the northings (in metres) of each point
+     * @throws IllegalArgumentException If the arrays differ in length or a zone is invalid
+     */
+    public double[][] projectPoints(int[] zones, String ellipsoid, double[] latitudes, double[] longitudes) {
+        int count = zones.length;
+        if (latitudes.length != count || longitudes.length != count) {
+            throw new IllegalArgumentException("Every point must have a zone, latitude and longitude");
+        }
+
+        double[] eastings = new double[count];
+        double[] northings = new double[count];
+        Point2D.Double src = new Point2D.Double();
+        Point2D.Double dst = new Point2D.Double();
+        Projection projection = null;
+        int projectionZone = -1;
+        for (int i = 0; i < count; i++) {
+            if (zones[i] != projectionZone) {
+                projection = getUtmProjection(zones[i], ellipsoid);
+                projectionZone = zones[i];
+            }
+
+            src.x = longitudes[i];
+            src.y = latitudes[i];
+            projection.transform(src, dst);
+            eastings[i] = dst.x;
+            northings[i] = dst.y;
+        }
+
+        return new double[][] {eastings, northings};
+    }
+}
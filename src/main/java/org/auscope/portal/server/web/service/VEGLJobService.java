@@ -3,10 +3,13 @@ package org.auscope.portal.server.web.service;
 import java.util.List;
 import org.auscope.portal.core.cloud.CloudJob;
 import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.vegl.VEGLJobSummary;
 import org.auscope.portal.server.web.repositories.VEGLJobRepository;
 import org.auscope.portal.server.web.security.ANVGLUser;
 import org.auscope.portal.server.web.security.NCIDetails;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -52,6 +55,23 @@ public class VEGLJobService {
         return res;
     }
 
+    /**
+     * Retrieves summaries of the jobs of a given user, ordered by job ID.
+     * It excludes jobs that are deleted.
+     *
+     * @param user
+     * @param afterJobId Only jobs with an ID greater than this are returned (can be null)
+     * @param limit The maximum number of summaries to return (null for all)
+     * @return
+     */
+    public List<VEGLJobSummary> getJobSummariesOfUser(ANVGLUser user, Integer afterJobId, Integer limit) {
+        Pageable pageable = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+        if (afterJobId == null) {
+            return jobRepository.findSummariesByEmail(user.getEmail(), pageable);
+        }
+        return jobRepository.findSummariesByEmailAfter(user.getEmail(), afterJobId, pageable);
+    }
+
     /**
      * Retrieves jobs that are either pending or active.
      *
@@ -4,11 +4,15 @@ import java.nio.charset.StandardCharsets;
 import java.security.AlgorithmParameters;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
@@ -19,6 +23,17 @@ import org.auscope.portal.core.services.PortalServiceException;
  * Created by Carsten Friedrich (fri096) for VGL.
  *
  * A Service for basic encryption and decryption
+ *
+ * Two ciphertext formats are supported:
+ *
+ * Legacy - salt@iv@ciphertext (AES/CBC with a key derived from a fresh salt for every encryption)
+ *
+ * Versioned - v2@keyId@iv@ciphertext (AES/GCM). The key ID is the salt that the key was derived from,
+ * every encryption made by a service instance shares the same key ID so that keys only need deriving
+ * once. The header (v2@keyId) is authenticated along with the ciphertext.
+ *
+ * Both formats are always decryptable, setVersionedFormat controls which one encrypt writes.
+ * Derived keys are held in a bounded LRU cache (keyed by salt) and zeroed when evicted.
  */
 
 public class VGLCryptoService {
@@ -27,13 +42,47 @@ public class VGLCryptoService {
     public static final String PASSWORD_BASED_ALGO = "PBKDF2WithHmacSHA1";
     public static final int KEY_SIZE = 128;
     public static final int CRYPTO_ITERATIONS = 1024;
-    
+
+    public static final String VERSIONED_PREFIX = "v2";
+    public static final String VERSIONED_CIPHER = "AES/GCM/NoPadding";
+    /** Versioned keys are only derived once per key ID so they can afford far more stretching */
+    public static final int VERSIONED_CRYPTO_ITERATIONS = 65536;
+    public static final int GCM_IV_SIZE = 12;
+    public static final int GCM_TAG_BITS = 128;
+
+    public static final int DEFAULT_KEY_CACHE_SIZE = 256;
+
     private String encryptionPassword;
+    private boolean versionedFormat = false;
+    private String currentKeyId;
+    private final Map<String, byte[]> keyCache;
+    private final SecureRandom random = new SecureRandom();
 
     public VGLCryptoService(String encryptionPassword) throws PortalServiceException {
+        this(encryptionPassword, DEFAULT_KEY_CACHE_SIZE);
+    }
+
+    /**
+     * @param encryptionPassword The password that all keys are derived from
+     * @param keyCacheSize The maximum number of derived keys to hold in memory (0 to disable caching)
+     * @throws PortalServiceException
+     */
+    public VGLCryptoService(String encryptionPassword, final int keyCacheSize) throws PortalServiceException {
         if(encryptionPassword==null || encryptionPassword.isEmpty())
             throw new PortalServiceException("Configuration parameter env.encryption.password must not be empty!");
         this.encryptionPassword=encryptionPassword;
+        this.keyCache = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                if (size() > keyCacheSize) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
     }
 
     public static byte[] generateSalt(int size) {
@@ -43,33 +92,123 @@ public class VGLCryptoService {
         return res;
       }
 
+    /**
+     * If true, encrypt will write the versioned (AES/GCM) format. Defaults to false (legacy format).
+     * @return
+     */
+    public boolean isVersionedFormat() {
+        return versionedFormat;
+    }
+
+    /**
+     * If true, encrypt will write the versioned (AES/GCM) format. Defaults to false (legacy format).
+     * @param versionedFormat
+     */
+    public void setVersionedFormat(boolean versionedFormat) {
+        this.versionedFormat = versionedFormat;
+    }
+
+    /**
+     * The number of derived keys currently held in memory
+     * @return
+     */
+    public int getKeyCacheSize() {
+        synchronized (keyCache) {
+            return keyCache.size();
+        }
+    }
+
+    /**
+     * Zeroes and removes every derived key held in memory
+     */
+    public void clearKeyCache() {
+        synchronized (keyCache) {
+            for (byte[] key : keyCache.values()) {
+                Arrays.fill(key, (byte) 0);
+            }
+            keyCache.clear();
+        }
+    }
+
+    /**
+     * Gets the AES key derived from salt, deriving (and caching) it if required
+     */
+    private SecretKey getKey(byte[] salt, int iterations) throws GeneralSecurityException {
+        String cacheKey = iterations + ":" + Base64.getEncoder().encodeToString(salt);
+        synchronized (keyCache) {
+            byte[] encoded = keyCache.get(cacheKey);
+            if (encoded != null) {
+                return new SecretKeySpec(encoded, SECRET_KEY_SPEC);
+            }
+        }
+
+        //Derivation is slow - don't hold the lock while doing it
+        SecretKeyFactory kf = SecretKeyFactory.getInstance(PASSWORD_BASED_ALGO);
+        PBEKeySpec keySpec = new PBEKeySpec(encryptionPassword.toCharArray(), salt, iterations, KEY_SIZE);
+        byte[] encoded;
+        try {
+            encoded = kf.generateSecret(keySpec).getEncoded();
+        } finally {
+            keySpec.clearPassword();
+        }
+
+        SecretKey key = new SecretKeySpec(encoded, SECRET_KEY_SPEC);
+        synchronized (keyCache) {
+            byte[] previous = keyCache.put(cacheKey, encoded);
+            if (previous != null) {
+                Arrays.fill(previous, (byte) 0);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Gets the key ID used for versioned encryption by this instance (generating it if required)
+     */
+    private synchronized String getCurrentKeyId() {
+        if (currentKeyId == null) {
+            currentKeyId = Base64.getEncoder().encodeToString(generateSalt(16));
+        }
+        return currentKeyId;
+    }
+
     public String decrypt(byte[] data)
             throws PortalServiceException {
         try {
             String cryptoString = new String(data, StandardCharsets.UTF_8);
             String[] cyptoInfo = cryptoString.split("@");
+            if (cyptoInfo.length == 4 && VERSIONED_PREFIX.equals(cyptoInfo[0])) {
+                return decryptVersioned(cyptoInfo);
+            }
             if(cyptoInfo.length!=3) 
                 throw new PortalServiceException("Invalid crypto info: "+cryptoString);
-            
-            SecretKeyFactory kf = SecretKeyFactory.getInstance(PASSWORD_BASED_ALGO);
-            PBEKeySpec keySpec = new PBEKeySpec(encryptionPassword.toCharArray(), Base64.getDecoder().decode(cyptoInfo[0]),
-                    CRYPTO_ITERATIONS, KEY_SIZE);
-            SecretKey tmp = kf.generateSecret(keySpec);
 
-            byte[] endcoded = tmp.getEncoded();
-            SecretKey key = new SecretKeySpec(endcoded, SECRET_KEY_SPEC);
+            SecretKey key = getKey(Base64.getDecoder().decode(cyptoInfo[0]), CRYPTO_ITERATIONS);
 
             Cipher ciph = Cipher.getInstance(CIPHER);
 
             ciph.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(Base64.getDecoder().decode(cyptoInfo[1])));
             return  new String(ciph.doFinal(Base64.getDecoder().decode(cyptoInfo[2])), StandardCharsets.UTF_8);
 
-        } catch (GeneralSecurityException e) {
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
             throw new PortalServiceException("Decryption error: " + e.getMessage(), e);
         }
     }
 
+    private String decryptVersioned(String[] cryptoInfo) throws GeneralSecurityException {
+        SecretKey key = getKey(Base64.getDecoder().decode(cryptoInfo[1]), VERSIONED_CRYPTO_ITERATIONS);
+
+        Cipher ciph = Cipher.getInstance(VERSIONED_CIPHER);
+        ciph.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, Base64.getDecoder().decode(cryptoInfo[2])));
+        ciph.updateAAD((cryptoInfo[0] + "@" + cryptoInfo[1]).getBytes(StandardCharsets.UTF_8));
+        return new String(ciph.doFinal(Base64.getDecoder().decode(cryptoInfo[3])), StandardCharsets.UTF_8);
+    }
+
     public byte[] encrypt(String dataStr) throws PortalServiceException {
+        if (versionedFormat) {
+            return encryptVersioned(dataStr);
+        }
+
         try {
             byte[] salt = generateSalt(8);
             SecretKeyFactory kf = SecretKeyFactory.getInstance(PASSWORD_BASED_ALGO);
@@ -78,6 +217,7 @@ public class VGLCryptoService {
                     KEY_SIZE);
 
             SecretKey tmp = kf.generateSecret(keySpec);
+            keySpec.clearPassword();
             SecretKey key = new SecretKeySpec(tmp.getEncoded(), SECRET_KEY_SPEC);
 
             Cipher ciph = Cipher.getInstance(CIPHER);
@@ -96,4 +236,27 @@ public class VGLCryptoService {
         }
     }
 
+    private byte[] encryptVersioned(String dataStr) throws PortalServiceException {
+        try {
+            String keyId = getCurrentKeyId();
+            SecretKey key = getKey(Base64.getDecoder().decode(keyId), VERSIONED_CRYPTO_ITERATIONS);
+
+            byte[] iv = new byte[GCM_IV_SIZE];
+            random.nextBytes(iv);
+
+            String header = VERSIONED_PREFIX + "@" + keyId;
+            Cipher ciph = Cipher.getInstance(VERSIONED_CIPHER);
+            ciph.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            ciph.updateAAD(header.getBytes(StandardCharsets.UTF_8));
+            byte[] cipherText = ciph.doFinal(dataStr.getBytes(StandardCharsets.UTF_8));
+
+            String resultString = header + "@" +
+                    Base64.getEncoder().encodeToString(iv) + "@" +
+                    Base64.getEncoder().encodeToString(cipherText);
+            return resultString.getBytes(StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new PortalServiceException("Encryption error: " + e.getMessage(), e);
+        }
+    }
+
 }
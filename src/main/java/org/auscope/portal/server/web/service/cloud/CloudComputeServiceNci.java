@@ -9,6 +9,12 @@ import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -46,27 +52,30 @@ public class CloudComputeServiceNci extends CloudComputeService {
 
     public static final String ANNOTATION_STORAGE_REQUIRED = "nci-storage-required=";
 
+    /**
+     * The maximum number of PBS job ids passed to a single qstat by getJobStatuses
+     */
+    public static final int MAX_STATUS_BATCH_SIZE = 100;
+
     @SuppressWarnings("unused")
     private final Log logger = LogFactory.getLog(getClass());
     private CloudStorageServiceNci storageService;
     private SshCloudConnector sshCloudConnector;
 
     /**
-     * Creates a new instance with the specified credentials
+     * Creates a new instance that shares SSH sessions through sshCloudConnector
      *
+     * @param storageService
+     *            The storage service holding the job files
      * @param endpoint
-     *            (URL) The location of the Compute (Nova) service
-     * @param accessKey
-     *            The Compute Access key (user name)
-     * @param secretKey
-     *            The Compute Secret key (password)
-     * @param apiVersion
-     *            The API version
+     *            The SSH host of the HPC
+     * @param sshCloudConnector
+     *            Used for all remote commands (should be connected to endpoint)
      */
-    public CloudComputeServiceNci(CloudStorageServiceNci storageService, String endpoint) {
+    public CloudComputeServiceNci(CloudStorageServiceNci storageService, String endpoint, SshCloudConnector sshCloudConnector) {
         super(ProviderType.GADI, endpoint, null);
         this.storageService=storageService;
-        this.sshCloudConnector = new SshCloudConnector(endpoint);
+        this.sshCloudConnector = sshCloudConnector;
     }
 
     /**
@@ -88,6 +97,24 @@ public class CloudComputeServiceNci extends CloudComputeService {
         }
     }
 
+    /**
+     * Batched form of getJobLastInstanceId - the job ID files of every job are read over a single SFTP channel.
+     *
+     * @param jobs
+     *            Jobs sharing the same NCI credentials
+     * @return The ID of the latest running job for each of jobs (in order)
+     * @throws PortalServiceException
+     */
+    private List<String> getJobLastInstanceIds(List<? extends CloudJob> jobs) throws PortalServiceException {
+        List<String> jobIdFiles = storageService.getJobFileContents(jobs, JOB_ID_FILE);
+        List<String> runningJobIds = new ArrayList<String>(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            String jobIdFile = jobIdFiles.get(i);
+            runningJobIds.add(jobIdFile == null ? jobs.get(i).getComputeInstanceId() : jobIdFile);
+        }
+        return runningJobIds;
+    }
+
     /**
      * Loads the bootstrap shell script template as a string.
      * @return
@@ -229,9 +256,10 @@ public class CloudComputeServiceNci extends CloudComputeService {
         }
 
         try {
-            session = sshCloudConnector.getSession(job);
-
+            //Stage the job files first so we don't hold a pooled session while the storage service borrows its own
             initialiseWorkingDirectory((VEGLJob) job);
+
+            session = sshCloudConnector.getSession(job);
             ExecResult res = sshCloudConnector.executeCommand(session, "qsub nci-download.job", workingDir);
             if(res.getExitStatus() != 0) {
                 throw new PortalServiceException("Could not submit job file: " + res.getErr());
@@ -241,9 +269,7 @@ public class CloudComputeServiceNci extends CloudComputeService {
         } catch (IOException e) {
             throw new PortalServiceException("Error executing job " + job.getId(), e);
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -267,9 +293,7 @@ public class CloudComputeServiceNci extends CloudComputeService {
                 throw new PortalServiceException("Could not delete job: "+res.getErr());
             }
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -312,9 +336,7 @@ public class CloudComputeServiceNci extends CloudComputeService {
 
             return res.getOut();
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -330,7 +352,6 @@ public class CloudComputeServiceNci extends CloudComputeService {
      */
     @Override
     public InstanceStatus getJobStatus(CloudJob job) throws PortalServiceException {
-
         Session session= null;
         try {
             String runningJobId = getJobLastInstanceId(job);
@@ -351,10 +372,120 @@ public class CloudComputeServiceNci extends CloudComputeService {
 
             return InstanceStatus.Running;
         } finally {
-            if (session != null) {
-                session.disconnect();
+            sshCloudConnector.releaseSession(session);
+        }
+    }
+
+    /**
+     * Looks up the status of many jobs (all owned by the same NCI user) using a single qstat
+     * per MAX_STATUS_BATCH_SIZE jobs rather than one qstat per job.
+     *
+     * The job ID files of the jobs are also read in a single batch (over one SFTP channel).
+     *
+     * Jobs whose status can't be determined from the batched output (eg - no PBS job ID) are
+     * omitted from the result and should be queried individually with getJobStatus.
+     *
+     * @param jobs
+     *            Jobs sharing the same NCI credentials
+     * @return InstanceStatus keyed by job ID
+     * @throws PortalServiceException
+     */
+    public Map<Integer, InstanceStatus> getJobStatuses(Collection<? extends CloudJob> jobs) throws PortalServiceException {
+        Map<Integer, InstanceStatus> statuses = new HashMap<Integer, InstanceStatus>();
+        Map<String, CloudJob> jobsByPbsId = new LinkedHashMap<String, CloudJob>();
+        List<CloudJob> jobList = new ArrayList<CloudJob>(jobs);
+        if (jobList.isEmpty()) {
+            return statuses;
+        }
+        List<String> runningJobIds = getJobLastInstanceIds(jobList);
+        for (int i = 0; i < jobList.size(); i++) {
+            String runningJobId = runningJobIds.get(i);
+            if (StringUtils.isNotBlank(runningJobId)) {
+                jobsByPbsId.put(runningJobId.trim(), jobList.get(i));
             }
         }
+
+        if (jobsByPbsId.isEmpty()) {
+            return statuses;
+        }
+
+        Session session = null;
+        try {
+            session = sshCloudConnector.getSession(jobsByPbsId.values().iterator().next());
+
+            List<String> pbsIds = new ArrayList<String>(jobsByPbsId.keySet());
+            for (int i = 0; i < pbsIds.size(); i += MAX_STATUS_BATCH_SIZE) {
+                List<String> batch = pbsIds.subList(i, Math.min(i + MAX_STATUS_BATCH_SIZE, pbsIds.size()));
+                ExecResult res = sshCloudConnector.executeCommand(session, "qstat -s " + StringUtils.join(batch, ' '));
+                String[] outLines = res.getOut() == null ? new String[0] : res.getOut().split("\\r?\\n");
+                String[] errLines = res.getErr() == null ? new String[0] : res.getErr().split("\\r?\\n");
+
+                int resolved = 0;
+                for (String pbsId : batch) {
+                    InstanceStatus status = parseBatchedStatus(pbsId, outLines, errLines);
+                    if (status != null) {
+                        statuses.put(jobsByPbsId.get(pbsId).getId(), status);
+                        resolved++;
+                    }
+                }
+
+                if (resolved == 0 && res.getExitStatus() != 0) {
+                    throw new PortalServiceException("Could not query job status for " + batch.size() + " job(s): " + res.getErr());
+                }
+            }
+
+            return statuses;
+        } finally {
+            sshCloudConnector.releaseSession(session);
+        }
+    }
+
+    /**
+     * Returns true if line refers to PBS job pbsId. qstat may print either the full ID (1234.gadi-pbs)
+     * or a truncated form of it in its table output so only the numeric part is required to match.
+     */
+    private static boolean mentionsPbsId(String line, String pbsId) {
+        String shortId = pbsId.split("\\.")[0];
+        for (String token : line.trim().split("\\s+")) {
+            if (token.equals(pbsId) || token.equals(shortId) || token.startsWith(shortId + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the status of pbsId from the output of a multi job "qstat -s". Finished/unknown jobs are
+     * reported on stderr, listed jobs get a table row in stdout followed by indented comment lines.
+     *
+     * @return null if the status of pbsId can't be determined from the output
+     */
+    private static InstanceStatus parseBatchedStatus(String pbsId, String[] outLines, String[] errLines) {
+        for (String line : errLines) {
+            if (mentionsPbsId(line, pbsId)) {
+                if (line.contains("Job has finished") || line.contains("Unknown Job Id")) {
+                    return InstanceStatus.Missing;
+                }
+                return null;
+            }
+        }
+
+        for (int i = 0; i < outLines.length; i++) {
+            String line = outLines[i];
+            if (line.isEmpty() || Character.isWhitespace(line.charAt(0)) || !mentionsPbsId(line.split("\\s+")[0], pbsId)) {
+                continue;
+            }
+
+            //The comment (if any) is indented on the lines following the job row
+            for (int j = i; j < outLines.length && (j == i || outLines[j].isEmpty() || Character.isWhitespace(outLines[j].charAt(0))); j++) {
+                if (outLines[j].contains("Job has finished")) {
+                    return InstanceStatus.Missing;
+                }
+            }
+            return InstanceStatus.Running;
+        }
+
+        return null;
     }
 
     @Override
@@ -7,9 +7,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
+import org.apache.commons.io.IOUtils;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.auscope.portal.core.cloud.CloudFileInformation;
@@ -34,14 +38,19 @@ import com.jcraft.jsch.SftpException;
  * @author Josh Vote (CSIRO)
  *
  */
-public class CloudStorageServiceNci extends CloudStorageService {
+public class CloudStorageServiceNci extends CloudStorageService implements RangedCloudStorage {
     private final Log logger = LogFactory.getLog(getClass());
 
     private SshCloudConnector sshCloudConnector;
 
-    public CloudStorageServiceNci(String endpoint, String provider) {
+    /**
+     * @param endpoint The SSH host of the HPC
+     * @param provider
+     * @param sshCloudConnector Used for all file access (should be connected to endpoint)
+     */
+    public CloudStorageServiceNci(String endpoint, String provider, SshCloudConnector sshCloudConnector) {
         super(endpoint, provider, null);
-        this.sshCloudConnector = new SshCloudConnector(endpoint);
+        this.sshCloudConnector = sshCloudConnector;
     }
 
     /**
@@ -62,11 +71,14 @@ public class CloudStorageServiceNci extends CloudStorageService {
         return String.format("/g/data/%1$s/vl-jobs/%2$s", job.getProperty(NCIDetails.PROPERTY_NCI_PROJECT), jobToBaseKey(job));
     }
 
-    private boolean jobFileExists(ChannelSftp c, String fullPath) throws PortalServiceException {
+    /**
+     * @return The attributes of fullPath or null if it doesn't exist
+     */
+    private SftpATTRS statJobFile(ChannelSftp c, String fullPath) {
         try {
-            return c.ls(fullPath).size() > 0; // JSCH always throws an exception on missing paths. This is a catchall in case the behavior changes
+            return c.stat(fullPath); // JSCH throws an exception on missing paths
         } catch (SftpException ex) {
-            return false;
+            return null;
         }
     }
 
@@ -79,19 +91,90 @@ public class CloudStorageServiceNci extends CloudStorageService {
      */
     @Override
     public InputStream getJobFile(CloudFileOwner job, String fileName) throws PortalServiceException {
+        return getJobFile(job, fileName, 0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.auscope.portal.server.web.service.cloud.RangedCloudStorage#getJobFile(org
+     * .auscope.portal.core.cloud.CloudFileOwner, java.lang.String, long)
+     */
+    @Override
+    public RangedInputStream getJobFile(CloudFileOwner job, String fileName, long offset) throws PortalServiceException {
         String fullPath = getOutputJobDirectory(job) + "/" + fileName;
+        Session session = sshCloudConnector.getSession(job);
+        Channel channel = null;
         try {
-            Session session = sshCloudConnector.getSession(job);
-            Channel channel = session.openChannel("sftp");
+            channel = session.openChannel("sftp");
             channel.connect();
             ChannelSftp c = (ChannelSftp) channel;
-            if (jobFileExists(c, fullPath)) {
-                return new SshInputStream(session, c, c.get(fullPath));
+            SftpATTRS attrs = statJobFile(c, fullPath);
+            if (attrs != null) {
+                //The stream takes ownership of the channel/session and will release them on close
+                RangedInputStream stream = new RangedInputStream(new SshInputStream(sshCloudConnector, session, c, c.get(fullPath, null, offset)),
+                        attrs.getSize(), attrs.getMTime() * 1000L);
+                channel = null;
+                session = null;
+                return stream;
             } else {
                 return null;
             }
         } catch (JSchException | SftpException e) {
             throw new PortalServiceException(e.getMessage(), e);
+        } finally {
+            if (channel != null) {
+                channel.disconnect();
+            }
+            sshCloudConnector.releaseSession(session);
+        }
+    }
+
+    /**
+     * Reads the (small, text) file fileName from the output directory of each of jobs using a single
+     * SFTP channel rather than a channel per job.
+     *
+     * @param jobs
+     *            Jobs sharing the same NCI credentials
+     * @param fileName
+     * @return The UTF-8 contents of fileName for each of jobs (in order), null for jobs without the file
+     * @throws PortalServiceException
+     */
+    public List<String> getJobFileContents(List<? extends CloudFileOwner> jobs, String fileName) throws PortalServiceException {
+        List<String> contents = new ArrayList<String>(jobs.size());
+        if (jobs.isEmpty()) {
+            return contents;
+        }
+
+        Session session = null;
+        Channel channel = null;
+        try {
+            session = sshCloudConnector.getSession(jobs.get(0));
+            channel = session.openChannel("sftp");
+            channel.connect();
+            ChannelSftp c = (ChannelSftp) channel;
+            for (CloudFileOwner job : jobs) {
+                String fullPath = getOutputJobDirectory(job) + "/" + fileName;
+                try (InputStream is = c.get(fullPath)) {
+                    contents.add(IOUtils.toString(is, StandardCharsets.UTF_8));
+                } catch (SftpException ex) {
+                    if (ex.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                        throw new PortalServiceException("Error reading " + fullPath, ex);
+                    }
+                    contents.add(null);
+                } catch (IOException ex) {
+                    throw new PortalServiceException("Error reading " + fullPath, ex);
+                }
+            }
+            return contents;
+        } catch (JSchException e) {
+            throw new PortalServiceException(e.getMessage(), e);
+        } finally {
+            if (channel != null) {
+                channel.disconnect();
+            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -128,9 +211,7 @@ public class CloudStorageServiceNci extends CloudStorageService {
             if (channel != null) {
                 channel.disconnect();
             }
-            if (session != null) {
-                session.disconnect();
-            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -179,12 +260,10 @@ public class CloudStorageServiceNci extends CloudStorageService {
         } catch (JSchException | SftpException e) {
             throw new PortalServiceException(e.getMessage(), e);
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
             if (channel != null) {
                 channel.disconnect();
             }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -213,9 +292,7 @@ public class CloudStorageServiceNci extends CloudStorageService {
             if (channel != null) {
                 channel.disconnect();
             }
-            if (session != null) {
-                session.disconnect();
-            }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -251,12 +328,10 @@ public class CloudStorageServiceNci extends CloudStorageService {
         } catch (JSchException | SftpException e) {
             throw new PortalServiceException(e.getMessage(), e);
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
             if (channel != null) {
                 channel.disconnect();
             }
+            sshCloudConnector.releaseSession(session);
         }
     }
 
@@ -286,12 +361,10 @@ public class CloudStorageServiceNci extends CloudStorageService {
         } catch (JSchException | SftpException e) {
             throw new PortalServiceException(e.getMessage(), e);
         } finally {
-            if (session != null) {
-                session.disconnect();
-            }
             if (channel != null) {
                 channel.disconnect();
             }
+            sshCloudConnector.releaseSession(session);
         }
     }
 }
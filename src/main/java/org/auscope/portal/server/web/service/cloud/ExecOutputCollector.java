@@ -0,0 +1,137 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.Session;
+
+/**
+ * Collects the stdout and stderr of an exec channel as the JSch session thread delivers it.
+ *
+ * Both streams are written directly by JSch (no piped streams) so neither can back up and stall the other.
+ * Each stream is buffered up to a maximum number of bytes (the remainder is dropped) and can optionally
+ * be forwarded to an ExecOutputListener as it arrives. JSch closes stdout on EOF and stderr when the
+ * channel closes (after the exit status has been received) so completion is signalled without polling.
+ */
+class ExecOutputCollector {
+
+    /** How often we double check the channel/session while waiting - only matters if JSch never closes our streams */
+    private static final long LIVENESS_CHECK_MILLIS = 250;
+
+    private final Log logger = LogFactory.getLog(getClass());
+    private final CountDownLatch streamsClosed = new CountDownLatch(2);
+    private final CollectingStream out;
+    private final CollectingStream err;
+
+    /**
+     * @param maxBytes The maximum number of bytes buffered for each of stdout and stderr
+     * @param listener [Optional] Receives all output as it arrives (regardless of maxBytes)
+     */
+    public ExecOutputCollector(int maxBytes, ExecOutputListener listener) {
+        this.out = new CollectingStream(maxBytes, listener, false);
+        this.err = new CollectingStream(maxBytes, listener, true);
+    }
+
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    public OutputStream getErrorStream() {
+        return err;
+    }
+
+    /**
+     * Blocks until the remote command has finished and the channel has closed (or the session has died)
+     * @param channel
+     * @param session
+     * @throws InterruptedException
+     */
+    public void awaitCompletion(Channel channel, Session session) throws InterruptedException {
+        while (!streamsClosed.await(LIVENESS_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (channel.isClosed() || !session.isConnected()) {
+                return;
+            }
+        }
+    }
+
+    public String getOut() {
+        return out.toString();
+    }
+
+    public String getErr() {
+        return err.toString();
+    }
+
+    /**
+     * True if either stream produced more than maxBytes
+     * @return
+     */
+    public boolean isTruncated() {
+        return out.truncated || err.truncated;
+    }
+
+    private class CollectingStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int maxBytes;
+        private final ExecOutputListener listener;
+        private final boolean stderr;
+        private boolean truncated;
+        private boolean closed;
+
+        public CollectingStream(int maxBytes, ExecOutputListener listener, boolean stderr) {
+            this.maxBytes = maxBytes;
+            this.listener = listener;
+            this.stderr = stderr;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int toBuffer = Math.min(len, maxBytes - buffer.size());
+            if (toBuffer > 0) {
+                buffer.write(b, off, toBuffer);
+            }
+            if (toBuffer < len) {
+                truncated = true;
+            }
+
+            if (listener != null) {
+                //Never let a misbehaving listener kill the JSch session thread
+                try {
+                    if (stderr) {
+                        listener.onStderr(b, off, len);
+                    } else {
+                        listener.onStdout(b, off, len);
+                    }
+                } catch (RuntimeException ex) {
+                    logger.warn("Exec output listener failed: " + ex.getMessage());
+                    logger.debug("Exception:", ex);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                streamsClosed.countDown();
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.auscope.portal.server.web.service.cloud;
+
+/**
+ * Receives the output of a remote command as it arrives (eg - for consuming a long qcat incrementally).
+ *
+ * Methods are called from the JSch session thread, implementations should return quickly and must
+ * not block. The buffers are only valid for the duration of the call.
+ */
+public interface ExecOutputListener {
+
+    /**
+     * Called with each chunk of stdout
+     * @param buffer
+     * @param offset
+     * @param length
+     */
+    public void onStdout(byte[] buffer, int offset, int length);
+
+    /**
+     * Called with each chunk of stderr
+     * @param buffer
+     * @param offset
+     * @param length
+     */
+    public void onStderr(byte[] buffer, int offset, int length);
+}
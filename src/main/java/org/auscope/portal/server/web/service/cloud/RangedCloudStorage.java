@@ -0,0 +1,26 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import org.auscope.portal.core.cloud.CloudFileOwner;
+import org.auscope.portal.core.services.PortalServiceException;
+
+/**
+ * Implemented by cloud storage services that can read part of a job file without transferring
+ * the bytes before it (eg - for fetching only the newly appended part of a growing log).
+ */
+public interface RangedCloudStorage {
+
+    /**
+     * Opens the specified job file starting at offset bytes into it. The returned stream also reports the size and
+     * modification time of the whole file so callers can tell whether it has changed since an earlier read.
+     *
+     * @param job
+     *            The job whose storage space will be queried
+     * @param fileName
+     *            The file name (no prefix) of the file to read
+     * @param offset
+     *            The number of bytes to skip. An offset at or beyond the end of the file gives an empty stream.
+     * @return The stream (caller must close) or null if the file doesn't exist
+     * @throws PortalServiceException
+     */
+    public RangedInputStream getJobFile(CloudFileOwner job, String fileName, long offset) throws PortalServiceException;
+}
@@ -0,0 +1,41 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * A stream over part of a file (as returned by RangedCloudStorage) along with the size and modification time of
+ * the whole file at the time it was opened. Closing this stream closes the underlying stream.
+ */
+public class RangedInputStream extends FilterInputStream {
+
+    private final long fileSize;
+    private final long lastModified;
+
+    /**
+     * @param in The contents of the file from the requested offset
+     * @param fileSize The size (in bytes) of the whole file
+     * @param lastModified When the file was last modified (in milliseconds since the epoch)
+     */
+    public RangedInputStream(InputStream in, long fileSize, long lastModified) {
+        super(in);
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * The size (in bytes) of the whole file
+     * @return
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * When the file was last modified (in milliseconds since the epoch)
+     * @return
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
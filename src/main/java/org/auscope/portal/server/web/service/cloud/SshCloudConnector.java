@@ -13,9 +13,7 @@ import org.auscope.portal.core.cloud.CloudFileOwner;
 import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.server.web.security.NCIDetails;
 
-import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 
@@ -26,10 +24,45 @@ import com.jcraft.jsch.Session;
 public class SshCloudConnector {
     private final Log logger = LogFactory.getLog(getClass());
 
+    public static final int DEFAULT_SSH_PORT = 22;
+    /** The default maximum number of bytes kept from each of stdout/stderr of a remote command */
+    public static final int DEFAULT_MAX_OUTPUT_BYTES = 16 * 1024 * 1024;
+
     private String endPoint;
+    private int port;
+    private SshSessionPool sessionPool;
+    private int maxOutputBytes = DEFAULT_MAX_OUTPUT_BYTES;
+
+    /**
+     * @param endPoint The SSH host name
+     * @param port The SSH port
+     * @param sessionPool Used for sharing authenticated sessions between requests. Connectors to the same host
+     *            should share one (application managed) pool
+     */
+    public SshCloudConnector(String endPoint, int port, SshSessionPool sessionPool) {
+        this.endPoint = endPoint;
+        this.port = port;
+        this.sessionPool = sessionPool;
+    }
+
+    public SshSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * The maximum number of bytes kept from each of stdout/stderr of a remote command (the rest is discarded)
+     * @return
+     */
+    public int getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
 
-    public SshCloudConnector(String endPoint) {
-        this.endPoint= endPoint;
+    /**
+     * The maximum number of bytes kept from each of stdout/stderr of a remote command (the rest is discarded)
+     * @param maxOutputBytes
+     */
+    public void setMaxOutputBytes(int maxOutputBytes) {
+        this.maxOutputBytes = maxOutputBytes;
     }
 
     public class ExecResult {
@@ -101,60 +134,58 @@ public class SshCloudConnector {
         private int exitStatus;
     }
 
-    String readStream(InputStream in, Channel channel) throws IOException, InterruptedException {
-        StringBuilder res = new StringBuilder();
-        byte[] tmp = new byte[1024];
-        while (true) {
-            while (in.available() > 0) {
-                int i = in.read(tmp, 0, 1024);
-                if (i < 0) {
-                    break;
-                }
-                res.append(new String(tmp, 0, i));
-            }
-            if (channel.isClosed()) {
-                if (in.available() > 0) {
-                    continue;
-                }
-                break;
-            }
-            Thread.sleep(1000);
-        }
-        return res.toString();
-    }
-
     public ExecResult executeCommand(Session session, String command) throws PortalServiceException {
         return executeCommand(session, command, null);
     }
 
     /**
      * Retrieves the session for the specified Job.
+     *
+     * Sessions are pooled - the returned session must be handed back with releaseSession rather than disconnected.
      * @param job
      * @return
      * @throws PortalServiceException
      */
     public Session getSession(CloudFileOwner job) throws PortalServiceException {
         try {
-            JSch jsch = new JSch();
             String prvkey = job.getProperty(NCIDetails.PROPERTY_NCI_KEY);
-            jsch.addIdentity(new IdentityString(jsch, prvkey), null);
             String userName = job.getProperty(NCIDetails.PROPERTY_NCI_USER);
-            Session session = jsch.getSession(userName, endPoint, 22);
-            session.setConfig("StrictHostKeyChecking", "no");
-            if (!session.isConnected()) {
-                session.connect();
-            }
-
-            return session;
+            return sessionPool.borrowSession(userName, endPoint, port, prvkey);
         } catch (JSchException ex) {
             logger.error("Unable to retrieve SSH session for job " + job.getId() + ":" + ex.getMessage());
             logger.debug("Exception:", ex);
             throw new PortalServiceException("Unable to retrieve SSH session for job " + job.getId(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PortalServiceException("Interrupted retrieving SSH session for job " + job.getId(), ex);
         }
 
     }
 
+    /**
+     * Returns a session obtained from getSession to the session pool
+     * @param session
+     */
+    public void releaseSession(Session session) {
+        sessionPool.releaseSession(session);
+    }
+
     public ExecResult executeCommand(Session session, String command, String workingDir) throws PortalServiceException {
+        return executeCommand(session, command, workingDir, null);
+    }
+
+    /**
+     * Executes command on session, returning as soon as the remote command exits. stdout and stderr are
+     * read at the same time (each buffered up to maxOutputBytes).
+     *
+     * @param session
+     * @param command
+     * @param workingDir [Optional] The directory to run command in
+     * @param listener [Optional] Receives all output as it arrives
+     * @return
+     * @throws PortalServiceException
+     */
+    public ExecResult executeCommand(Session session, String command, String workingDir, ExecOutputListener listener) throws PortalServiceException {
         ChannelExec channel = null;
         if(workingDir!=null) {
             command = "cd "+workingDir+"; "+command;
@@ -164,18 +195,21 @@ public class SshCloudConnector {
             channel = (ChannelExec) session.openChannel("exec");
             channel.setCommand(command);
             channel.setInputStream(null);
-            channel.setErrStream(null);
 
-            channel.connect();
+            ExecOutputCollector collector = new ExecOutputCollector(maxOutputBytes, listener);
+            channel.setOutputStream(collector.getOutputStream());
+            channel.setErrStream(collector.getErrorStream());
 
-            try (InputStream out = channel.getInputStream();
-                    InputStream err = channel.getErrStream()) {
-                String outStr = readStream(out, channel);
-                String errStr = readStream(err, channel);
-                return new ExecResult(outStr, errStr, channel.getExitStatus());
-            } catch (IOException | InterruptedException e) {
-                throw new PortalServiceException(e.getMessage(), e);
+            channel.connect();
+            collector.awaitCompletion(channel, session);
+            if (collector.isTruncated()) {
+                logger.warn(String.format("Output of '%1$s' exceeded %2$d bytes and was truncated", command, maxOutputBytes));
             }
+
+            return new ExecResult(collector.getOut(), collector.getErr(), channel.getExitStatus());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PortalServiceException(e.getMessage(), e);
         } catch (JSchException e) {
             throw new PortalServiceException(e.getMessage(), e);
         } finally {
@@ -5,19 +5,89 @@ package org.auscope.portal.server.web.service.cloud;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.Cleaner;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.Session;
 
 /**
+ * Holds an SFTP channel (and a channel slot of its pooled session) until it is closed or reaches the end of the
+ * file. A stream that is abandoned without either releases them when it is garbage collected.
+ *
  * @author fri096
  *
  */
 public class SshInputStream extends InputStream {
 
-    private Session session;
-    private ChannelSftp channel;
-    private InputStream inputStream;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final InputStream inputStream;
+    private final ChannelResources resources;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * The channel and session of a stream. Must not reference the stream itself (or it would never be collected)
+     */
+    private static class ChannelResources implements Runnable {
+        private final Log logger = LogFactory.getLog(SshInputStream.class);
+
+        private final SshCloudConnector connector;
+        private final Session session;
+        private final ChannelSftp channel;
+        private final InputStream inputStream;
+        private volatile boolean released = false;
+
+        public ChannelResources(SshCloudConnector connector, Session session, ChannelSftp channel, InputStream inputStream) {
+            this.connector = connector;
+            this.session = session;
+            this.channel = channel;
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * Called at most once - by close, at the end of the stream or by the cleaner
+         */
+        @Override
+        public void run() {
+            if (!released) {
+                released = true;
+                logger.warn("An SshInputStream was never closed - releasing its SSH channel");
+            }
+
+            try {
+                inputStream.close();
+            } catch (IOException ex) {
+                logger.debug("Unable to close SFTP stream: " + ex.getMessage());
+            }
+            if (channel != null) {
+                channel.disconnect();
+            }
+            if (connector != null && session != null) {
+                connector.releaseSession(session);
+            }
+        }
+    }
+
+    /**
+     * Releases the channel and session (only the first call has any effect)
+     */
+    private void release() {
+        resources.released = true;
+        cleanable.clean();
+    }
+
+    /**
+     * Releases the channel and session if count marks the end of the stream
+     */
+    private int releaseAtEnd(int count) {
+        if (count < 0) {
+            release();
+        }
+        return count;
+    }
 
     /**
      * @return
@@ -26,6 +96,9 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public int available() throws IOException {
+        if (resources.released) {
+            return 0;
+        }
         return inputStream.available();
     }
 
@@ -35,9 +108,7 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public void close() throws IOException {
-        inputStream.close();
-        channel.disconnect();
-        session.disconnect();
+        release();
     }
 
     /**
@@ -68,7 +139,10 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public int read(byte[] arg0, int arg1, int arg2) throws IOException {
-        return inputStream.read(arg0, arg1, arg2);
+        if (resources.released) {
+            return -1;
+        }
+        return releaseAtEnd(inputStream.read(arg0, arg1, arg2));
     }
 
     /**
@@ -79,7 +153,7 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public int read(byte[] arg0) throws IOException {
-        return inputStream.read(arg0);
+        return read(arg0, 0, arg0.length);
     }
 
     /**
@@ -99,6 +173,9 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public long skip(long arg0) throws IOException {
+        if (resources.released) {
+            return 0;
+        }
         return inputStream.skip(arg0);
     }
 
@@ -111,12 +188,16 @@ public class SshInputStream extends InputStream {
         return inputStream.toString();
     }
 
-    public SshInputStream(Session session, ChannelSftp channel, InputStream inputStream) {
-        if(session!=null)
-            this.session=session;
-        if(channel!=null)
-            this.channel=channel;
+    /**
+     * @param connector The connector that session was obtained from. The session will be released to it on close
+     * @param session
+     * @param channel
+     * @param inputStream
+     */
+    public SshInputStream(SshCloudConnector connector, Session session, ChannelSftp channel, InputStream inputStream) {
         this.inputStream=inputStream;
+        this.resources=new ChannelResources(connector, session, channel, inputStream);
+        this.cleanable=CLEANER.register(this, resources);
     }
 
     /* (non-Javadoc)
@@ -124,7 +205,10 @@ public class SshInputStream extends InputStream {
      */
     @Override
     public int read() throws IOException {
-        return inputStream.read();
+        if (resources.released) {
+            return -1;
+        }
+        return releaseAtEnd(inputStream.read());
     }
 
 }
@@ -0,0 +1,404 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Keeps authenticated JSch sessions open between requests so that repeated qstat/qcat/sftp calls
+ * for the same user can share a single SSH connection (and a single key exchange).
+ *
+ * Sessions are keyed on user name, host, port and private key. Callers borrow a session with
+ * borrowSession and MUST hand it back with releaseSession rather than disconnecting it. Every borrow
+ * holds one of a limited number of channel slots on the session so the server's per connection
+ * channel limit (MaxSessions for OpenSSH) is never exceeded.
+ *
+ * Sessions are kept alive with SSH keep alive messages and disconnected once they have been idle for
+ * longer than the idle timeout. Sessions that have been quiet for a while are probed by running a no-op
+ * command before being handed out - a keep alive message is only queued locally so it can't tell a
+ * dead connection from a live one.
+ */
+public class SshSessionPool {
+
+    /** OpenSSH defaults to MaxSessions 10 - leave some headroom for other clients */
+    public static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 8;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    public static final int DEFAULT_KEEP_ALIVE_MILLIS = 30 * 1000;
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 60 * 1000;
+
+    /** Sessions idle for longer than this are probed before being handed out */
+    public static final long DEFAULT_VALIDATE_AFTER_IDLE_MILLIS = 10 * 1000;
+    /** How long a probe may take before its session is considered dead */
+    public static final long DEFAULT_PROBE_TIMEOUT_MILLIS = 5 * 1000;
+    /** The command run to probe a session - it must answer without doing any work */
+    public static final String PROBE_COMMAND = "true";
+    private static final long PROBE_POLL_MILLIS = 10;
+    /** How many keep alive messages can go unanswered before a session is dropped */
+    public static final int KEEP_ALIVE_COUNT_MAX = 3;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final int maxChannelsPerSession;
+    private final long idleTimeoutMillis;
+    private final int keepAliveMillis;
+    private final long borrowTimeoutMillis;
+    private long validateAfterIdleMillis = DEFAULT_VALIDATE_AFTER_IDLE_MILLIS;
+    private long probeTimeoutMillis = DEFAULT_PROBE_TIMEOUT_MILLIS;
+
+    private final ConcurrentHashMap<String, PooledSession> sessionsByKey = new ConcurrentHashMap<String, PooledSession>();
+    private final ConcurrentHashMap<String, Object> connectLocks = new ConcurrentHashMap<String, Object>();
+    private final Map<Session, PooledSession> sessionsByInstance = Collections.synchronizedMap(new IdentityHashMap<Session, PooledSession>());
+    private final AtomicInteger connectCount = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+
+    public SshSessionPool() {
+        this(DEFAULT_MAX_CHANNELS_PER_SESSION, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_BORROW_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param maxChannelsPerSession The maximum number of concurrent borrows (channels) for a single session
+     * @param idleTimeoutMillis Sessions unused for this long will be disconnected
+     * @param keepAliveMillis The interval between SSH keep alive messages
+     * @param borrowTimeoutMillis How long borrowSession will wait for a free channel before failing
+     */
+    public SshSessionPool(int maxChannelsPerSession, long idleTimeoutMillis, int keepAliveMillis, long borrowTimeoutMillis) {
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.keepAliveMillis = keepAliveMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ssh-session-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long evictPeriod = Math.max(1000, idleTimeoutMillis / 2);
+        this.evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdleSessions();
+            }
+        }, evictPeriod, evictPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sessions that have been idle for longer than this are probed before being handed out
+     * @param validateAfterIdleMillis
+     */
+    public void setValidateAfterIdleMillis(long validateAfterIdleMillis) {
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+    }
+
+    /**
+     * How long a probe of an idle session may take before the session is discarded
+     * @param probeTimeoutMillis
+     */
+    public void setProbeTimeoutMillis(long probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+    }
+
+    private static String sessionKey(String userName, String host, int port, String privateKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder keyHash = new StringBuilder();
+            for (byte b : digest.digest(privateKey.getBytes(StandardCharsets.UTF_8))) {
+                keyHash.append(String.format("%02x", b));
+            }
+            return String.format("%1$s@%2$s:%3$d#%4$s", userName, host, port, keyHash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is unavailable", ex);
+        }
+    }
+
+    private PooledSession connect(String key, String userName, String host, int port, String privateKey) throws JSchException {
+        JSch jsch = new JSch();
+        jsch.addIdentity(new IdentityString(jsch, privateKey), null);
+        Session session = jsch.getSession(userName, host, port);
+        session.setConfig("StrictHostKeyChecking", "no");
+        session.setServerAliveInterval(keepAliveMillis);
+        session.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+        session.connect();
+        connectCount.incrementAndGet();
+        logger.debug(String.format("Opened SSH session for %1$s@%2$s:%3$d", userName, host, port));
+
+        return new PooledSession(key, session, maxChannelsPerSession);
+    }
+
+    /**
+     * Gets (or connects) the pooled session for key. Only one connection attempt per key is made at a time.
+     *
+     * The lock for a key is removed once its session is discarded (or its connection attempt fails) so a thread
+     * still waiting on the old lock may race one using a new lock - whichever connects second throws its session
+     * away and uses the first.
+     */
+    private PooledSession getOrConnect(String key, String userName, String host, int port, String privateKey) throws JSchException {
+        PooledSession pooled = sessionsByKey.get(key);
+        if (pooled != null) {
+            return pooled;
+        }
+
+        Object lock = new Object();
+        Object existingLock = connectLocks.putIfAbsent(key, lock);
+        if (existingLock != null) {
+            lock = existingLock;
+        }
+
+        synchronized (lock) {
+            pooled = sessionsByKey.get(key);
+            if (pooled != null) {
+                return pooled;
+            }
+
+            try {
+                pooled = connect(key, userName, host, port, privateKey);
+            } catch (JSchException ex) {
+                connectLocks.remove(key, lock);
+                throw ex;
+            }
+
+            sessionsByInstance.put(pooled.session, pooled);
+            PooledSession existing = sessionsByKey.putIfAbsent(key, pooled);
+            if (existing != null) {
+                sessionsByInstance.remove(pooled.session);
+                pooled.session.disconnect();
+                return existing;
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * Removes pooled from this pool so it is no longer handed out. It is disconnected straight away if it has no
+     * leases, otherwise when its last lease is released (so channels other threads have open on it are left alone).
+     * Must be called while holding pooled's lock.
+     */
+    private void discard(PooledSession pooled) {
+        pooled.discarded = true;
+        sessionsByKey.remove(pooled.key, pooled);
+        connectLocks.remove(pooled.key);
+        disconnectIfUnused(pooled);
+    }
+
+    /**
+     * Disconnects pooled if it has been discarded and has no leases. Must be called while holding pooled's lock.
+     */
+    private void disconnectIfUnused(PooledSession pooled) {
+        if (pooled.discarded && pooled.leases == 0) {
+            sessionsByInstance.remove(pooled.session);
+            pooled.session.disconnect();
+        }
+    }
+
+    /**
+     * Borrows an authenticated, connected session for the specified user. The returned session must
+     * be returned with releaseSession (do NOT disconnect it).
+     *
+     * @param userName
+     * @param host
+     * @param port
+     * @param privateKey The PEM encoded private key for userName
+     * @return
+     * @throws JSchException If the session can't be connected or no channel became free in time
+     * @throws InterruptedException
+     */
+    public Session borrowSession(String userName, String host, int port, String privateKey) throws JSchException, InterruptedException {
+        String key = sessionKey(userName, host, port, privateKey);
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+
+        while (true) {
+            PooledSession pooled = getOrConnect(key, userName, host, port, privateKey);
+            long remaining = deadline - System.currentTimeMillis();
+            if (!pooled.channelSlots.tryAcquire(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+                throw new JSchException(String.format("Timed out waiting for a free SSH channel to %1$s@%2$s:%3$d", userName, host, port));
+            }
+
+            synchronized (pooled) {
+                if (!pooled.discarded && pooled.isHealthy()) {
+                    pooled.leases++;
+                    pooled.lastUsed = System.currentTimeMillis();
+                    return pooled.session;
+                }
+
+                //Stale session - throw it away and reconnect
+                pooled.channelSlots.release();
+                if (!pooled.discarded) {
+                    logger.debug("Discarding stale SSH session for " + userName + "@" + host);
+                    discard(pooled);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a session previously obtained from borrowSession. Sessions that don't belong to this
+     * pool will be disconnected.
+     * @param session
+     */
+    public void releaseSession(Session session) {
+        if (session == null) {
+            return;
+        }
+
+        PooledSession pooled = sessionsByInstance.get(session);
+        if (pooled == null) {
+            session.disconnect();
+            return;
+        }
+
+        synchronized (pooled) {
+            if (pooled.leases > 0) {
+                pooled.leases--;
+                pooled.lastUsed = System.currentTimeMillis();
+                pooled.channelSlots.release();
+            }
+            disconnectIfUnused(pooled);
+        }
+    }
+
+    /**
+     * Disconnects every unused session that has been idle for longer than the idle timeout (or has died)
+     */
+    public void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        List<PooledSession> candidates = new ArrayList<PooledSession>(sessionsByKey.values());
+        for (PooledSession pooled : candidates) {
+            synchronized (pooled) {
+                if (pooled.discarded || pooled.leases > 0) {
+                    continue;
+                }
+
+                if (now - pooled.lastUsed >= idleTimeoutMillis || !pooled.session.isConnected()) {
+                    discard(pooled);
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of sessions currently held open by this pool
+     * @return
+     */
+    public int getSessionCount() {
+        return sessionsByKey.size();
+    }
+
+    /**
+     * The total number of SSH connections (handshakes) this pool has made
+     * @return
+     */
+    public int getConnectCount() {
+        return connectCount.get();
+    }
+
+    /**
+     * The number of per session connection locks currently held by this pool
+     * @return
+     */
+    int getConnectLockCount() {
+        return connectLocks.size();
+    }
+
+    /**
+     * Disconnects every pooled session (those still on loan when they are released) and stops the idle session
+     * evictor
+     */
+    public void close() {
+        evictor.shutdownNow();
+        List<PooledSession> candidates = new ArrayList<PooledSession>(sessionsByKey.values());
+        for (PooledSession pooled : candidates) {
+            synchronized (pooled) {
+                if (!pooled.discarded) {
+                    discard(pooled);
+                }
+            }
+        }
+    }
+
+    private class PooledSession {
+        private final String key;
+        private final Session session;
+        private final Semaphore channelSlots;
+        private int leases;
+        private long lastUsed;
+        private boolean discarded;
+
+        public PooledSession(String key, Session session, int maxChannels) {
+            this.key = key;
+            this.session = session;
+            this.channelSlots = new Semaphore(maxChannels, true);
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        /**
+         * Sessions that have been quiet for a while must answer a probe before being trusted. The caller holds a
+         * channel slot for the probe.
+         */
+        public boolean isHealthy() {
+            if (!session.isConnected()) {
+                return false;
+            }
+
+            if (System.currentTimeMillis() - lastUsed > validateAfterIdleMillis) {
+                return probe();
+            }
+
+            return true;
+        }
+
+        /**
+         * Runs PROBE_COMMAND and waits (up to the probe timeout) for the server to close its channel. Only the round
+         * trip matters, not the command's exit status.
+         */
+        private boolean probe() {
+            ChannelExec channel = null;
+            try {
+                long deadline = System.currentTimeMillis() + probeTimeoutMillis;
+                channel = (ChannelExec) session.openChannel("exec");
+                channel.setCommand(PROBE_COMMAND);
+                channel.setInputStream(null);
+                channel.connect((int) Math.max(1, probeTimeoutMillis));
+                while (!channel.isClosed()) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        logger.debug(String.format("SSH probe timed out after %1$dms", probeTimeoutMillis));
+                        return false;
+                    }
+                    Thread.sleep(PROBE_POLL_MILLIS);
+                }
+                return true;
+            } catch (JSchException ex) {
+                logger.debug("SSH probe failed: " + ex.getMessage());
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                if (channel != null) {
+                    channel.disconnect();
+                }
+            }
+        }
+    }
+}
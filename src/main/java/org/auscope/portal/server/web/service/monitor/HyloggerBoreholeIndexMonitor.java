@@ -0,0 +1,36 @@
+package org.auscope.portal.server.web.service.monitor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auscope.portal.server.web.service.HyloggerBoreholeIndex;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+/**
+ * A Quartz job that regularly refreshes the hylogger borehole IDs held by a HyloggerBoreholeIndex
+ */
+public class HyloggerBoreholeIndexMonitor extends QuartzJobBean {
+    private final Log LOG = LogFactory.getLog(getClass());
+
+    private HyloggerBoreholeIndex hyloggerBoreholeIndex;
+
+    public HyloggerBoreholeIndex getHyloggerBoreholeIndex() {
+        return hyloggerBoreholeIndex;
+    }
+
+    public void setHyloggerBoreholeIndex(HyloggerBoreholeIndex hyloggerBoreholeIndex) {
+        this.hyloggerBoreholeIndex = hyloggerBoreholeIndex;
+    }
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        try {
+            hyloggerBoreholeIndex.refresh();
+        } catch (Exception ex) {
+            LOG.info(String.format("Error refreshing hylogger borehole index: %1$s", ex.getMessage()));
+            LOG.debug("Exception:", ex);
+            throw new JobExecutionException(ex);
+        }
+    }
+}
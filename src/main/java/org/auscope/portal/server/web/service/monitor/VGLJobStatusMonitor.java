@@ -1,19 +1,33 @@
 package org.auscope.portal.server.web.service.monitor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.auscope.portal.core.cloud.CloudJob;
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.services.cloud.CloudComputeService.InstanceStatus;
 import org.auscope.portal.core.services.cloud.monitor.JobStatusMonitor;
 import org.auscope.portal.server.vegl.VEGLJob;
 import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
 import org.auscope.portal.server.web.security.ANVGLUser;
 import org.auscope.portal.server.web.security.NCIDetails;
 import org.auscope.portal.server.web.service.ANVGLUserService;
 import org.auscope.portal.server.web.service.NCIDetailsService;
+import org.auscope.portal.server.web.service.cloud.CloudComputeServiceNci;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 
 /**
@@ -28,8 +42,15 @@ import org.springframework.scheduling.quartz.QuartzJobBean;
  * from the database and VGLJobStatusAndLogReader to poll
  * each job execution status from s3 cloud storage.
  *
+ * Jobs are grouped by owner and compute service. Credentials are
+ * resolved once per owner and each group is polled as a unit (in parallel
+ * if an executor has been set). NCI groups have their PBS status
+ * fetched with a single batched qstat before the group is polled and
+ * each job carries its batched status through the poll.
+ *
  * @author Richard Goh
  */
+@DisallowConcurrentExecution
 public class VGLJobStatusMonitor extends QuartzJobBean {
     private final Log LOG = LogFactory.getLog(getClass());
 
@@ -37,6 +58,8 @@ public class VGLJobStatusMonitor extends QuartzJobBean {
     private JobStatusMonitor jobStatusMonitor;
     private ANVGLUserService jobUserService;
     private NCIDetailsService nciDetailsService;
+    private CloudComputeService[] cloudComputeServices;
+    private AsyncTaskExecutor executor;
     
     
     // Solely for testing
@@ -65,27 +88,185 @@ public class VGLJobStatusMonitor extends QuartzJobBean {
         this.jobStatusMonitor = jobStatusMonitor;
     }
 
+    /**
+     * Sets the compute services used to identify providers that support batched status lookups
+     * @param cloudComputeServices
+     */
+    public void setCloudComputeServices(CloudComputeService[] cloudComputeServices) {
+        this.cloudComputeServices = cloudComputeServices;
+    }
+
+    /**
+     * Sets the (bounded) executor used to poll job groups in parallel. If not set (or
+     * the executor is saturated), groups are polled sequentially on the calling thread.
+     * @param executor
+     */
+    public void setExecutor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the credential properties for user (and their NCI details) on every job in jobs
+     */
+    private static void applyCredentials(List<VEGLJob> jobs, ANVGLUser user, NCIDetails nciDetails) {
+        String nciUser = null;
+        String nciProject = null;
+        String nciKey = null;
+        if (nciDetails != null) {
+            nciUser = nciDetails.getUsername();
+            nciProject = nciDetails.getProject();
+            nciKey = nciDetails.getKey();
+        }
+
+        for (VEGLJob veglJob : jobs) {
+            veglJob.setProperty(CloudJob.PROPERTY_STS_ARN, user.getArnExecution());
+            veglJob.setProperty(CloudJob.PROPERTY_CLIENT_SECRET, user.getAwsSecret());
+            if (nciDetails != null) {
+                veglJob.setProperty(NCIDetails.PROPERTY_NCI_USER, nciUser);
+                veglJob.setProperty(NCIDetails.PROPERTY_NCI_PROJECT, nciProject);
+                veglJob.setProperty(NCIDetails.PROPERTY_NCI_KEY, nciKey);
+            }
+        }
+    }
+
+    private CloudComputeService getComputeService(String computeServiceId) {
+        if (cloudComputeServices == null || computeServiceId == null) {
+            return null;
+        }
+
+        for (CloudComputeService ccs : cloudComputeServices) {
+            if (computeServiceId.equals(ccs.getId())) {
+                return ccs;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Polls a single group of jobs that share an owner and compute service. For NCI the PBS
+     * status of every job is looked up with a single batched qstat and set on each job (as
+     * VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS) for the duration of the poll. Jobs
+     * missing from the batch (or failure of the batched lookup) fall back to per job lookups.
+     */
+    private void pollGroup(List<VEGLJob> jobs) throws Exception {
+        CloudComputeService ccs = getComputeService(jobs.get(0).getComputeServiceId());
+        if (ccs instanceof CloudComputeServiceNci) {
+            try {
+                Map<Integer, InstanceStatus> statuses = ((CloudComputeServiceNci) ccs).getJobStatuses(jobs);
+                for (VEGLJob job : jobs) {
+                    InstanceStatus status = statuses.get(job.getId());
+                    if (status != null) {
+                        job.setProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS, status.name());
+                    }
+                }
+            } catch (Exception ex) {
+                LOG.warn(String.format("Unable to batch query status of %1$d job(s) on '%2$s': %3$s", jobs.size(), ccs.getId(), ex.getMessage()));
+                LOG.debug("Exception:", ex);
+            }
+        }
+
+        try {
+            jobStatusMonitor.statusUpdate(jobs);
+        } finally {
+            for (VEGLJob job : jobs) {
+                job.setProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS, null);
+            }
+        }
+    }
+
+    /**
+     * Splits jobs into groups sharing the same owner and compute service (preserving job order)
+     */
+    private static Map<String, List<VEGLJob>> groupJobs(List<VEGLJob> jobs) {
+        Map<String, List<VEGLJob>> groups = new LinkedHashMap<String, List<VEGLJob>>();
+        for (VEGLJob job : jobs) {
+            String key = job.getEmailAddress() + "\n" + job.getComputeServiceId();
+            List<VEGLJob> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<VEGLJob>();
+                groups.put(key, group);
+            }
+            group.add(job);
+        }
+        return groups;
+    }
+
     @Override
     protected void executeInternal(JobExecutionContext ctx)
             throws JobExecutionException {
         try {
             List<VEGLJob> jobs = jobManager.getPendingOrActiveJobs();
-            for (VEGLJob veglJob : jobs) {
-                ANVGLUser user = jobUserService.getByEmail(veglJob.getEmailAddress());
-                veglJob.setProperty(CloudJob.PROPERTY_STS_ARN, user.getArnExecution());
-                veglJob.setProperty(CloudJob.PROPERTY_CLIENT_SECRET, user.getAwsSecret());
-                NCIDetails nciDetails = nciDetailsService.getByUser(user);
-                if (nciDetails != null) {
-                    veglJob.setProperty(NCIDetails.PROPERTY_NCI_USER, nciDetails.getUsername());
-                    veglJob.setProperty(NCIDetails.PROPERTY_NCI_PROJECT, nciDetails.getProject());
-                    veglJob.setProperty(NCIDetails.PROPERTY_NCI_KEY, nciDetails.getKey());
+            Map<String, List<VEGLJob>> groups = groupJobs(jobs);
+
+            //Credentials are resolved (and decrypted) once per owner rather than once per job
+            Map<String, ANVGLUser> users = new HashMap<String, ANVGLUser>();
+            Map<String, NCIDetails> nciDetailsByUser = new HashMap<String, NCIDetails>();
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (final List<VEGLJob> group : groups.values()) {
+                String email = group.get(0).getEmailAddress();
+                if (!users.containsKey(email)) {
+                    ANVGLUser user = jobUserService.getByEmail(email);
+                    users.put(email, user);
+                    nciDetailsByUser.put(email, user == null ? null : nciDetailsService.getByUser(user));
+                }
+
+                ANVGLUser user = users.get(email);
+                if (user == null) {
+                    LOG.warn(String.format("Unable to find user '%1$s'. Skipping status update of %2$d job(s)", email, group.size()));
+                    continue;
                 }
+                applyCredentials(group, user, nciDetailsByUser.get(email));
+
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        pollGroup(group);
+                        return null;
+                    }
+                });
+            }
+
+            //Every group gets polled - the first failure (if any) is reported once they have all finished
+            Exception firstError = null;
+            if (executor == null) {
+                for (Callable<Void> task : tasks) {
+                    try {
+                        task.call();
+                    } catch (Exception ex) {
+                        firstError = firstError == null ? ex : firstError;
+                    }
+                }
+            } else {
+                List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+                for (Callable<Void> task : tasks) {
+                    try {
+                        futures.add(executor.submit(task));
+                    } catch (RejectedExecutionException rejected) {
+                        //The pool is saturated - poll this group ourselves rather than skipping it
+                        try {
+                            task.call();
+                        } catch (Exception ex) {
+                            firstError = firstError == null ? ex : firstError;
+                        }
+                    }
+                }
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause();
+                        firstError = firstError == null ? (cause instanceof Exception ? (Exception) cause : ex) : firstError;
+                    }
+                }
+            }
+
+            if (firstError != null) {
+                throw firstError;
             }
-            jobStatusMonitor.statusUpdate(jobs);
         } catch (Exception ex) {
             LOG.info(String.format("Error update jobs: %1$s", ex.getMessage()));
             LOG.debug("Exception:", ex);
             throw new JobExecutionException(ex);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,356 @@
+package org.auscope.portal.server.web.service.scm;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A size bounded cache of Scientific Solutions Centre (SSC) responses (solutions, problems, toolboxes and listings)
+ * shared by every request to this portal.
+ *
+ * Responses are cached as the raw JSON body and deserialised on every get, so callers always receive their own
+ * (mutable) Entry instances. Entries are:
+ * <ul>
+ * <li>Served from memory while younger than the TTL</li>
+ * <li>Served from memory and revalidated in the background while younger than TTL + stale-while-revalidate</li>
+ * <li>Revalidated before being served once older than that</li>
+ * </ul>
+ * Revalidation is conditional (If-None-Match/If-Modified-Since) so an unchanged entry costs a 304 rather than a full
+ * body. Concurrent misses for the same URL share a single request and all requests go through one pooled HTTP client.
+ *
+ * Entries are keyed on (and requested with) an encoded URI. String URLs are expanded and encoded the same way
+ * RestTemplate would, so callers building a query from user values should encode it themselves and pass the URI.
+ */
+public class ScmEntryCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_STALE_WHILE_REVALIDATE_MILLIS = 60 * 60 * 1000;
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_TIMEOUT_MILLIS = 30 * 1000;
+
+    /** Background revalidations beyond this (and the running ones) are rejected, leaving the entry to a later get */
+    static final int REVALIDATION_QUEUE_SIZE = 100;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper mapper;
+    private final long ttlMillis;
+    private final long staleWhileRevalidateMillis;
+    private final ExecutorService revalidator;
+    private final Map<String, CachedResponse> cache;
+    private final ConcurrentHashMap<String, FutureTask<CachedResponse>> inflight = new ConcurrentHashMap<String, FutureTask<CachedResponse>>();
+    private final AtomicInteger networkRequestCount = new AtomicInteger();
+
+    /**
+     * Creates a cache with the default limits and its own pooled HTTP client
+     */
+    public ScmEntryCache() {
+        this(createRestTemplate(DEFAULT_MAX_CONNECTIONS, DEFAULT_TIMEOUT_MILLIS), createObjectMapper(),
+                DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_STALE_WHILE_REVALIDATE_MILLIS);
+    }
+
+    /**
+     * @param restTemplate Used for every request to the SSC. It must be able to read byte[] responses
+     * @param mapper Used to deserialise cached JSON responses
+     * @param maxEntries The maximum number of responses to hold (least recently used are dropped first)
+     * @param ttlMillis Responses younger than this are served without contacting the SSC
+     * @param staleWhileRevalidateMillis Responses older than the TTL by less than this are served immediately and revalidated in the background
+     */
+    public ScmEntryCache(RestTemplate restTemplate, ObjectMapper mapper, final int maxEntries, long ttlMillis, long staleWhileRevalidateMillis) {
+        this.restTemplate = restTemplate;
+        this.mapper = mapper;
+        this.ttlMillis = ttlMillis;
+        this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(REVALIDATION_QUEUE_SIZE), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "scm-revalidate-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.revalidator = executor;
+    }
+
+    /**
+     * Creates a RestTemplate backed by a pooled (keep alive) Apache HTTP client
+     * @param maxConnections The maximum number of concurrent connections (in total and per host)
+     * @param timeoutMillis Connect/read timeout
+     * @return
+     */
+    public static RestTemplate createRestTemplate(int maxConnections, int timeoutMillis) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .setSocketTimeout(timeoutMillis)
+                .build();
+
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build()));
+    }
+
+    /**
+     * Creates an ObjectMapper configured for SSC responses
+     * @return
+     */
+    public static ObjectMapper createObjectMapper() {
+        return new Jackson2ObjectMapperBuilder()
+                .featuresToEnable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+                .build();
+    }
+
+    /**
+     * Gets the SSC response for url deserialised as cls, fetching (or revalidating) it if necessary.
+     *
+     * @param url Full URL of the SSC resource
+     * @param cls The type to deserialise the response into
+     * @return
+     * @throws RestClientException If the resource can't be fetched (and there is no cached copy) or parsed
+     */
+    public <T> T get(String url, Class<T> cls) throws RestClientException {
+        return get(toUri(url), cls);
+    }
+
+    /**
+     * Gets the SSC response for an (already encoded) uri deserialised as cls, fetching (or revalidating) it if
+     * necessary. uri is requested as is.
+     *
+     * @param uri Full, encoded URI of the SSC resource
+     * @param cls The type to deserialise the response into
+     * @return
+     * @throws RestClientException If the resource can't be fetched (and there is no cached copy) or parsed
+     */
+    public <T> T get(URI uri, Class<T> cls) throws RestClientException {
+        String url = uri.toString();
+        CachedResponse cached = cache.get(url);
+        long now = System.currentTimeMillis();
+
+        if (cached == null) {
+            cached = fetch(uri, null);
+        } else if (now - cached.fetchedAt >= ttlMillis + staleWhileRevalidateMillis) {
+            try {
+                cached = fetch(uri, cached);
+            } catch (RestClientException ex) {
+                logger.warn(String.format("Unable to revalidate '%1$s', serving stale copy: %2$s", url, ex.getMessage()));
+                logger.debug("Exception:", ex);
+            }
+        } else if (now - cached.fetchedAt >= ttlMillis) {
+            revalidateInBackground(uri, cached);
+        }
+
+        try {
+            return mapper.readValue(cached.body, cls);
+        } catch (IOException ex) {
+            throw new RestClientException(String.format("Unable to parse SSC response from '%1$s'", url), ex);
+        }
+    }
+
+    /**
+     * Removes url from this cache (the next get will make a full request)
+     * @param url
+     */
+    public void invalidate(String url) {
+        cache.remove(toUri(url).toString());
+    }
+
+    /**
+     * Removes everything from this cache
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * The number of responses currently cached
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * The number of HTTP requests (including conditional requests) this cache has made
+     * @return
+     */
+    public int getNetworkRequestCount() {
+        return networkRequestCount.get();
+    }
+
+    /**
+     * Stops background revalidation
+     */
+    public void close() {
+        revalidator.shutdownNow();
+    }
+
+    /**
+     * Expands and encodes url as RestTemplate would for a String URL
+     */
+    private URI toUri(String url) {
+        return restTemplate.getUriTemplateHandler().expand(url);
+    }
+
+    private void revalidateInBackground(final URI uri, final CachedResponse cached) {
+        if (!cached.revalidating.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            revalidator.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        fetch(uri, cached);
+                    } catch (RestClientException ex) {
+                        logger.warn(String.format("Background revalidation of '%1$s' failed: %2$s", uri, ex.getMessage()));
+                        logger.debug("Exception:", ex);
+                    } finally {
+                        cached.revalidating.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //A later get will try again
+            cached.revalidating.set(false);
+            logger.debug(String.format("Background revalidation of '%1$s' skipped - too many revalidations queued", uri));
+        }
+    }
+
+    /**
+     * Fetches url (conditionally if previous is set) and updates the cache. Concurrent fetches of the same url
+     * will share a single request.
+     */
+    private CachedResponse fetch(final URI uri, final CachedResponse previous) throws RestClientException {
+        final String url = uri.toString();
+        FutureTask<CachedResponse> task = new FutureTask<CachedResponse>(new Callable<CachedResponse>() {
+            @Override
+            public CachedResponse call() throws Exception {
+                return doFetch(uri, previous);
+            }
+        });
+
+        FutureTask<CachedResponse> existing = inflight.putIfAbsent(url, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inflight.remove(url, task);
+            }
+            existing = task;
+        }
+
+        try {
+            return existing.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException(String.format("Interrupted while fetching '%1$s'", url), ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RestClientException) {
+                throw (RestClientException) ex.getCause();
+            }
+            throw new RestClientException(String.format("Unable to fetch '%1$s'", url), ex.getCause());
+        }
+    }
+
+    private CachedResponse doFetch(URI uri, CachedResponse previous) throws RestClientException {
+        String url = uri.toString();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        if (previous != null) {
+            if (previous.eTag != null) {
+                headers.setIfNoneMatch(previous.eTag);
+            }
+            if (previous.lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified);
+            }
+        }
+
+        networkRequestCount.incrementAndGet();
+        ResponseEntity<byte[]> response = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<Void>(headers), byte[].class);
+
+        CachedResponse result;
+        if (previous != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            previous.fetchedAt = System.currentTimeMillis();
+            result = previous;
+        } else {
+            byte[] body = response.getBody();
+            if (body == null) {
+                throw new RestClientException(String.format("Empty SSC response from '%1$s'", url));
+            }
+            HttpHeaders responseHeaders = response.getHeaders();
+            result = new CachedResponse(body, responseHeaders.getETag(), responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+
+        cache.put(url, result);
+        return result;
+    }
+
+    private static class CachedResponse {
+        private final byte[] body;
+        private final String eTag;
+        private final String lastModified;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+        private volatile long fetchedAt;
+
+        public CachedResponse(byte[] body, String eTag, String lastModified) {
+            this.body = body;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.fetchedAt = System.currentTimeMillis();
+        }
+    }
+}
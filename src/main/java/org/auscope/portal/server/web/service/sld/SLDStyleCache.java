@@ -0,0 +1,207 @@
+package org.auscope.portal.server.web.service.sld;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A size bounded (least recently used) cache of rendered SLD documents shared by the style controllers.
+ *
+ * WMS clients request the same style for every tile so entries are keyed by a hash of the request parameters
+ * that produced them. Every rendered style carries an ETag (a hash of its content) so GeoServer and browsers
+ * can revalidate with If-None-Match and receive a 304 instead of the document.
+ *
+ * Concurrent misses for the same key may render the style more than once - rendering is cheap and
+ * deterministic so the last render simply wins.
+ */
+public class SLDStyleCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<String, RenderedStyle> cache;
+    private final AtomicInteger renderCount = new AtomicInteger();
+
+    /**
+     * A rendered SLD along with its encoded form and ETag
+     */
+    public static class RenderedStyle {
+        private final String sld;
+        private final byte[] bytes;
+        private final String eTag;
+
+        public RenderedStyle(String sld) {
+            this.sld = sld;
+            this.bytes = sld.getBytes(StandardCharsets.UTF_8);
+            this.eTag = "\"" + Hashing.sha256().hashBytes(bytes).toString().substring(0, 32) + "\"";
+        }
+
+        /**
+         * The SLD document
+         * @return
+         */
+        public String getSld() {
+            return sld;
+        }
+
+        /**
+         * The UTF-8 encoded SLD document
+         * @return
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * A strong (quoted) ETag identifying the content of this style
+         * @return
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    /**
+     * Creates a cache holding up to DEFAULT_MAX_ENTRIES styles
+     */
+    public SLDStyleCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries The maximum number of styles to hold (least recently used are dropped first)
+     */
+    public SLDStyleCache(final int maxEntries) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, RenderedStyle>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderedStyle> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Hashes keyParts into a cache key. Each part is length prefixed so that different
+     * splits of the same characters can't collide.
+     */
+    private static String hashKey(Object[] keyParts) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (Object part : keyParts) {
+            if (part == null) {
+                hasher.putByte((byte) 0);
+            } else {
+                String value = part.toString();
+                hasher.putByte((byte) 1);
+                hasher.putInt(value.length());
+                hasher.putString(value, StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Gets the style identified by keyParts, rendering it with renderer if it isn't cached.
+     *
+     * @param renderer Generates the SLD. It must depend only on keyParts
+     * @param keyParts Every parameter the style depends on - including something identifying the endpoint
+     * @return
+     * @throws Exception If renderer fails (nothing is cached)
+     */
+    public RenderedStyle getStyle(Callable<String> renderer, Object... keyParts) throws Exception {
+        String key = hashKey(keyParts);
+        RenderedStyle style = cache.get(key);
+        if (style == null) {
+            style = new RenderedStyle(renderer.call());
+            renderCount.incrementAndGet();
+            cache.put(key, style);
+        }
+        return style;
+    }
+
+    /**
+     * Writes style to response as text/xml with its ETag. If the request's If-None-Match matches
+     * the ETag a 304 is sent instead of the document.
+     *
+     * @param request
+     * @param response
+     * @param style
+     * @throws IOException
+     */
+    public void writeStyle(HttpServletRequest request, HttpServletResponse response, RenderedStyle style) throws IOException {
+        response.setContentType("text/xml");
+        response.setHeader(HttpHeaders.ETAG, style.getETag());
+        //Clients may keep the style but must revalidate before using it
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (request != null && matchesETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), style.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] bytes = style.getBytes();
+        response.setContentLength(bytes.length);
+        OutputStream outputStream = response.getOutputStream();
+        try {
+            outputStream.write(bytes);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Returns true if an If-None-Match header value matches eTag
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of styles currently cached
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * The number of styles rendered (ie - cache misses) since this cache was created
+     * @return
+     */
+    public int getRenderCount() {
+        return renderCount.get();
+    }
+
+    /**
+     * Removes every cached style
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
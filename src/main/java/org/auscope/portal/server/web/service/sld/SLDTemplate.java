@@ -0,0 +1,145 @@
+package org.auscope.portal.server.web.service.sld;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * An SLD skeleton that has been split ("compiled") into its literal text and parameter slots.
+ *
+ * Parameters are written as [name] (the same as the SLD resources loaded with SLDLoader). Only the
+ * declared parameter names are treated as slots so other square brackets (eg - XPath predicates)
+ * are left alone. Rendering is a single pass into a correctly sized buffer - parameter values are
+ * never scanned for further placeholders.
+ *
+ * Instances are immutable and thread safe.
+ */
+public class SLDTemplate {
+
+    private final String[] parameterNames;
+    /** The literal text before each slot (plus the trailing text) - always slots.length + 1 long */
+    private final String[] literals;
+    /** Index into parameterNames for each slot */
+    private final int[] slots;
+    private final int literalLength;
+
+    private SLDTemplate(String[] parameterNames, String[] literals, int[] slots) {
+        this.parameterNames = parameterNames;
+        this.literals = literals;
+        this.slots = slots;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles source into a template
+     * @param source The SLD skeleton
+     * @param parameterNames The names of the [name] placeholders in source. Values are passed to render in this order
+     * @return
+     */
+    public static SLDTemplate compile(String source, String... parameterNames) {
+        if (parameterNames.length == 0) {
+            return new SLDTemplate(parameterNames, new String[] {source}, new int[0]);
+        }
+
+        StringBuilder regex = new StringBuilder("\\[(");
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (i > 0) {
+                regex.append('|');
+            }
+            regex.append(Pattern.quote(parameterNames[i]));
+        }
+        regex.append(")\\]");
+
+        List<String> literals = new ArrayList<String>();
+        List<Integer> slots = new ArrayList<Integer>();
+        List<String> names = Arrays.asList(parameterNames);
+        Matcher m = Pattern.compile(regex.toString()).matcher(source);
+        int last = 0;
+        while (m.find()) {
+            literals.add(source.substring(last, m.start()));
+            slots.add(names.indexOf(m.group(1)));
+            last = m.end();
+        }
+        literals.add(source.substring(last));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new SLDTemplate(parameterNames.clone(), literals.toArray(new String[literals.size()]), slotArray);
+    }
+
+    /**
+     * Loads and compiles a (UTF-8 encoded) classpath resource
+     * @param resourcePath Absolute classpath of the resource eg /org/auscope/portal/slds/erl_MineView.sld
+     * @param parameterNames The names of the [name] placeholders in the resource
+     * @return
+     * @throws IOException
+     */
+    public static SLDTemplate load(String resourcePath, String... parameterNames) throws IOException {
+        try (InputStream is = SLDTemplate.class.getResourceAsStream(resourcePath)) {
+            if (is == null) {
+                throw new IOException("Unable to find SLD resource " + resourcePath);
+            }
+            return compile(IOUtils.toString(is, StandardCharsets.UTF_8), parameterNames);
+        }
+    }
+
+    /**
+     * The parameter names in the order render expects their values
+     * @return
+     */
+    public String[] getParameterNames() {
+        return parameterNames.clone();
+    }
+
+    /**
+     * Renders this template
+     * @param values One value for each parameter name (in order). Null values are rendered as "null" (like String concatenation)
+     * @return
+     */
+    public String render(String... values) {
+        checkValues(values);
+        int length = literalLength;
+        for (int slot : slots) {
+            String value = values[slot];
+            length += value == null ? 4 : value.length();
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        render(sb, values);
+        return sb.toString();
+    }
+
+    /**
+     * Renders this template onto the end of sb
+     * @param sb Receives the rendered template
+     * @param values One value for each parameter name (in order)
+     */
+    public void render(StringBuilder sb, String... values) {
+        checkValues(values);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            sb.append(values[slots[i]]);
+        }
+        sb.append(literals[slots.length]);
+    }
+
+    private void checkValues(String[] values) {
+        if (values.length != parameterNames.length) {
+            throw new IllegalArgumentException(String.format("Expected %1$d values but got %2$d", parameterNames.length, values.length));
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.auscope.portal.view.knownlayer;
+
+import java.util.List;
+
+import org.auscope.portal.core.uifilter.Predicate;
+
+/**
+ * The declarative form of a KnownLayer as it is read (by Jackson) from the known layers resource. A definition is
+ * cheap to hold - the KnownLayer, its selector and filters are only created by KnownLayerRegistry when the layer is
+ * first used.
+ *
+ * Properties that are absent from the resource are null and are not applied to the KnownLayer (leaving its defaults).
+ */
+public class KnownLayerDefinition {
+
+    private String id;
+    private String name;
+    private String description;
+    private String group;
+    private String order;
+    private Boolean hidden;
+    private String iconUrl;
+    private int[] iconAnchor;
+    private int[] iconSize;
+    private String proxyUrl;
+    private String proxyCountUrl;
+    private String proxyStyleUrl;
+    private String proxyDownloadUrl;
+    private String proxyGetFeatureInfoUrl;
+    private String stackdriverServiceGroup;
+    private SelectorDefinition selector;
+    private List<FilterDefinition> optionalFilters;
+    private List<FilterDefinition> mandatoryFilters;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public Boolean getHidden() {
+        return hidden;
+    }
+
+    public String getIconUrl() {
+        return iconUrl;
+    }
+
+    /**
+     * The icon anchor as an [x, y] pair
+     * @return
+     */
+    public int[] getIconAnchor() {
+        return iconAnchor;
+    }
+
+    /**
+     * The icon size as a [width, height] pair
+     * @return
+     */
+    public int[] getIconSize() {
+        return iconSize;
+    }
+
+    public String getProxyUrl() {
+        return proxyUrl;
+    }
+
+    public String getProxyCountUrl() {
+        return proxyCountUrl;
+    }
+
+    public String getProxyStyleUrl() {
+        return proxyStyleUrl;
+    }
+
+    public String getProxyDownloadUrl() {
+        return proxyDownloadUrl;
+    }
+
+    public String getProxyGetFeatureInfoUrl() {
+        return proxyGetFeatureInfoUrl;
+    }
+
+    public String getStackdriverServiceGroup() {
+        return stackdriverServiceGroup;
+    }
+
+    public SelectorDefinition getSelector() {
+        return selector;
+    }
+
+    public List<FilterDefinition> getOptionalFilters() {
+        return optionalFilters;
+    }
+
+    public List<FilterDefinition> getMandatoryFilters() {
+        return mandatoryFilters;
+    }
+
+    /**
+     * The types of KnownLayerSelector that can be defined
+     */
+    public enum SelectorType {
+        /** WFSSelector - featureTypeName, relatedFeatureTypeNames, serviceEndpoints and includeEndpoints */
+        WFS,
+        /** WMSSelector - layerName, serviceEndpoints and includeEndpoints */
+        WMS,
+        /** WMSWFSSelector - featureTypeName and layerName */
+        WMSWFS,
+        /** CSWRecordSelector - serviceName, recordId and descriptiveKeyword */
+        CSW,
+        /** IRISSelector - networkCode and serviceEndpoint */
+        IRIS
+    }
+
+    /**
+     * The declarative form of a KnownLayerSelector. Only the properties relevant to the type are used.
+     */
+    public static class SelectorDefinition {
+        private SelectorType type;
+        private String featureTypeName;
+        private String layerName;
+        private String[] relatedFeatureTypeNames;
+        private String[] serviceEndpoints;
+        private boolean includeEndpoints;
+        private String serviceName;
+        private String recordId;
+        private String descriptiveKeyword;
+        private String networkCode;
+        private String serviceEndpoint;
+
+        public SelectorType getType() {
+            return type;
+        }
+
+        public String getFeatureTypeName() {
+            return featureTypeName;
+        }
+
+        public String getLayerName() {
+            return layerName;
+        }
+
+        public String[] getRelatedFeatureTypeNames() {
+            return relatedFeatureTypeNames;
+        }
+
+        public String[] getServiceEndpoints() {
+            return serviceEndpoints;
+        }
+
+        public boolean isIncludeEndpoints() {
+            return includeEndpoints;
+        }
+
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        public String getRecordId() {
+            return recordId;
+        }
+
+        public String getDescriptiveKeyword() {
+            return descriptiveKeyword;
+        }
+
+        public String getNetworkCode() {
+            return networkCode;
+        }
+
+        public String getServiceEndpoint() {
+            return serviceEndpoint;
+        }
+    }
+
+    /**
+     * The declarative form of an optional (xpath) or mandatory filter. The type is the simple class name of the filter
+     * (eg UITextBox). Optional filters use xpath and predicate, mandatory filters use parameter.
+     */
+    public static class FilterDefinition {
+        private String type;
+        private String label;
+        private String xpath;
+        private String parameter;
+        private String value;
+        private Predicate predicate;
+        private String url;
+        private List<String[]> options;
+
+        public String getType() {
+            return type;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getXpath() {
+            return xpath;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public Predicate getPredicate() {
+            return predicate;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Drop down options as [label, value] pairs
+         * @return
+         */
+        public List<String[]> getOptions() {
+            return options;
+        }
+    }
+}
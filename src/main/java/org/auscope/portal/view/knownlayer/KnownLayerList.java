@@ -0,0 +1,47 @@
+package org.auscope.portal.view.knownlayer;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import org.auscope.portal.core.view.knownlayer.KnownLayer;
+
+/**
+ * An ordered, read only list of known layers backed by a KnownLayerRegistry. Each KnownLayer is only created by the
+ * registry when it is first accessed.
+ *
+ * This is a concrete class so that it can be autowired as a single bean (Spring would otherwise attempt to collect
+ * every KnownLayer bean into a List).
+ */
+public class KnownLayerList extends AbstractList<KnownLayer> implements RandomAccess {
+
+    private final KnownLayerRegistry registry;
+    private final String[] ids;
+
+    /**
+     * @param registry Where the layers are defined
+     * @param ids The ids of the layers (in order). Each id must be defined by registry.
+     */
+    public KnownLayerList(KnownLayerRegistry registry, String[] ids) {
+        this.registry = registry;
+        this.ids = ids.clone();
+    }
+
+    /**
+     * Gets the id of the layer at index (without creating the layer)
+     * @param index
+     * @return
+     */
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public KnownLayer get(int index) {
+        return registry.getLayer(ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+}
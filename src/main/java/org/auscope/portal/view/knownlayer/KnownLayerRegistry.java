@@ -0,0 +1,461 @@
+package org.auscope.portal.view.knownlayer;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auscope.portal.core.uifilter.AbstractBaseFilter;
+import org.auscope.portal.core.uifilter.FilterCollection;
+import org.auscope.portal.core.uifilter.mandatory.AbstractMandatoryParamBinding;
+import org.auscope.portal.core.uifilter.optional.UICheckBoxGroupProvider;
+import org.auscope.portal.core.uifilter.optional.xpath.UIDate;
+import org.auscope.portal.core.uifilter.optional.xpath.UIDropDownRemote;
+import org.auscope.portal.core.uifilter.optional.xpath.UIDropDownSelectList;
+import org.auscope.portal.core.uifilter.optional.xpath.UIPolygonBBox;
+import org.auscope.portal.core.uifilter.optional.xpath.UITextBox;
+import org.auscope.portal.core.util.FileIOUtil;
+import org.auscope.portal.core.view.knownlayer.CSWRecordSelector;
+import org.auscope.portal.core.view.knownlayer.KnownLayer;
+import org.auscope.portal.core.view.knownlayer.KnownLayerSelector;
+import org.auscope.portal.core.view.knownlayer.WFSSelector;
+import org.auscope.portal.core.view.knownlayer.WMSSelector;
+import org.auscope.portal.core.view.knownlayer.WMSWFSSelector;
+import org.auscope.portal.view.knownlayer.KnownLayerDefinition.FilterDefinition;
+import org.auscope.portal.view.knownlayer.KnownLayerDefinition.SelectorDefinition;
+import org.springframework.core.io.Resource;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Holds the definitions of every known layer, indexed by id, group and service endpoint.
+ *
+ * Definitions are read from a compact JSON resource (a list of KnownLayerDefinition) which replaces one Spring bean
+ * per layer and selector. A KnownLayer (along with its selector and filters) is only created the first time it is
+ * requested and is then reused, so every caller sees the same instance for an id.
+ *
+ * As a MeterBinder the registry reports known.layers.definitions, known.layers.materialised and known.layers.load.time
+ * (the time taken to read and index the resource).
+ */
+public class KnownLayerRegistry implements MeterBinder {
+
+    public static final String DEFINITIONS_METRIC = "known.layers.definitions";
+    public static final String MATERIALISED_METRIC = "known.layers.materialised";
+    public static final String LOAD_TIME_METRIC = "known.layers.load.time";
+
+    private static final Set<String> OPTIONAL_FILTER_TYPES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "UITextBox", "UIDate", "UIPolygonBBox", "UIDropDownRemote", "UIDropDownSelectList", "UICheckBoxGroupProvider")));
+    private static final Set<String> MANDATORY_FILTER_TYPES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "UITextBox", "UIDropDownSelectList")));
+
+    /** Definitions only have getters so Jackson populates their fields directly */
+    private static final ObjectMapper MAPPER = new ObjectMapper().setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Map<String, KnownLayerDefinition> definitions;
+    private final Map<String, List<String>> idsByGroup;
+    private final Map<String, List<String>> idsByServiceEndpoint;
+    private final ConcurrentMap<String, KnownLayer> layers = new ConcurrentHashMap<String, KnownLayer>();
+    private long loadTimeNanos;
+
+    /**
+     * Creates a registry from definitions that have already been loaded
+     *
+     * @param definitions Each definition must have a unique id and a selector
+     * @throws IllegalArgumentException If a definition is invalid
+     */
+    public KnownLayerRegistry(List<KnownLayerDefinition> definitions) {
+        long start = System.nanoTime();
+        Map<String, KnownLayerDefinition> byId = new LinkedHashMap<String, KnownLayerDefinition>();
+        Map<String, List<String>> byGroup = new LinkedHashMap<String, List<String>>();
+        Map<String, List<String>> byServiceEndpoint = new LinkedHashMap<String, List<String>>();
+        for (KnownLayerDefinition definition : definitions) {
+            validate(definition);
+            if (byId.put(definition.getId(), definition) != null) {
+                throw new IllegalArgumentException(String.format("Known layer '%1$s' is defined more than once", definition.getId()));
+            }
+            if (definition.getGroup() != null) {
+                index(byGroup, definition.getGroup(), definition.getId());
+            }
+            for (String serviceEndpoint : getServiceEndpoints(definition.getSelector())) {
+                index(byServiceEndpoint, serviceEndpoint, definition.getId());
+            }
+        }
+
+        this.definitions = Collections.unmodifiableMap(byId);
+        this.idsByGroup = Collections.unmodifiableMap(byGroup);
+        this.idsByServiceEndpoint = Collections.unmodifiableMap(byServiceEndpoint);
+        this.loadTimeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Reads a registry from a JSON resource containing a list of KnownLayerDefinition
+     *
+     * @param resource
+     * @return
+     * @throws IOException If the resource can't be read or parsed
+     * @throws IllegalArgumentException If a definition is invalid
+     */
+    public static KnownLayerRegistry load(Resource resource) throws IOException {
+        long start = System.nanoTime();
+        KnownLayerDefinition[] definitions;
+        InputStream is = resource.getInputStream();
+        try {
+            definitions = MAPPER.readValue(is, KnownLayerDefinition[].class);
+        } finally {
+            FileIOUtil.closeQuietly(is);
+        }
+
+        KnownLayerRegistry registry = new KnownLayerRegistry(Arrays.asList(definitions));
+        registry.loadTimeNanos = System.nanoTime() - start;
+        registry.logger.info(String.format("Loaded %1$d known layer definitions from %2$s in %3$d ms", registry.size(),
+                resource.getDescription(), registry.getLoadTime(TimeUnit.MILLISECONDS)));
+        return registry;
+    }
+
+    private static void index(Map<String, List<String>> index, String key, String id) {
+        List<String> ids = index.get(key);
+        if (ids == null) {
+            ids = new ArrayList<String>();
+            index.put(key, ids);
+        }
+        ids.add(id);
+    }
+
+    private static void validate(KnownLayerDefinition definition) {
+        if (definition.getId() == null || definition.getId().isEmpty()) {
+            throw new IllegalArgumentException("Known layer definitions require an id");
+        }
+        if (definition.getSelector() == null || definition.getSelector().getType() == null) {
+            throw new IllegalArgumentException(String.format("Known layer '%1$s' has no selector type", definition.getId()));
+        }
+        validateFilters(definition, definition.getOptionalFilters(), OPTIONAL_FILTER_TYPES);
+        validateFilters(definition, definition.getMandatoryFilters(), MANDATORY_FILTER_TYPES);
+    }
+
+    private static void validateFilters(KnownLayerDefinition definition, List<FilterDefinition> filters, Set<String> types) {
+        if (filters == null) {
+            return;
+        }
+        for (FilterDefinition filter : filters) {
+            if (!types.contains(filter.getType())) {
+                throw new IllegalArgumentException(String.format("Known layer '%1$s' has an unsupported filter type '%2$s'",
+                        definition.getId(), filter.getType()));
+            }
+        }
+    }
+
+    private static List<String> getServiceEndpoints(SelectorDefinition selector) {
+        if (selector.getServiceEndpoint() != null) {
+            return Arrays.asList(selector.getServiceEndpoint());
+        } else if (selector.getServiceEndpoints() != null) {
+            return Arrays.asList(selector.getServiceEndpoints());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * The number of defined layers
+     * @return
+     */
+    public int size() {
+        return definitions.size();
+    }
+
+    /**
+     * The number of layers that have been created so far
+     * @return
+     */
+    public int getMaterialisedCount() {
+        return layers.size();
+    }
+
+    /**
+     * The time taken to read (if loaded from a resource) and index the definitions
+     * @param unit
+     * @return
+     */
+    public long getLoadTime(TimeUnit unit) {
+        return unit.convert(loadTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the ids of every defined layer (in definition order)
+     * @return
+     */
+    public Set<String> getIds() {
+        return definitions.keySet();
+    }
+
+    /**
+     * Gets the definition of a layer without creating it
+     * @param id
+     * @return The definition or null if id isn't defined
+     */
+    public KnownLayerDefinition getDefinition(String id) {
+        return definitions.get(id);
+    }
+
+    /**
+     * Gets the names of every group that has at least one layer
+     * @return
+     */
+    public Set<String> getGroups() {
+        return idsByGroup.keySet();
+    }
+
+    /**
+     * Gets the ids of the layers in a group
+     * @param group
+     * @return
+     */
+    public List<String> getIdsByGroup(String group) {
+        List<String> ids = idsByGroup.get(group);
+        return ids == null ? Collections.<String>emptyList() : Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Gets the ids of the layers whose selectors name a service endpoint
+     * @param serviceEndpoint
+     * @return
+     */
+    public List<String> getIdsByServiceEndpoint(String serviceEndpoint) {
+        List<String> ids = idsByServiceEndpoint.get(serviceEndpoint);
+        return ids == null ? Collections.<String>emptyList() : Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Gets a layer, creating it on first use
+     *
+     * @param id
+     * @return The layer or null if id isn't defined
+     */
+    public KnownLayer getLayer(String id) {
+        KnownLayer layer = layers.get(id);
+        if (layer != null) {
+            return layer;
+        }
+
+        KnownLayerDefinition definition = definitions.get(id);
+        if (definition == null) {
+            return null;
+        }
+
+        KnownLayer created = createLayer(definition);
+        layer = layers.putIfAbsent(id, created);
+        return layer == null ? created : layer;
+    }
+
+    /**
+     * Gets a list of layers that will only be created as they are accessed
+     *
+     * @param ids The ids of the layers in the order they should be listed
+     * @return
+     * @throws IllegalArgumentException If any id isn't defined
+     */
+    public KnownLayerList getLayers(String... ids) {
+        for (String id : ids) {
+            if (!definitions.containsKey(id)) {
+                throw new IllegalArgumentException(String.format("Known layer '%1$s' is not defined", id));
+            }
+        }
+        return new KnownLayerList(this, ids);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(DEFINITIONS_METRIC, this, new ToDoubleFunction<KnownLayerRegistry>() {
+            @Override
+            public double applyAsDouble(KnownLayerRegistry value) {
+                return value.size();
+            }
+        }).description("Known layers that are defined").register(registry);
+        Gauge.builder(MATERIALISED_METRIC, this, new ToDoubleFunction<KnownLayerRegistry>() {
+            @Override
+            public double applyAsDouble(KnownLayerRegistry value) {
+                return value.getMaterialisedCount();
+            }
+        }).description("Known layers that have been created from their definitions").register(registry);
+        TimeGauge.builder(LOAD_TIME_METRIC, this, TimeUnit.NANOSECONDS, new ToDoubleFunction<KnownLayerRegistry>() {
+            @Override
+            public double applyAsDouble(KnownLayerRegistry value) {
+                return value.loadTimeNanos;
+            }
+        }).description("Time taken to read and index the known layer definitions").register(registry);
+    }
+
+    /**
+     * Creates a new KnownLayer (along with its selector and filters) from a definition. The layer isn't cached - use
+     * getLayer to share layers.
+     *
+     * @param definition
+     * @return
+     */
+    public static KnownLayer createLayer(KnownLayerDefinition definition) {
+        KnownLayer layer = new KnownLayer(definition.getId(), createSelector(definition));
+        if (definition.getName() != null) {
+            layer.setName(definition.getName());
+        }
+        if (definition.getDescription() != null) {
+            layer.setDescription(definition.getDescription());
+        }
+        if (definition.getGroup() != null) {
+            layer.setGroup(definition.getGroup());
+        }
+        if (definition.getOrder() != null) {
+            layer.setOrder(definition.getOrder());
+        }
+        if (definition.getHidden() != null) {
+            layer.setHidden(definition.getHidden());
+        }
+        if (definition.getIconUrl() != null) {
+            layer.setIconUrl(definition.getIconUrl());
+        }
+        if (definition.getIconAnchor() != null) {
+            layer.setIconAnchor(new Point(definition.getIconAnchor()[0], definition.getIconAnchor()[1]));
+        }
+        if (definition.getIconSize() != null) {
+            layer.setIconSize(new Dimension(definition.getIconSize()[0], definition.getIconSize()[1]));
+        }
+        if (definition.getProxyUrl() != null) {
+            layer.setProxyUrl(definition.getProxyUrl());
+        }
+        if (definition.getProxyCountUrl() != null) {
+            layer.setProxyCountUrl(definition.getProxyCountUrl());
+        }
+        if (definition.getProxyStyleUrl() != null) {
+            layer.setProxyStyleUrl(definition.getProxyStyleUrl());
+        }
+        if (definition.getProxyDownloadUrl() != null) {
+            layer.setProxyDownloadUrl(definition.getProxyDownloadUrl());
+        }
+        if (definition.getProxyGetFeatureInfoUrl() != null) {
+            layer.setProxyGetFeatureInfoUrl(definition.getProxyGetFeatureInfoUrl());
+        }
+        if (definition.getStackdriverServiceGroup() != null) {
+            layer.setStackdriverServiceGroup(definition.getStackdriverServiceGroup());
+        }
+        if (definition.getOptionalFilters() != null || definition.getMandatoryFilters() != null) {
+            layer.setFilterCollection(createFilterCollection(definition));
+        }
+        return layer;
+    }
+
+    private static KnownLayerSelector createSelector(KnownLayerDefinition definition) {
+        SelectorDefinition selector = definition.getSelector();
+        switch (selector.getType()) {
+        case WFS:
+            WFSSelector wfsSelector = selector.getServiceEndpoints() == null ? new WFSSelector(selector.getFeatureTypeName())
+                    : new WFSSelector(selector.getFeatureTypeName(), selector.getServiceEndpoints(), selector.isIncludeEndpoints());
+            if (selector.getRelatedFeatureTypeNames() != null) {
+                wfsSelector.setRelatedFeatureTypeNames(selector.getRelatedFeatureTypeNames());
+            }
+            return wfsSelector;
+        case WMS:
+            return selector.getServiceEndpoints() == null ? new WMSSelector(selector.getLayerName())
+                    : new WMSSelector(selector.getLayerName(), selector.getServiceEndpoints(), selector.isIncludeEndpoints());
+        case WMSWFS:
+            return new WMSWFSSelector(selector.getFeatureTypeName(), selector.getLayerName());
+        case CSW:
+            CSWRecordSelector cswSelector = new CSWRecordSelector();
+            if (selector.getServiceName() != null) {
+                cswSelector.setServiceName(selector.getServiceName());
+            }
+            if (selector.getRecordId() != null) {
+                cswSelector.setRecordId(selector.getRecordId());
+            }
+            if (selector.getDescriptiveKeyword() != null) {
+                cswSelector.setDescriptiveKeyword(selector.getDescriptiveKeyword());
+            }
+            return cswSelector;
+        case IRIS:
+            try {
+                return new IRISSelector(selector.getNetworkCode(), selector.getServiceEndpoint());
+            } catch (MalformedURLException ex) {
+                throw new IllegalStateException(String.format("Known layer '%1$s' has an invalid service endpoint",
+                        definition.getId()), ex);
+            }
+        default:
+            throw new IllegalStateException(String.format("Known layer '%1$s' has an unsupported selector type", definition.getId()));
+        }
+    }
+
+    private static FilterCollection createFilterCollection(KnownLayerDefinition definition) {
+        FilterCollection filterCollection = new FilterCollection();
+        if (definition.getOptionalFilters() != null) {
+            List<AbstractBaseFilter> optionalFilters = new ArrayList<AbstractBaseFilter>();
+            for (FilterDefinition filter : definition.getOptionalFilters()) {
+                optionalFilters.add(createOptionalFilter(filter));
+            }
+            filterCollection.setOptionalFilters(optionalFilters);
+        }
+        if (definition.getMandatoryFilters() != null) {
+            List<AbstractMandatoryParamBinding> mandatoryFilters = new ArrayList<AbstractMandatoryParamBinding>();
+            for (FilterDefinition filter : definition.getMandatoryFilters()) {
+                mandatoryFilters.add(createMandatoryFilter(filter));
+            }
+            filterCollection.setMandatoryFilters(mandatoryFilters);
+        }
+        return filterCollection;
+    }
+
+    private static AbstractBaseFilter createOptionalFilter(FilterDefinition filter) {
+        String type = filter.getType();
+        if ("UITextBox".equals(type)) {
+            return new UITextBox(filter.getLabel(), filter.getXpath(), filter.getValue(), filter.getPredicate());
+        } else if ("UIDate".equals(type)) {
+            return new UIDate(filter.getLabel(), filter.getXpath(), filter.getValue(), filter.getPredicate());
+        } else if ("UIPolygonBBox".equals(type)) {
+            return new UIPolygonBBox(filter.getLabel(), filter.getXpath(), filter.getValue(), filter.getPredicate());
+        } else if ("UIDropDownRemote".equals(type)) {
+            return new UIDropDownRemote(filter.getLabel(), filter.getXpath(), filter.getValue(), filter.getPredicate(), filter.getUrl());
+        } else if ("UIDropDownSelectList".equals(type)) {
+            return new UIDropDownSelectList(filter.getLabel(), filter.getXpath(), filter.getValue(), filter.getPredicate(),
+                    createOptions(filter));
+        } else {
+            return new UICheckBoxGroupProvider(filter.getLabel(), filter.getValue());
+        }
+    }
+
+    private static AbstractMandatoryParamBinding createMandatoryFilter(FilterDefinition filter) {
+        if ("UITextBox".equals(filter.getType())) {
+            return new org.auscope.portal.core.uifilter.mandatory.UITextBox(filter.getLabel(), filter.getParameter(), filter.getValue());
+        }
+        return new org.auscope.portal.core.uifilter.mandatory.UIDropDownSelectList(filter.getLabel(), filter.getParameter(),
+                filter.getValue(), createOptions(filter));
+    }
+
+    private static List<ImmutablePair<String, String>> createOptions(FilterDefinition filter) {
+        List<ImmutablePair<String, String>> options = new ArrayList<ImmutablePair<String, String>>();
+        if (filter.getOptions() != null) {
+            for (String[] option : filter.getOptions()) {
+                options.add(new ImmutablePair<String, String>(option[0], option.length > 1 ? option[1] : null));
+            }
+        }
+        return options;
+    }
+}
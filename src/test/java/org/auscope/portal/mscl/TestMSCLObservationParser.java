@@ -0,0 +1,231 @@
+package org.auscope.portal.mscl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.namespaces.IterableNamespace;
+import org.auscope.portal.core.util.ResourceUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Unit tests for MSCLObservationParser. Every parsed series is compared against the original DOM/XPath
+ * implementation of MSCLController.getMsclObservationsForGraph (reproduced below).
+ */
+public class TestMSCLObservationParser {
+
+    private static final String[] METRICS = new String[] {"p_wave_amplitude", "p_wave_velocity", "density", "magnetic_susceptibility", "natural_gamma"};
+
+    /**
+     * The original DOM based implementation. The only deviation is that the final observation is included (the
+     * original always dropped it).
+     */
+    private static List<Map<String, Float>> parseWithDom(byte[] xml, String[] observationsToReturn) throws Exception {
+        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(true);
+        Document msclDoc = domFactory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+
+        XPath xPath = XPathFactory.newInstance().newXPath();
+        xPath.setNamespaceContext(new IterableNamespace() {
+            {
+                map.put("mscl", "http://example.org/mscl");
+            }
+        });
+
+        StringBuilder xPathString = new StringBuilder("//mscl:scanned_data/mscl:depth");
+        for (int i = 0; i < observationsToReturn.length; i++) {
+            xPathString.append(" | //mscl:scanned_data/mscl:" + observationsToReturn[i]);
+        }
+        NodeList results = (NodeList) xPath.compile(xPathString.toString()).evaluate(msclDoc, XPathConstants.NODESET);
+
+        List<Map<String, Float>> series = new ArrayList<Map<String, Float>>();
+        Map<String, Float> relatedValues = null;
+        Node targetParentNode = null;
+        for (int i = 0; i < results.getLength(); i++) {
+            Node result = results.item(i);
+            Node currentParentNode = result.getParentNode();
+            if (!currentParentNode.equals(targetParentNode)) {
+                targetParentNode = currentParentNode;
+                if (relatedValues != null && relatedValues.size() > 1) {
+                    series.add(relatedValues);
+                }
+                relatedValues = new LinkedHashMap<String, Float>();
+            }
+            relatedValues.put(result.getLocalName(), Float.parseFloat(result.getTextContent()));
+        }
+        if (relatedValues != null && relatedValues.size() > 1) {
+            series.add(relatedValues);
+        }
+
+        Collections.sort(series, new Comparator<Map<String, Float>>() {
+            @Override
+            public int compare(Map<String, Float> o1, Map<String, Float> o2) {
+                return o1.get("depth").compareTo(o2.get("depth"));
+            }
+        });
+        return series;
+    }
+
+    private static List<Map<String, Float>> toMaps(MSCLObservationSeries observations) {
+        String[] metrics = observations.getMetrics();
+        List<Map<String, Float>> series = new ArrayList<Map<String, Float>>();
+        for (int i = 0; i < observations.size(); i++) {
+            Map<String, Float> point = new LinkedHashMap<String, Float>();
+            point.put("depth", observations.getDepth(i));
+            for (int m = 0; m < metrics.length; m++) {
+                if (!Float.isNaN(observations.getValue(m, i))) {
+                    point.put(metrics[m], observations.getValue(m, i));
+                }
+            }
+            series.add(point);
+        }
+        return series;
+    }
+
+    private static void assertEquivalent(byte[] xml, String[] metrics) throws Exception {
+        List<Map<String, Float>> expected = parseWithDom(xml, metrics);
+        List<Map<String, Float>> actual = toMaps(new MSCLObservationParser(metrics).parse(new ByteArrayInputStream(xml)));
+        Assert.assertEquals(expected, actual);
+    }
+
+    /**
+     * Generates a synthetic mscl:scanned_data response. Observations are written in shuffled blocks and randomly
+     * omit some (or all) metrics.
+     */
+    private static byte[] syntheticResponse(long seed, int rows) {
+        Random random = new Random(seed);
+        List<String> features = new ArrayList<String>(rows);
+        for (int row = 0; row < rows; row++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("<mscl:scanned_data gml:id=\"scanned_data.").append(row).append("\">");
+            sb.append("<mscl:borehole_header_id>18</mscl:borehole_header_id>");
+            sb.append("<gml:name>Observation ").append(row).append("</gml:name>");
+            sb.append("<mscl:depth>").append(100 + row * 0.02f).append("</mscl:depth>");
+            boolean depthOnly = random.nextInt(100) == 0;
+            for (String metric : METRICS) {
+                if (!depthOnly && random.nextInt(10) != 0) {
+                    sb.append("<mscl:").append(metric).append('>').append(random.nextInt(100000) / 100.0f).append("</mscl:").append(metric).append('>');
+                }
+            }
+            sb.append("<mscl:location><gml:Point><gml:pos>").append(row).append(" 0</gml:pos></gml:Point></mscl:location>");
+            sb.append("</mscl:scanned_data>");
+            features.add(sb.toString());
+        }
+        for (int i = 0; i < rows; i += 50) {
+            Collections.shuffle(features.subList(i, Math.min(rows, i + 50)), random);
+        }
+
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sb.append("<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\" xmlns:mscl=\"http://example.org/mscl\">");
+        sb.append("<gml:featureMembers>");
+        for (String feature : features) {
+            sb.append(feature);
+        }
+        sb.append("</gml:featureMembers></wfs:FeatureCollection>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The fixture (out of order, missing values, depth only observations) parses the same as the DOM implementation
+     */
+    @Test
+    public void testFixtureEquivalence() throws Exception {
+        byte[] xml = ResourceUtil.loadResourceAsString("org/auscope/portal/mscl/scannedDataResponse.xml").getBytes(StandardCharsets.UTF_8);
+
+        assertEquivalent(xml, METRICS);
+        assertEquivalent(xml, new String[] {"density"});
+        assertEquivalent(xml, new String[] {"magnetic_susceptibility", "p_wave_amplitude"});
+        assertEquivalent(xml, new String[] {"natural_gamma", "depth", "natural_gamma"});
+        assertEquivalent(xml, new String[] {"dne"});
+
+        MSCLObservationSeries series = new MSCLObservationParser(METRICS).parse(new ByteArrayInputStream(xml));
+        Assert.assertEquals(11, series.size());
+        Assert.assertEquals(10.0f, series.getDepth(0), 0);
+        Assert.assertEquals(10.22f, series.getDepth(10), 0);
+        Assert.assertEquals(1.97f, series.getValue(2, 1), 0);
+        Assert.assertTrue(Float.isNaN(series.getValue(1, 4)));
+    }
+
+    /**
+     * Larger generated responses parse the same as the DOM implementation
+     */
+    @Test
+    public void testSyntheticEquivalence() throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            byte[] xml = syntheticResponse(seed, 2000);
+            assertEquivalent(xml, METRICS);
+            assertEquivalent(xml, new String[] {METRICS[(int) seed]});
+        }
+    }
+
+    /**
+     * Downsampling bounds the series size and averages each bucket
+     */
+    @Test
+    public void testDownsample() throws Exception {
+        MSCLObservationSeries series = new MSCLObservationParser(METRICS).parse(new ByteArrayInputStream(syntheticResponse(42, 10000)));
+        Assert.assertSame(series, series.downsample(0));
+        Assert.assertSame(series, series.downsample(series.size()));
+
+        MSCLObservationSeries downsampled = series.downsample(500);
+        Assert.assertEquals(500, downsampled.size());
+        Assert.assertArrayEquals(series.getMetrics(), downsampled.getMetrics());
+        for (int i = 1; i < downsampled.size(); i++) {
+            Assert.assertTrue(downsampled.getDepth(i) > downsampled.getDepth(i - 1));
+        }
+
+        int end = series.size() / 500;
+        double depthSum = 0;
+        double valueSum = 0;
+        int valueCount = 0;
+        for (int i = 0; i < end; i++) {
+            depthSum += series.getDepth(i);
+            if (!Float.isNaN(series.getValue(0, i))) {
+                valueSum += series.getValue(0, i);
+                valueCount++;
+            }
+        }
+        Assert.assertEquals(depthSum / end, downsampled.getDepth(0), 0.0001);
+        Assert.assertEquals(valueSum / valueCount, downsampled.getValue(0, 0), 0.01);
+    }
+
+    /**
+     * OWS exception reports are thrown with their exception text
+     */
+    @Test
+    public void testExceptionReport() throws Exception {
+        try {
+            new MSCLObservationParser(METRICS).parse(ResourceUtil.loadResourceAsStream("OWSExceptionSample1.xml"));
+            Assert.fail("Expected a PortalServiceException");
+        } catch (PortalServiceException ex) {
+            Assert.assertTrue(ex.getMessage().contains("The query should specify either typeName or a featureId filter"));
+        }
+    }
+
+    /**
+     * Non numeric values fail rather than being silently dropped
+     */
+    @Test(expected = PortalServiceException.class)
+    public void testInvalidValue() throws Exception {
+        String xml = "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:mscl=\"http://example.org/mscl\">"
+                + "<mscl:scanned_data><mscl:depth>1.0</mscl:depth><mscl:density>NULL</mscl:density></mscl:scanned_data>"
+                + "</wfs:FeatureCollection>";
+        new MSCLObservationParser(METRICS).parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,296 @@
+package org.auscope.portal.nvcl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse;
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse.Bin;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+
+/**
+ * Unit tests for ScalarBinningEngine. The synthetic CSV corpus is generated from fixed seeds and
+ * every result is compared against the original map based binning algorithm (reproduced below).
+ */
+public class TestScalarBinningEngine {
+
+    private static final String[] MINERALS = new String[] {"Quartz", "Mica", "Kaolinite", "Illite", "Chlorite", "Epidote", "Muscovite", "Alunite-K"};
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Generates a synthetic NVCL style scalar CSV
+     * @param seed Random seed
+     * @param rows Number of data rows
+     * @param numericCols Number of purely numeric columns
+     * @param categoryCols Number of categorical columns
+     * @param depthStep Depth increment between rows (in metres)
+     * @param noise If true - missing values, malformed rows and late switches from numeric to categorical data will be included
+     * @return
+     */
+    private static byte[] syntheticCsv(long seed, int rows, int numericCols, int categoryCols, double depthStep, boolean noise) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder("\"StartDepth\"");
+        for (int i = 0; i < numericCols; i++) {
+            sb.append(",\"scalar").append(i).append('"');
+        }
+        for (int i = 0; i < categoryCols; i++) {
+            sb.append(",\"class").append(i).append('"');
+        }
+        sb.append('\n');
+
+        double depth = 100.0 + random.nextDouble();
+        for (int row = 0; row < rows; row++) {
+            depth += depthStep * (0.5 + random.nextDouble());
+            sb.append(depth);
+            if (noise && random.nextInt(500) == 0) {
+                sb.append(",malformed\n");
+                continue;
+            }
+
+            for (int i = 0; i < numericCols; i++) {
+                sb.append(',');
+                if (noise && random.nextInt(20) == 0) {
+                    sb.append(random.nextBoolean() ? "null" : "");
+                } else if (noise && i == 0 && row > rows / 2 && random.nextInt(100) == 0) {
+                    sb.append(MINERALS[random.nextInt(MINERALS.length)]);
+                } else {
+                    sb.append(random.nextInt(10000) / 100.0);
+                }
+            }
+            for (int i = 0; i < categoryCols; i++) {
+                sb.append(',');
+                if (noise && random.nextInt(20) == 0) {
+                    sb.append("null");
+                } else {
+                    sb.append('"').append(MINERALS[random.nextInt(MINERALS.length)]).append('"');
+                }
+            }
+            sb.append('\n');
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The original HashMap/boxed List binning algorithm used as the reference result
+     */
+    private static Bin[] legacyBinning(BinnedCSVResponse binnedResponse, InputStream responseStream, double binSizeMetres, char quoteChar, int startAtCol, int stopAtCol, String altName) throws Exception {
+        CSVParser parser = new CSVParserBuilder().withSeparator(',').withQuoteChar(quoteChar).build();
+        CSVReader reader = new CSVReaderBuilder(new InputStreamReader(responseStream)).withCSVParser(parser).build();
+        String[] headerLine = reader.readNext();
+        if (headerLine == null || headerLine.length <= startAtCol) {
+            throw new IOException("No or malformed CSV header sent");
+        }
+        if (stopAtCol < 0) {
+            stopAtCol = headerLine.length;
+        }
+        if (startAtCol < 0) {
+            startAtCol = 2;
+        }
+        Bin[] bins = new Bin[stopAtCol - startAtCol];
+        List<HashMap<String, Integer>> valueCounts = new ArrayList<HashMap<String, Integer>>(bins.length);
+        double[] numericTotal = new double[bins.length];
+        int[] numericCount = new int[bins.length];
+        double currentBinStartDepth = -Double.MAX_VALUE;
+        int currentBinSize = 0;
+        for (int i = 0; i < bins.length; i++) {
+            String name = altName == null ? headerLine[startAtCol + i] : altName;
+            bins[i] = binnedResponse.new Bin(name, new ArrayList<Double>(), true, new ArrayList<Map<String, Integer>>(), new ArrayList<String>(), new ArrayList<Double>());
+            valueCounts.add(new HashMap<String, Integer>());
+        }
+
+        String[] dataLine = null;
+        while ((dataLine = reader.readNext()) != null) {
+            if (dataLine.length != headerLine.length) {
+                continue;
+            }
+            double depth = Double.parseDouble(dataLine[0]);
+            if (depth - currentBinStartDepth >= binSizeMetres) {
+                if (currentBinStartDepth == -Double.MAX_VALUE) {
+                    currentBinStartDepth = depth;
+                }
+                legacyCloseBins(bins, valueCounts, numericTotal, numericCount, currentBinStartDepth);
+                for (int i = 0; i < bins.length; i++) {
+                    valueCounts.set(i, new HashMap<String, Integer>());
+                    numericTotal[i] = 0.0;
+                    numericCount[i] = 0;
+                }
+                currentBinStartDepth = depth;
+                currentBinSize = 0;
+            }
+
+            boolean dataAdded = false;
+            for (int i = 0; i < bins.length; i++) {
+                String rawBinData = dataLine[startAtCol + i];
+                if (rawBinData == null || rawBinData.isEmpty() || rawBinData.equals("null")) {
+                    continue;
+                }
+                dataAdded = true;
+                if (bins[i].isNumeric()) {
+                    try {
+                        double newData = Double.parseDouble(rawBinData);
+                        numericCount[i]++;
+                        numericTotal[i] += newData;
+                    } catch (NumberFormatException nfe) {
+                        bins[i].setNumeric(false);
+                    }
+                }
+                if (!bins[i].isNumeric()) {
+                    Integer currentCount = valueCounts.get(i).get(rawBinData);
+                    valueCounts.get(i).put(rawBinData, currentCount == null ? 1 : currentCount + 1);
+                }
+            }
+            if (dataAdded) {
+                currentBinSize++;
+            }
+        }
+
+        if (currentBinSize > 0) {
+            legacyCloseBins(bins, valueCounts, numericTotal, numericCount, currentBinStartDepth);
+        }
+        return bins;
+    }
+
+    private static void legacyCloseBins(Bin[] bins, List<HashMap<String, Integer>> valueCounts, double[] numericTotal, int[] numericCount, double currentBinStartDepth) {
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i].isNumeric()) {
+                if (numericCount[i] > 0) {
+                    bins[i].getNumericValues().add(numericTotal[i] / (double) numericCount[i]);
+                    bins[i].getStartDepths().add(currentBinStartDepth);
+                }
+            } else {
+                String largestValue = null;
+                int largestCount = Integer.MIN_VALUE;
+                for (Entry<String, Integer> entry : valueCounts.get(i).entrySet()) {
+                    if (entry.getValue() > largestCount) {
+                        largestCount = entry.getValue();
+                        largestValue = entry.getKey();
+                    }
+                }
+                if (largestValue != null) {
+                    bins[i].getStartDepths().add(currentBinStartDepth);
+                    bins[i].getHighStringValues().add(largestValue);
+                    bins[i].getStringValues().add(valueCounts.get(i));
+                }
+            }
+        }
+    }
+
+    private void assertEquivalent(byte[] csv, double binSizeMetres, int startAtCol, int stopAtCol, String altName) throws Exception {
+        Bin[] expected = legacyBinning(new BinnedCSVResponse(), new ByteArrayInputStream(csv), binSizeMetres, '"', startAtCol, stopAtCol, altName);
+        Bin[] actual = new ScalarBinningEngine(binSizeMetres, '"', startAtCol, stopAtCol).bin(new BinnedCSVResponse(), new ByteArrayInputStream(csv), altName);
+
+        Assert.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(actual));
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Tests binning of a small hand checked fixture with numeric, categorical, missing and malformed data
+     */
+    @Test
+    public void testMixedFixture() throws Exception {
+        Bin[] bins;
+        try (InputStream is = ClassLoader.getSystemResourceAsStream("org/auscope/portal/nvcl/binning-mixed.csv")) {
+            bins = new ScalarBinningEngine(1.0, '"', 1, -1).bin(new BinnedCSVResponse(), is, null);
+        }
+
+        Assert.assertEquals(2, bins.length);
+
+        Assert.assertEquals("Value", bins[0].getName());
+        Assert.assertTrue(bins[0].isNumeric());
+        Assert.assertEquals(3, bins[0].getNumericValues().size());
+        Assert.assertEquals(2.0, bins[0].getNumericValues().get(0), 0.0000001);
+        Assert.assertEquals(5.0, bins[0].getNumericValues().get(1), 0.0000001);
+        Assert.assertEquals(2.0, bins[0].getNumericValues().get(2), 0.0000001);
+        Assert.assertEquals(0.0, bins[0].getStartDepths().get(0), 0.0000001);
+        Assert.assertEquals(1.0, bins[0].getStartDepths().get(1), 0.0000001);
+        Assert.assertEquals(2.1, bins[0].getStartDepths().get(2), 0.0000001);
+        Assert.assertTrue(bins[0].getStringValues().isEmpty());
+
+        Assert.assertEquals("Mineral", bins[1].getName());
+        Assert.assertFalse(bins[1].isNumeric());
+        Assert.assertTrue(bins[1].getNumericValues().isEmpty());
+        Assert.assertEquals(3, bins[1].getStartDepths().size());
+        Assert.assertEquals("Quartz", bins[1].getHighStringValues().get(0));
+        Assert.assertEquals("Mica", bins[1].getHighStringValues().get(1));
+        Assert.assertEquals("Mica", bins[1].getHighStringValues().get(2));
+        Assert.assertEquals(Integer.valueOf(2), bins[1].getStringValues().get(0).get("Quartz"));
+        Assert.assertEquals(Integer.valueOf(2), bins[1].getStringValues().get(1).get("Mica"));
+        Assert.assertEquals(Integer.valueOf(1), bins[1].getStringValues().get(1).get("Quartz"));
+        Assert.assertEquals(Integer.valueOf(1), bins[1].getStringValues().get(2).get("Mica"));
+    }
+
+    /**
+     * Tests that a missing header is reported as an error
+     */
+    @Test(expected = IOException.class)
+    public void testEmptyStream() throws Exception {
+        new ScalarBinningEngine(1.0, '"', 1, 2).bin(new BinnedCSVResponse(), new ByteArrayInputStream(new byte[0]), null);
+    }
+
+    /**
+     * Tests the serialised output matches the original algorithm across the synthetic corpus
+     */
+    @Test
+    public void testSyntheticCorpusEquivalence() throws Exception {
+        //The analytics job shape - a single value column binned with an alternative name
+        assertEquivalent(syntheticCsv(1L, 5000, 1, 0, 0.006, false), 1.0, 1, 2, "job1");
+        assertEquivalent(syntheticCsv(2L, 5000, 1, 1, 0.006, true), 1.0, 1, 2, "job2");
+
+        //Wide scalar downloads with categorical columns and noise
+        assertEquivalent(syntheticCsv(3L, 20000, 4, 3, 0.01, true), 1.0, 1, -1, null);
+        assertEquivalent(syntheticCsv(4L, 20000, 2, 2, 0.01, true), 0.25, -1, -1, null);
+
+        //Bins smaller than the sample spacing (one row per bin)
+        assertEquivalent(syntheticCsv(5L, 10000, 3, 3, 0.5, true), 0.1, 1, -1, null);
+
+        //Header only
+        assertEquivalent(syntheticCsv(6L, 0, 2, 1, 0.01, false), 1.0, 1, -1, null);
+    }
+
+    /**
+     * Tests that the engine allocates less than the map based algorithm on a large categorical heavy corpus
+     */
+    @Test
+    public void testAllocationReduced() throws Exception {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        Assume.assumeTrue(((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemoryEnabled());
+
+        byte[] csv = syntheticCsv(7L, 50000, 4, 4, 0.5, false);
+
+        //Warm up both implementations so we aren't measuring class loading
+        legacyBinning(new BinnedCSVResponse(), new ByteArrayInputStream(csv), 0.1, '"', 1, -1, null);
+        new ScalarBinningEngine(0.1, '"', 1, -1).bin(new BinnedCSVResponse(), new ByteArrayInputStream(csv), null);
+
+        long start = allocatedBytes();
+        legacyBinning(new BinnedCSVResponse(), new ByteArrayInputStream(csv), 0.1, '"', 1, -1, null);
+        long legacyBytes = allocatedBytes() - start;
+
+        start = allocatedBytes();
+        new ScalarBinningEngine(0.1, '"', 1, -1).bin(new BinnedCSVResponse(), new ByteArrayInputStream(csv), null);
+        long engineBytes = allocatedBytes() - start;
+
+        Assert.assertTrue(String.format("Engine allocated %1$d bytes, legacy allocated %2$d bytes", engineBytes, legacyBytes), engineBytes < legacyBytes);
+    }
+}
@@ -0,0 +1,79 @@
+package org.auscope.portal.server.domain.nvcldataservice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for BoreholeIdSet
+ */
+public class TestBoreholeIdSet {
+
+    @Test
+    public void testSortedAndDeduplicated() {
+        BoreholeIdSet ids = BoreholeIdSet.copyOf(Arrays.asList("http://example/id3", "http://example/id1", null, "http://example/id3", "http://example/id20"));
+        Assert.assertEquals(Arrays.asList("http://example/id1", "http://example/id20", "http://example/id3"), ids);
+        Assert.assertEquals("http://example/id", ids.getCommonPrefix());
+    }
+
+    @Test
+    public void testContains() {
+        BoreholeIdSet ids = BoreholeIdSet.copyOf(Arrays.asList("http://example/id1", "http://example/id2", "http://example/id10"));
+        Assert.assertTrue(ids.contains("http://example/id1"));
+        Assert.assertTrue(ids.contains("http://example/id10"));
+        Assert.assertFalse(ids.contains("http://example/id"));
+        Assert.assertFalse(ids.contains("http://example/id100"));
+        Assert.assertFalse(ids.contains("http://other/id1"));
+        Assert.assertFalse(ids.contains(null));
+        Assert.assertEquals(2, ids.indexOf("http://example/id2"));
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertSame(BoreholeIdSet.EMPTY, BoreholeIdSet.copyOf(Collections.<String>emptyList()));
+        Assert.assertTrue(BoreholeIdSet.EMPTY.isEmpty());
+        Assert.assertFalse(BoreholeIdSet.EMPTY.contains(""));
+    }
+
+    @Test
+    public void testSingleAndPrefixOfAnother() {
+        Assert.assertEquals(Arrays.asList("abc"), BoreholeIdSet.copyOf(Arrays.asList("abc")));
+
+        BoreholeIdSet ids = BoreholeIdSet.copyOf(Arrays.asList("abcd", "abc", "ab"));
+        Assert.assertEquals(Arrays.asList("ab", "abc", "abcd"), ids);
+        Assert.assertTrue(ids.contains("ab"));
+        Assert.assertTrue(ids.contains("abcd"));
+        Assert.assertFalse(ids.contains("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        BoreholeIdSet.copyOf(Arrays.asList("a")).add("b");
+    }
+
+    /**
+     * Compares against a TreeSet for random IDs
+     */
+    @Test
+    public void testMatchesTreeSet() {
+        Random random = new Random(42);
+        List<String> source = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            source.add("http://example.org/borehole/" + Integer.toString(random.nextInt(3000), 36));
+        }
+
+        TreeSet<String> expected = new TreeSet<String>(source);
+        BoreholeIdSet ids = BoreholeIdSet.copyOf(source);
+        Assert.assertEquals(new ArrayList<String>(expected), ids);
+        for (int i = 0; i < 3000; i++) {
+            String id = "http://example.org/borehole/" + Integer.toString(i, 36);
+            Assert.assertEquals(expected.contains(id), ids.contains(id));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.auscope.portal.server.vegl;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.auscope.portal.core.util.ResourceUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.ui.ModelMap;
+
+/**
+ * Unit tests for SectionedLog
+ */
+public class TestSectionedLog {
+
+    private static final String GROWING_LOG = "preamble\n" +
+            "#### environment start ####\n" +
+            "PATH=/usr/bin\n" +
+            "#### environment end ####\n" +
+            "\n" +
+            "#### Python start ####\n" +
+            "print('héllo wörld ☃')\n" +
+            "#### Python end ####\n" +
+            "#### Time start ####\n" +
+            "real 1m2.3s\n" +
+            "#### Time end ####";
+
+    /**
+     * Appending a log in chunks of any size should give the same sections as parsing it in one go
+     */
+    @Test
+    public void testChunkedAppendMatchesWhole() throws Exception {
+        String fixture = IOUtils.toString(ResourceUtil.loadResourceAsStream("sectionedVglLog.txt"), StandardCharsets.UTF_8);
+        for (String contents : new String[] {fixture, GROWING_LOG}) {
+            ModelMap expected = SectionedLog.parse(contents).getSections();
+            byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+
+            for (int chunkSize = 1; chunkSize <= 17; chunkSize++) {
+                SectionedLog log = new SectionedLog();
+                for (int i = 0; i < bytes.length; i += chunkSize) {
+                    log.append(bytes, i, Math.min(chunkSize, bytes.length - i));
+                    //Requesting sections part way through mustn't disturb the parse
+                    log.getSections();
+                }
+                Assert.assertEquals("chunkSize=" + chunkSize, expected, log.getSections());
+                Assert.assertEquals(bytes.length, log.getByteLength());
+            }
+        }
+    }
+
+    /**
+     * Sections should reflect the log as it grows
+     */
+    @Test
+    public void testGrowingLog() {
+        SectionedLog log = SectionedLog.parse("#### environment start ####\nPATH=/usr/bin\n#### environment end ####\n#### Python start ####\nprint(");
+
+        ModelMap sections = log.getSections();
+        Assert.assertEquals("PATH=/usr/bin\n", sections.get("environment"));
+        Assert.assertEquals("print(", sections.get("Python"));
+
+        byte[] more = "1)\n#### Python end ####".getBytes(StandardCharsets.UTF_8);
+        log.append(more, 0, more.length);
+        sections = log.getSections();
+        Assert.assertEquals("print(1)\n", sections.get("Python"));
+        Assert.assertEquals(3, sections.size());
+        Assert.assertTrue(sections.get(SectionedLog.FULL_SECTION).toString().endsWith("#### Python end ####"));
+    }
+
+    @Test
+    public void testNoSections() {
+        ModelMap sections = SectionedLog.parse("just some text\nwithout sections").getSections();
+        Assert.assertEquals(1, sections.size());
+        Assert.assertEquals("just some text\nwithout sections", sections.get(SectionedLog.FULL_SECTION));
+    }
+}
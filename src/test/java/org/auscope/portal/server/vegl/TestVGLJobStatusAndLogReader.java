@@ -1,11 +1,15 @@
 package org.auscope.portal.server.vegl;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.auscope.portal.core.cloud.CloudFileInformation;
+import org.auscope.portal.core.cloud.CloudFileOwner;
 import org.auscope.portal.core.cloud.CloudJob;
 import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.cloud.CloudComputeService;
@@ -17,6 +21,8 @@ import org.auscope.portal.server.web.controllers.JobBuilderController;
 import org.auscope.portal.server.web.controllers.JobListController;
 import org.auscope.portal.server.web.security.NCIDetails;
 import org.auscope.portal.server.web.service.CloudSubmissionService;
+import org.auscope.portal.server.web.service.cloud.CloudStorageServiceNci;
+import org.auscope.portal.server.web.service.cloud.RangedInputStream;
 import org.jmock.Expectations;
 import org.junit.Assert;
 import org.junit.Before;
@@ -84,6 +90,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
             allowing(mockJob).getComputeServiceId();will(returnValue(computeServiceId));
             oneOf(mockCloudComputeServices[0]).getJobStatus(mockJob);will(returnValue(InstanceStatus.Pending));
         }});
@@ -122,6 +129,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
             allowing(mockJob).getComputeServiceId();will(returnValue(computeServiceId));
             oneOf(mockCloudComputeServices[0]).getJobStatus(mockJob);will(returnValue(InstanceStatus.Running));
         }});
@@ -160,6 +168,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
             allowing(mockJob).getComputeServiceId();will(returnValue(computeServiceId));
             oneOf(mockCloudComputeServices[0]).getJobStatus(mockJob);will(returnValue(InstanceStatus.Missing));
         }});
@@ -168,6 +177,43 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
         Assert.assertEquals(JobBuilderController.STATUS_ERROR, status);
     }
 
+    /**
+     * Tests that a status looked up by the caller (eg - in a batch) is used
+     * rather than asking the compute service again
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetJobStatus_BatchedStatus() throws Exception {
+        final int mockJobId = 123;
+        final String mockJobStatus = JobBuilderController.STATUS_PENDING;
+        final VEGLJob mockJob = context.mock(VEGLJob.class);
+        final CloudFileInformation[] jobPendingFiles = new CloudFileInformation[] {
+                new CloudFileInformation("key3/filename", 100L, "http://public.url3/filename"),
+        };
+
+        context.checking(new Expectations() {{
+            oneOf(mockJobManager).getJobById(mockJobId, null, null, null, USER_EMAIL, null, null, null);will(returnValue(mockJob));
+            allowing(mockJob).getId();will(returnValue(mockJobId));
+            allowing(mockJob).getEmailAddress();will(returnValue(USER_EMAIL));
+            allowing(mockJob).getStatus();will(returnValue(mockJobStatus));
+            allowing(mockJob).getStorageServiceId();will(returnValue(storageServiceId));
+            oneOf(mockCloudStorageServices[0]).listJobFiles(with(mockJob));will(returnValue(jobPendingFiles));
+            allowing(mockJob).getProperty(CloudJob.PROPERTY_STS_ARN); will(returnValue(null));
+            allowing(mockJob).getProperty(CloudJob.PROPERTY_CLIENT_SECRET); will(returnValue(null));
+            allowing(mockJob).getProperty(CloudJob.PROPERTY_S3_ROLE); will(returnValue(null));
+            allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
+            allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
+            allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(InstanceStatus.Missing.name()));
+            allowing(mockJob).getComputeServiceId();will(returnValue(computeServiceId));
+            never(mockCloudComputeServices[0]).getJobStatus(mockJob);
+        }});
+
+        String status = jobStatLogReader.getJobStatus(mockJob);
+        Assert.assertEquals(JobBuilderController.STATUS_ERROR, status);
+    }
+
     /**
      * Tests that the get job status method returns active
      * status when its status changes from pending to active.
@@ -201,6 +247,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
             allowing(mockJob).isWalltimeSet(); will(returnValue(false));
             
             allowing(mockJob).getWalltime(); will(returnValue(null));
@@ -251,6 +298,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
             oneOf(mockCloudComputeServices[0]).getJobStatus(mockJob);will(returnValue(InstanceStatus.Missing));
         }});
 
@@ -280,6 +328,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue("d"));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue("e"));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue("f"));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue("f"));
         }});
 
         String status = jobStatLogReader.getJobStatus(mockJob);
@@ -305,6 +354,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
         }});
 
         String status = jobStatLogReader.getJobStatus(mockJob);
@@ -334,6 +384,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
         }});
 
         String status = jobStatLogReader.getJobStatus(mockJob);
@@ -365,6 +416,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
         }});
 
         String status = jobStatLogReader.getJobStatus(mockJob);
@@ -393,6 +445,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
 
             oneOf(mockCloudSubmissionService).isSubmitting(mockJob, mockCloudComputeServices[0]);will(returnValue(false));
             oneOf(mockJobManager).getJobById(jobId, null, null, null, USER_EMAIL, null, null, null);will(returnValue(mockJob));
@@ -431,6 +484,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob1).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob1).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob1).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob1).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
 
             //Pretend our job is going to shift to Pending while we are checking everything. Make sure we catch it and then
             //proceed with a normal Pending - Active job check
@@ -449,6 +503,7 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
             allowing(mockJob2).getProperty(NCIDetails.PROPERTY_NCI_USER); will(returnValue(null));
             allowing(mockJob2).getProperty(NCIDetails.PROPERTY_NCI_PROJECT); will(returnValue(null));
             allowing(mockJob2).getProperty(NCIDetails.PROPERTY_NCI_KEY); will(returnValue(null));
+            allowing(mockJob2).getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS); will(returnValue(null));
 //            allowing(mockJob2).getSubmitDate(); will(returnValue(new Date()));
             allowing(mockJob2).isWalltimeSet(); will(returnValue(false));
             allowing(mockJob2).getWalltime(); will(returnValue(null));
@@ -629,7 +684,129 @@ public class TestVGLJobStatusAndLogReader extends PortalTestClass {
         Assert.assertNull(result);
     }
 
+    /**
+     * Tests that repeated requests with the same job object share a single download
+     * @throws Exception
+     */
+    @Test
+    public void testGetSectionedLogs_SharedBetweenCallers() throws Exception {
+        try (final InputStream logContents = ResourceUtil.loadResourceAsStream("sectionedVglLog.txt")) {
+            final VEGLJob mockJob = context.mock(VEGLJob.class);
+
+            context.checking(new Expectations() {{
+                allowing(mockJob).getStorageServiceId();will(returnValue(storageServiceId));
+                allowing(mockCloudStorageServices[0]).getId();will(returnValue(storageServiceId));
+                oneOf(mockCloudStorageServices[0]).getJobFile(mockJob, JobListController.VL_LOG_FILE);will(returnValue(logContents));
+            }});
+
+            Assert.assertEquals("contents of env\n", stripCarriageReturns(jobStatLogReader.getSectionedLog(mockJob, "environment")));
+            Assert.assertEquals("multiple\nlines\n", stripCarriageReturns(jobStatLogReader.getSectionedLog(mockJob, "test")));
+        }
+    }
+
+    /**
+     * Storage that supports ranged reads serving an in memory log
+     */
+    private static class RangedStorage extends CloudStorageServiceNci {
+        private byte[] contents = new byte[0];
+        private long lastModified = 1000L;
+        private final List<Long> offsetsRead = new ArrayList<>();
+
+        public RangedStorage(String id) {
+            super("localhost", "nci", null);
+            setId(id);
+        }
+
+        @Override
+        public RangedInputStream getJobFile(CloudFileOwner job, String fileName, long offset) {
+            offsetsRead.add(offset);
+            int start = (int) Math.min(offset, contents.length);
+            return new RangedInputStream(new ByteArrayInputStream(contents, start, contents.length - start), contents.length, lastModified);
+        }
+    }
+
+    /**
+     * Tests that logs from ranged storage only have their appended bytes read on each request
+     * @throws Exception
+     */
+    @Test
+    public void testGetSectionedLogs_RangedIncremental() throws Exception {
+        RangedStorage storage = new RangedStorage(storageServiceId);
+        VGLJobStatusAndLogReader reader = new VGLJobStatusAndLogReader(mockJobManager,
+                new CloudStorageService[] {storage}, mockCloudComputeServices);
+
+        VEGLJob job = new VEGLJob();
+        job.setId(1);
+        job.setStorageServiceId(storageServiceId);
+
+        String firstPart = "#### environment start ####\ncontents of env\n#### environment end ####\n#### Python start ####\n";
+        storage.contents = firstPart.getBytes(StandardCharsets.UTF_8);
+        ModelMap sections = reader.getSectionedLogs(job);
+        Assert.assertEquals("contents of env\n", sections.get("environment"));
+        Assert.assertEquals("", sections.get("Python"));
+
+        //A different job object (eg - the next page load) should only fetch the new bytes
+        VEGLJob reloadedJob = new VEGLJob();
+        reloadedJob.setId(1);
+        reloadedJob.setStorageServiceId(storageServiceId);
+        storage.contents = (firstPart + "print(1)\n#### Python end ####\n").getBytes(StandardCharsets.UTF_8);
+        sections = reader.getSectionedLogs(reloadedJob);
+        Assert.assertEquals("print(1)\n", sections.get("Python"));
+        Assert.assertEquals(new String(storage.contents, StandardCharsets.UTF_8), sections.get("Full"));
+
+        //Only the bytes being verified are read again
+        Assert.assertEquals(Arrays.asList(0L, (long) firstPart.length() - VGLJobStatusAndLogReader.VERIFY_BYTES), storage.offsetsRead);
+    }
+
+    /**
+     * Tests that a cached log is read again from the start when the file shrinks or is modified
+     * other than by appending (but not when it is appended to)
+     * @throws Exception
+     */
+    @Test
+    public void testGetSectionedLogs_RangedRewritten() throws Exception {
+        RangedStorage storage = new RangedStorage(storageServiceId);
+        VGLJobStatusAndLogReader reader = new VGLJobStatusAndLogReader(mockJobManager,
+                new CloudStorageService[] {storage}, mockCloudComputeServices);
+
+        String firstRun = "#### environment start ####\ncontents of env\n#### environment end ####\n#### Python start ####\nprint(1)\n";
+        storage.contents = firstRun.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(firstRun, reader.getSectionedLogs(newJob(1)).get("Full"));
+
+        //Appended (and so modified) - only the new bytes are needed
+        String appended = firstRun + "#### Python end ####\n";
+        storage.contents = appended.getBytes(StandardCharsets.UTF_8);
+        storage.lastModified += 1000L;
+        Assert.assertEquals(appended, reader.getSectionedLogs(newJob(1)).get("Full"));
+
+        //Rewritten with the same length - the verified bytes no longer match
+        String rewritten = appended.replace("print(1)", "print(2)");
+        storage.contents = rewritten.getBytes(StandardCharsets.UTF_8);
+        storage.lastModified += 1000L;
+        Assert.assertEquals(rewritten, reader.getSectionedLogs(newJob(1)).get("Full"));
+        Assert.assertEquals("print(2)\n", reader.getSectionedLogs(newJob(1)).get("Python"));
+
+        //Truncated (eg - the job was rerun)
+        String rerun = "#### environment start ####\nnew env\n";
+        storage.contents = rerun.getBytes(StandardCharsets.UTF_8);
+        storage.lastModified += 1000L;
+        Assert.assertEquals(rerun, reader.getSectionedLogs(newJob(1)).get("Full"));
+
+        Assert.assertEquals(Arrays.asList(0L,
+                (long) firstRun.length() - VGLJobStatusAndLogReader.VERIFY_BYTES,
+                (long) appended.length() - VGLJobStatusAndLogReader.VERIFY_BYTES, 0L,
+                (long) rewritten.length() - VGLJobStatusAndLogReader.VERIFY_BYTES,
+                (long) rewritten.length() - VGLJobStatusAndLogReader.VERIFY_BYTES, 0L), storage.offsetsRead);
+    }
+
+    private VEGLJob newJob(int id) {
+        VEGLJob job = new VEGLJob();
+        job.setId(id);
+        job.setStorageServiceId(storageServiceId);
+        return job;
+    }
+
     private static String stripCarriageReturns(String s) {
         return s.replaceAll("\r", "");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,406 @@
+package org.auscope.portal.server.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor;
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor.CompactedIds;
+import org.auscope.portal.server.domain.ogc.AbstractFilterTestUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Unit tests for BoreholeIdFilterCompactor.
+ *
+ * The generated fragments are evaluated (with OGC semantics) against a universe of identifiers that
+ * includes every requested identifier along with near misses - the matches must be exactly the requested set.
+ * Rather than testing every identifier against every predicate, equality (and "in") predicates look their
+ * literals up in the universe and ranges only test the part of the (sorted) universe between their bounds.
+ */
+public class TestBoreholeIdFilterCompactor {
+
+    private static final String PROPERTY = "gsmlp:identifier";
+
+    /**
+     * A compiled OGC predicate
+     */
+    private abstract static class IdMatcher {
+        public abstract boolean matches(String id);
+
+        /**
+         * Adds the members of universe matched by this predicate to matched
+         */
+        public void select(NavigableSet<String> universe, Set<String> matched) {
+            for (String id : universe) {
+                if (matches(id)) {
+                    matched.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches the identifiers in literals
+     */
+    private static IdMatcher anyOf(final Set<String> literals) {
+        return new IdMatcher() {
+            @Override
+            public boolean matches(String id) {
+                return literals.contains(id);
+            }
+
+            @Override
+            public void select(NavigableSet<String> universe, Set<String> matched) {
+                for (String literal : literals) {
+                    if (universe.contains(literal)) {
+                        matched.add(literal);
+                    }
+                }
+            }
+        };
+    }
+
+    private static List<Element> childElements(Element element) {
+        List<Element> children = new ArrayList<Element>();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element) {
+                children.add((Element) node);
+            }
+        }
+        return children;
+    }
+
+    private static Element child(Element element, String localName) {
+        for (Element child : childElements(element)) {
+            if (child.getLocalName().equals(localName)) {
+                return child;
+            }
+        }
+        Assert.fail("No " + localName + " under " + element.getLocalName());
+        return null;
+    }
+
+    private static void assertProperty(Element propertyName) {
+        Assert.assertEquals(PROPERTY, propertyName.getTextContent());
+    }
+
+    private static IdMatcher compile(Element element) {
+        final List<Element> children = childElements(element);
+        switch (element.getLocalName()) {
+        case "Or":
+        case "And":
+            final boolean isOr = element.getLocalName().equals("Or");
+            //Equality against literals is gathered into a set so that huge filters can be evaluated quickly
+            final Set<String> equalTo = new HashSet<String>();
+            final List<IdMatcher> others = new ArrayList<IdMatcher>();
+            for (Element child : children) {
+                if (isOr && child.getLocalName().equals("PropertyIsEqualTo") && "true".equals(child.getAttribute("matchCase"))) {
+                    assertProperty(child(child, "PropertyName"));
+                    equalTo.add(child(child, "Literal").getTextContent());
+                } else if (!isOr && child.getLocalName().equals("PropertyIsBetween")) {
+                    //Selecting by the range first means only the identifiers between its bounds are tested
+                    others.add(0, compile(child));
+                } else {
+                    others.add(compile(child));
+                }
+            }
+            if (isOr) {
+                others.add(0, anyOf(equalTo));
+            }
+            return new IdMatcher() {
+                @Override
+                public boolean matches(String id) {
+                    for (IdMatcher other : others) {
+                        if (other.matches(id) == isOr) {
+                            return isOr;
+                        }
+                    }
+                    return !isOr;
+                }
+
+                @Override
+                public void select(NavigableSet<String> universe, Set<String> matched) {
+                    if (isOr) {
+                        for (IdMatcher other : others) {
+                            other.select(universe, matched);
+                        }
+                        return;
+                    }
+
+                    Set<String> candidates = new HashSet<String>();
+                    others.get(0).select(universe, candidates);
+                    for (String id : candidates) {
+                        boolean matchesAll = true;
+                        for (IdMatcher other : others.subList(1, others.size())) {
+                            matchesAll = matchesAll && other.matches(id);
+                        }
+                        if (matchesAll) {
+                            matched.add(id);
+                        }
+                    }
+                }
+            };
+        case "PropertyIsEqualTo":
+            Element first = children.get(0);
+            if (first.getLocalName().equals("Function")) {
+                Assert.assertEquals("in", first.getAttribute("name"));
+                Assert.assertEquals("true", child(element, "Literal").getTextContent());
+                List<Element> args = childElements(first);
+                assertProperty(args.get(0));
+                Set<String> values = new HashSet<String>();
+                for (Element arg : args.subList(1, args.size())) {
+                    values.add(arg.getTextContent());
+                }
+                return anyOf(values);
+            }
+            assertProperty(first);
+            Assert.assertEquals("true", element.getAttribute("matchCase"));
+            return anyOf(new HashSet<String>(Arrays.asList(child(element, "Literal").getTextContent())));
+        case "PropertyIsBetween":
+            assertProperty(child(element, "PropertyName"));
+            final String lower = child(child(element, "LowerBoundary"), "Literal").getTextContent();
+            final String upper = child(child(element, "UpperBoundary"), "Literal").getTextContent();
+            return new IdMatcher() {
+                @Override
+                public boolean matches(String id) {
+                    return id.compareTo(lower) >= 0 && id.compareTo(upper) <= 0;
+                }
+
+                @Override
+                public void select(NavigableSet<String> universe, Set<String> matched) {
+                    if (lower.compareTo(upper) <= 0) {
+                        matched.addAll(universe.subSet(lower, true, upper, true));
+                    }
+                }
+            };
+        case "PropertyIsLike":
+            assertProperty(child(element, "PropertyName"));
+            Assert.assertEquals("true", element.getAttribute("matchCase"));
+            char wildCard = element.getAttribute("wildCard").charAt(0);
+            char singleChar = element.getAttribute("singleChar").charAt(0);
+            char escapeChar = element.getAttribute("escapeChar").charAt(0);
+            String pattern = child(element, "Literal").getTextContent();
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == escapeChar) {
+                    regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+                } else if (c == wildCard) {
+                    regex.append(".*");
+                } else if (c == singleChar) {
+                    regex.append('.');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            final Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            return new IdMatcher() {
+                @Override
+                public boolean matches(String id) {
+                    return compiled.matcher(id).matches();
+                }
+            };
+        default:
+            Assert.fail("Unexpected element " + element.getLocalName());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the members of universe matched by any of the fragments
+     */
+    private static Set<String> evaluate(List<String> fragments, Set<String> universe) throws Exception {
+        //String.compareTo is the lexical order that PropertyIsBetween uses
+        NavigableSet<String> sortedUniverse = new TreeSet<String>(universe);
+        Set<String> matched = new HashSet<String>();
+        for (String fragment : fragments) {
+            Document doc = AbstractFilterTestUtilities.parsefilterStringXML(fragment);
+            List<Element> roots = childElements(doc.getDocumentElement());
+            Assert.assertEquals(1, roots.size());
+            compile(roots.get(0)).select(sortedUniverse, matched);
+        }
+        return matched;
+    }
+
+    /**
+     * Generates count identifiers as runs of consecutive numbers (of random lengths) across several stems and digit counts.
+     * Every identifier is added to ids and, along with its near misses, to universe.
+     */
+    private static void generate(Random random, int count, Set<String> ids, Set<String> universe) {
+        String[] stems = new String[] {"http://example.org/borehole/GSV/", "http://example.org/borehole/GSWA/BH", "http://example.org/borehole/NTGS/", "urn:x:bh:"};
+        while (ids.size() < count) {
+            String stem = stems[random.nextInt(stems.length)];
+            int digits = 1 + random.nextInt(7);
+            long max = (long) Math.pow(10, digits);
+            long start = (long) (random.nextDouble() * max);
+            int runLength = random.nextInt(10) == 0 ? 1 + random.nextInt(2) : 1 + random.nextInt(300);
+            for (long value = start; value < max && value < start + runLength && ids.size() < count; value++) {
+                String number = String.format("%0" + digits + "d", value);
+                ids.add(stem + number);
+            }
+
+            //Near misses - neighbours, other digit counts, other stems and non numeric tails
+            for (long value : new long[] {start - 1, start + runLength, start + runLength / 2}) {
+                if (value >= 0) {
+                    String number = String.format("%0" + digits + "d", value);
+                    universe.add(stem + number);
+                    universe.add(stem + "0" + number);
+                    universe.add(stem + number + "0");
+                    universe.add(stem + value);
+                    universe.add(stem.toUpperCase() + number);
+                    universe.add(stem + "x" + number);
+                    universe.add(stems[(Arrays.asList(stems).indexOf(stem) + 1) % stems.length] + number);
+                }
+            }
+
+            //Non digits in each digit position of an identifier mid run (a singleChar wildcard matches them)
+            String middle = String.format("%0" + digits + "d", start + runLength / 2);
+            for (int i = 0; i < digits; i++) {
+                universe.add(stem + middle.substring(0, i) + ':' + middle.substring(i + 1));
+            }
+        }
+        universe.addAll(ids);
+    }
+
+    private static CompactedIds assertExact(BoreholeIdFilterCompactor compactor, Set<String> ids, Set<String> universe) throws Exception {
+        CompactedIds compacted = compactor.compact(PROPERTY, new ArrayList<String>(ids));
+        Assert.assertEquals(ids.size(), compacted.getIdCount());
+        Assert.assertEquals(ids, evaluate(compacted.getFragments(), universe));
+        return compacted;
+    }
+
+    @Test
+    public void testRangesMatchExactly() throws Exception {
+        for (int count : new int[] {1, 10, 1000, 100000}) {
+            Set<String> ids = new LinkedHashSet<String>();
+            Set<String> universe = new HashSet<String>();
+            generate(new Random(count), count, ids, universe);
+
+            CompactedIds compacted = assertExact(BoreholeIdFilterCompactor.OGC_1_1, ids, universe);
+            if (count >= 1000) {
+                Assert.assertTrue("Expected at least a 60% reduction, got " + compacted.getReduction(), compacted.getReduction() > 0.6);
+                Assert.assertTrue(compacted.getPredicateCount() < count / 5);
+            }
+        }
+    }
+
+    @Test
+    public void testInFunctionMatchesExactly() throws Exception {
+        Set<String> ids = new LinkedHashSet<String>();
+        Set<String> universe = new HashSet<String>();
+        generate(new Random(7), 100000, ids, universe);
+
+        assertExact(BoreholeIdFilterCompactor.GEOSERVER, ids, universe);
+    }
+
+    /**
+     * Without range support nothing is compacted but the output is still split into bounded chunks
+     */
+    @Test
+    public void testEqualityOnlyIsChunked() throws Exception {
+        Set<String> ids = new LinkedHashSet<String>();
+        Set<String> universe = new HashSet<String>();
+        generate(new Random(3), 1200, ids, universe);
+
+        BoreholeIdFilterCompactor compactor = new BoreholeIdFilterCompactor(false, false, 100);
+        CompactedIds compacted = assertExact(compactor, ids, universe);
+        Assert.assertEquals(1200, compacted.getPredicateCount());
+        Assert.assertEquals(12, compacted.getFragments().size());
+        for (String fragment : compacted.getFragments()) {
+            Document doc = AbstractFilterTestUtilities.parsefilterStringXML(fragment);
+            AbstractFilterTestUtilities.runNodeSetValueCheck(doc, "/test/ogc:Or/ogc:PropertyIsEqualTo", 100);
+        }
+        Assert.assertEquals(0.0, compacted.getReduction(), 0.01);
+    }
+
+    @Test
+    public void testSpecialCharacters() throws Exception {
+        Set<String> ids = new LinkedHashSet<String>(Arrays.asList("a&b<*>#!'\"1", "a&b<*>#!'\"2", "a&b<*>#!'\"3", "a&b<*>#!'\"4", "odd&one"));
+        Set<String> universe = new HashSet<String>(ids);
+        universe.addAll(Arrays.asList("a&b<*>#!'\"5", "a&bX*>#!'\"2", "a&b<**>#!'\"2", "odd"));
+
+        CompactedIds compacted = assertExact(BoreholeIdFilterCompactor.OGC_1_1, ids, universe);
+        Assert.assertEquals(2, compacted.getPredicateCount());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        CompactedIds compacted = BoreholeIdFilterCompactor.OGC_1_1.compact(PROPERTY, Arrays.asList(null, ""));
+        Assert.assertTrue(compacted.getFragments().isEmpty());
+        Assert.assertEquals(0, compacted.getIdCount());
+        Assert.assertEquals(0.0, compacted.getReduction(), 0.0);
+    }
+
+    /**
+     * Runs are split at multiples of ten - a range across one would also match non digits (eg bh100Z between bh1009 and bh1011)
+     */
+    @Test
+    public void testRangesDontCrossDecades() throws Exception {
+        Set<String> ids = new LinkedHashSet<String>(Arrays.asList("bh1008", "bh1009", "bh1010", "bh1011"));
+        Set<String> universe = new HashSet<String>(ids);
+        universe.addAll(Arrays.asList("bh100Z", "bh100:", "bh101/", "bh10Z0", "bh1007", "bh1012"));
+
+        CompactedIds compacted = assertExact(BoreholeIdFilterCompactor.OGC_1_1, ids, universe);
+        Assert.assertEquals(4, compacted.getPredicateCount());
+
+        ids = new LinkedHashSet<String>(Arrays.asList("bh1006", "bh1007", "bh1008", "bh1009", "bh1010", "bh1011", "bh1012", "bh1013"));
+        universe.addAll(ids);
+        universe.addAll(Arrays.asList("bh1005", "bh1014"));
+        compacted = assertExact(BoreholeIdFilterCompactor.OGC_1_1, ids, universe);
+        Assert.assertEquals(2, compacted.getPredicateCount());
+        Document doc = AbstractFilterTestUtilities.parsefilterStringXML(compacted.getFragments().get(0));
+        AbstractFilterTestUtilities.runNodeSetValueCheck(doc, "/test/ogc:Or/ogc:And/ogc:PropertyIsLike/ogc:Literal", new String[] {"bh100#", "bh101#"}, 2);
+    }
+
+    /**
+     * Runs are only collapsed where the range predicate is shorter than a PropertyIsEqualTo for each identifier
+     */
+    @Test
+    public void testShortRunsAreNotRanges() throws Exception {
+        CompactedIds compacted = BoreholeIdFilterCompactor.OGC_1_1.compact(PROPERTY, Arrays.asList("bh1", "bh2", "bh3", "bh5", "bh6", "bh7", "bh8"));
+        Assert.assertEquals(4, compacted.getPredicateCount());
+        Document doc = AbstractFilterTestUtilities.parsefilterStringXML(compacted.getFragments().get(0));
+        AbstractFilterTestUtilities.runNodeSetValueCheck(doc, "/test/ogc:Or/ogc:PropertyIsEqualTo/ogc:Literal", new String[] {"bh1", "bh2", "bh3"}, 3);
+        AbstractFilterTestUtilities.runNodeSetValueCheck(doc, "/test/ogc:Or/ogc:And/ogc:PropertyIsBetween/ogc:LowerBoundary/ogc:Literal", new String[] {"bh5"}, 1);
+        AbstractFilterTestUtilities.runNodeSetValueCheck(doc, "/test/ogc:Or/ogc:And/ogc:PropertyIsBetween/ogc:UpperBoundary/ogc:Literal", new String[] {"bh8"}, 1);
+    }
+
+    /**
+     * An "in" function value is far shorter than a PropertyIsEqualTo so only long runs of long identifiers are worth
+     * a range - ranges must never make the filters longer than matching every identifier individually
+     */
+    @Test
+    public void testRangesOnlyWhereShorter() throws Exception {
+        List<String> shortIds = new ArrayList<String>();
+        List<String> longIds = new ArrayList<String>();
+        for (int i = 0; i < 9; i++) {
+            shortIds.add("bh10" + i);
+            longIds.add("http://example.org/borehole/GSV/10" + i);
+        }
+        Assert.assertFalse(BoreholeIdFilterCompactor.GEOSERVER.compact(PROPERTY, shortIds).getFragments().get(0).contains("PropertyIsBetween"));
+        Assert.assertTrue(BoreholeIdFilterCompactor.GEOSERVER.compact(PROPERTY, longIds).getFragments().get(0).contains("PropertyIsBetween"));
+
+        Set<String> ids = new LinkedHashSet<String>();
+        Set<String> universe = new HashSet<String>();
+        generate(new Random(11), 10000, ids, universe);
+
+        CompactedIds ranged = assertExact(BoreholeIdFilterCompactor.GEOSERVER, ids, universe);
+        CompactedIds inOnly = assertExact(new BoreholeIdFilterCompactor(false, true, BoreholeIdFilterCompactor.DEFAULT_MAX_PREDICATES), ids, universe);
+        Assert.assertTrue(ranged.getCompactedLength() + " > " + inOnly.getCompactedLength(), ranged.getCompactedLength() <= inOnly.getCompactedLength());
+
+        ranged = assertExact(BoreholeIdFilterCompactor.OGC_1_1, ids, universe);
+        CompactedIds equalityOnly = assertExact(BoreholeIdFilterCompactor.EQUALITY_ONLY, ids, universe);
+        Assert.assertTrue(ranged.getCompactedLength() + " > " + equalityOnly.getCompactedLength(), ranged.getCompactedLength() <= equalityOnly.getCompactedLength());
+    }
+}
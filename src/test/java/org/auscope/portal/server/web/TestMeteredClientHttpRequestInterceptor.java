@@ -0,0 +1,130 @@
+package org.auscope.portal.server.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.auscope.portal.server.web.service.scm.ScmEntryCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests MeteredClientHttpRequestInterceptor on a RestTemplate (as used by ScmEntryCache) against a local HTTP stub
+ */
+public class TestMeteredClientHttpRequestInterceptor {
+
+    private static final String RESPONSE = "{\"id\":\"metered\"}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private SimpleMeterRegistry registry;
+    private RestTemplate restTemplate;
+
+    @Before
+    public void setup() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    boolean missing = exchange.getRequestURI().getPath().startsWith("/missing");
+                    byte[] body = (missing ? "Not found" : RESPONSE).getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", missing ? "text/plain" : "application/json");
+                    exchange.sendResponseHeaders(missing ? 404 : 200, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+
+        registry = new SimpleMeterRegistry();
+        restTemplate = ScmEntryCache.createRestTemplate(4, 5000);
+        restTemplate.getInterceptors().add(new MeteredClientHttpRequestInterceptor(registry, "scm"));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private String endpoint(String path) {
+        return String.format("http://%1$s:%2$d/%3$s", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+    }
+
+    private String host() {
+        return server.getAddress().getHostString();
+    }
+
+    private Timer timer(String outcome) {
+        return registry.find(MeteredHttpServiceCaller.REQUESTS_METRIC).tag("caller", "scm").tag("host", host()).tag("outcome", outcome).timer();
+    }
+
+    /**
+     * Successful requests are timed and sized per host and nothing is left in flight
+     */
+    @Test
+    public void testSuccess() {
+        for (int i = 0; i < 2; i++) {
+            Assert.assertArrayEquals(RESPONSE.getBytes(StandardCharsets.UTF_8), restTemplate.getForObject(endpoint("solutions"), byte[].class));
+        }
+
+        Timer timer = timer(MeteredHttpServiceCaller.OUTCOME_SUCCESS);
+        Assert.assertNotNull(timer);
+        Assert.assertEquals(2, timer.count());
+
+        DistributionSummary size = registry.find(MeteredHttpServiceCaller.RESPONSE_SIZE_METRIC).tag("caller", "scm").summary();
+        Assert.assertNotNull(size);
+        Assert.assertEquals(2 * RESPONSE.length(), size.totalAmount(), 0.1);
+
+        //Nothing is left in flight so the host's gauge should have been evicted
+        Assert.assertNull(registry.find(MeteredHttpServiceCaller.IN_FLIGHT_METRIC).tag("caller", "scm").gauge());
+    }
+
+    /**
+     * Error responses and connection failures are recorded with their outcome
+     */
+    @Test
+    public void testErrors() {
+        try {
+            restTemplate.getForObject(endpoint("missing"), byte[].class);
+            Assert.fail("Expected a 404");
+        } catch (HttpClientErrorException ex) {
+            Assert.assertEquals(404, ex.getRawStatusCode());
+        }
+        Assert.assertEquals(1, timer(MeteredHttpServiceCaller.OUTCOME_CLIENT_ERROR).count());
+
+        server.stop(0);
+        try {
+            restTemplate.getForObject(endpoint("solutions"), byte[].class);
+            Assert.fail("Expected a connection failure");
+        } catch (Exception ex) {
+            //expected
+        }
+        Timer errors = timer(MeteredHttpServiceCaller.OUTCOME_ERROR);
+        Assert.assertNotNull(errors);
+        Assert.assertEquals(1, errors.count());
+    }
+}
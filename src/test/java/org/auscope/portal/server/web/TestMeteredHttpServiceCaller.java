@@ -0,0 +1,214 @@
+package org.auscope.portal.server.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.HttpGet;
+import org.auscope.portal.core.server.http.HttpClientResponse;
+import org.auscope.portal.core.util.FileIOUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests MeteredHttpServiceCaller against a local HTTP stub, recording into an in memory registry
+ */
+public class TestMeteredHttpServiceCaller {
+
+    private static final String RESPONSE = "<response>metered</response>";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private SimpleMeterRegistry registry;
+    private MeteredHttpServiceCaller caller;
+
+    @Before
+    public void setup() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    boolean missing = exchange.getRequestURI().getPath().startsWith("/missing");
+                    byte[] body = (missing ? "Not found" : RESPONSE).getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", missing ? "text/plain" : "text/xml");
+                    exchange.sendResponseHeaders(missing ? 404 : 200, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+
+        registry = new SimpleMeterRegistry();
+        caller = new MeteredHttpServiceCaller(10000, registry, "test");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private String endpoint(String path) {
+        return String.format("http://%1$s:%2$d/%3$s", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+    }
+
+    private String host() {
+        return server.getAddress().getHostString();
+    }
+
+    private Timer timer(String host, String outcome) {
+        return registry.find(MeteredHttpServiceCaller.REQUESTS_METRIC).tag("caller", "test").tag("host", host).tag("outcome", outcome).timer();
+    }
+
+    private Gauge inFlight(String host) {
+        return registry.find(MeteredHttpServiceCaller.IN_FLIGHT_METRIC).tag("host", host).gauge();
+    }
+
+    private String closedPortEndpoint(String host) throws IOException {
+        ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        try {
+            return String.format("http://%1$s:%2$d/wfs", host, socket.getLocalPort());
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * String responses are timed and sized per host
+     */
+    @Test
+    public void testStringResponse() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(RESPONSE, caller.getMethodResponseAsString(new HttpGet(endpoint("wfs"))));
+        }
+
+        Timer timer = timer(host(), MeteredHttpServiceCaller.OUTCOME_SUCCESS);
+        Assert.assertNotNull(timer);
+        Assert.assertEquals(3, timer.count());
+        Assert.assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+
+        DistributionSummary size = registry.find(MeteredHttpServiceCaller.RESPONSE_SIZE_METRIC).tag("host", host()).summary();
+        Assert.assertNotNull(size);
+        Assert.assertEquals(3, size.count());
+        Assert.assertEquals(3.0 * RESPONSE.length(), size.totalAmount(), 0.001);
+        //Nothing is left in flight so the host's gauge should have been evicted
+        Assert.assertNull(inFlight(host()));
+    }
+
+    /**
+     * Stream responses are sized once they have been read and closed
+     */
+    @Test
+    public void testStreamResponse() throws Exception {
+        InputStream response = caller.getMethodResponseAsStream(new HttpGet(endpoint("wfs")));
+        Assert.assertEquals(1, timer(host(), MeteredHttpServiceCaller.OUTCOME_SUCCESS).count());
+        Assert.assertNull(registry.find(MeteredHttpServiceCaller.RESPONSE_SIZE_METRIC).summary());
+
+        try {
+            Assert.assertEquals(RESPONSE, IOUtils.toString(response, StandardCharsets.UTF_8));
+        } finally {
+            FileIOUtil.closeQuietly(response);
+        }
+        //Closing again must not record the size twice
+        FileIOUtil.closeQuietly(response);
+
+        DistributionSummary size = registry.find(MeteredHttpServiceCaller.RESPONSE_SIZE_METRIC).tag("host", host()).summary();
+        Assert.assertEquals(1, size.count());
+        Assert.assertEquals(RESPONSE.length(), size.totalAmount(), 0.001);
+    }
+
+    /**
+     * HTTP error statuses are recorded as their outcome
+     */
+    @Test
+    public void testHttpResponseStatus() throws Exception {
+        HttpClientResponse response = caller.getMethodResponseAsHttpResponse(new HttpGet(endpoint("missing")));
+        try {
+            Assert.assertEquals(404, response.getStatusLine().getStatusCode());
+        } finally {
+            response.close();
+        }
+
+        Assert.assertEquals(1, timer(host(), MeteredHttpServiceCaller.OUTCOME_CLIENT_ERROR).count());
+        Assert.assertNull(timer(host(), MeteredHttpServiceCaller.OUTCOME_SUCCESS));
+    }
+
+    /**
+     * Requests that fail to connect are recorded as errors (tagged with the exception) and no longer in flight
+     */
+    @Test
+    public void testConnectionError() throws Exception {
+        String url = closedPortEndpoint(host());
+        try {
+            caller.getMethodResponseAsString(new HttpGet(url));
+            Assert.fail("Expected an IOException");
+        } catch (IOException ex) {
+            //expected
+        }
+
+        Timer timer = timer(host(), MeteredHttpServiceCaller.OUTCOME_ERROR);
+        Assert.assertNotNull(timer);
+        Assert.assertEquals(1, timer.count());
+        Assert.assertNotEquals("None", timer.getId().getTag("exception"));
+        Assert.assertNull(inFlight(host()));
+    }
+
+    /**
+     * Hosts beyond maxHosts should share the OTHER_HOST tag rather than each registering their own meters
+     */
+    @Test
+    public void testHostTagsBounded() throws Exception {
+        caller.setMaxHosts(1);
+        String[] urls = new String[] {closedPortEndpoint("127.0.0.1"), closedPortEndpoint("localhost"), closedPortEndpoint("127.0.0.1")};
+        for (String url : urls) {
+            try {
+                caller.getMethodResponseAsString(new HttpGet(url));
+                Assert.fail("Expected an IOException");
+            } catch (IOException ex) {
+                //expected
+            }
+        }
+
+        Assert.assertEquals(2, timer("127.0.0.1", MeteredHttpServiceCaller.OUTCOME_ERROR).count());
+        Assert.assertEquals(1, timer(MeteredHttpServiceCaller.OTHER_HOST, MeteredHttpServiceCaller.OUTCOME_ERROR).count());
+        Assert.assertNull(timer("localhost", MeteredHttpServiceCaller.OUTCOME_ERROR));
+        Assert.assertTrue(registry.find(MeteredHttpServiceCaller.IN_FLIGHT_METRIC).gauges().isEmpty());
+    }
+
+    /**
+     * Tests the mapping of status codes to outcomes
+     */
+    @Test
+    public void testGetOutcome() {
+        Assert.assertEquals(MeteredHttpServiceCaller.OUTCOME_SUCCESS, MeteredHttpServiceCaller.getOutcome(200));
+        Assert.assertEquals(MeteredHttpServiceCaller.OUTCOME_SUCCESS, MeteredHttpServiceCaller.getOutcome(304));
+        Assert.assertEquals(MeteredHttpServiceCaller.OUTCOME_CLIENT_ERROR, MeteredHttpServiceCaller.getOutcome(404));
+        Assert.assertEquals(MeteredHttpServiceCaller.OUTCOME_SERVER_ERROR, MeteredHttpServiceCaller.getOutcome(503));
+    }
+}
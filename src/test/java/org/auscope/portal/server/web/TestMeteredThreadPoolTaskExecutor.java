@@ -0,0 +1,212 @@
+package org.auscope.portal.server.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpGet;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Stress tests for MeteredThreadPoolTaskExecutor. A local stub stands in for a CSW registry that hangs and a
+ * vocabulary service that responds immediately.
+ */
+public class TestMeteredThreadPoolTaskExecutor {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    /** Released to let the hung registry respond */
+    private CountDownLatch registryRelease;
+    private HttpServiceCaller serviceCaller;
+    private SimpleMeterRegistry registry;
+    private List<MeteredThreadPoolTaskExecutor> executors = new ArrayList<MeteredThreadPoolTaskExecutor>();
+
+    @Before
+    public void setup() throws Exception {
+        registryRelease = new CountDownLatch(1);
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    if (exchange.getRequestURI().getPath().startsWith("/csw")) {
+                        registryRelease.await();
+                    }
+                    byte[] body = "<response/>".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+
+        serviceCaller = new HttpServiceCaller(30000);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        registryRelease.countDown();
+        for (MeteredThreadPoolTaskExecutor executor : executors) {
+            executor.shutdown();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private MeteredThreadPoolTaskExecutor createExecutor(String name, int poolSize, int queueCapacity) {
+        MeteredThreadPoolTaskExecutor executor = MeteredThreadPoolTaskExecutor.create(name, poolSize, queueCapacity, registry);
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    private Callable<String> request(final String path) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                String url = String.format("http://%1$s:%2$d/%3$s", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+                return serviceCaller.getMethodResponseAsString(new HttpGet(url));
+            }
+        };
+    }
+
+    private double gauge(String metric, String executorName) {
+        return registry.find(metric).tag("name", executorName).gauge().value();
+    }
+
+    /**
+     * Submits rounds of 10 vocabulary requests, waiting for each round to complete
+     * @return The number of requests that completed
+     */
+    private int completeVocabularyRequests(MeteredThreadPoolTaskExecutor executor, int rounds) throws Exception {
+        int completed = 0;
+        for (int i = 0; i < rounds; i++) {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int j = 0; j < 10; j++) {
+                futures.add(executor.submit(request("vocab")));
+            }
+            for (Future<String> future : futures) {
+                Assert.assertEquals("<response/>", future.get(10, TimeUnit.SECONDS));
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * While every CSW cache thread is blocked on a hung registry the vocabulary and filter pools keep working and
+     * the saturation of the CSW cache pool is visible through its metrics
+     */
+    @Test
+    public void testHungSubsystemIsolated() throws Exception {
+        MeteredThreadPoolTaskExecutor cswCache = createExecutor("cswCache", 2, 2);
+        MeteredThreadPoolTaskExecutor cswFilter = createExecutor("cswFilter", 2, 10);
+        MeteredThreadPoolTaskExecutor vocabularyCache = createExecutor("vocabularyCache", 2, 10);
+
+        List<Future<String>> hung = new ArrayList<Future<String>>();
+        for (int i = 0; i < 4; i++) {
+            hung.add(cswCache.submit(request("csw")));
+        }
+        try {
+            cswCache.submit(request("csw"));
+            Assert.fail("Expected the saturated pool to reject the task");
+        } catch (TaskRejectedException ex) {
+            //expected
+        }
+
+        Assert.assertEquals(50, completeVocabularyRequests(vocabularyCache, 5));
+        Assert.assertEquals(50, completeVocabularyRequests(cswFilter, 5));
+
+        Assert.assertEquals(2, gauge("executor.active", "cswCache"), 0.001);
+        Assert.assertEquals(2, gauge("executor.queued", "cswCache"), 0.001);
+        Assert.assertEquals(1, registry.find(MeteredThreadPoolTaskExecutor.REJECTED_METRIC).tag("name", "cswCache").counter().count(), 0.001);
+        Assert.assertEquals(0, registry.find(MeteredThreadPoolTaskExecutor.REJECTED_METRIC).tag("name", "vocabularyCache").counter().count(), 0.001);
+        Assert.assertEquals(0, gauge("executor.queued", "vocabularyCache"), 0.001);
+
+        //Once the registry recovers the CSW cache pool drains
+        registryRelease.countDown();
+        for (Future<String> future : hung) {
+            Assert.assertEquals("<response/>", future.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * The behaviour the bulkheads replace - a single shared pool can't do anything else while a registry hangs
+     */
+    @Test
+    public void testSharedExecutorStarved() throws Exception {
+        MeteredThreadPoolTaskExecutor shared = createExecutor("shared", 2, 25);
+        for (int i = 0; i < 2; i++) {
+            shared.submit(request("csw"));
+        }
+
+        Future<String> vocab = shared.submit(request("vocab"));
+        try {
+            vocab.get(500, TimeUnit.MILLISECONDS);
+            Assert.fail("Expected the vocabulary request to be starved");
+        } catch (TimeoutException ex) {
+            //expected
+        }
+
+        registryRelease.countDown();
+        Assert.assertEquals("<response/>", vocab.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Running and queued tasks are completed before shutdown returns
+     */
+    @Test
+    public void testGracefulShutdown() throws Exception {
+        MeteredThreadPoolTaskExecutor executor = createExecutor("shutdown", 2, 10);
+        final AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(50);
+                        completed.incrementAndGet();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assert.assertEquals(8, completed.get());
+        Assert.assertTrue(executor.getThreadPoolExecutor().isTerminated());
+    }
+}
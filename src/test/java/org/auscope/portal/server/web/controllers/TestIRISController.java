@@ -1,9 +1,12 @@
 package org.auscope.portal.server.web.controllers;
 
-import java.io.IOException;
-
+import org.apache.http.client.methods.HttpRequestBase;
+import org.auscope.portal.core.server.http.HttpClientInputStream;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
 import org.auscope.portal.core.test.PortalTestClass;
 import org.auscope.portal.core.util.ResourceUtil;
+import org.auscope.portal.server.web.service.IRISService;
+import org.jmock.Expectations;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,21 +15,24 @@ import org.springframework.web.servlet.ModelAndView;
 
 public class TestIRISController extends PortalTestClass {
 
+    private HttpServiceCaller mockServiceCaller = context.mock(HttpServiceCaller.class);
     private IRISController controller;
 
     @Before
     public void startUp() {
+        this.controller = new IRISController(new IRISService(mockServiceCaller, IRISService.DEFAULT_TTL_MILLIS));
+    }
 
-        // Using extract and override pattern to control dependency.
-        // This avoids external lookup by making the resource come
-        // directly from a file instead of IRIS.
-        this.controller = new IRISController(null) {
-            @Override
-            protected String getIrisResponseFromQuery(String queryUrl) throws IOException {
-
-                return ResourceUtil.loadResourceAsString(queryUrl.substring(0, queryUrl.indexOf(".xml") + 4));
+    /**
+     * Makes the IRIS service respond with a resource file instead of contacting IRIS
+     */
+    private void respondWith(final String resource) throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                will(returnValue(new HttpClientInputStream(ResourceUtil.loadResourceAsStream(resource), null)));
             }
-        };
+        });
     }
 
     @After
@@ -35,36 +41,44 @@ public class TestIRISController extends PortalTestClass {
     }
 
     @Test
-    public void getIRISStations_stationResponseXML_ResultantModelHasSuccessSetToTrue() {
+    public void getIRISStations_stationResponseXML_ResultantModelHasSuccessSetToTrue() throws Exception {
+        respondWith("org/auscope/portal/iris/stationResponse.xml");
+
         // Act
-        ModelAndView result = this.controller.getIRISStations("org/auscope/portal/iris/stationResponse.xml", "");
+        ModelAndView result = this.controller.getIRISStations("http://service.iris.edu", "S");
 
         // Assert
         Assert.assertTrue((Boolean) result.getModel().get("success"));
     }
 
     @Test
-    public void getIRISStations_stationResponseBadXML_ResultantModelHasSuccessSetToFalse() {
+    public void getIRISStations_stationResponseBadXML_ResultantModelHasSuccessSetToFalse() throws Exception {
+        respondWith("org/auscope/portal/iris/stationResponseBad.xml");
+
         // Act
-        ModelAndView result = this.controller.getIRISStations("org/auscope/portal/iris/stationResponseBad.xml", "");
+        ModelAndView result = this.controller.getIRISStations("http://service.iris.edu", "S");
 
         // Assert
         Assert.assertFalse((Boolean) result.getModel().get("success"));
     }
 
     @Test
-    public void getStationChannels_channelResponseXML_ResultantModelHasSuccessSetToTrue() {
+    public void getStationChannels_channelResponseXML_ResultantModelHasSuccessSetToTrue() throws Exception {
+        respondWith("org/auscope/portal/iris/channelResponse.xml");
+
         // Act
-        ModelAndView result = this.controller.getIRISStations("org/auscope/portal/iris/channelResponse.xml", "");
+        ModelAndView result = this.controller.getIRISStations("http://service.iris.edu", "S");
 
         // Assert
         Assert.assertTrue((Boolean) result.getModel().get("success"));
     }
 
     @Test
-    public void getStationChannels_channelResponseBadXML_ResultantModelHasSuccessSetToFalse() {
+    public void getStationChannels_channelResponseBadXML_ResultantModelHasSuccessSetToFalse() throws Exception {
+        respondWith("org/auscope/portal/iris/channelResponseBad.xml");
+
         // Act
-        ModelAndView result = this.controller.getIRISStations("org/auscope/portal/iris/channelResponseBad.xml", "");
+        ModelAndView result = this.controller.getIRISStations("http://service.iris.edu", "S");
 
         // Assert
         Assert.assertFalse((Boolean) result.getModel().get("success"));
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -14,6 +15,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.http.HttpStatus;
 import org.auscope.portal.core.cloud.CloudFileInformation;
 import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.cloud.CloudComputeService;
@@ -26,6 +28,7 @@ import org.auscope.portal.jmock.VEGLJobMatcher;
 import org.auscope.portal.jmock.VEGLSeriesMatcher;
 import org.auscope.portal.server.vegl.VEGLJob;
 import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VEGLJobSummary;
 import org.auscope.portal.server.vegl.VEGLSeries;
 import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
 import org.auscope.portal.server.web.security.ANVGLUser;
@@ -37,6 +40,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.ui.ModelMap;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -1306,4 +1310,111 @@ public class TestJobListController extends PortalTestClass {
         ModelAndView mav = controller.getRawInstanceLogs(mockRequest, jobId);
         Assert.assertFalse((Boolean)mav.getModel().get("success"));
     }
+
+    /**
+     * Tests that the job tree is built from a page of job summaries
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTreeJobs() throws Exception {
+        final String userEmail = "exampleuser@email.com";
+        final VEGLSeries mockSeries = context.mock(VEGLSeries.class);
+        final List<VEGLJobSummary> summaries = Arrays.asList(
+                new VEGLJobSummary(11, "job11", null, 5, JobBuilderController.STATUS_DONE, new Date(), null, null, computeServiceId, storageServiceId),
+                new VEGLJobSummary(12, "job12", null, null, JobBuilderController.STATUS_ACTIVE, new Date(), null, null, computeServiceId, storageServiceId));
+
+        context.checking(new Expectations() {{
+            allowing(mockPortalUser).getEmail();will(returnValue(userEmail));
+            allowing(mockSeries).getId();will(returnValue(5));
+            allowing(mockSeries).getName();will(returnValue("series5"));
+
+            oneOf(mockJobManager).querySeries(userEmail, null, null);will(returnValue(Arrays.asList(mockSeries)));
+            oneOf(mockJobManager).getUserJobSummaries(mockPortalUser, 10, 2);will(returnValue(summaries));
+        }});
+
+        ModelAndView mav = controller.treeJobs(mockRequest, mockResponse, false, 10, 2);
+        Assert.assertTrue((Boolean) mav.getModel().get("success"));
+
+        Map<String, Object> data = (Map<String, Object>) mav.getModel().get("data");
+        Assert.assertSame(summaries, data.get("jobs"));
+
+        List<ModelMap> rootChildren = (List<ModelMap>) ((ModelMap) data.get("nodes")).get("children");
+        Assert.assertEquals(2, rootChildren.size());
+        ModelMap seriesNode = rootChildren.get(0);
+        Assert.assertEquals("series5", seriesNode.get("name"));
+        List<ModelMap> seriesChildren = (List<ModelMap>) seriesNode.get("children");
+        Assert.assertEquals(1, seriesChildren.size());
+        Assert.assertEquals(11, seriesChildren.get(0).get("id"));
+        Assert.assertEquals(12, rootChildren.get(1).get("id"));
+        Assert.assertEquals(JobBuilderController.STATUS_ACTIVE, rootChildren.get(1).get("status"));
+    }
+
+    /**
+     * Tests that job statuses are refreshed using the full jobs and returned from the job summaries
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testJobStatusesWithStatusUpdate() throws Exception {
+        final List<VEGLJob> mockJobs = Arrays.asList(context.mock(VEGLJob.class, "mockJobActive"));
+        final List<VEGLJobSummary> summaries = Arrays.asList(
+                new VEGLJobSummary(11, "job11", null, null, JobBuilderController.STATUS_DONE, new Date(), null, null, computeServiceId, storageServiceId));
+
+        context.checking(new Expectations() {{
+            oneOf(mockJobManager).getUserJobs(mockPortalUser);will(returnValue(mockJobs));
+            oneOf(mockJobStatusMonitor).statusUpdate(mockJobs);
+            oneOf(mockJobManager).getUserJobSummaries(mockPortalUser, null, null);will(returnValue(summaries));
+        }});
+
+        ModelAndView mav = controller.jobStatuses(mockRequest, mockResponse, true, null, null);
+        Assert.assertTrue((Boolean) mav.getModel().get("success"));
+
+        List<ModelMap> tuples = (List<ModelMap>) mav.getModel().get("data");
+        Assert.assertEquals(1, tuples.size());
+        Assert.assertEquals(11, tuples.get(0).get("jobId"));
+        Assert.assertEquals(JobBuilderController.STATUS_DONE, tuples.get(0).get("status"));
+    }
+
+    /**
+     * Tests that an unpaged job tree still returns the full jobs
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTreeJobsUnpaged() throws Exception {
+        final String userEmail = "exampleuser@email.com";
+        VEGLJob job = new VEGLJob();
+        job.setId(11);
+        job.setName("job11");
+        job.setStatus(JobBuilderController.STATUS_DONE);
+        final List<VEGLJob> jobs = Arrays.asList(job);
+
+        context.checking(new Expectations() {{
+            allowing(mockPortalUser).getEmail();will(returnValue(userEmail));
+
+            oneOf(mockJobManager).querySeries(userEmail, null, null);will(returnValue(new ArrayList<VEGLSeries>()));
+            oneOf(mockJobManager).getUserJobs(mockPortalUser);will(returnValue(jobs));
+        }});
+
+        ModelAndView mav = controller.treeJobs(mockRequest, mockResponse, false, null, null);
+        Assert.assertTrue((Boolean) mav.getModel().get("success"));
+
+        Map<String, Object> data = (Map<String, Object>) mav.getModel().get("data");
+        Assert.assertSame(jobs, data.get("jobs"));
+        List<ModelMap> rootChildren = (List<ModelMap>) ((ModelMap) data.get("nodes")).get("children");
+        Assert.assertEquals(1, rootChildren.size());
+        Assert.assertEquals(11, rootChildren.get(0).get("id"));
+        Assert.assertEquals("job11", rootChildren.get(0).get("name"));
+    }
+
+    /**
+     * Tests that a limit of less than 1 is rejected with a 400 response
+     */
+    @Test
+    public void testJobListInvalidLimit() throws Exception {
+        context.checking(new Expectations() {{
+            exactly(2).of(mockResponse).sendError(HttpStatus.SC_BAD_REQUEST, "limit must be at least 1");
+        }});
+
+        Assert.assertNull(controller.treeJobs(mockRequest, mockResponse, false, null, 0));
+        Assert.assertNull(controller.jobStatuses(mockRequest, mockResponse, false, 10, -1));
+    }
 }
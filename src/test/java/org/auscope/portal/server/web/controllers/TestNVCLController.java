@@ -12,7 +12,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.auscope.portal.core.services.CSWCacheService;
 import org.auscope.portal.core.services.csw.CSWRecordsFilterVisitor;
 import org.auscope.portal.core.services.methodmakers.filter.FilterBoundingBox;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
@@ -25,6 +24,7 @@ import org.auscope.portal.server.domain.nvcldataservice.TSGDownloadResponse;
 import org.auscope.portal.server.domain.nvcldataservice.TSGStatusResponse;
 import org.auscope.portal.server.domain.nvcldataservice.ImageTrayDepthResponse;
 import org.auscope.portal.server.web.service.BoreholeService;
+import org.auscope.portal.server.web.service.HyloggerBoreholeIndex;
 import org.auscope.portal.server.web.service.NVCL2_0_DataService;
 import org.auscope.portal.server.web.service.NVCLDataService;
 import org.auscope.portal.server.web.service.SF0BoreholeService;
@@ -45,8 +45,8 @@ public class TestNVCLController extends PortalTestClass {
     /** The mock http response. */
     private HttpServletResponse mockHttpResponse;
 
-    /** The mock csw service. */
-    private CSWCacheService mockCSWService;
+    /** The mock hylogger borehole index. */
+    private HyloggerBoreholeIndex mockHyloggerIndex;
 
     /** The mock borehole service. */
     private BoreholeService mockBoreholeService;
@@ -69,11 +69,11 @@ public class TestNVCLController extends PortalTestClass {
     public void setUp() {
         this.mockHttpResponse = context.mock(HttpServletResponse.class);
         this.mockBoreholeService = context.mock(BoreholeService.class);
-        this.mockCSWService = context.mock(CSWCacheService.class);
+        this.mockHyloggerIndex = context.mock(HyloggerBoreholeIndex.class);
         this.mockDataService = context.mock(NVCLDataService.class);
         this.mock2_0_DataService = context.mock(NVCL2_0_DataService.class);
         this.mockSF0Service = context.mock(SF0BoreholeService.class);
-        this.nvclController = new NVCLController(this.mockBoreholeService, this.mockCSWService, this.mockDataService,
+        this.nvclController = new NVCLController(this.mockBoreholeService, this.mockHyloggerIndex, this.mockDataService,
                 this.mock2_0_DataService, this.mockSF0Service);
     }
 
@@ -143,8 +143,7 @@ public class TestNVCLController extends PortalTestClass {
 
         context.checking(new Expectations() {
             {
-                oneOf(mockBoreholeService).discoverHyloggerBoreholeIDs(with(equal(mockCSWService)),
-                        with(any(CSWRecordsFilterVisitor.class)));
+                oneOf(mockHyloggerIndex).getHyloggerBoreholeIDs(with(any(CSWRecordsFilterVisitor.class)));
                 will(returnValue(restrictedIds));
 
                 oneOf(mockBoreholeService).getAllBoreholes(serviceUrl, nameFilter, custodianFilter,
@@ -187,9 +186,8 @@ public class TestNVCLController extends PortalTestClass {
 
         context.checking(new Expectations() {
             {
-                oneOf(mockBoreholeService).discoverHyloggerBoreholeIDs(with(equal(mockCSWService)),
-                        with(any(CSWRecordsFilterVisitor.class)));
-                will(throwException(new ConnectException()));
+                oneOf(mockHyloggerIndex).getHyloggerBoreholeIDs(with(any(CSWRecordsFilterVisitor.class)));
+                will(throwException(new IllegalStateException(new ConnectException())));
 
                 allowing(mockHttpMethodBase).getURI();
                 will(returnValue(httpMethodURI));
@@ -223,8 +221,7 @@ public class TestNVCLController extends PortalTestClass {
 
         context.checking(new Expectations() {
             {
-                oneOf(mockBoreholeService).discoverHyloggerBoreholeIDs(with(equal(mockCSWService)),
-                        with(any(CSWRecordsFilterVisitor.class)));
+                oneOf(mockHyloggerIndex).getHyloggerBoreholeIDs(with(any(CSWRecordsFilterVisitor.class)));
                 will(returnValue(new ArrayList<String>()));
 
                 allowing(mockHttpMethodBase).getURI();
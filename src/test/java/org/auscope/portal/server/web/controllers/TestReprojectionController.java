@@ -1,13 +1,15 @@
 package org.auscope.portal.server.web.controllers;
 
 import org.auscope.portal.core.test.PortalTestClass;
+import org.auscope.portal.server.web.service.UtmProjectionService;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.servlet.ModelAndView;
 
 public class TestReprojectionController extends PortalTestClass {
-    ReprojectionController cont = new ReprojectionController();
+    UtmProjectionService utmProjectionService = new UtmProjectionService();
+    ReprojectionController cont = new ReprojectionController(utmProjectionService);
 
     /**
      * Simple test with dataset that will return MGA Zone of 49.
@@ -172,7 +174,7 @@ public class TestReprojectionController extends PortalTestClass {
         double east = 125;
         double west = 110;
 
-        ModelAndView mav = cont.projectBBoxToUtm(north, south, east, west, null);
+        ModelAndView mav = cont.projectBBoxToUtm(north, south, east, west, null, UtmProjectionService.DEFAULT_ELLIPSOID);
         Assert.assertNotNull(mav);
         Assert.assertTrue((Boolean) mav.getModel().get("success"));
         Assert.assertNotNull(mav.getModel().get("data"));
@@ -196,9 +198,85 @@ public class TestReprojectionController extends PortalTestClass {
         double east = 100;
         double west = 50;
 
-        ModelAndView mav = cont.projectBBoxToUtm(north, south, east, west, null);
+        ModelAndView mav = cont.projectBBoxToUtm(north, south, east, west, null, UtmProjectionService.DEFAULT_ELLIPSOID);
         Assert.assertNotNull(mav);
         Assert.assertFalse((Boolean) mav.getModel().get("success"));
         Assert.assertNull(mav.getModel().get("data"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a batch of bounding boxes projects the same as each box on its own (and that projections are reused)
+     */
+    @Test
+    public void testBBoxesReproject() {
+        double[] north = new double[] {-30, -20, -35.5, -12};
+        double[] south = new double[] {-32, -25, -36, -14};
+        double[] east = new double[] {125, 118, 146, 131};
+        double[] west = new double[] {110, 115, 145, 130};
+
+        ModelAndView mav = cont.projectBBoxesToUtm(north, south, east, west, null, UtmProjectionService.DEFAULT_ELLIPSOID);
+        Assert.assertTrue((Boolean) mav.getModel().get("success"));
+        ModelMap data = (ModelMap) mav.getModel().get("data");
+        Assert.assertArrayEquals(new int[] {50, 50, 55, 52}, (int[]) data.get("mgaZone"));
+
+        for (int i = 0; i < north.length; i++) {
+            ModelMap single = (ModelMap) cont.projectBBoxToUtm(north[i], south[i], east[i], west[i], null, UtmProjectionService.DEFAULT_ELLIPSOID).getModel().get("data");
+            Assert.assertEquals(single.get("minNorthing"), ((int[]) data.get("minNorthing"))[i]);
+            Assert.assertEquals(single.get("maxNorthing"), ((int[]) data.get("maxNorthing"))[i]);
+            Assert.assertEquals(single.get("minEasting"), ((int[]) data.get("minEasting"))[i]);
+            Assert.assertEquals(single.get("maxEasting"), ((int[]) data.get("maxEasting"))[i]);
+        }
+        Assert.assertEquals(3, utmProjectionService.getProjectionCount());
+    }
+
+    /**
+     * Tests that a batch fails if any bounding box is outside of the MGA zones
+     */
+    @Test
+    public void testBBoxesReproject_MGAZoneSmallerThanZero() {
+        ModelAndView mav = cont.projectBBoxesToUtm(new double[] {-30, -30}, new double[] {-32, -32}, new double[] {125, 100},
+                new double[] {110, 50}, null, UtmProjectionService.DEFAULT_ELLIPSOID);
+        Assert.assertFalse((Boolean) mav.getModel().get("success"));
+    }
+
+    /**
+     * Tests that mismatched bound arrays are rejected
+     */
+    @Test
+    public void testBBoxesReproject_MismatchedArrays() {
+        ModelAndView mav = cont.projectBBoxesToUtm(new double[] {-30, -30}, new double[] {-32}, new double[] {125, 125},
+                new double[] {110, 110}, 50, UtmProjectionService.DEFAULT_ELLIPSOID);
+        Assert.assertFalse((Boolean) mav.getModel().get("success"));
+    }
+
+    /**
+     * Tests projecting points on (and either side of) a zone's central meridian
+     */
+    @Test
+    public void testPointsReproject() {
+        ModelAndView mav = cont.projectPointsToUtm(new double[] {0, -30, -30, -30}, new double[] {147, 147, 146, 148}, null,
+                UtmProjectionService.DEFAULT_ELLIPSOID);
+        Assert.assertTrue((Boolean) mav.getModel().get("success"));
+
+        ModelMap data = (ModelMap) mav.getModel().get("data");
+        double[] eastings = (double[]) data.get("easting");
+        double[] northings = (double[]) data.get("northing");
+        Assert.assertArrayEquals(new int[] {55, 55, 55, 55}, (int[]) data.get("mgaZone"));
+        Assert.assertEquals(500000, eastings[0], 0.001);
+        Assert.assertEquals(500000, eastings[1], 0.001);
+        Assert.assertEquals(0.9996 * 3320113.4, northings[0] - northings[1], 1); //scaled meridian arc from the equator to 30S
+        Assert.assertEquals(500000 - eastings[2], eastings[3] - 500000, 0.001);
+        Assert.assertEquals(northings[2], northings[3], 0.001);
+    }
+
+    /**
+     * Tests that unsupported zones and ellipsoids are rejected
+     */
+    @Test
+    public void testPointsReproject_Invalid() {
+        Assert.assertFalse((Boolean) cont.projectPointsToUtm(new double[] {-30}, new double[] {147}, 61,
+                UtmProjectionService.DEFAULT_ELLIPSOID).getModel().get("success"));
+        Assert.assertFalse((Boolean) cont.projectPointsToUtm(new double[] {-30}, new double[] {147}, null,
+                "dne").getModel().get("success"));
+    }
+}
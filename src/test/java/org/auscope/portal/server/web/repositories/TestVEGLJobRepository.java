@@ -0,0 +1,239 @@
+package org.auscope.portal.server.web.repositories;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.vegl.VEGLJobSummary;
+import org.auscope.portal.server.vegl.VglDownload;
+import org.auscope.portal.server.vegl.VglParameter;
+import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.auscope.portal.server.web.security.ANVGLUser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests VEGLJobRepository against an embedded H2 database (with the same naming strategy as the portal), including
+ * the query plans of its status queries and the number of statements run to list a user's jobs.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.naming.physical-strategy=org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ContextConfiguration(classes = TestVEGLJobRepository.RepositoryTestConfiguration.class)
+public class TestVEGLJobRepository {
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = VEGLJobRepository.class,
+            includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = VEGLJobRepository.class))
+    @EntityScan(basePackageClasses = {VEGLJob.class, ANVGLUser.class})
+    public static class RepositoryTestConfiguration {
+    }
+
+    private static final String USER_EMAIL = "user@example.org";
+    private static final String OTHER_EMAIL = "other@example.org";
+    private static final String BUSY_EMAIL = "busy@example.org";
+    private static final int BUSY_JOBS = 5000;
+
+    @Autowired
+    private VEGLJobRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Before
+    public void setup() {
+        saveJob(USER_EMAIL, 1, JobBuilderController.STATUS_PENDING);
+        saveJob(USER_EMAIL, 1, JobBuilderController.STATUS_DELETED);
+        saveJob(USER_EMAIL, 2, "DELETED");
+        saveJob(USER_EMAIL, 2, JobBuilderController.STATUS_DONE);
+        saveJob(OTHER_EMAIL, 1, JobBuilderController.STATUS_ACTIVE.toUpperCase());
+        saveJob(OTHER_EMAIL, 3, " " + JobBuilderController.STATUS_INQUEUE);
+        saveJob(OTHER_EMAIL, 3, JobBuilderController.STATUS_ERROR);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private VEGLJob saveJob(String email, Integer seriesId, String status) {
+        VEGLJob job = new VEGLJob();
+        job.setEmailAddress(email);
+        job.setSeriesId(seriesId);
+        job.setStatus(status);
+        return repository.save(job);
+    }
+
+    private List<String> statuses(List<VEGLJob> jobs) {
+        List<String> statuses = new ArrayList<String>();
+        for (VEGLJob job : jobs) {
+            statuses.add(job.getStatusKey());
+        }
+        return statuses;
+    }
+
+    /**
+     * Saves BUSY_JOBS jobs for BUSY_EMAIL, each with a parameter, a download and an annotation
+     */
+    private void saveBusyUserJobs() {
+        for (int i = 0; i < BUSY_JOBS; i++) {
+            VEGLJob job = new VEGLJob();
+            job.setEmailAddress(BUSY_EMAIL);
+            job.setSeriesId(i % 50);
+            job.setName("job" + i);
+            job.setStatus(JobBuilderController.STATUS_DONE);
+
+            Map<String, VglParameter> parameters = new HashMap<String, VglParameter>();
+            parameters.put("param", new VglParameter(null, "param", "value", VglParameter.ParameterType.string.name(), job));
+            job.setJobParameters(parameters);
+            VglDownload download = new VglDownload();
+            download.setName("download");
+            download.setUrl("http://example.org/data/" + i);
+            job.setJobDownloads(Arrays.asList(download));
+            job.setAnnotations(Arrays.asList("annotation"));
+
+            repository.save(job);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private String explain(String sql) {
+        return entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult().toString().toUpperCase();
+    }
+
+    /**
+     * The normalised status is persisted alongside the status
+     */
+    @Test
+    public void testStatusKey() {
+        Assert.assertNull(VEGLJob.normaliseStatus(null));
+        Assert.assertEquals("in queue", VEGLJob.normaliseStatus(" In Queue"));
+
+        List<VEGLJob> jobs = repository.findByEmail(OTHER_EMAIL);
+        Assert.assertEquals(3, jobs.size());
+        for (VEGLJob job : jobs) {
+            Assert.assertEquals(VEGLJob.normaliseStatus(job.getStatus()), job.getStatusKey());
+        }
+    }
+
+    /**
+     * Deleted jobs are excluded (regardless of the case of their status)
+     */
+    @Test
+    public void testFindByEmail() {
+        List<String> statuses = statuses(repository.findByEmail(USER_EMAIL));
+        Assert.assertEquals(2, statuses.size());
+        Assert.assertTrue(statuses.contains("pending"));
+        Assert.assertTrue(statuses.contains("done"));
+
+        Assert.assertTrue(repository.findByEmail("nobody@example.org").isEmpty());
+    }
+
+    @Test
+    public void testFindBySeriesIdAndEmail() {
+        Assert.assertEquals(1, repository.findBySeriesIdAndEmail(1, USER_EMAIL).size());
+        Assert.assertEquals(1, repository.findBySeriesIdAndEmail(2, USER_EMAIL).size());
+        Assert.assertEquals(2, repository.findBySeriesIdAndEmail(3, OTHER_EMAIL).size());
+        Assert.assertTrue(repository.findBySeriesIdAndEmail(3, USER_EMAIL).isEmpty());
+    }
+
+    /**
+     * Statuses are matched case insensitively
+     */
+    @Test
+    public void testFindByStatus() {
+        List<String> statuses = statuses(repository.findPendingOrActiveJobs());
+        Assert.assertEquals(2, statuses.size());
+        Assert.assertTrue(statuses.contains("pending"));
+        Assert.assertTrue(statuses.contains("active"));
+
+        Assert.assertEquals(1, repository.findInqueueJobs().size());
+    }
+
+    /**
+     * The status queries use an index (rather than scanning the jobs table as LOWER(status) did)
+     */
+    @Test
+    public void testQueryPlans() {
+        String plan = explain("SELECT * FROM jobs WHERE emailAddress = 'user@example.org' AND statusKey <> 'deleted'");
+        Assert.assertTrue(plan, plan.contains("JOB_LIST_STATUS"));
+
+        plan = explain("SELECT * FROM jobs WHERE seriesId = 1 AND emailAddress = 'user@example.org' AND statusKey <> 'deleted'");
+        Assert.assertTrue(plan, plan.contains("JOB_SERIES_EMAIL"));
+
+        plan = explain("SELECT * FROM jobs WHERE statusKey IN ('pending', 'active')");
+        Assert.assertTrue(plan, plan.contains("JOB_STATUS"));
+        Assert.assertFalse(plan, plan.contains("TABLESCAN"));
+
+        plan = explain("SELECT * FROM jobs WHERE statusKey = 'in queue'");
+        Assert.assertTrue(plan, plan.contains("JOB_STATUS"));
+        Assert.assertFalse(plan, plan.contains("TABLESCAN"));
+
+        plan = explain("SELECT * FROM jobs WHERE LOWER(status) = 'in queue'");
+        Assert.assertTrue(plan, plan.contains("TABLESCAN"));
+    }
+
+    /**
+     * Listing the job summaries of a user with 5,000 jobs is a single statement (keyset pages are one statement
+     * each) and loading their full jobs is a statement per eager collection rather than per job.
+     */
+    @Test
+    public void testStatementCounts() {
+        saveBusyUserJobs();
+
+        Statistics statistics = statistics();
+        List<VEGLJobSummary> summaries = repository.findSummariesByEmail(BUSY_EMAIL, Pageable.unpaged());
+        Assert.assertEquals(BUSY_JOBS, summaries.size());
+        Assert.assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics = statistics();
+        List<VEGLJobSummary> page = repository.findSummariesByEmail(BUSY_EMAIL, PageRequest.of(0, 1000));
+        int scrolled = 0;
+        int lastId = 0;
+        while (!page.isEmpty()) {
+            for (VEGLJobSummary summary : page) {
+                Assert.assertTrue(summary.getId() > lastId);
+                lastId = summary.getId();
+            }
+            scrolled += page.size();
+            page = repository.findSummariesByEmailAfter(BUSY_EMAIL, lastId, PageRequest.of(0, 1000));
+        }
+        Assert.assertEquals(BUSY_JOBS, scrolled);
+        Assert.assertEquals(BUSY_JOBS / 1000 + 1, statistics.getPrepareStatementCount());
+
+        Assert.assertEquals(1000, repository.findSummariesByEmail(BUSY_EMAIL, PageRequest.of(4, 1000)).size());
+
+        statistics = statistics();
+        List<VEGLJob> jobs = repository.findByEmail(BUSY_EMAIL);
+        Assert.assertEquals(BUSY_JOBS, jobs.size());
+        Assert.assertEquals("value", jobs.get(0).getJobParameter("param").getValue());
+        Assert.assertEquals(1, jobs.get(0).getJobDownloads().size());
+        Assert.assertTrue(jobs.get(0).getAnnotations().contains("annotation"));
+        Assert.assertTrue(String.valueOf(statistics.getPrepareStatementCount()), statistics.getPrepareStatementCount() <= 4);
+    }
+}
@@ -0,0 +1,256 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A local, in process stand in for the NVCL Analytical Services. Each job can be configured
+ * with an artificial response delay so that latency sensitive behaviour can be tested without a network.
+ *
+ * Binds to an ephemeral loopback port - use getUrl() to find the service endpoint.
+ */
+public class StubNVCLAnalyticalService implements AutoCloseable {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Map<String, Long> jobDelays = new ConcurrentHashMap<String, Long>();
+    private AtomicInteger requestCount = new AtomicInteger();
+    private AtomicInteger activeScalarRequests = new AtomicInteger();
+    private AtomicInteger maxConcurrentScalarRequests = new AtomicInteger();
+    private Map<String, AtomicInteger> pathRequestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+    private Map<String, JobResults> jobResults = new ConcurrentHashMap<String, JobResults>();
+
+    /**
+     * The results (and status) reported for a job
+     */
+    private static class JobResults {
+        private final String email;
+        private final String status;
+        private final List<String> passIds;
+        private final List<String> failIds;
+        private final List<String> errorIds;
+
+        public JobResults(String email, String status, List<String> passIds, List<String> failIds, List<String> errorIds) {
+            this.email = email;
+            this.status = status;
+            this.passIds = passIds;
+            this.failIds = failIds;
+            this.errorIds = errorIds;
+        }
+    }
+
+    public StubNVCLAnalyticalService() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/doDownloadscalar.do", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequest(exchange);
+                String jobId = parseQuery(exchange).get("jobid");
+                Long delay = jobDelays.get(jobId);
+                int active = activeScalarRequests.incrementAndGet();
+                int max = maxConcurrentScalarRequests.get();
+                while (active > max && !maxConcurrentScalarRequests.compareAndSet(max, active)) {
+                    max = maxConcurrentScalarRequests.get();
+                }
+                try {
+                    if (delay != null) {
+                        Thread.sleep(delay);
+                    }
+                    writeResponse(exchange, 200, "text/csv", scalarCsv(jobId));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException ex) {
+                    //The client has gone away (eg - it was cancelled)
+                } finally {
+                    activeScalarRequests.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        });
+        server.createContext("/getNVCLAnalyticalJobResult.do", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequest(exchange);
+                try {
+                    String jobId = parseQuery(exchange).get("jobid");
+                    JobResults results = jobResults.get(jobId);
+                    if (results == null) {
+                        writeResponse(exchange, 404, "text/plain", "Unknown job " + jobId);
+                        return;
+                    }
+
+                    JSONObject response = new JSONObject();
+                    response.put("jobid", jobId);
+                    response.put("jobDescription", "stub job " + jobId);
+                    response.put("email", results.email);
+                    response.put("boreholes", boreholesJson(results.passIds));
+                    response.put("failedBoreholes", boreholesJson(results.failIds));
+                    response.put("errorBoreholes", boreholesJson(results.errorIds));
+                    writeResponse(exchange, 200, "application/json", response.toString());
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.createContext("/checkNVCLAnalyticalJobStatus.do", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequest(exchange);
+                try {
+                    String email = parseQuery(exchange).get("email");
+                    JSONArray response = new JSONArray();
+                    for (Map.Entry<String, JobResults> job : jobResults.entrySet()) {
+                        if (job.getValue().email.equals(email)) {
+                            JSONObject status = new JSONObject();
+                            status.put("jobid", job.getKey());
+                            status.put("jobDescription", "stub job " + job.getKey());
+                            status.put("status", job.getValue().status);
+                            status.put("jmstimestamp", "09/06/2016 1:59:34 PM");
+                            status.put("jmscorrelationID", email);
+                            response.put(status);
+                        }
+                    }
+                    writeResponse(exchange, 200, "application/json", response.toString());
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * The base URL of this service (with trailing slash)
+     * @return
+     */
+    public String getUrl() {
+        return String.format("http://%1$s:%2$d/", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    /**
+     * Sets how long (in milliseconds) this service waits before responding to requests for the specified job
+     * @param jobId
+     * @param delayMillis
+     */
+    public void setJobDelay(String jobId, long delayMillis) {
+        jobDelays.put(jobId, delayMillis);
+    }
+
+    /**
+     * Sets the results (and status) that will be reported for the specified job
+     * @param jobId
+     * @param email The submitter of the job
+     * @param status eg - "Processing" or "Success"
+     * @param passIds
+     * @param failIds
+     * @param errorIds
+     */
+    public void setJobResults(String jobId, String email, String status, List<String> passIds, List<String> failIds, List<String> errorIds) {
+        jobResults.put(jobId, new JobResults(email, status, passIds, failIds, errorIds));
+    }
+
+    /**
+     * The total number of requests received
+     * @return
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The number of requests received for the specified path (eg - "/getNVCLAnalyticalJobResult.do")
+     * @param path
+     * @return
+     */
+    public int getRequestCount(String path) {
+        AtomicInteger count = pathRequestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * The most scalar data requests that this service has been handling at the same time
+     * @return
+     */
+    public int getMaxConcurrentScalarRequests() {
+        return maxConcurrentScalarRequests.get();
+    }
+
+    private void countRequest(HttpExchange exchange) {
+        requestCount.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        pathRequestCounts.putIfAbsent(path, new AtomicInteger());
+        pathRequestCounts.get(path).incrementAndGet();
+    }
+
+    private static JSONArray boreholesJson(List<String> ids) {
+        JSONArray boreholes = new JSONArray();
+        for (String id : ids == null ? Collections.<String>emptyList() : ids) {
+            JSONObject borehole = new JSONObject();
+            borehole.put("id", id);
+            borehole.put("msg", id);
+            boreholes.put(borehole);
+        }
+        return boreholes;
+    }
+
+    /**
+     * A small scalar CSV whose values are offset by the job id's length so that jobs can be told apart
+     */
+    private static String scalarCsv(String jobId) {
+        StringBuilder sb = new StringBuilder("StartDepth,Value,Valid\n");
+        for (int i = 0; i < 100; i++) {
+            sb.append(100.0 + i * 0.1).append(',').append(jobId == null ? 0 : jobId.length() + i).append(",True\n");
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<String, String>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            String[] kvp = pair.split("=", 2);
+            params.put(URLDecoder.decode(kvp[0], "UTF-8"), kvp.length > 1 ? URLDecoder.decode(kvp[1], "UTF-8") : "");
+        }
+        return params;
+    }
+
+    private static void writeResponse(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -213,6 +213,42 @@ public class TestBoreholeService extends PortalTestClass {
         Assert.assertEquals(24, count);
     }
 
+    /**
+     * Large ID restrictions are de-duplicated and counted a bounded chunk at a time
+     *
+     * @throws Exception
+     *             the exception
+     */
+    @Test
+    public void testCountRestrictedBoreholesChunked() throws Exception {
+        final String serviceUrl = "http://example.com";
+        final int maxFeatures = 45;
+        final String countResponse = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" numberOfFeatures=\"2\"/>";
+        final String firstFilter = (new BoreholeFilter(null, null, null, null, Arrays.asList("id1", "id2"), null)).getFilterStringAllRecords();
+        final String secondFilter = (new BoreholeFilter(null, null, null, null, Arrays.asList("id3"), null)).getFilterStringAllRecords();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(mockMethodMaker).makePostMethod(with(equal(serviceUrl)), with(equal("gsml:Borehole")),
+                        with(equal(firstFilter)), with(equal(maxFeatures)), with(any(String.class)),
+                        with(equal(ResultType.Hits)), with(equal((String)null)), with(equal((String) null)));
+                will(returnValue(mockMethod));
+                oneOf(mockMethodMaker).makePostMethod(with(equal(serviceUrl)), with(equal("gsml:Borehole")),
+                        with(equal(secondFilter)), with(equal(maxFeatures)), with(any(String.class)),
+                        with(equal(ResultType.Hits)), with(equal((String)null)), with(equal((String) null)));
+                will(returnValue(mockMethod));
+
+                exactly(2).of(mockHttpServiceCaller).getMethodResponseAsString(with(any(HttpRequestBase.class)));
+                will(returnValue(countResponse));
+            }
+        });
+
+        service.setMaxIdsPerFilter(2);
+        int count = service.countAllBoreholes(serviceUrl, null, null, null, null, maxFeatures, null,
+                Arrays.asList("id3", "id1", "", "id2", "id1"));
+        Assert.assertEquals(4, count);
+    }
+
     /**
      * Tests that the service correctly parses a response from an NVCL WFS.
      *
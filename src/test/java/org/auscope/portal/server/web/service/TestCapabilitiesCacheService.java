@@ -0,0 +1,248 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
+import org.auscope.portal.core.util.DOMUtil;
+import org.auscope.portal.core.util.ResourceUtil;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService.WFSCapabilities;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests CapabilitiesCacheService against a local WFS stub
+ */
+public class TestCapabilitiesCacheService {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String capabilities;
+    /** Request count per endpoint path */
+    private Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+    /** Whether every endpoint responds with an error */
+    private volatile boolean failing = false;
+    /** How long (in milliseconds) the server takes to respond */
+    private volatile long responseDelay = 0;
+
+    @Before
+    public void setup() throws Exception {
+        capabilities = ResourceUtil.loadResourceAsString("GetCapabilitiesWFS2_0.xml");
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                requestCounts.putIfAbsent(path, new AtomicInteger());
+                requestCounts.get(path).incrementAndGet();
+                try {
+                    if (responseDelay > 0) {
+                        Thread.sleep(responseDelay);
+                    }
+                    byte[] body = (failing ? "Service unavailable" : capabilities).getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", failing ? "text/plain" : "text/xml");
+                    exchange.sendResponseHeaders(failing ? 503 : 200, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private String endpoint(String path) {
+        return String.format("http://%1$s:%2$d/%3$s", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+    }
+
+    private int requestCount(String path) {
+        AtomicInteger count = requestCounts.get("/" + path);
+        return count == null ? 0 : count.get();
+    }
+
+    private CapabilitiesCacheService createCache(int maxEntries, long ttlMillis, long failureTtlMillis) {
+        return new CapabilitiesCacheService(new HttpServiceCaller(10000), new WFSGetFeatureMethodMaker(), maxEntries, ttlMillis, failureTtlMillis);
+    }
+
+    /**
+     * Tests parsing a (GeoServer style) WFS 2.0.0 document with namespaces declared per feature type
+     */
+    @Test
+    public void testParseWFS2_0() throws Exception {
+        WFSCapabilities parsed = WFSCapabilities.parse(DOMUtil.buildDomFromString(capabilities, true));
+
+        Assert.assertEquals("2.0.0", parsed.getVersion());
+        Assert.assertEquals("http://xmlns.geosciml.org/geosciml-portrayal/4.0", parsed.getNamespaceUri("gsmlp"));
+        Assert.assertEquals("http://www.auscope.org/nvcl", parsed.getNamespaceUri("nvcl"));
+        Assert.assertEquals("http://www.opengis.net/wfs/2.0", parsed.getNamespaceUri("wfs"));
+        Assert.assertNull(parsed.getNamespaceUri("dne"));
+
+        Assert.assertEquals(2, parsed.getFeatureTypes().size());
+        Assert.assertTrue(parsed.hasFeatureType("gsmlp:BoreholeView"));
+        Assert.assertEquals("http://www.auscope.org/nvcl", parsed.getFeatureTypes().get("nvcl:ScannedBoreholeCollection"));
+        Assert.assertFalse(parsed.hasFeatureType("gsmlp:dne"));
+
+        Assert.assertEquals(3, parsed.getOutputFormats().size());
+        Assert.assertTrue(parsed.supportsOutputFormat("CSV"));
+        Assert.assertTrue(parsed.supportsOutputFormat("application/json"));
+        Assert.assertFalse(parsed.supportsOutputFormat("results"));
+
+        Assert.assertTrue(parsed.supportsComparisonOperator("Between"));
+        Assert.assertTrue(parsed.supportsComparisonOperator("PropertyIsLike"));
+        Assert.assertFalse(parsed.supportsComparisonOperator("NullCheck"));
+        Assert.assertTrue(parsed.supportsFilterFunction("in"));
+        Assert.assertFalse(parsed.supportsFilterFunction("dne"));
+    }
+
+    /**
+     * Tests parsing a WFS 1.0.0 document
+     */
+    @Test
+    public void testParseWFS1_0() throws Exception {
+        WFSCapabilities parsed = WFSCapabilities.parse(DOMUtil.buildDomFromString(ResourceUtil.loadResourceAsString("GetCapabilitiesWFS1_0.xml"), true));
+
+        Assert.assertEquals("1.0.0", parsed.getVersion());
+        Assert.assertEquals("http://xmlns.geosciml.org/geosciml-portrayal/2.0", parsed.getNamespaceUri("gsmlp"));
+        Assert.assertEquals("http://xmlns.geosciml.org/geosciml-portrayal/2.0", parsed.getFeatureTypes().get("gsmlp:BoreholeView"));
+        Assert.assertTrue(parsed.supportsOutputFormat("GML2"));
+        Assert.assertTrue(parsed.supportsOutputFormat("csv"));
+
+        Assert.assertTrue(parsed.supportsComparisonOperator("Like"));
+        Assert.assertFalse(parsed.supportsComparisonOperator("Between"));
+        Assert.assertTrue(parsed.supportsFilterFunction("strLength"));
+        Assert.assertFalse(parsed.supportsFilterFunction("in"));
+    }
+
+    /**
+     * Capabilities are reused until the endpoint's TTL expires
+     */
+    @Test
+    public void testTtl() throws Exception {
+        CapabilitiesCacheService cache = createCache(10, 60000, 60000);
+        cache.setEndpointTtl(endpoint("short"), 100);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(cache.getCapabilities(endpoint("long")).hasFeatureType("gsmlp:BoreholeView"));
+            Assert.assertTrue(cache.getCapabilities(endpoint("short")).hasFeatureType("gsmlp:BoreholeView"));
+        }
+        Assert.assertEquals(1, requestCount("long"));
+        Assert.assertEquals(1, requestCount("short"));
+
+        Thread.sleep(200);
+        cache.getCapabilities(endpoint("long"));
+        cache.getCapabilities(endpoint("short"));
+        Assert.assertEquals(1, requestCount("long"));
+        Assert.assertEquals(2, requestCount("short"));
+        Assert.assertEquals(3, cache.getFetchCount());
+    }
+
+    /**
+     * Concurrent misses for the same endpoint share a single fetch
+     */
+    @Test
+    public void testSingleFlight() throws Exception {
+        final CapabilitiesCacheService cache = createCache(10, 60000, 60000);
+        responseDelay = 200;
+
+        ExecutorService clients = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<WFSCapabilities>> results = new ArrayList<Future<WFSCapabilities>>();
+            for (int i = 0; i < 20; i++) {
+                results.add(clients.submit(new Callable<WFSCapabilities>() {
+                    @Override
+                    public WFSCapabilities call() throws Exception {
+                        return cache.getCapabilities(endpoint("wfs"));
+                    }
+                }));
+            }
+
+            WFSCapabilities first = results.get(0).get();
+            for (Future<WFSCapabilities> result : results) {
+                Assert.assertSame(first, result.get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+        Assert.assertEquals(1, requestCount("wfs"));
+    }
+
+    /**
+     * An endpoint that is down is not refetched until its failure expires
+     */
+    @Test
+    public void testNegativeCaching() throws Exception {
+        CapabilitiesCacheService cache = createCache(10, 60000, 200);
+        failing = true;
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                cache.getCapabilities(endpoint("wfs"));
+                Assert.fail("Expected a PortalServiceException");
+            } catch (PortalServiceException ex) {
+                //expected
+            }
+        }
+        Assert.assertEquals(1, requestCount("wfs"));
+
+        failing = false;
+        Thread.sleep(300);
+        Assert.assertTrue(cache.getCapabilities(endpoint("wfs")).hasFeatureType("gsmlp:BoreholeView"));
+        Assert.assertEquals(2, requestCount("wfs"));
+    }
+
+    /**
+     * The least recently used endpoints are dropped once maxEntries is exceeded
+     */
+    @Test
+    public void testBounded() throws Exception {
+        CapabilitiesCacheService cache = createCache(2, 60000, 60000);
+
+        cache.getCapabilities(endpoint("a"));
+        cache.getCapabilities(endpoint("b"));
+        cache.getCapabilities(endpoint("a"));
+        cache.getCapabilities(endpoint("c"));
+        Assert.assertEquals(2, cache.size());
+
+        cache.getCapabilities(endpoint("a"));
+        Assert.assertEquals(1, requestCount("a"));
+        cache.getCapabilities(endpoint("b"));
+        Assert.assertEquals(2, requestCount("b"));
+
+        cache.invalidate(endpoint("b"));
+        Assert.assertEquals(1, cache.size());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+}
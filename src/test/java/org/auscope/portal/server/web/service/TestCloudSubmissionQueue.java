@@ -0,0 +1,355 @@
+package org.auscope.portal.server.web.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VGLJobSubmission;
+import org.auscope.portal.server.web.controllers.JobBuilderController;
+import org.auscope.portal.server.web.repositories.VGLJobSubmissionRepository;
+import org.auscope.portal.server.web.security.ANVGLUser;
+import org.auscope.portal.server.web.service.monitor.VGLJobStatusChangeHandler;
+import org.hamcrest.Description;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.imposters.ByteBuddyClassImposteriser;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the persistent CloudSubmissionService queue against an embedded H2 database.
+ *
+ * Every test uses its own compute service id so that tests running in parallel against the
+ * shared database never recover each other's submissions.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ContextConfiguration(classes = TestCloudSubmissionQueue.QueueTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TestCloudSubmissionQueue {
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = VGLJobSubmissionRepository.class,
+            includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = VGLJobSubmissionRepository.class))
+    @EntityScan(basePackageClasses = {VGLJobSubmission.class, ANVGLUser.class})
+    public static class QueueTestConfiguration {
+    }
+
+    private static final String USER_EMAIL = "user@example.org";
+
+    private Mockery context = new Mockery() {{
+        setImposteriser(ByteBuddyClassImposteriser.INSTANCE);
+        setThreadingPolicy(new Synchroniser());
+    }};
+
+    @Autowired
+    private VGLJobSubmissionRepository repository;
+
+    private VEGLJobManager mockJobManager = context.mock(VEGLJobManager.class);
+    private VGLJobStatusChangeHandler mockStatusChangeHandler = context.mock(VGLJobStatusChangeHandler.class);
+    private ANVGLUserService mockUserService = context.mock(ANVGLUserService.class);
+    private CloudComputeService mockCloudComputeService = context.mock(CloudComputeService.class);
+    private ANVGLUser user = new ANVGLUser();
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newScheduledThreadPool(2);
+        context.checking(new Expectations() {{
+            allowing(mockJobManager).createJobAuditTrail(with(any(String.class)), with(any(VEGLJob.class)), with(any(String.class)));
+            allowing(mockJobManager).createJobAuditTrail(with(any(String.class)), with(any(VEGLJob.class)), with(any(Throwable.class)));
+            allowing(mockJobManager).saveJob(with(any(VEGLJob.class)));
+            allowing(mockStatusChangeHandler).handleStatusChange(with(any(VEGLJob.class)), with(any(String.class)), with(any(String.class)));
+            allowing(mockUserService).getByEmail(USER_EMAIL);will(returnValue(user));
+        }});
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(2, TimeUnit.SECONDS);
+    }
+
+    private CloudSubmissionService createService(ScheduledExecutorService executor) {
+        CloudSubmissionService service = new CloudSubmissionService(executor);
+        service.setJobManager(mockJobManager);
+        service.setVglJobStatusChangeHandler(mockStatusChangeHandler);
+        service.setSubmissionRepository(repository);
+        service.setUserService(mockUserService);
+        service.setCloudComputeServices(new CloudComputeService[] {mockCloudComputeService});
+        return service;
+    }
+
+    private VEGLJob createJob(int id, String status) {
+        VEGLJob job = new VEGLJob();
+        job.setId(id);
+        job.setEmailAddress(USER_EMAIL);
+        job.setStatus(status);
+        return job;
+    }
+
+    private void waitUntilDequeued(int jobId, String computeServiceId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (repository.findByJobIdAndComputeServiceId(jobId, computeServiceId) != null) {
+            Assert.assertTrue("Timed out waiting for submission to complete", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Counts invocations and returns a fixed value
+     */
+    private static Action countAndReturn(final AtomicInteger counter, final Object result) {
+        return new Action() {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                counter.incrementAndGet();
+                return result;
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("counts and returns " + result);
+            }
+        };
+    }
+
+    /**
+     * A successful submission is removed from the database
+     */
+    @Test
+    public void testSubmissionPersistedUntilComplete() throws Exception {
+        final String ccsId = "ccs-complete";
+        final VEGLJob job = createJob(1001, JobBuilderController.STATUS_PROVISION);
+        CloudSubmissionService service = createService(executor);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service.bindTo(meterRegistry);
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockCloudComputeService).executeJob(job, "user-data");will(returnValue("instance-id"));
+        }});
+
+        service.queueSubmission(mockCloudComputeService, job, "user-data");
+        waitUntilDequeued(1001, ccsId, 5000);
+
+        //isSubmitting won't return until the job update has finished
+        Assert.assertFalse(service.isSubmitting(job, mockCloudComputeService));
+        Assert.assertEquals(JobBuilderController.STATUS_PENDING, job.getStatus());
+        Assert.assertEquals("instance-id", job.getComputeInstanceId());
+        Assert.assertEquals(1, service.getSubmittedCount());
+        Assert.assertEquals(1.0, meterRegistry.get(CloudSubmissionService.SUBMITTED_METRIC).functionCounter().count(), 0.0);
+        Assert.assertEquals(service.getQueueDepth(), meterRegistry.get(CloudSubmissionService.QUEUED_METRIC).gauge().value(), 0.0);
+        Assert.assertEquals(service.getMaxWaitMillis(),
+                meterRegistry.get(CloudSubmissionService.MAX_WAIT_METRIC).timeGauge().value(TimeUnit.MILLISECONDS), 0.0);
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * A submission attempt that fails unexpectedly (here the database is briefly unavailable) is retried rather
+     * than being left submitting forever
+     */
+    @Test
+    public void testRetryAfterRepositoryFailure() throws Exception {
+        final String ccsId = "ccs-repository-failure";
+        final VEGLJob job = createJob(1006, JobBuilderController.STATUS_PROVISION);
+        final AtomicInteger leaseAttempts = new AtomicInteger();
+
+        //Fails the first lease attempt, otherwise delegates to the real repository
+        VGLJobSubmissionRepository failingRepository = (VGLJobSubmissionRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {VGLJobSubmissionRepository.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("acquireLease") && leaseAttempts.incrementAndGet() == 1) {
+                            throw new IllegalStateException("Database unavailable");
+                        }
+                        try {
+                            return method.invoke(repository, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    }
+                });
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockCloudComputeService).executeJob(job, "user-data");will(returnValue("instance-id"));
+        }});
+
+        CloudSubmissionService service = createService(executor);
+        service.setSubmissionRepository(failingRepository);
+        service.setErrorRetryMillis(50);
+        service.queueSubmission(mockCloudComputeService, job, "user-data");
+        waitUntilDequeued(1006, ccsId, 5000);
+
+        Assert.assertFalse(service.isSubmitting(job, mockCloudComputeService));
+        Assert.assertTrue(leaseAttempts.get() >= 2);
+        Assert.assertEquals(JobBuilderController.STATUS_PENDING, job.getStatus());
+        Assert.assertEquals("instance-id", job.getComputeInstanceId());
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * A node dies after leasing a submission (ie part way through submitting). A restarted node must
+     * wait for the lease to expire and then submit the job exactly once.
+     */
+    @Test
+    public void testRecoveryAfterCrashMidSubmission() throws Exception {
+        final String ccsId = "ccs-crash";
+        final VEGLJob job = createJob(1002, JobBuilderController.STATUS_PROVISION);
+        final AtomicInteger executeCount = new AtomicInteger();
+
+        //The state a crashed node leaves behind - a leased submission that will never be released
+        VGLJobSubmission submission = repository.save(new VGLJobSubmission(1002, ccsId, USER_EMAIL, "user-data"));
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(1, repository.acquireLease(submission.getId(), "crashed-node", new Date(now + 1000), new Date(now)));
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockJobManager).getJobById(1002, user);will(returnValue(job));
+            oneOf(mockCloudComputeService).executeJob(job, "user-data");will(countAndReturn(executeCount, "instance-id"));
+        }});
+
+        CloudSubmissionService service = createService(executor);
+        service.recoverSubmissions();
+        Assert.assertTrue(service.isSubmitting(job, mockCloudComputeService));
+
+        //The crashed node's lease hasn't expired yet
+        Thread.sleep(300);
+        Assert.assertEquals(0, executeCount.get());
+
+        waitUntilDequeued(1002, ccsId, 5000);
+        Assert.assertFalse(service.isSubmitting(job, mockCloudComputeService));
+        Assert.assertEquals(1, executeCount.get());
+        Assert.assertEquals(JobBuilderController.STATUS_PENDING, job.getStatus());
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * A quota failure is persisted with its backoff and survives a restart
+     */
+    @Test
+    public void testQuotaRetrySurvivesRestart() throws Exception {
+        final String ccsId = "ccs-quota";
+        final VEGLJob job = createJob(1003, JobBuilderController.STATUS_PROVISION);
+        final VEGLJob reloadedJob = createJob(1003, JobBuilderController.STATUS_INQUEUE);
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockCloudComputeService).executeJob(job, "user-data");will(throwException(new PortalServiceException("Quota", "Quota exceeded")));
+            oneOf(mockJobManager).getJobById(1003, user);will(returnValue(reloadedJob));
+            oneOf(mockCloudComputeService).executeJob(reloadedJob, "user-data");will(returnValue("instance-id"));
+        }});
+
+        ScheduledExecutorService firstExecutor = Executors.newScheduledThreadPool(1);
+        CloudSubmissionService firstService = createService(firstExecutor);
+        firstService.setQuotaResubmitTime(1500);
+        firstService.setQuotaResubmitUnits(TimeUnit.MILLISECONDS);
+        firstService.queueSubmission(mockCloudComputeService, job, "user-data");
+
+        //Wait for the quota failure to be recorded then "crash"
+        long deadline = System.currentTimeMillis() + 5000;
+        VGLJobSubmission submission;
+        while ((submission = repository.findByJobIdAndComputeServiceId(1003, ccsId)).getAttempts() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+        firstExecutor.shutdownNow();
+        Assert.assertTrue(firstExecutor.awaitTermination(2, TimeUnit.SECONDS));
+
+        Assert.assertEquals(1, submission.getAttempts());
+        Assert.assertNull(submission.getLeaseOwner());
+        Assert.assertTrue(submission.getNextAttemptDate().after(submission.getQueuedDate()));
+        Assert.assertEquals(JobBuilderController.STATUS_INQUEUE, job.getStatus());
+
+        CloudSubmissionService restartedService = createService(executor);
+        restartedService.recoverSubmissions();
+        waitUntilDequeued(1003, ccsId, 5000);
+        Assert.assertFalse(restartedService.isSubmitting(reloadedJob, mockCloudComputeService));
+        Assert.assertEquals(JobBuilderController.STATUS_PENDING, reloadedJob.getStatus());
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * Submissions for jobs that are no longer waiting to be submitted are discarded on recovery
+     */
+    @Test
+    public void testStaleSubmissionDiscarded() throws Exception {
+        final String ccsId = "ccs-stale";
+        final VEGLJob job = createJob(1004, JobBuilderController.STATUS_PENDING);
+        repository.save(new VGLJobSubmission(1004, ccsId, USER_EMAIL, "user-data"));
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockJobManager).getJobById(1004, user);will(returnValue(job));
+            never(mockCloudComputeService).executeJob(with(any(VEGLJob.class)), with(any(String.class)));
+        }});
+
+        CloudSubmissionService service = createService(executor);
+        service.recoverSubmissions();
+
+        Assert.assertNull(repository.findByJobIdAndComputeServiceId(1004, ccsId));
+        Assert.assertFalse(service.isSubmitting(job, mockCloudComputeService));
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * Dequeuing removes a queued submission from the database
+     */
+    @Test
+    public void testDequeue() throws Exception {
+        final String ccsId = "ccs-dequeue";
+        final VEGLJob job = createJob(1005, JobBuilderController.STATUS_PROVISION);
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue(ccsId));
+            oneOf(mockCloudComputeService).executeJob(job, "user-data");will(throwException(new PortalServiceException("Quota", "Quota exceeded")));
+        }});
+
+        CloudSubmissionService service = createService(executor);
+        service.setQuotaResubmitTime(1);
+        service.setQuotaResubmitUnits(TimeUnit.HOURS);
+        service.queueSubmission(mockCloudComputeService, job, "user-data");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (repository.findByJobIdAndComputeServiceId(1005, ccsId).getAttempts() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+        Assert.assertTrue(service.getQueueDepth() >= 1);
+
+        service.dequeueSubmission(job, mockCloudComputeService);
+        Assert.assertNull(repository.findByJobIdAndComputeServiceId(1005, ccsId));
+        Assert.assertFalse(service.isSubmitting(job, mockCloudComputeService));
+        context.assertIsSatisfied();
+    }
+}
@@ -0,0 +1,288 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.auscope.portal.core.services.CSWCacheService;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.csw.CSWRecordsHostFilter;
+import org.auscope.portal.core.services.responses.csw.AbstractCSWOnlineResource;
+import org.auscope.portal.core.services.responses.csw.AbstractCSWOnlineResource.OnlineResourceType;
+import org.auscope.portal.core.services.responses.csw.CSWOnlineResourceImpl;
+import org.auscope.portal.core.services.responses.csw.CSWRecord;
+import org.auscope.portal.core.test.PortalTestClass;
+import org.auscope.portal.nvcl.NVCLNamespaceContext;
+import org.auscope.portal.server.web.MeteredThreadPoolTaskExecutor;
+import org.jmock.Expectations;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for HyloggerBoreholeIndex
+ */
+public class TestHyloggerBoreholeIndex extends PortalTestClass {
+
+    private static final String ENDPOINT_1 = "http://record.1.resource.1";
+    private static final String ENDPOINT_2 = "http://record.2.resource.1";
+    private static final long TIMEOUT_MILLIS = 500;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CSWCacheService mockCSWService = context.mock(CSWCacheService.class);
+    private CSWRecord mockRecord1 = context.mock(CSWRecord.class, "mockRecord1");
+    private CSWRecord mockRecord2 = context.mock(CSWRecord.class, "mockRecord2");
+    private CSWRecordsHostFilter hostFilter = new CSWRecordsHostFilter("");
+
+    private StubBoreholeService boreholeService;
+    private MeteredThreadPoolTaskExecutor executor;
+    private File snapshotFile;
+
+    /**
+     * Returns configured IDs (or fails/hangs) per endpoint and counts every query. Called from the index's executor.
+     */
+    private static class StubBoreholeService extends BoreholeService {
+        private final Map<String, List<String>> ids = new ConcurrentHashMap<String, List<String>>();
+        private final Map<String, Long> delays = new ConcurrentHashMap<String, Long>();
+        private final AtomicInteger queryCount = new AtomicInteger();
+
+        public StubBoreholeService() {
+            super(null, null);
+        }
+
+        @Override
+        public List<String> getHyloggerBoreholeIDs(String url) throws PortalServiceException {
+            queryCount.incrementAndGet();
+            Long delay = delays.get(url);
+            if (delay != null) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<String> result = ids.get(url);
+            if (result == null) {
+                throw new PortalServiceException("No response from " + url);
+            }
+            return result;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final AbstractCSWOnlineResource record1Resource1 = new CSWOnlineResourceImpl(new URL(ENDPOINT_1),
+                "wfs", NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME, "description");
+        final AbstractCSWOnlineResource record1Resource2 = new CSWOnlineResourceImpl(new URL("http://record.1.resource.2"),
+                "wfs", "dne", "description");
+        final AbstractCSWOnlineResource record2Resource1 = new CSWOnlineResourceImpl(new URL(ENDPOINT_2),
+                "wfs", NVCLNamespaceContext.PUBLISHED_DATASETS_TYPENAME, "description");
+
+        context.checking(new Expectations() {
+            {
+                allowing(mockCSWService).getWFSRecords();
+                will(returnValue(Arrays.asList(mockRecord1, mockRecord2)));
+
+                allowing(mockRecord1).getOnlineResourcesByType(null, OnlineResourceType.WFS);
+                will(returnValue(new AbstractCSWOnlineResource[] {record1Resource1, record1Resource2}));
+                allowing(mockRecord1).getOnlineResourcesByType(hostFilter, OnlineResourceType.WFS);
+                will(returnValue(new AbstractCSWOnlineResource[] {record1Resource1, record1Resource2}));
+
+                allowing(mockRecord2).getOnlineResourcesByType(null, OnlineResourceType.WFS);
+                will(returnValue(new AbstractCSWOnlineResource[] {record2Resource1}));
+                allowing(mockRecord2).getOnlineResourcesByType(hostFilter, OnlineResourceType.WFS);
+                will(returnValue(new AbstractCSWOnlineResource[] {record2Resource1}));
+            }
+        });
+
+        boreholeService = new StubBoreholeService();
+        boreholeService.ids.put(ENDPOINT_1, Arrays.asList("bh-1", "bh-2"));
+        boreholeService.ids.put(ENDPOINT_2, Arrays.asList("bh-3"));
+        executor = MeteredThreadPoolTaskExecutor.create("hyloggerIndex", 2, 10, new SimpleMeterRegistry());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        snapshotFile = new File(new File(tempFolder.getRoot(), "hylogger-index"), "hylogger-index.json");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private HyloggerBoreholeIndex createIndex() {
+        HyloggerBoreholeIndex index = new HyloggerBoreholeIndex(boreholeService, mockCSWService, snapshotFile, executor, TIMEOUT_MILLIS);
+        index.init();
+        return index;
+    }
+
+    /**
+     * Waits for the index's background queries to finish (after at least queryCount queries have been made)
+     */
+    private void awaitQueries(int queryCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS * 10;
+        while (boreholeService.queryCount.get() < queryCount || executor.getActiveCount() > 0) {
+            Assert.assertTrue("Timed out waiting for background queries", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Lookups after a refresh are served from memory
+     */
+    @Test
+    public void testRefreshThenLookup() {
+        HyloggerBoreholeIndex index = createIndex();
+
+        Assert.assertEquals(2, index.refresh());
+        Assert.assertEquals(2, boreholeService.queryCount.get());
+        Assert.assertEquals(2, index.getEndpointCount());
+        Assert.assertTrue(index.getLastRefreshTime() > 0);
+        Assert.assertTrue(snapshotFile.isFile());
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(Arrays.asList("bh-1", "bh-2", "bh-3"), index.getHyloggerBoreholeIDs(hostFilter));
+        }
+        Assert.assertEquals(2, boreholeService.queryCount.get());
+    }
+
+    /**
+     * Endpoints that fail or time out keep the IDs they had previously
+     */
+    @Test
+    public void testRefreshKeepsPreviousIdsOnFailure() {
+        HyloggerBoreholeIndex index = createIndex();
+        Assert.assertEquals(2, index.refresh());
+
+        boreholeService.ids.remove(ENDPOINT_1);
+        boreholeService.ids.put(ENDPOINT_2, Arrays.asList("bh-4"));
+        boreholeService.delays.put(ENDPOINT_2, TIMEOUT_MILLIS * 10);
+
+        long start = System.currentTimeMillis();
+        Assert.assertEquals(0, index.refresh());
+        Assert.assertTrue("Refresh should not wait for a hung endpoint", System.currentTimeMillis() - start < TIMEOUT_MILLIS * 5);
+
+        Assert.assertEquals(Arrays.asList("bh-1", "bh-2", "bh-3"), index.getHyloggerBoreholeIDs(hostFilter));
+    }
+
+    /**
+     * Endpoints are queried in parallel so a refresh should wait for them all at once rather than one after another
+     */
+    @Test
+    public void testRefreshSharesDeadline() {
+        HyloggerBoreholeIndex index = createIndex();
+        boreholeService.delays.put(ENDPOINT_1, TIMEOUT_MILLIS * 10);
+        boreholeService.delays.put(ENDPOINT_2, TIMEOUT_MILLIS * 10);
+
+        long start = System.currentTimeMillis();
+        Assert.assertEquals(0, index.refresh());
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertTrue("Expected a single deadline for every endpoint, took " + elapsed + "ms", elapsed < TIMEOUT_MILLIS * 3 / 2);
+        Assert.assertEquals(0, index.getEndpointCount());
+    }
+
+    /**
+     * A new index loads the snapshot written by a previous refresh and serves it without querying any endpoint
+     */
+    @Test
+    public void testSnapshotRoundTrip() {
+        createIndex().refresh();
+
+        boreholeService.ids.clear();
+        boreholeService.queryCount.set(0);
+        HyloggerBoreholeIndex restored = createIndex();
+
+        Assert.assertEquals(2, restored.getEndpointCount());
+        Assert.assertTrue(restored.getLastRefreshTime() > 0);
+        Assert.assertEquals(Arrays.asList("bh-1", "bh-2", "bh-3"), restored.getHyloggerBoreholeIDs(hostFilter));
+        Assert.assertEquals(0, boreholeService.queryCount.get());
+    }
+
+    /**
+     * Snapshots are written owner only (in an owner only directory) and a snapshot other users can write to is ignored
+     */
+    @Test
+    public void testSnapshotPermissions() throws Exception {
+        createIndex().refresh();
+        if (Files.getFileAttributeView(snapshotFile.toPath(), PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshotFile.getParentFile().toPath())));
+        Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshotFile.toPath())));
+        Assert.assertEquals(2, createIndex().getEndpointCount());
+
+        Files.setPosixFilePermissions(snapshotFile.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+        HyloggerBoreholeIndex index = createIndex();
+        Assert.assertEquals(0, index.getEndpointCount());
+        Assert.assertEquals(0, index.getLastRefreshTime());
+    }
+
+    /**
+     * A corrupt snapshot is ignored rather than preventing startup
+     */
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        snapshotFile.getParentFile().mkdirs();
+        Files.write(snapshotFile.toPath(), "not json".getBytes("UTF-8"));
+
+        HyloggerBoreholeIndex index = createIndex();
+        Assert.assertEquals(0, index.getEndpointCount());
+        Assert.assertEquals(0, index.getLastRefreshTime());
+    }
+
+    /**
+     * Lookups don't wait for endpoints that have never been indexed, they're queried in the background instead
+     */
+    @Test
+    public void testLookupDoesNotWait() throws Exception {
+        boreholeService.delays.put(ENDPOINT_2, TIMEOUT_MILLIS * 2);
+        HyloggerBoreholeIndex index = createIndex();
+
+        long start = System.currentTimeMillis();
+        Assert.assertTrue(index.getHyloggerBoreholeIDs(hostFilter).isEmpty());
+        Assert.assertTrue("Lookup should not wait for endpoints", System.currentTimeMillis() - start < TIMEOUT_MILLIS);
+
+        awaitQueries(2);
+        Assert.assertEquals(Arrays.asList("bh-1", "bh-2", "bh-3"), index.getHyloggerBoreholeIDs(hostFilter));
+        Assert.assertEquals(2, boreholeService.queryCount.get());
+    }
+
+    /**
+     * Endpoints that fail in the background aren't queried again by lookups until failureRetryMillis has passed
+     */
+    @Test
+    public void testLookupBeforeRefresh() throws Exception {
+        boreholeService.ids.remove(ENDPOINT_2);
+        HyloggerBoreholeIndex index = createIndex();
+
+        Assert.assertTrue(index.getHyloggerBoreholeIDs(hostFilter).isEmpty());
+        awaitQueries(2);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(Arrays.asList("bh-1", "bh-2"), index.getHyloggerBoreholeIDs(hostFilter));
+        }
+        awaitQueries(2);
+        Assert.assertEquals(2, boreholeService.queryCount.get()); //the failing endpoint isn't retried
+
+        boreholeService.ids.put(ENDPOINT_2, Arrays.asList("bh-3"));
+        index.setFailureRetryMillis(0);
+        Assert.assertEquals(Arrays.asList("bh-1", "bh-2"), index.getHyloggerBoreholeIDs(hostFilter));
+        awaitQueries(3);
+        Assert.assertEquals(Arrays.asList("bh-1", "bh-2", "bh-3"), index.getHyloggerBoreholeIDs(hostFilter));
+        Assert.assertEquals(3, boreholeService.queryCount.get());
+    }
+}
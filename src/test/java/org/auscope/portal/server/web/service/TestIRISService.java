@@ -0,0 +1,133 @@
+package org.auscope.portal.server.web.service;
+
+import org.apache.http.client.methods.HttpRequestBase;
+import org.auscope.portal.core.server.http.HttpClientInputStream;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.test.PortalTestClass;
+import org.auscope.portal.core.util.DOMUtil;
+import org.auscope.portal.core.util.ResourceUtil;
+import org.auscope.portal.server.web.service.IRISService.StationChannels;
+import org.jmock.Expectations;
+import org.jmock.Sequence;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit tests for IRISService
+ */
+public class TestIRISService extends PortalTestClass {
+
+    private static final String SERVICE_URL = "http://service.iris.edu/";
+
+    private HttpServiceCaller mockServiceCaller = context.mock(HttpServiceCaller.class);
+
+    private HttpClientInputStream loadResponse(String name) throws Exception {
+        return new HttpClientInputStream(ResourceUtil.loadResourceAsStream("org/auscope/portal/iris/" + name), null);
+    }
+
+    /**
+     * Every station is written as a placemark using its own (not its channels') location
+     */
+    @Test
+    public void testStationsKml() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                will(returnValue(loadResponse("stationResponse.xml")));
+            }
+        });
+
+        String kml = new IRISService(mockServiceCaller, IRISService.DEFAULT_TTL_MILLIS).getStationsKml(SERVICE_URL, "S");
+
+        Document doc = DOMUtil.buildDomFromString(kml);
+        Assert.assertEquals("kml", doc.getDocumentElement().getLocalName());
+        Assert.assertEquals(42, doc.getElementsByTagName("Placemark").getLength());
+        Assert.assertTrue(kml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document><name>GML Links to KML</name>"));
+        Assert.assertTrue(kml.contains("<Placemark><name>Ayr State High School, QLD</name><description><![CDATA[GENERIC_PARSER:AUAYR]]></description>"
+                + "<MultiGeometry><Point><coordinates>147.4088,-19.5774,0</coordinates></Point></MultiGeometry></Placemark>"));
+        Assert.assertTrue(kml.contains("<name>St Joseph's College, Albany, WA</name>"));
+    }
+
+    /**
+     * Channel codes and dates are read from a level=chan response
+     */
+    @Test
+    public void testStationChannels() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                will(returnValue(loadResponse("channelResponse.xml")));
+            }
+        });
+
+        StationChannels channels = new IRISService(mockServiceCaller, IRISService.DEFAULT_TTL_MILLIS).getStationChannels(SERVICE_URL, "S", "AUMAZ");
+
+        Assert.assertArrayEquals(new String[] {"BHE", "BHN", "BHZ", "HHE", "HHN", "HHZ"}, channels.getChannelCodes());
+        Assert.assertEquals("2013-09-09T00:00:00", channels.getStartDate());
+        Assert.assertEquals("2599-12-31T23:59:59", channels.getEndDate());
+    }
+
+    /**
+     * Repeated queries are served from the cache until the TTL expires
+     */
+    @Test
+    public void testCaching() throws Exception {
+        final Sequence sequence = context.sequence("fetches");
+        context.checking(new Expectations() {
+            {
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                inSequence(sequence);
+                will(returnValue(loadResponse("stationResponse.xml")));
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                inSequence(sequence);
+                will(returnValue(loadResponse("channelResponse.xml")));
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                inSequence(sequence);
+                will(returnValue(loadResponse("stationResponse.xml")));
+            }
+        });
+
+        IRISService service = new IRISService(mockServiceCaller, 200);
+        String kml = service.getStationsKml(SERVICE_URL, "S");
+        for (int i = 0; i < 5; i++) {
+            Assert.assertSame(kml, service.getStationsKml(SERVICE_URL, "S"));
+        }
+        service.getStationChannels(SERVICE_URL, "S", "AUMAZ");
+        service.getStationChannels(SERVICE_URL, "S", "AUMAZ");
+        Assert.assertEquals(2, service.getFetchCount());
+
+        Thread.sleep(300);
+        Assert.assertEquals(kml, service.getStationsKml(SERVICE_URL, "S"));
+        Assert.assertEquals(3, service.getFetchCount());
+    }
+
+    /**
+     * Failed queries are not cached
+     */
+    @Test
+    public void testFailureNotCached() throws Exception {
+        final Sequence sequence = context.sequence("fetches");
+        context.checking(new Expectations() {
+            {
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                inSequence(sequence);
+                will(returnValue(loadResponse("stationResponseBad.xml")));
+                oneOf(mockServiceCaller).getMethodResponseAsStream(with(any(HttpRequestBase.class)));
+                inSequence(sequence);
+                will(returnValue(loadResponse("stationResponse.xml")));
+            }
+        });
+
+        IRISService service = new IRISService(mockServiceCaller, IRISService.DEFAULT_TTL_MILLIS);
+        try {
+            service.getStationsKml(SERVICE_URL, "S");
+            Assert.fail("Expected a PortalServiceException");
+        } catch (PortalServiceException ex) {
+            //expected
+        }
+
+        Assert.assertTrue(service.getStationsKml(SERVICE_URL, "S").contains("GENERIC_PARSER:AUALB"));
+    }
+}
@@ -17,6 +17,9 @@ import org.jmock.Expectations;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.json.JSONObject;
 import org.json.JSONArray;
@@ -43,7 +46,8 @@ public class TestNVCL2_0_DataService extends PortalTestClass {
 
         }});
 
-        dataService = new NVCL2_0_DataService(mockServiceCaller, mockMethodMaker, ANALYTICAL_SERVICES_URL);
+        //jmock mocks must be called from the test thread so bin each job on the caller
+        dataService = new NVCL2_0_DataService(mockServiceCaller, mockMethodMaker, ANALYTICAL_SERVICES_URL, new TaskExecutorAdapter(MoreExecutors.directExecutor()), 10000);
     }
 
     /**
@@ -0,0 +1,141 @@
+package org.auscope.portal.server.web.service;
+
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.server.domain.nvcldataservice.BinnedCSVResponse;
+import org.auscope.portal.server.web.MeteredThreadPoolTaskExecutor;
+import org.auscope.portal.server.web.NVCL2_0_DataServiceMethodMaker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the parallel fetching/binning of multiple analytics jobs in NVCL2_0_DataService against
+ * a local stub of the NVCL Analytical Services.
+ */
+public class TestNVCL2_0_DataServiceFanOut {
+
+    private static final long BINNING_TIMEOUT_MILLIS = 1000;
+    private static final int BINNING_POOL_SIZE = 4;
+
+    private StubNVCLAnalyticalService stubService;
+    private SimpleMeterRegistry registry;
+    private MeteredThreadPoolTaskExecutor binningExecutor;
+    private NVCL2_0_DataService dataService;
+
+    @Before
+    public void setup() throws Exception {
+        stubService = new StubNVCLAnalyticalService();
+        registry = new SimpleMeterRegistry();
+        binningExecutor = createService(BINNING_POOL_SIZE, 64);
+    }
+
+    @After
+    public void tearDown() {
+        binningExecutor.shutdown();
+        stubService.close();
+    }
+
+    /**
+     * Replaces dataService with one that bins on a new executor
+     */
+    private MeteredThreadPoolTaskExecutor createService(int poolSize, int queueCapacity) {
+        MeteredThreadPoolTaskExecutor executor = MeteredThreadPoolTaskExecutor.create("nvclBinning", poolSize, queueCapacity, registry);
+        executor.initialize();
+        dataService = new NVCL2_0_DataService(new HttpServiceCaller(60000), new NVCL2_0_DataServiceMethodMaker(),
+                stubService.getUrl(), executor, BINNING_TIMEOUT_MILLIS);
+        return executor;
+    }
+
+    /**
+     * Every job should be requested at the same time (rather than one after another) and the bins
+     * should be merged in request order rather than completion order.
+     */
+    @Test
+    public void testJobsRequestedConcurrently() throws Exception {
+        final String[] jobIds = new String[] {"job-a", "job-bb", "job-ccc", "job-dddd"};
+        stubService.setJobDelay("job-a", 600);
+        stubService.setJobDelay("job-bb", 300);
+        stubService.setJobDelay("job-ccc", 500);
+        stubService.setJobDelay("job-dddd", 200);
+
+        BinnedCSVResponse response = dataService.getNVCL2_0_JobsScalarBinned(jobIds, "borehole-1", 1.0);
+
+        Assert.assertEquals(4, stubService.getRequestCount());
+        Assert.assertEquals(jobIds.length, stubService.getMaxConcurrentScalarRequests());
+        Assert.assertEquals(jobIds.length, response.getBinnedValues().length);
+        for (int i = 0; i < jobIds.length; i++) {
+            Assert.assertEquals(jobIds[i], response.getBinnedValues()[i].getName());
+            Assert.assertEquals(jobIds[i].length(), response.getBinnedValues()[i].getNumericValues().get(0), 10.0);
+        }
+    }
+
+    /**
+     * With every job requested at once the call should take about as long as the slowest job rather than the sum of
+     * every job's latency
+     */
+    @Test
+    public void testLatencyBoundBySlowestJob() throws Exception {
+        final String[] jobIds = new String[] {"job-a", "job-bb", "job-ccc", "job-dddd"};
+        final long[] delays = new long[] {500, 300, 400, 450};
+        long slowest = 0;
+        long sum = 0;
+        dataService.getNVCL2_0_JobsScalarBinned(jobIds, "borehole-1", 1.0); //warm up connections
+        for (int i = 0; i < jobIds.length; i++) {
+            stubService.setJobDelay(jobIds[i], delays[i]);
+            slowest = Math.max(slowest, delays[i]);
+            sum += delays[i];
+        }
+
+        long start = System.currentTimeMillis();
+        dataService.getNVCL2_0_JobsScalarBinned(jobIds, "borehole-1", 1.0);
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertTrue("Finished before the slowest job, took " + elapsed + "ms", elapsed >= slowest);
+        Assert.assertTrue("Expected about " + slowest + "ms (the slowest job) rather than " + sum + "ms (every job), took " + elapsed + "ms",
+                elapsed < slowest + (sum - slowest) / 2);
+    }
+
+    /**
+     * A job that exceeds the deadline should fail the whole call without waiting for the slow job
+     */
+    @Test
+    public void testDeadlineCancelsSlowJobs() throws Exception {
+        stubService.setJobDelay("job-slow", 10000);
+
+        long start = System.currentTimeMillis();
+        try {
+            dataService.getNVCL2_0_JobsScalarBinned(new String[] {"job-fast", "job-slow"}, "borehole-1", 1.0);
+            Assert.fail("Expected a timeout");
+        } catch (PortalServiceException ex) {
+            Assert.assertTrue(ex.getMessage().contains("job-slow"));
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertTrue("Expected the call to be abandoned near the deadline, took " + elapsed + "ms", elapsed < BINNING_TIMEOUT_MILLIS + 1000);
+    }
+
+    /**
+     * Jobs that don't fit in the executor's queue should fail the call (and abandon the jobs already
+     * submitted) rather than being run outside of the deadline
+     */
+    @Test
+    public void testSaturatedExecutorRejects() throws Exception {
+        binningExecutor.shutdown();
+        binningExecutor = createService(1, 1);
+        stubService.setJobDelay("job-a", 10000);
+
+        try {
+            dataService.getNVCL2_0_JobsScalarBinned(new String[] {"job-a", "job-bb", "job-ccc"}, "borehole-1", 1.0);
+            Assert.fail("Expected the third job to be rejected");
+        } catch (PortalServiceException ex) {
+            Assert.assertTrue(ex.getMessage().contains("job-ccc"));
+        }
+
+        Assert.assertEquals(1.0, registry.find(MeteredThreadPoolTaskExecutor.REJECTED_METRIC).tag("name", "nvclBinning").counter().count(), 0.0);
+        Assert.assertTrue(stubService.getMaxConcurrentScalarRequests() <= 1);
+    }
+}
@@ -0,0 +1,198 @@
+package org.auscope.portal.server.web.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.server.domain.nvcldataservice.AnalyticalJobResults;
+import org.auscope.portal.server.domain.nvcldataservice.BoreholeIdSet;
+import org.auscope.portal.server.web.NVCL2_0_DataServiceMethodMaker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Tests NVCLAnalyticsResultsCache against a local stub of the NVCL Analytical Services
+ */
+public class TestNVCLAnalyticsResultsCache {
+
+    private static final String RESULTS_PATH = "/getNVCLAnalyticalJobResult.do";
+    private static final String STATUS_PATH = "/checkNVCLAnalyticalJobStatus.do";
+    private static final String EMAIL = "foo@bar.com";
+
+    private StubNVCLAnalyticalService stubService;
+    private ThreadPoolTaskExecutor binningExecutor;
+    private NVCL2_0_DataService dataService;
+
+    @Before
+    public void setup() throws Exception {
+        stubService = new StubNVCLAnalyticalService();
+        binningExecutor = new ThreadPoolTaskExecutor();
+        binningExecutor.initialize();
+        dataService = new NVCL2_0_DataService(new HttpServiceCaller(60000), new NVCL2_0_DataServiceMethodMaker(),
+                stubService.getUrl(), binningExecutor, 10000);
+    }
+
+    @After
+    public void tearDown() {
+        binningExecutor.shutdown();
+        stubService.close();
+    }
+
+    private static List<String> boreholeIds(String prefix, int count) {
+        List<String> ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("http://example.org/resource/feature/GSV/borehole/" + prefix + i);
+        }
+        return ids;
+    }
+
+    /**
+     * Many concurrent tile requests for a completed job should result in a single fetch
+     */
+    @Test
+    public void testCompletedJobFetchedOnce() throws Exception {
+        stubService.setJobResults("job-done", EMAIL, "Success", boreholeIds("pass", 2000), boreholeIds("fail", 10), Collections.<String>emptyList());
+        final NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 10, 0);
+
+        ExecutorService tileRequests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AnalyticalJobResults>> futures = new ArrayList<Future<AnalyticalJobResults>>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(tileRequests.submit(new Callable<AnalyticalJobResults>() {
+                    @Override
+                    public AnalyticalJobResults call() throws Exception {
+                        return cache.getResults("job-done");
+                    }
+                }));
+            }
+            for (Future<AnalyticalJobResults> future : futures) {
+                AnalyticalJobResults results = future.get();
+                Assert.assertEquals(2000, results.getPassBoreholes().size());
+                Assert.assertEquals(10, results.getFailBoreholes().size());
+                Assert.assertEquals(0, results.getErrorBoreholes().size());
+                Assert.assertTrue(results.getPassBoreholes() instanceof BoreholeIdSet);
+                Assert.assertTrue(results.getPassBoreholes().contains("http://example.org/resource/feature/GSV/borehole/pass1999"));
+            }
+        } finally {
+            tileRequests.shutdownNow();
+        }
+
+        Assert.assertEquals(1, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertEquals(1, stubService.getRequestCount(STATUS_PATH));
+        Assert.assertEquals(1, cache.getFetchCount());
+        Assert.assertTrue(cache.isComplete("job-done"));
+    }
+
+    /**
+     * The results of a running job are reused until they expire and are then refetched until the job completes
+     */
+    @Test
+    public void testRunningJobRefetchedAfterTtl() throws Exception {
+        stubService.setJobResults("job-running", EMAIL, "Processing", boreholeIds("pass", 5), null, null);
+        NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 10, 200);
+
+        Assert.assertEquals(5, cache.getResults("job-running").getPassBoreholes().size());
+        Assert.assertEquals(5, cache.getResults("job-running").getPassBoreholes().size());
+        Assert.assertEquals(1, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertFalse(cache.isComplete("job-running"));
+
+        stubService.setJobResults("job-running", EMAIL, "Success", boreholeIds("pass", 8), null, null);
+        Thread.sleep(300);
+        Assert.assertEquals(8, cache.getResults("job-running").getPassBoreholes().size());
+        Assert.assertEquals(2, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertTrue(cache.isComplete("job-running"));
+
+        Thread.sleep(300);
+        Assert.assertEquals(8, cache.getResults("job-running").getPassBoreholes().size());
+        Assert.assertEquals(2, stubService.getRequestCount(RESULTS_PATH));
+    }
+
+    /**
+     * Refetching the results of several running jobs of the same submitter shares a single status lookup
+     */
+    @Test
+    public void testStatusLookupShared() throws Exception {
+        stubService.setJobResults("job-running-1", EMAIL, "Processing", boreholeIds("pass", 5), null, null);
+        stubService.setJobResults("job-running-2", EMAIL, "Processing", boreholeIds("pass", 6), null, null);
+        NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 10, 60000);
+
+        Assert.assertEquals(5, cache.getResults("job-running-1").getPassBoreholes().size());
+        Assert.assertEquals(6, cache.getResults("job-running-2").getPassBoreholes().size());
+        Assert.assertEquals(2, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertEquals(1, stubService.getRequestCount(STATUS_PATH));
+        Assert.assertEquals(1, cache.getStatusCheckCount());
+        Assert.assertFalse(cache.isComplete("job-running-1"));
+        Assert.assertFalse(cache.isComplete("job-running-2"));
+    }
+
+    /**
+     * A job whose status can't be determined (it has no submitter) is refetched less and less often but is never
+     * treated as complete until its status is known
+     */
+    @Test
+    public void testUnknownStatusBacksOff() throws Exception {
+        stubService.setJobResults("job-anonymous", "", "Processing", boreholeIds("pass", 5), null, null);
+        NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 10, 100);
+
+        cache.getResults("job-anonymous");
+        Thread.sleep(150);
+        cache.getResults("job-anonymous");
+        Assert.assertEquals(2, stubService.getRequestCount(RESULTS_PATH));
+
+        //Reused for twice as long after the second failure
+        Thread.sleep(100);
+        cache.getResults("job-anonymous");
+        Assert.assertEquals(2, stubService.getRequestCount(RESULTS_PATH));
+        Thread.sleep(150);
+        cache.getResults("job-anonymous");
+        Assert.assertEquals(3, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertFalse(cache.isComplete("job-anonymous"));
+
+        stubService.setJobResults("job-anonymous", EMAIL, "Success", boreholeIds("pass", 8), null, null);
+        Thread.sleep(450);
+        Assert.assertEquals(8, cache.getResults("job-anonymous").getPassBoreholes().size());
+        Assert.assertEquals(4, stubService.getRequestCount(RESULTS_PATH));
+        Assert.assertTrue(cache.isComplete("job-anonymous"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        for (String jobId : Arrays.asList("job-1", "job-2", "job-3")) {
+            stubService.setJobResults(jobId, EMAIL, "Success", boreholeIds(jobId, 3), null, null);
+        }
+        NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 2, 0);
+
+        cache.getResults("job-1");
+        cache.getResults("job-2");
+        cache.getResults("job-1");
+        cache.getResults("job-3"); //evicts job-2
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3, stubService.getRequestCount(RESULTS_PATH));
+
+        cache.getResults("job-1");
+        Assert.assertEquals(3, stubService.getRequestCount(RESULTS_PATH));
+        cache.getResults("job-2");
+        Assert.assertEquals(4, stubService.getRequestCount(RESULTS_PATH));
+    }
+
+    @Test
+    public void testFailedFetchNotCached() throws Exception {
+        NVCLAnalyticsResultsCache cache = new NVCLAnalyticsResultsCache(dataService, 10, 0);
+        try {
+            cache.getResults("job-missing");
+            Assert.fail("Expected an exception");
+        } catch (Exception ex) {
+            Assert.assertEquals(0, cache.size());
+            Assert.assertFalse(cache.isComplete("job-missing"));
+        }
+    }
+}
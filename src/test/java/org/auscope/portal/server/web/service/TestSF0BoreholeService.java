@@ -1,12 +1,16 @@
 package org.auscope.portal.server.web.service;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.http.client.methods.HttpRequestBase;
 import org.auscope.portal.core.server.http.HttpServiceCaller;
 import org.auscope.portal.core.services.CSWCacheService;
+import org.auscope.portal.core.services.PortalServiceException;
 import org.auscope.portal.core.services.csw.CSWRecordsHostFilter;
 import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker;
 import org.auscope.portal.core.services.methodmakers.WFSGetFeatureMethodMaker.ResultType;
@@ -18,8 +22,10 @@ import org.auscope.portal.core.services.responses.csw.CSWRecord;
 import org.auscope.portal.core.services.responses.wfs.WFSResponse;
 import org.auscope.portal.core.test.PortalTestClass;
 import org.auscope.portal.core.util.ResourceUtil;
+import org.auscope.portal.gsml.BoreholeIdFilterCompactor;
 import org.auscope.portal.gsml.SF0BoreholeFilter;
 import org.auscope.portal.nvcl.NVCLNamespaceContext;
+import org.auscope.portal.server.web.service.CapabilitiesCacheService.WFSCapabilities;
 import org.jmock.Expectations;
 import org.junit.Assert;
 import org.junit.Before;
@@ -322,4 +328,46 @@ public class TestSF0BoreholeService extends PortalTestClass {
         Assert.assertEquals(0, restrictedIDs.size());
     }
 
+    private static WFSCapabilities filterCapabilities(List<String> comparisonOperators, List<String> filterFunctions) {
+        return new WFSCapabilities("1.1.0", new HashMap<String, String>(), new HashMap<String, String>(), new HashSet<String>(),
+                new HashSet<String>(comparisonOperators), new HashSet<String>(filterFunctions));
+    }
+
+    /**
+     * Identifier compaction only uses the filter operators each service's capabilities offer
+     */
+    @Test
+    public void testIdentifierCompactorFromCapabilities() throws Exception {
+        final CapabilitiesCacheService mockCapabilitiesCache = context.mock(CapabilitiesCacheService.class);
+        service = new SF0BoreholeService(mockHttpServiceCaller, mockMethodMaker, mockCapabilitiesCache);
+
+        context.checking(new Expectations() {
+            {
+                allowing(mockCapabilitiesCache).getCapabilities("http://geoserver.example.com");
+                will(returnValue(filterCapabilities(Arrays.asList("EqualTo", "Like", "Between"), Arrays.asList("in", "strLength"))));
+                allowing(mockCapabilitiesCache).getCapabilities("http://equality.example.com");
+                will(returnValue(filterCapabilities(Arrays.asList("EqualTo", "Like"), Arrays.asList("strLength"))));
+                allowing(mockCapabilitiesCache).getCapabilities("http://unlisted.example.com");
+                will(returnValue(filterCapabilities(new ArrayList<String>(), new ArrayList<String>())));
+                allowing(mockCapabilitiesCache).getCapabilities("http://down.example.com");
+                will(throwException(new PortalServiceException("down")));
+            }
+        });
+
+        BoreholeIdFilterCompactor compactor = service.getIdentifierCompactor("http://geoserver.example.com");
+        Assert.assertTrue(compactor.isRangesSupported());
+        Assert.assertTrue(compactor.isInFunctionSupported());
+
+        compactor = service.getIdentifierCompactor("http://equality.example.com");
+        Assert.assertFalse(compactor.isRangesSupported());
+        Assert.assertFalse(compactor.isInFunctionSupported());
+
+        Assert.assertSame(service.getIdentifierCompactor(), service.getIdentifierCompactor("http://unlisted.example.com"));
+        Assert.assertSame(service.getIdentifierCompactor(), service.getIdentifierCompactor("http://down.example.com"));
+
+        List<String> filters = service.getIdentifierFilters("http://equality.example.com", null, null, null, null, 0, null,
+                Arrays.asList("bh1", "bh2", "bh3"), true, null);
+        Assert.assertEquals(1, filters.size());
+        Assert.assertFalse(filters.get(0).contains("PropertyIsBetween"));
+    }
 }
@@ -0,0 +1,86 @@
+package org.auscope.portal.server.web.service;
+
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.test.PortalTestClass;
+import org.auscope.portal.server.web.service.scm.Problem;
+import org.auscope.portal.server.web.service.scm.ScmEntryCache;
+import org.auscope.portal.server.web.service.scm.StubSolutionsCentre;
+import org.jmock.Expectations;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for ScmEntryService against a stub solutions centre
+ */
+public class TestScmEntryService extends PortalTestClass {
+
+    private StubSolutionsCentre ssc;
+    private ScmEntryCache cache;
+    private ScmEntryService service;
+    private final CloudComputeService mockCloudComputeService = context.mock(CloudComputeService.class);
+
+    @Before
+    public void setup() throws Exception {
+        ssc = new StubSolutionsCentre();
+        cache = new ScmEntryCache(ScmEntryCache.createRestTemplate(4, 5000), ScmEntryCache.createObjectMapper(),
+                100, 60000, 60000);
+        service = new ScmEntryService(null, null, null, new CloudComputeService[] {mockCloudComputeService}, cache);
+        ScmEntryService.setSolutionsUrl(ssc.getUrl());
+
+        context.checking(new Expectations() {{
+            allowing(mockCloudComputeService).getId();will(returnValue("nci"));
+        }});
+
+        String base = ssc.getUrl();
+        ssc.setDocument("/solutions", "{\"solutions\":[{\"@id\":\"" + base + "/solutions/1\",\"name\":\"Solution 1\",\"dependencies\":["
+                + "{\"type\":\"TOOLBOX\",\"identifier\":\"" + base + "/toolboxes/1\"},"
+                + "{\"type\":\"TOOLBOX\",\"identifier\":\"" + base + "/toolboxes/2\"},"
+                + "{\"type\":\"PYTHON\",\"identifier\":\"numpy\"}]}]}");
+        ssc.setDocument("/toolboxes/1", "{\"@id\":\"" + base + "/toolboxes/1\",\"name\":\"Toolbox 1\",\"images\":[{\"image_id\":\"img-1\",\"provider\":\"nci\"}]}");
+        ssc.setDocument("/toolboxes/2", "{\"@id\":\"" + base + "/toolboxes/2\",\"name\":\"Toolbox 2\",\"images\":[{\"image_id\":\"img-2\",\"provider\":\"aws\"}]}");
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+        ssc.close();
+    }
+
+    /**
+     * Loading the job builder solutions twice should only hit the SSC (and each toolbox dependency) once
+     */
+    @Test
+    public void testGetSolutionsCached() throws Exception {
+        CloudComputeService[] providers = new CloudComputeService[] {mockCloudComputeService};
+        SolutionResponse first = service.getSolutions(null, providers);
+        Assert.assertEquals(1, first.getConfiguredSolutions().size());
+        Assert.assertEquals("Solution 1", first.getConfiguredSolutions().get(0).getName());
+        Assert.assertEquals(3, ssc.getRequestCount());
+
+        SolutionResponse second = service.getSolutions(null, providers);
+        Assert.assertEquals(1, second.getConfiguredSolutions().size());
+        Assert.assertEquals(3, ssc.getRequestCount());
+        Assert.assertEquals(1, ssc.getRequestCount("/toolboxes/1"));
+        Assert.assertEquals(1, ssc.getRequestCount("/toolboxes/2"));
+    }
+
+    /**
+     * A problem ID that needs encoding is encoded exactly once (and sent as a single query value)
+     */
+    @Test
+    public void testGetSolutionsForProblemEncodedOnce() throws Exception {
+        String base = ssc.getUrl();
+        ssc.setDocument("/solutions?problem=http%3A%2F%2Fssc.example.org%2Fproblems%2Fa%20b%26c%3D1",
+                "{\"solutions\":[{\"@id\":\"" + base + "/solutions/2\",\"name\":\"Solution 2\",\"dependencies\":["
+                + "{\"type\":\"TOOLBOX\",\"identifier\":\"" + base + "/toolboxes/1\"}]}]}");
+
+        SolutionResponse response = service.getSolutions(new Problem("http://ssc.example.org/problems/a b&c=1"));
+        Assert.assertEquals(1, response.getConfiguredSolutions().size());
+        Assert.assertEquals("Solution 2", response.getConfiguredSolutions().get(0).getName());
+
+        service.getSolutions(new Problem("http://ssc.example.org/problems/a b&c=1"));
+        Assert.assertEquals(1, ssc.getRequestCount("/solutions?problem=http%3A%2F%2Fssc.example.org%2Fproblems%2Fa%20b%26c%3D1"));
+    }
+}
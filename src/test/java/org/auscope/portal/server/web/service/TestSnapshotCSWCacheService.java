@@ -0,0 +1,287 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.csw.CSWServiceItem;
+import org.auscope.portal.core.services.responses.csw.CSWRecord;
+import org.auscope.portal.core.services.responses.csw.CSWRecordTransformerFactory;
+import org.auscope.portal.core.util.ResourceUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests SnapshotCSWCacheService against a local CSW stub
+ */
+public class TestSnapshotCSWCacheService {
+
+    /**
+     * Stands in for a deserialisation gadget - records whether it was ever instantiated from a stream
+     */
+    public static class Gadget implements Serializable {
+        private static final long serialVersionUID = 1L;
+        static volatile boolean deserialised = false;
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            deserialised = true;
+        }
+    }
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService cacheExecutor;
+    private String cswResponse;
+    private AtomicInteger requestCount = new AtomicInteger();
+    private File snapshotFile;
+
+    @Before
+    public void setup() throws Exception {
+        cswResponse = ResourceUtil.loadResourceAsString("cswRecordResponse_NoMoreRecords.xml");
+        snapshotFile = new File(Files.createTempDirectory("csw-snapshot").toFile(), "csw-cache-snapshot.bin");
+        cacheExecutor = Executors.newCachedThreadPool();
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                try {
+                    byte[] body = cswResponse.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/xml");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        cacheExecutor.shutdownNow();
+        new File(snapshotFile.getPath() + ".tmp").delete();
+        snapshotFile.delete();
+        snapshotFile.getParentFile().delete();
+    }
+
+    private SnapshotCSWCacheService createService() {
+        String url = String.format("http://%1$s:%2$d/csw", server.getAddress().getHostString(), server.getAddress().getPort());
+        ArrayList<CSWServiceItem> serviceItems = new ArrayList<CSWServiceItem>(Arrays.asList(new CSWServiceItem("stub", url)));
+        return new SnapshotCSWCacheService(cacheExecutor, new HttpServiceCaller(10000), serviceItems,
+                new CSWRecordTransformerFactory(), snapshotFile);
+    }
+
+    /**
+     * Runs a harvest against the stub and waits for the snapshot to be written
+     */
+    private SnapshotCSWCacheService harvest() throws Exception {
+        SnapshotCSWCacheService service = createService();
+        Assert.assertFalse(service.isServingSnapshot());
+        Assert.assertTrue(service.updateCache());
+        for (int i = 0; i < 200 && !snapshotFile.isFile(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue("Snapshot wasn't written", snapshotFile.isFile());
+        Assert.assertFalse(service.isServingSnapshot());
+        Assert.assertTrue(requestCount.get() > 0);
+        return service;
+    }
+
+    /**
+     * A new service restores the last harvest before making any requests
+     */
+    @Test
+    public void testRestoreBeforeHarvest() throws Exception {
+        SnapshotCSWCacheService harvested = harvest();
+        int harvestedCount = harvested.getRecordCache().size();
+        Assert.assertTrue(harvestedCount > 0);
+        requestCount.set(0);
+
+        SnapshotCSWCacheService restored = createService();
+        Assert.assertTrue(restored.isServingSnapshot());
+        Assert.assertTrue(restored.getSnapshotTime() > 0);
+        Assert.assertEquals(0, requestCount.get());
+        Assert.assertEquals(harvestedCount, restored.getRecordCache().size());
+        Assert.assertEquals(harvested.getWFSRecords().size(), restored.getWFSRecords().size());
+
+        Set<String> keywords = harvested.getKeywordCache().keySet();
+        Assert.assertEquals(keywords, restored.getKeywordCache().keySet());
+        for (CSWRecord record : restored.getRecordCache()) {
+            Assert.assertNotNull(record.getFileIdentifier());
+        }
+    }
+
+    /**
+     * A harvest that returns nothing doesn't replace the snapshot or the records restored from it
+     */
+    @Test
+    public void testEmptyHarvestKeepsSnapshot() throws Exception {
+        int harvestedCount = harvest().getRecordCache().size();
+        long modified = snapshotFile.lastModified();
+        long length = snapshotFile.length();
+
+        SnapshotCSWCacheService restored = createService();
+        restored.updateFinished(new HashMap<String, Set<CSWRecord>>(), new HashMap<String, CSWRecord>());
+        Assert.assertTrue(restored.isServingSnapshot());
+        Assert.assertEquals(harvestedCount, restored.getRecordCache().size());
+        Assert.assertEquals(modified, snapshotFile.lastModified());
+        Assert.assertEquals(length, snapshotFile.length());
+    }
+
+    private static CSWRecord record(CSWServiceItem registry, String fileIdentifier) {
+        CSWRecord record = new CSWRecord();
+        record.setFileIdentifier(fileIdentifier);
+        record.setRecordInfoUrl(String.format(registry.getRecordInformationUrl(), fileIdentifier));
+        return record;
+    }
+
+    /**
+     * Finishes a harvest of records (each with its own keyword)
+     */
+    private static void finishHarvest(SnapshotCSWCacheService service, CSWRecord... records) {
+        Map<String, CSWRecord> recordCache = new HashMap<String, CSWRecord>();
+        Map<String, Set<CSWRecord>> keywordCache = new HashMap<String, Set<CSWRecord>>();
+        for (CSWRecord record : records) {
+            recordCache.put(record.getFileIdentifier(), record);
+            keywordCache.put("keyword-" + record.getFileIdentifier(), new HashSet<CSWRecord>(Arrays.asList(record)));
+        }
+        service.updateFinished(keywordCache, recordCache);
+    }
+
+    private static Set<String> fileIdentifiers(SnapshotCSWCacheService service) {
+        Set<String> ids = new HashSet<String>();
+        for (CSWRecord record : service.getRecordCache()) {
+            ids.add(record.getFileIdentifier());
+        }
+        return ids;
+    }
+
+    /**
+     * A registry that returns nothing keeps its previous records (in the cache and the snapshot) while the records
+     * of registries that responded are replaced
+     */
+    @Test
+    public void testFailedRegistryKept() throws Exception {
+        CSWServiceItem registryA = new CSWServiceItem("a", "http://a.example.org/csw", "http://a.example.org/metadata/%1$s");
+        CSWServiceItem registryB = new CSWServiceItem("b", "http://b.example.org/csw", "http://b.example.org/metadata/%1$s");
+        ArrayList<CSWServiceItem> serviceItems = new ArrayList<CSWServiceItem>(Arrays.asList(registryA, registryB));
+        SnapshotCSWCacheService service = new SnapshotCSWCacheService(cacheExecutor, new HttpServiceCaller(10000), serviceItems,
+                new CSWRecordTransformerFactory(), snapshotFile);
+
+        finishHarvest(service, record(registryA, "a1"), record(registryA, "a2"), record(registryB, "b1"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a1", "a2", "b1")), fileIdentifiers(service));
+
+        //registry b fails
+        finishHarvest(service, record(registryA, "a1"), record(registryA, "a3"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a1", "a3", "b1")), fileIdentifiers(service));
+        Assert.assertTrue(service.getKeywordCache().containsKey("keyword-b1"));
+        Assert.assertFalse(service.getKeywordCache().containsKey("keyword-a2"));
+
+        SnapshotCSWCacheService restored = new SnapshotCSWCacheService(cacheExecutor, new HttpServiceCaller(10000), serviceItems,
+                new CSWRecordTransformerFactory(), snapshotFile);
+        Assert.assertTrue(restored.isServingSnapshot());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a1", "a3", "b1")), fileIdentifiers(restored));
+
+        //registry b recovers
+        finishHarvest(restored, record(registryA, "a1"), record(registryB, "b2"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a1", "b2")), fileIdentifiers(restored));
+    }
+
+    /**
+     * Writes a snapshot with a valid header followed by contents
+     */
+    private void writeSnapshot(Object contents) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(snapshotFile)));
+        try {
+            oos.writeInt(SnapshotCSWCacheService.SNAPSHOT_MAGIC);
+            oos.writeInt(SnapshotCSWCacheService.SNAPSHOT_VERSION);
+            oos.writeLong(System.currentTimeMillis());
+            oos.writeObject(contents);
+        } finally {
+            oos.close();
+        }
+    }
+
+    /**
+     * Classes outside the CSW record graph are rejected before they are instantiated
+     */
+    @Test
+    public void testUnexpectedClassRejected() throws Exception {
+        HashMap<String, Object> records = new HashMap<String, Object>();
+        records.put("record", new Gadget());
+        writeSnapshot(records);
+        Gadget.deserialised = false;
+
+        SnapshotCSWCacheService service = createService();
+        Assert.assertFalse(Gadget.deserialised);
+        Assert.assertFalse(service.isServingSnapshot());
+        Assert.assertTrue(service.getRecordCache().isEmpty());
+    }
+
+    /**
+     * Snapshots are written owner only and a snapshot other users can write to is ignored
+     */
+    @Test
+    public void testSnapshotPermissions() throws Exception {
+        harvest();
+        if (Files.getFileAttributeView(snapshotFile.toPath(), PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshotFile.toPath())));
+        Assert.assertTrue(createService().isServingSnapshot());
+
+        Files.setPosixFilePermissions(snapshotFile.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+        SnapshotCSWCacheService service = createService();
+        Assert.assertFalse(service.isServingSnapshot());
+        Assert.assertTrue(service.getRecordCache().isEmpty());
+    }
+
+    /**
+     * An unreadable snapshot is ignored
+     */
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        Files.write(snapshotFile.toPath(), "not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+        SnapshotCSWCacheService service = createService();
+        Assert.assertFalse(service.isServingSnapshot());
+        Assert.assertTrue(service.getRecordCache().isEmpty());
+        Assert.assertEquals(0, requestCount.get());
+    }
+}
@@ -0,0 +1,335 @@
+package org.auscope.portal.server.web.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.HttpGet;
+import org.auscope.portal.core.server.http.HttpServiceCaller;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.server.web.service.StreamingDownloadService.StreamResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests StreamingDownloadService against a local HTTP server that generates arbitrarily large synthetic CSV bodies
+ */
+public class TestStreamingDownloadService {
+
+    private static final long MB = 1024 * 1024;
+    private static final byte[] ROW = "urn:borehole:GSV:123456,Example Borehole,-37.8136,144.9631,2020-01-01\n".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    /** Total number of body bytes the server managed to write (across all requests) */
+    private AtomicLong bytesServed = new AtomicLong();
+    private AtomicInteger activeRequests = new AtomicInteger();
+    private HttpServiceCaller httpServiceCaller = new HttpServiceCaller(60000);
+
+    /**
+     * A servlet response that discards its body, only counting it. It can also simulate a client that disconnects
+     * after failAfter bytes. The largest single write and how far the remote server got ahead of the client are
+     * tracked - after pauseAfter bytes the client stalls briefly so the server can run as far ahead as it is able.
+     */
+    private class CountingResponse extends MockHttpServletResponse {
+        private final long failAfter;
+        private final long pauseAfter;
+        private long count = 0;
+        private int maxWrite = 0;
+        private long maxLag = 0;
+
+        public CountingResponse(long failAfter, long pauseAfter) {
+            this.failAfter = failAfter;
+            this.pauseAfter = pauseAfter;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (failAfter >= 0 && count + len > failAfter) {
+                        throw new IOException("Connection reset by peer");
+                    }
+                    if (pauseAfter >= 0 && count <= pauseAfter && count + len > pauseAfter) {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException ex) {
+                            throw new IOException(ex);
+                        }
+                    }
+                    count += len;
+                    maxWrite = Math.max(maxWrite, len);
+                    maxLag = Math.max(maxLag, bytesServed.get() - count);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    //unused
+                }
+            };
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+
+        //Serves ?size bytes of CSV. Sent chunked unless ?fixed is specified. ?status overrides the response status
+        server.createContext("/body", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                activeRequests.incrementAndGet();
+                String query = exchange.getRequestURI().getQuery();
+                long size = 0;
+                boolean fixedLength = false;
+                int status = 200;
+                for (String param : query.split("&")) {
+                    String[] kvp = param.split("=");
+                    if (kvp[0].equals("size")) {
+                        size = Long.parseLong(kvp[1]);
+                    } else if (kvp[0].equals("fixed")) {
+                        fixedLength = true;
+                    } else if (kvp[0].equals("status")) {
+                        status = Integer.parseInt(kvp[1]);
+                    }
+                }
+
+                byte[] block = new byte[ROW.length * 1024];
+                for (int i = 0; i < 1024; i++) {
+                    System.arraycopy(ROW, 0, block, i * ROW.length, ROW.length);
+                }
+
+                try {
+                    exchange.getResponseHeaders().set("Content-Type", "text/csv");
+                    exchange.sendResponseHeaders(status, fixedLength ? size : 0);
+                    OutputStream os = exchange.getResponseBody();
+                    long remaining = size;
+                    while (remaining > 0) {
+                        int len = (int) Math.min(block.length, remaining);
+                        os.write(block, 0, len);
+                        remaining -= len;
+                        bytesServed.addAndGet(len);
+                    }
+                    os.close();
+                } catch (IOException ex) {
+                    //The client has gone away
+                } finally {
+                    exchange.close();
+                    activeRequests.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        serverExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits for the server to finish (or give up on) every request
+     */
+    private void awaitServerIdle() throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (activeRequests.get() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, activeRequests.get());
+    }
+
+    private HttpGet bodyRequest(long size, String extraParams) {
+        return new HttpGet(String.format("http://%1$s:%2$d/body?size=%3$d%4$s", server.getAddress().getHostString(),
+                server.getAddress().getPort(), size, extraParams));
+    }
+
+    private byte[] expectedBody(int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = ROW[i % ROW.length];
+        }
+        return body;
+    }
+
+    /**
+     * A large body is copied a buffer at a time and the remote server can never get further ahead of a stalled client
+     * than the socket buffers allow - nothing accumulates in memory
+     */
+    @Test
+    public void testLargeDownloadBounded() throws Exception {
+        final long size = 64 * MB;
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, 0);
+        CountingResponse response = new CountingResponse(-1, 8 * MB);
+
+        StreamResult result = service.streamResponse(bodyRequest(size, ""), new MockHttpServletRequest(), response, "text/csv");
+
+        Assert.assertEquals(StreamResult.COMPLETE, result);
+        Assert.assertEquals(size, response.count);
+        Assert.assertEquals(size, bytesServed.get());
+        Assert.assertEquals("text/csv", response.getContentType());
+        Assert.assertNull(response.getHeader("Content-Length"));
+        Assert.assertTrue("Largest write was " + response.maxWrite + " bytes", response.maxWrite <= StreamingDownloadService.DEFAULT_BUFFER_SIZE);
+        Assert.assertTrue("Server got " + (response.maxLag / MB) + "MB ahead", response.maxLag < 24 * MB);
+    }
+
+    /**
+     * Clients that accept gzip get a compressed copy of the body
+     */
+    @Test
+    public void testGzip() throws Exception {
+        final int size = (int) (5 * MB) + 17;
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "deflate, gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assert.assertEquals(StreamResult.COMPLETE, service.streamResponse(bodyRequest(size, ""), request, response, "text/csv"));
+        Assert.assertEquals("gzip", response.getHeader("Content-Encoding"));
+        Assert.assertTrue(response.getContentAsByteArray().length < size / 10);
+
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream(size);
+        IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())), decompressed);
+        Assert.assertArrayEquals(expectedBody(size), decompressed.toByteArray());
+    }
+
+    /**
+     * Clients that don't accept gzip (or when it's disabled) get the body as is
+     */
+    @Test
+    public void testNoGzip() throws Exception {
+        final int size = (int) MB;
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, 0);
+        service.setGzipEnabled(false);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assert.assertEquals(StreamResult.COMPLETE, service.streamResponse(bodyRequest(size, ""), request, response, "text/csv"));
+        Assert.assertNull(response.getHeader("Content-Encoding"));
+        Assert.assertArrayEquals(expectedBody(size), response.getContentAsByteArray());
+    }
+
+    /**
+     * A body that exceeds the limit (with no Content-Length) is truncated, ends with the truncation marker and the remote
+     * request is aborted
+     */
+    @Test
+    public void testMaxBytesTruncates() throws Exception {
+        final long size = 64 * MB;
+        final long limit = MB + 5;
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, limit);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        StreamResult result = service.streamResponse(bodyRequest(size, ""), new MockHttpServletRequest(), response, "text/csv");
+
+        Assert.assertEquals(StreamResult.TRUNCATED, result);
+        String marker = "\n" + String.format(StreamingDownloadService.DEFAULT_TRUNCATION_MARKER, limit);
+        byte[] body = response.getContentAsByteArray();
+        Assert.assertEquals(limit + marker.length(), body.length);
+        Assert.assertArrayEquals(expectedBody((int) limit), Arrays.copyOf(body, (int) limit));
+        Assert.assertEquals(marker, new String(body, (int) limit, marker.length(), StandardCharsets.UTF_8));
+        awaitServerIdle();
+        Assert.assertTrue("Server sent " + bytesServed.get() + " bytes", bytesServed.get() < size / 2);
+    }
+
+    /**
+     * The marker can be disabled
+     */
+    @Test
+    public void testMaxBytesNoMarker() throws Exception {
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, MB);
+        service.setTruncationMarker(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assert.assertEquals(StreamResult.TRUNCATED, service.streamResponse(bodyRequest(2 * MB, ""), new MockHttpServletRequest(), response, "text/csv"));
+        Assert.assertArrayEquals(expectedBody((int) MB), response.getContentAsByteArray());
+    }
+
+    /**
+     * A body whose Content-Length exceeds the limit is rejected before anything is written
+     */
+    @Test
+    public void testMaxBytesContentLength() throws Exception {
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, MB);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            service.streamResponse(bodyRequest(10 * MB, "&fixed"), new MockHttpServletRequest(), response, "text/csv");
+            Assert.fail("Expected a PortalServiceException");
+        } catch (PortalServiceException ex) {
+            Assert.assertFalse(response.isCommitted());
+            Assert.assertEquals(0, response.getContentAsByteArray().length);
+        }
+    }
+
+    /**
+     * A client disconnecting mid download aborts the remote request rather than draining the rest of the body
+     */
+    @Test
+    public void testClientAbort() throws Exception {
+        final long size = 64 * MB;
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, 0);
+        CountingResponse response = new CountingResponse(2 * MB, -1);
+
+        StreamResult result = service.streamResponse(bodyRequest(size, ""), new MockHttpServletRequest(), response, "text/csv");
+
+        Assert.assertEquals(StreamResult.CLIENT_ABORTED, result);
+        Assert.assertTrue(response.count <= 2 * MB);
+        awaitServerIdle();
+        Assert.assertTrue("Server sent " + bytesServed.get() + " bytes", bytesServed.get() < size / 2);
+    }
+
+    /**
+     * Error responses from the remote service are thrown before anything is written
+     */
+    @Test
+    public void testErrorStatus() throws Exception {
+        StreamingDownloadService service = new StreamingDownloadService(httpServiceCaller, 0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            service.streamResponse(bodyRequest(100, "&status=500"), new MockHttpServletRequest(), response, "text/csv");
+            Assert.fail("Expected a PortalServiceException");
+        } catch (PortalServiceException ex) {
+            Assert.assertFalse(response.isCommitted());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.auscope.portal.server.web.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.auscope.portal.core.services.PortalServiceException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for VGLCryptoService
+ */
+public class TestVGLCryptoService {
+
+    private static final String PASSWORD = "ABCdefGHI";
+
+    /**
+     * Legacy blobs should round trip and repeated decryption should reuse the derived key
+     */
+    @Test
+    public void testLegacyRoundTripCachesKey() throws Exception {
+        VGLCryptoService service = new VGLCryptoService(PASSWORD);
+        byte[] encrypted = service.encrypt("secret-value");
+
+        Assert.assertEquals(3, new String(encrypted, StandardCharsets.UTF_8).split("@").length);
+        Assert.assertEquals("secret-value", service.decrypt(encrypted));
+        Assert.assertEquals("secret-value", service.decrypt(encrypted));
+        Assert.assertEquals(1, service.getKeyCacheSize());
+
+        service.clearKeyCache();
+        Assert.assertEquals(0, service.getKeyCacheSize());
+        Assert.assertEquals("secret-value", service.decrypt(encrypted));
+    }
+
+    /**
+     * Versioned blobs should be readable by any instance sharing the password (regardless of the format it writes)
+     */
+    @Test
+    public void testVersionedRoundTrip() throws Exception {
+        VGLCryptoService writer = new VGLCryptoService(PASSWORD);
+        writer.setVersionedFormat(true);
+        byte[] first = writer.encrypt("secret-value");
+        byte[] second = writer.encrypt("another-value");
+
+        String[] firstParts = new String(first, StandardCharsets.UTF_8).split("@");
+        String[] secondParts = new String(second, StandardCharsets.UTF_8).split("@");
+        Assert.assertEquals(VGLCryptoService.VERSIONED_PREFIX, firstParts[0]);
+        Assert.assertEquals("All encryptions share a key ID", firstParts[1], secondParts[1]);
+        Assert.assertNotEquals("IV must never be reused", firstParts[2], secondParts[2]);
+        Assert.assertEquals(1, writer.getKeyCacheSize());
+
+        VGLCryptoService reader = new VGLCryptoService(PASSWORD);
+        Assert.assertEquals("secret-value", reader.decrypt(first));
+        Assert.assertEquals("another-value", reader.decrypt(second));
+        Assert.assertEquals(1, reader.getKeyCacheSize());
+    }
+
+    /**
+     * Versioned ciphertexts are authenticated - any modification should fail decryption
+     */
+    @Test(expected=PortalServiceException.class)
+    public void testVersionedTamperDetected() throws Exception {
+        VGLCryptoService service = new VGLCryptoService(PASSWORD);
+        service.setVersionedFormat(true);
+        String[] parts = new String(service.encrypt("secret-value"), StandardCharsets.UTF_8).split("@");
+
+        //Change the first base64 character of the ciphertext
+        char first = parts[3].charAt(0);
+        parts[3] = (first == 'A' ? 'B' : 'A') + parts[3].substring(1);
+        service.decrypt(String.join("@", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected=PortalServiceException.class)
+    public void testWrongPassword() throws Exception {
+        VGLCryptoService writer = new VGLCryptoService(PASSWORD);
+        writer.setVersionedFormat(true);
+        new VGLCryptoService("other-password").decrypt(writer.encrypt("secret-value"));
+    }
+
+    /**
+     * The derived key cache should never exceed its configured size
+     */
+    @Test
+    public void testKeyCacheBounded() throws Exception {
+        VGLCryptoService service = new VGLCryptoService(PASSWORD, 2);
+        for (int i = 0; i < 5; i++) {
+            byte[] encrypted = service.encrypt("value" + i);
+            Assert.assertEquals("value" + i, service.decrypt(encrypted));
+        }
+        Assert.assertEquals(2, service.getKeyCacheSize());
+
+        VGLCryptoService uncached = new VGLCryptoService(PASSWORD, 0);
+        Assert.assertEquals("value", uncached.decrypt(uncached.encrypt("value")));
+        Assert.assertEquals(0, uncached.getKeyCacheSize());
+    }
+}
@@ -0,0 +1,215 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.session.Session;
+import org.apache.sshd.common.session.SessionListener;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.auth.pubkey.AcceptAllPublickeyAuthenticator;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.command.CommandFactory;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ServerSession;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.KeyPair;
+
+/**
+ * An Apache MINA SSHD server running inside the test JVM on an ephemeral loopback port.
+ *
+ * Any public key is accepted. Exec commands are answered from a table of scripted responses
+ * (see setCommandResult) so that tests never depend on the local shell.
+ */
+public class EmbeddedSshServer implements AutoCloseable {
+
+    private SshServer sshd;
+    private AtomicInteger sessionsCreated = new AtomicInteger();
+    private AtomicInteger commandsExecuted = new AtomicInteger();
+    private Map<String, ScriptedResult> results = new ConcurrentHashMap<String, ScriptedResult>();
+
+    public EmbeddedSshServer() throws IOException {
+        SimpleGeneratorHostKeyProvider keyProvider = new SimpleGeneratorHostKeyProvider();
+        keyProvider.setAlgorithm(KeyUtils.RSA_ALGORITHM);
+
+        sshd = SshServer.setUpDefaultServer();
+        sshd.setHost("127.0.0.1");
+        sshd.setPort(0);
+        sshd.setKeyPairProvider(keyProvider);
+        sshd.setPublickeyAuthenticator(AcceptAllPublickeyAuthenticator.INSTANCE);
+        sshd.setCommandFactory(new CommandFactory() {
+            @Override
+            public Command createCommand(ChannelSession channel, String command) throws IOException {
+                return new ScriptedCommand(command);
+            }
+        });
+        sshd.addSessionListener(new SessionListener() {
+            @Override
+            public void sessionCreated(Session session) {
+                sessionsCreated.incrementAndGet();
+            }
+        });
+        sshd.start();
+    }
+
+    /**
+     * Generates a new PEM encoded RSA private key that can be used to log into this server (as any user)
+     * @return
+     * @throws Exception
+     */
+    public static String generatePrivateKey() throws Exception {
+        KeyPair kpair = KeyPair.genKeyPair(new JSch(), KeyPair.RSA, 2048);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        kpair.writePrivateKey(out);
+        kpair.dispose();
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    public String getHost() {
+        return sshd.getHost();
+    }
+
+    public int getPort() {
+        return sshd.getPort();
+    }
+
+    /**
+     * The total number of SSH sessions (connections) that have been started with this server
+     * @return
+     */
+    public int getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    /**
+     * The total number of exec commands this server has been asked to run
+     * @return
+     */
+    public int getCommandsExecuted() {
+        return commandsExecuted.get();
+    }
+
+    /**
+     * Scripts the response to an exec command
+     * @param command The exact command line
+     * @param out Written to stdout
+     * @param err Written to stderr
+     * @param exitStatus
+     * @param delayMillis How long to wait before writing any output
+     */
+    public void setCommandResult(String command, String out, String err, int exitStatus, long delayMillis) {
+        results.put(command, new ScriptedResult(out, err, exitStatus, delayMillis));
+    }
+
+    /**
+     * Forcibly drops every connected session from the server side
+     * @throws IOException
+     */
+    public void closeAllSessions() throws IOException {
+        List<ServerSession> sessions = new ArrayList<ServerSession>(sshd.getActiveSessions());
+        for (ServerSession session : sessions) {
+            session.close(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sshd.stop(true);
+    }
+
+    private static class ScriptedResult {
+        private final String out;
+        private final String err;
+        private final int exitStatus;
+        private final long delayMillis;
+
+        public ScriptedResult(String out, String err, int exitStatus, long delayMillis) {
+            this.out = out;
+            this.err = err;
+            this.exitStatus = exitStatus;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    private class ScriptedCommand implements Command {
+        private final String command;
+        private OutputStream out;
+        private OutputStream err;
+        private ExitCallback callback;
+        private Thread thread;
+
+        public ScriptedCommand(String command) {
+            this.command = command;
+        }
+
+        @Override
+        public void setInputStream(InputStream in) {
+            //Scripted commands don't read stdin
+        }
+
+        @Override
+        public void setOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void setErrorStream(OutputStream err) {
+            this.err = err;
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void start(ChannelSession channel, Environment env) throws IOException {
+            commandsExecuted.incrementAndGet();
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ScriptedResult result = results.get(command);
+                    if (result == null) {
+                        result = new ScriptedResult("", "sh: " + command + ": command not found\n", 127, 0);
+                    }
+
+                    try {
+                        if (result.delayMillis > 0) {
+                            Thread.sleep(result.delayMillis);
+                        }
+                        out.write(result.out.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        err.write(result.err.getBytes(StandardCharsets.UTF_8));
+                        err.flush();
+                        callback.onExit(result.exitStatus);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (IOException ex) {
+                        callback.onExit(-1, ex.getMessage());
+                    }
+                }
+            }, "embedded-ssh-" + command);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void destroy(ChannelSession channel) throws Exception {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.auscope.portal.core.cloud.CloudFileOwner;
+import org.auscope.portal.core.services.PortalServiceException;
+import org.auscope.portal.core.services.cloud.CloudComputeService.InstanceStatus;
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.web.security.NCIDetails;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the (batched) job status lookups of CloudComputeServiceNci against an embedded SSH server
+ */
+public class TestCloudComputeServiceNciStatus {
+
+    private static final String BATCH_QSTAT = "qstat -s 101.gadi-pbs 102.gadi-pbs 103.gadi-pbs 104.gadi-pbs";
+
+    private static String privateKey;
+
+    private EmbeddedSshServer server;
+    private SshSessionPool pool;
+    private CloudComputeServiceNci service;
+    private VEGLJob[] jobs;
+    private AtomicInteger jobFileReads = new AtomicInteger();
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        privateKey = EmbeddedSshServer.generatePrivateKey();
+    }
+
+    @Before
+    public void setup() throws Exception {
+        server = new EmbeddedSshServer();
+        pool = new SshSessionPool();
+        SshCloudConnector connector = new SshCloudConnector(server.getHost(), server.getPort(), pool);
+
+        //No job has written a .jobid file so the submitted instance ID will be used
+        CloudStorageServiceNci storageService = new CloudStorageServiceNci(server.getHost(), "nci", connector) {
+            @Override
+            public InputStream getJobFile(CloudFileOwner job, String fileName) {
+                jobFileReads.incrementAndGet();
+                return null;
+            }
+
+            @Override
+            public List<String> getJobFileContents(List<? extends CloudFileOwner> jobs, String fileName) throws PortalServiceException {
+                jobFileReads.incrementAndGet();
+                return new ArrayList<String>(Arrays.asList(new String[jobs.size()]));
+            }
+        };
+        service = new CloudComputeServiceNci(storageService, server.getHost(), connector);
+
+        jobs = new VEGLJob[4];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new VEGLJob();
+            jobs[i].setId(i + 1);
+            jobs[i].setComputeInstanceId(String.format("%1$d.gadi-pbs", 101 + i));
+            jobs[i].setProperty(NCIDetails.PROPERTY_NCI_USER, "user1");
+            jobs[i].setProperty(NCIDetails.PROPERTY_NCI_KEY, privateKey);
+        }
+
+        server.setCommandResult(BATCH_QSTAT,
+                "\ngadi-pbs:\n" +
+                "                                                            Req'd  Req'd   Elap\n" +
+                "Job ID          Username Queue    Jobname    SessID NDS TSK Memory Time  S Time\n" +
+                "--------------- -------- -------- ---------- ------ --- --- ------ ----- - -----\n" +
+                "101.gadi-pbs    user1    normal   nci-run.jo  12345   1   1    4gb 01:00 R 00:10\n" +
+                "   Job run at Mon Jan 01 at 10:00 on (gadi-cpu-clx-0001:ncpus=1:mem=4194304kb)\n",
+                "qstat: 102.gadi-pbs Job has finished, use -x or -H to obtain historical job information\n" +
+                "qstat: Unknown Job Id 103.gadi-pbs\n" +
+                "qstat: 104.gadi-pbs Server is unavailable\n",
+                35, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    /**
+     * A single qstat (and a single read of the job ID files) should resolve the status of every job it reports on
+     */
+    @Test
+    public void testGetJobStatusesBatched() throws Exception {
+        Map<Integer, InstanceStatus> statuses = service.getJobStatuses(Arrays.asList(jobs));
+
+        Assert.assertEquals(1, server.getCommandsExecuted());
+        Assert.assertEquals(1, jobFileReads.get());
+        Assert.assertEquals(InstanceStatus.Running, statuses.get(1));
+        Assert.assertEquals(InstanceStatus.Missing, statuses.get(2));
+        Assert.assertEquals(InstanceStatus.Missing, statuses.get(3));
+        Assert.assertFalse("Unrecognised errors must be left for an individual lookup", statuses.containsKey(4));
+    }
+
+    /**
+     * getJobStatuses returns its statuses to the caller only - a later getJobStatus runs its own qstat
+     */
+    @Test
+    public void testNoStatusHeldBetweenCalls() throws Exception {
+        server.setCommandResult("qstat -s 102.gadi-pbs", "102.gadi-pbs    user1    normal   nci-run.jo  12345   1   1    4gb 01:00 R 00:10\n", "", 0, 0);
+
+        Assert.assertEquals(InstanceStatus.Missing, service.getJobStatuses(Arrays.asList(jobs)).get(2));
+        Assert.assertEquals(1, server.getCommandsExecuted());
+
+        Assert.assertEquals(InstanceStatus.Running, service.getJobStatus(jobs[1]));
+        Assert.assertEquals(2, server.getCommandsExecuted());
+    }
+}
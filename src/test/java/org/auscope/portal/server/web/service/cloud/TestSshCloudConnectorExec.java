@@ -0,0 +1,171 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.auscope.portal.server.web.service.cloud.SshCloudConnector.ExecResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jcraft.jsch.Session;
+
+/**
+ * Unit tests for SshCloudConnector.executeCommand against an embedded SSH server
+ */
+public class TestSshCloudConnectorExec {
+
+    private static String privateKey;
+
+    private EmbeddedSshServer server;
+    private SshSessionPool pool;
+    private SshCloudConnector connector;
+    private Session session;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        privateKey = EmbeddedSshServer.generatePrivateKey();
+    }
+
+    @Before
+    public void setup() throws Exception {
+        server = new EmbeddedSshServer();
+        pool = new SshSessionPool();
+        connector = new SshCloudConnector(server.getHost(), server.getPort(), pool);
+        session = pool.borrowSession("user1", server.getHost(), server.getPort(), privateKey);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.releaseSession(session);
+        pool.close();
+        server.close();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Small commands should return as soon as they exit rather than after a polling interval
+     */
+    @Test
+    public void testSmallCommandLatency() throws Exception {
+        server.setCommandResult("qstat 1234", "Job 1234 R\n", "", 0, 0);
+
+        //Warm up the session/channel code paths before timing anything
+        connector.executeCommand(session, "qstat 1234");
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            ExecResult result = connector.executeCommand(session, "qstat 1234");
+            Assert.assertEquals(0, result.getExitStatus());
+            Assert.assertEquals("Job 1234 R\n", result.getOut());
+            Assert.assertEquals("", result.getErr());
+        }
+        long averageMillis = (System.currentTimeMillis() - start) / 10;
+
+        Assert.assertTrue("Average command took " + averageMillis + "ms", averageMillis < 500);
+    }
+
+    /**
+     * Non zero exit statuses and stderr are reported
+     */
+    @Test
+    public void testExitStatusAndStderr() throws Exception {
+        ExecResult result = connector.executeCommand(session, "missing-command");
+        Assert.assertEquals(127, result.getExitStatus());
+        Assert.assertEquals("", result.getOut());
+        Assert.assertEquals("sh: missing-command: command not found\n", result.getErr());
+    }
+
+    /**
+     * Megabytes of stdout AND stderr must not stall either stream
+     */
+    @Test(timeout = 30000)
+    public void testLargeStdoutAndStderr() throws Exception {
+        String out = repeat('o', 1024 * 1024);
+        String err = repeat('e', 1024 * 1024);
+        server.setCommandResult("noisy", out, err, 3, 0);
+
+        ExecResult result = connector.executeCommand(session, "noisy");
+        Assert.assertEquals(3, result.getExitStatus());
+        Assert.assertEquals(out, result.getOut());
+        Assert.assertEquals(err, result.getErr());
+    }
+
+    /**
+     * Output beyond maxOutputBytes is dropped (but the command still completes)
+     */
+    @Test(timeout = 30000)
+    public void testOutputTruncated() throws Exception {
+        server.setCommandResult("noisy", repeat('o', 64 * 1024), repeat('e', 64 * 1024), 0, 0);
+        connector.setMaxOutputBytes(100);
+
+        ExecResult result = connector.executeCommand(session, "noisy");
+        Assert.assertEquals(0, result.getExitStatus());
+        Assert.assertEquals(repeat('o', 100), result.getOut());
+        Assert.assertEquals(repeat('e', 100), result.getErr());
+    }
+
+    /**
+     * The listener sees every byte of output regardless of maxOutputBytes
+     */
+    @Test(timeout = 30000)
+    public void testListenerReceivesAllOutput() throws Exception {
+        String out = repeat('o', 256 * 1024);
+        String err = repeat('e', 1024);
+        server.setCommandResult("qcat -o 1234", out, err, 0, 0);
+        connector.setMaxOutputBytes(10);
+
+        final ByteArrayOutputStream streamedOut = new ByteArrayOutputStream();
+        final ByteArrayOutputStream streamedErr = new ByteArrayOutputStream();
+        final int[] stdoutChunks = new int[1];
+        ExecResult result = connector.executeCommand(session, "qcat -o 1234", null, new ExecOutputListener() {
+            @Override
+            public void onStdout(byte[] buffer, int offset, int length) {
+                stdoutChunks[0]++;
+                streamedOut.write(buffer, offset, length);
+            }
+
+            @Override
+            public void onStderr(byte[] buffer, int offset, int length) {
+                streamedErr.write(buffer, offset, length);
+            }
+        });
+
+        Assert.assertEquals(0, result.getExitStatus());
+        Assert.assertEquals(out, new String(streamedOut.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertEquals(err, new String(streamedErr.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue("Expected output in several chunks", stdoutChunks[0] > 1);
+        Assert.assertEquals(repeat('o', 10), result.getOut());
+    }
+
+    /**
+     * A listener that throws must not break the command
+     */
+    @Test(timeout = 30000)
+    public void testFailingListener() throws Exception {
+        server.setCommandResult("echo hello", "hello\n", "", 0, 0);
+        ExecResult result = connector.executeCommand(session, "echo hello", null, new ExecOutputListener() {
+            @Override
+            public void onStdout(byte[] buffer, int offset, int length) {
+                throw new IllegalStateException("listener failure");
+            }
+
+            @Override
+            public void onStderr(byte[] buffer, int offset, int length) {
+                throw new IllegalStateException("listener failure");
+            }
+        });
+
+        Assert.assertEquals(0, result.getExitStatus());
+        Assert.assertEquals("hello\n", result.getOut());
+    }
+}
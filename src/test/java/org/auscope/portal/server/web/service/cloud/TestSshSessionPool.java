@@ -0,0 +1,333 @@
+package org.auscope.portal.server.web.service.cloud;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.auscope.portal.server.vegl.VEGLJob;
+import org.auscope.portal.server.web.security.NCIDetails;
+import org.auscope.portal.server.web.service.cloud.SshCloudConnector.ExecResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Unit tests for SshSessionPool against an embedded SSH server
+ */
+public class TestSshSessionPool {
+
+    private static String privateKey;
+
+    private EmbeddedSshServer server;
+    private SshSessionPool pool;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        privateKey = EmbeddedSshServer.generatePrivateKey();
+    }
+
+    @Before
+    public void setup() throws Exception {
+        server = new EmbeddedSshServer();
+        server.setCommandResult("echo hello", "hello\n", "", 0, 0);
+        pool = new SshSessionPool(2, 60000, 1000, 250);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    private Session borrow(String user) throws Exception {
+        return pool.borrowSession(user, server.getHost(), server.getPort(), privateKey);
+    }
+
+    /**
+     * Many borrows for the same user should share a single SSH handshake
+     */
+    @Test
+    public void testSessionReused() throws Exception {
+        Session first = borrow("user1");
+        pool.releaseSession(first);
+        for (int i = 0; i < 100; i++) {
+            Session session = borrow("user1");
+            Assert.assertSame(first, session);
+            pool.releaseSession(session);
+        }
+
+        Assert.assertEquals(1, pool.getConnectCount());
+        Assert.assertEquals(1, server.getSessionsCreated());
+        Assert.assertEquals(1, pool.getSessionCount());
+    }
+
+    /**
+     * Commands run through SshCloudConnector for many jobs owned by the same user should share a session
+     */
+    @Test
+    public void testConnectorSharesSessionAcrossJobs() throws Exception {
+        SshCloudConnector connector = new SshCloudConnector(server.getHost(), server.getPort(), pool);
+        for (int i = 0; i < 3; i++) {
+            VEGLJob job = new VEGLJob();
+            job.setId(i);
+            job.setProperty(NCIDetails.PROPERTY_NCI_USER, "user1");
+            job.setProperty(NCIDetails.PROPERTY_NCI_KEY, privateKey);
+
+            Session session = connector.getSession(job);
+            try {
+                ExecResult result = connector.executeCommand(session, "echo hello");
+                Assert.assertEquals(0, result.getExitStatus());
+                Assert.assertEquals("hello\n", result.getOut());
+            } finally {
+                connector.releaseSession(session);
+            }
+        }
+
+        Assert.assertEquals(3, server.getCommandsExecuted());
+        Assert.assertEquals(1, server.getSessionsCreated());
+    }
+
+    /**
+     * Different users must never share a session
+     */
+    @Test
+    public void testSessionPerUser() throws Exception {
+        Session s1 = borrow("user1");
+        Session s2 = borrow("user2");
+        Assert.assertNotSame(s1, s2);
+        pool.releaseSession(s1);
+        pool.releaseSession(s2);
+
+        Assert.assertEquals(2, pool.getConnectCount());
+        Assert.assertEquals(2, pool.getSessionCount());
+    }
+
+    /**
+     * Borrowing more than the channel cap should block and then fail. Releasing frees a slot.
+     */
+    @Test
+    public void testChannelCap() throws Exception {
+        Session s1 = borrow("user1");
+        Session s2 = borrow("user1");
+
+        long start = System.currentTimeMillis();
+        try {
+            borrow("user1");
+            Assert.fail("Expected the borrow to time out");
+        } catch (JSchException ex) {
+            Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+        }
+
+        pool.releaseSession(s1);
+        Session s3 = borrow("user1");
+        Assert.assertSame(s2, s3);
+        pool.releaseSession(s2);
+        pool.releaseSession(s3);
+
+        Assert.assertEquals(1, pool.getConnectCount());
+    }
+
+    /**
+     * Idle sessions should be disconnected (but not those in use)
+     */
+    @Test
+    public void testIdleEviction() throws Exception {
+        SshSessionPool shortPool = new SshSessionPool(2, 100, 1000, 250);
+        try {
+            Session inUse = shortPool.borrowSession("user1", server.getHost(), server.getPort(), privateKey);
+            Session idle = shortPool.borrowSession("user2", server.getHost(), server.getPort(), privateKey);
+            shortPool.releaseSession(idle);
+
+            Thread.sleep(250);
+            shortPool.evictIdleSessions();
+
+            Assert.assertEquals(1, shortPool.getSessionCount());
+            Assert.assertTrue(inUse.isConnected());
+            Assert.assertFalse(idle.isConnected());
+            shortPool.releaseSession(inUse);
+
+            Session reconnected = shortPool.borrowSession("user2", server.getHost(), server.getPort(), privateKey);
+            Assert.assertNotSame(idle, reconnected);
+            Assert.assertEquals(3, shortPool.getConnectCount());
+            shortPool.releaseSession(reconnected);
+        } finally {
+            shortPool.close();
+        }
+    }
+
+    /**
+     * A session dropped by the server should be detected and replaced on the next borrow
+     */
+    @Test
+    public void testDeadSessionReplaced() throws Exception {
+        Session first = borrow("user1");
+        pool.releaseSession(first);
+
+        server.closeAllSessions();
+        for (int i = 0; i < 50 && first.isConnected(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(first.isConnected());
+
+        Session second = borrow("user1");
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(second.isConnected());
+        pool.releaseSession(second);
+
+        Assert.assertEquals(2, pool.getConnectCount());
+        Assert.assertEquals(1, pool.getSessionCount());
+    }
+
+    /**
+     * A session that has been idle for a while must answer a probe command before it is handed out again
+     */
+    @Test
+    public void testIdleSessionProbed() throws Exception {
+        pool.setValidateAfterIdleMillis(100);
+        Session first = borrow("user1");
+        pool.releaseSession(first);
+        Assert.assertEquals(0, server.getCommandsExecuted());
+
+        Thread.sleep(200);
+        Session second = borrow("user1");
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, server.getCommandsExecuted());
+        pool.releaseSession(second);
+    }
+
+    /**
+     * A session that is still connected but doesn't answer its probe in time should be replaced
+     */
+    @Test
+    public void testUnresponsiveSessionReplaced() throws Exception {
+        server.setCommandResult(SshSessionPool.PROBE_COMMAND, "", "", 0, 5000);
+        pool.setValidateAfterIdleMillis(100);
+        pool.setProbeTimeoutMillis(200);
+        Session first = borrow("user1");
+        pool.releaseSession(first);
+
+        Thread.sleep(200);
+        long start = System.currentTimeMillis();
+        Session second = borrow("user1");
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+        Assert.assertNotSame(first, second);
+        Assert.assertFalse(first.isConnected());
+        pool.releaseSession(second);
+
+        Assert.assertEquals(2, pool.getConnectCount());
+        Assert.assertEquals(1, pool.getSessionCount());
+    }
+
+    /**
+     * Connection locks shouldn't outlive their sessions (or failed connection attempts)
+     */
+    @Test
+    public void testConnectLocksRemoved() throws Exception {
+        SshSessionPool shortPool = new SshSessionPool(2, 100, 1000, 250);
+        try {
+            shortPool.releaseSession(shortPool.borrowSession("user1", server.getHost(), server.getPort(), privateKey));
+            shortPool.releaseSession(shortPool.borrowSession("user2", server.getHost(), server.getPort(), privateKey));
+            Assert.assertEquals(2, shortPool.getConnectLockCount());
+
+            Thread.sleep(250);
+            shortPool.evictIdleSessions();
+            Assert.assertEquals(0, shortPool.getSessionCount());
+            Assert.assertEquals(0, shortPool.getConnectLockCount());
+
+            int closedPort = server.getPort();
+            server.close();
+            try {
+                shortPool.borrowSession("user1", server.getHost(), closedPort, privateKey);
+                Assert.fail("Expected the connection to be refused");
+            } catch (JSchException ex) {
+                //expected
+            }
+            Assert.assertEquals(0, shortPool.getConnectLockCount());
+        } finally {
+            shortPool.close();
+        }
+    }
+
+    /**
+     * Discarding a session (eg - closing the pool) leaves it connected until its last lease is released
+     */
+    @Test
+    public void testDiscardWaitsForLeases() throws Exception {
+        Session s1 = borrow("user1");
+        Session s2 = borrow("user1");
+        Assert.assertSame(s1, s2);
+
+        pool.close();
+        Assert.assertEquals(0, pool.getSessionCount());
+        Assert.assertTrue(s1.isConnected());
+
+        pool.releaseSession(s1);
+        Assert.assertTrue(s2.isConnected());
+        pool.releaseSession(s2);
+        Assert.assertFalse(s2.isConnected());
+        Assert.assertEquals(0, pool.getConnectLockCount());
+    }
+
+    private InputStream openStream(SshCloudConnector connector) throws Exception {
+        return new SshInputStream(connector, borrow("user1"), null, new ByteArrayInputStream(new byte[] {1, 2, 3}));
+    }
+
+    /**
+     * A stream releases its channel slot once it reaches the end of its file, even if it is never closed
+     */
+    @Test
+    public void testStreamReleasedAtEnd() throws Exception {
+        SshCloudConnector connector = new SshCloudConnector(server.getHost(), server.getPort(), pool);
+        InputStream s1 = openStream(connector);
+        InputStream s2 = openStream(connector);
+
+        Assert.assertEquals(3, s1.read(new byte[10]));
+        Assert.assertEquals(-1, s1.read());
+        Assert.assertEquals(-1, s1.read());
+
+        //s1's slot is free again, s2's is still held
+        Session session = borrow("user1");
+        try {
+            borrow("user1");
+            Assert.fail("Expected the borrow to time out");
+        } catch (JSchException ex) {
+            //expected
+        }
+        pool.releaseSession(session);
+
+        s1.close();
+        s2.close();
+        s2.close();
+        Session s3 = borrow("user1");
+        Session s4 = borrow("user1");
+        pool.releaseSession(s3);
+        pool.releaseSession(s4);
+        Assert.assertEquals(1, pool.getConnectCount());
+    }
+
+    /**
+     * A stream that is abandoned without being read to the end or closed releases its slot once collected
+     */
+    @Test
+    public void testAbandonedStreamReleased() throws Exception {
+        SshCloudConnector connector = new SshCloudConnector(server.getHost(), server.getPort(), pool);
+        openStream(connector).read();
+        openStream(connector).read();
+
+        Session session = null;
+        for (int i = 0; i < 100 && session == null; i++) {
+            System.gc();
+            try {
+                session = borrow("user1");
+            } catch (JSchException ex) {
+                //both slots are still held - try again
+            }
+        }
+        Assert.assertNotNull("Abandoned streams never released their channel slots", session);
+        pool.releaseSession(session);
+    }
+}
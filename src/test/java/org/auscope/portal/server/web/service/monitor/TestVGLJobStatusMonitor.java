@@ -1,22 +1,36 @@
 package org.auscope.portal.server.web.service.monitor;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.auscope.portal.core.cloud.CloudJob;
+import org.auscope.portal.core.services.cloud.CloudComputeService;
+import org.auscope.portal.core.services.cloud.CloudComputeService.InstanceStatus;
 import org.auscope.portal.core.services.cloud.monitor.JobStatusException;
 import org.auscope.portal.core.services.cloud.monitor.JobStatusMonitor;
 import org.auscope.portal.core.test.PortalTestClass;
 import org.auscope.portal.server.vegl.VEGLJob;
 import org.auscope.portal.server.vegl.VEGLJobManager;
+import org.auscope.portal.server.vegl.VGLJobStatusAndLogReader;
 import org.auscope.portal.server.web.controllers.JobBuilderController;
 import org.auscope.portal.server.web.security.ANVGLUser;
+import org.auscope.portal.server.web.security.NCIDetails;
 import org.auscope.portal.server.web.service.ANVGLUserService;
 import org.auscope.portal.server.web.service.NCIDetailsService;
+import org.auscope.portal.server.web.service.cloud.CloudComputeServiceNci;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Unit tests for VGLJobStatusMonitor. 
@@ -103,4 +117,93 @@ public class TestVGLJobStatusMonitor extends PortalTestClass {
         
         monitor.executeInternal(mockJobExecCtx);
     }
-}
\ No newline at end of file
+
+    private static VEGLJob createJob(int id, String email, String computeServiceId) {
+        VEGLJob job = new VEGLJob();
+        job.setId(id);
+        job.setStatus(JobBuilderController.STATUS_PENDING);
+        job.setEmailAddress(email);
+        job.setComputeServiceId(computeServiceId);
+        return job;
+    }
+
+    /**
+     * Tests that jobs are polled in groups of owner/compute service with
+     * credentials looked up once per owner
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteInternal_Grouped() throws Exception {
+        final VEGLJob job1 = createJob(1, "user1@example.com", "aws");
+        final VEGLJob job2 = createJob(2, "user2@example.com", "aws");
+        final VEGLJob job3 = createJob(3, "user1@example.com", "aws");
+        final VEGLJob job4 = createJob(4, "user1@example.com", "nci");
+
+        final ANVGLUser user1 = new ANVGLUser();
+        user1.setArnExecution("user1-arn");
+        final ANVGLUser user2 = new ANVGLUser();
+        user2.setArnExecution("user2-arn");
+        final NCIDetails nciDetails = new NCIDetails();
+        nciDetails.setUsername("nci-user1");
+
+        monitor.setExecutor(new TaskExecutorAdapter(MoreExecutors.directExecutor()));
+
+        context.checking(new Expectations() {{
+            oneOf(mockJobManager).getPendingOrActiveJobs();will(returnValue(Arrays.asList(job1, job2, job3, job4)));
+            oneOf(mockUserService).getByEmail("user1@example.com"); will(returnValue(user1));
+            oneOf(mockUserService).getByEmail("user2@example.com"); will(returnValue(user2));
+            oneOf(mockNciService).getByUser(user1); will(returnValue(nciDetails));
+            oneOf(mockNciService).getByUser(user2); will(returnValue(null));
+            oneOf(mockJobStatusMonitor).statusUpdate(Arrays.asList(job1, job3));
+            oneOf(mockJobStatusMonitor).statusUpdate(Arrays.asList(job2));
+            oneOf(mockJobStatusMonitor).statusUpdate(Arrays.asList(job4));
+        }});
+
+        monitor.executeInternal(mockJobExecCtx);
+
+        Assert.assertEquals("user1-arn", job4.getProperty(CloudJob.PROPERTY_STS_ARN));
+        Assert.assertEquals("nci-user1", job4.getProperty(NCIDetails.PROPERTY_NCI_USER));
+        Assert.assertEquals("user2-arn", job2.getProperty(CloudJob.PROPERTY_STS_ARN));
+        Assert.assertNull(job2.getProperty(NCIDetails.PROPERTY_NCI_USER));
+    }
+
+    /**
+     * Tests that NCI jobs have their statuses looked up in a single batch per group, carried
+     * on each job for the duration of the poll only, and that a missing user doesn't stop
+     * other jobs being polled
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteInternal_NciPrefetch() throws Exception {
+        final VEGLJob job1 = createJob(1, "user1@example.com", "nci");
+        final VEGLJob job2 = createJob(2, "user1@example.com", "nci");
+        final VEGLJob job3 = createJob(3, "missing@example.com", "nci");
+        final ANVGLUser user1 = new ANVGLUser();
+        final CloudComputeServiceNci mockNciCompute = context.mock(CloudComputeServiceNci.class);
+        final Map<Integer, InstanceStatus> statuses = new HashMap<Integer, InstanceStatus>();
+        statuses.put(1, InstanceStatus.Missing);
+
+        monitor.setCloudComputeServices(new CloudComputeService[] {mockNciCompute});
+
+        context.checking(new Expectations() {{
+            allowing(mockNciCompute).getId();will(returnValue("nci"));
+            oneOf(mockJobManager).getPendingOrActiveJobs();will(returnValue(Arrays.asList(job1, job2, job3)));
+            oneOf(mockUserService).getByEmail("user1@example.com"); will(returnValue(user1));
+            oneOf(mockUserService).getByEmail("missing@example.com"); will(returnValue(null));
+            oneOf(mockNciService).getByUser(user1); will(returnValue(null));
+            oneOf(mockNciCompute).getJobStatuses(Arrays.asList(job1, job2));will(returnValue(statuses));
+            oneOf(mockJobStatusMonitor).statusUpdate(Arrays.asList(job1, job2));will(new CustomAction("check batched statuses") {
+                @Override
+                public Object invoke(Invocation invocation) throws Throwable {
+                    Assert.assertEquals("Missing", job1.getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS));
+                    Assert.assertNull(job2.getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS));
+                    return null;
+                }
+            });
+        }});
+
+        monitor.executeInternal(mockJobExecCtx);
+
+        Assert.assertNull(job1.getProperty(VGLJobStatusAndLogReader.PROPERTY_BATCHED_STATUS));
+    }
+}
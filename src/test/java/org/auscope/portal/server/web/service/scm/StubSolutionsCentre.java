@@ -0,0 +1,156 @@
+package org.auscope.portal.server.web.service.scm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local, in process stand in for the Scientific Solutions Centre. JSON documents are registered against a path
+ * (with optional query string) and served with an ETag that changes whenever the document does. Requests carrying
+ * a matching If-None-Match are answered with 304 Not Modified.
+ *
+ * Binds to an ephemeral loopback port - use getUrl() to build request URLs.
+ */
+public class StubSolutionsCentre implements AutoCloseable {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Map<String, Document> documents = new ConcurrentHashMap<String, Document>();
+    private ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+    private AtomicInteger requestCount = new AtomicInteger();
+    private AtomicInteger notModifiedCount = new AtomicInteger();
+    private volatile long delayMillis;
+
+    public StubSolutionsCentre() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String key = exchange.getRequestURI().getRawPath();
+                if (exchange.getRequestURI().getRawQuery() != null) {
+                    key += "?" + exchange.getRequestURI().getRawQuery();
+                }
+
+                requestCount.incrementAndGet();
+                AtomicInteger count = new AtomicInteger();
+                AtomicInteger existing = requestCounts.putIfAbsent(key, count);
+                (existing == null ? count : existing).incrementAndGet();
+
+                try {
+                    if (delayMillis > 0) {
+                        Thread.sleep(delayMillis);
+                    }
+
+                    Document doc = documents.get(key);
+                    if (doc == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+
+                    exchange.getResponseHeaders().set("ETag", doc.eTag);
+                    if (doc.eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModifiedCount.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        return;
+                    }
+
+                    byte[] bytes = doc.json.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(bytes);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * The base URL of this service (without trailing slash)
+     * @return
+     */
+    public String getUrl() {
+        return String.format("http://%1$s:%2$d", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    /**
+     * Serves json at path (which may include a query string). Replacing a document changes its ETag.
+     * @param path eg /solutions/1
+     * @param json
+     */
+    public void setDocument(String path, String json) {
+        Document previous = documents.get(path);
+        int version = previous == null ? 1 : previous.version + 1;
+        documents.put(path, new Document(json, version));
+    }
+
+    /**
+     * Delays every response by delayMillis
+     * @param delayMillis
+     */
+    public void setDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * The total number of requests received (including conditional requests)
+     * @return
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The number of requests received for path (including conditional requests)
+     * @param path
+     * @return
+     */
+    public int getRequestCount(String path) {
+        AtomicInteger count = requestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * The number of requests answered with 304 Not Modified
+     * @return
+     */
+    public int getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class Document {
+        private final String json;
+        private final int version;
+        private final String eTag;
+
+        public Document(String json, int version) {
+            this.json = json;
+            this.version = version;
+            this.eTag = "\"v" + version + "\"";
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.auscope.portal.server.web.service.scm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for ScmEntryCache against a stub solutions centre
+ */
+public class TestScmEntryCache {
+
+    private static final String TOOLBOX_JSON = "{\"@id\":\"%1$s\",\"name\":\"%2$s\",\"images\":[{\"image_id\":\"img-1\",\"provider\":\"nci\"}]}";
+
+    private StubSolutionsCentre ssc;
+    private ScmEntryCache cache;
+
+    @Before
+    public void setup() throws Exception {
+        ssc = new StubSolutionsCentre();
+    }
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+        ssc.close();
+    }
+
+    private ScmEntryCache createCache(int maxEntries, long ttlMillis, long staleWhileRevalidateMillis) {
+        return new ScmEntryCache(ScmEntryCache.createRestTemplate(4, 5000), ScmEntryCache.createObjectMapper(),
+                maxEntries, ttlMillis, staleWhileRevalidateMillis);
+    }
+
+    private String toolbox(String path, String name) {
+        ssc.setDocument(path, String.format(TOOLBOX_JSON, ssc.getUrl() + path, name));
+        return ssc.getUrl() + path;
+    }
+
+    /**
+     * A repeated get within the TTL must not make a round trip
+     */
+    @Test
+    public void testRepeatedGetIsCached() throws Exception {
+        cache = createCache(10, 60000, 60000);
+        String url = toolbox("/toolboxes/1", "Toolbox 1");
+
+        for (int i = 0; i < 10; i++) {
+            Toolbox toolbox = cache.get(url, Toolbox.class);
+            Assert.assertEquals("Toolbox 1", toolbox.getName());
+            Assert.assertEquals("img-1", toolbox.getImages().get(0).getImageId());
+        }
+
+        Assert.assertEquals(1, ssc.getRequestCount());
+        Assert.assertEquals(1, cache.getNetworkRequestCount());
+    }
+
+    /**
+     * Every get returns a new instance so callers can't corrupt the cache
+     */
+    @Test
+    public void testInstancesNotShared() throws Exception {
+        cache = createCache(10, 60000, 60000);
+        String url = toolbox("/toolboxes/1", "Toolbox 1");
+
+        Toolbox first = cache.get(url, Toolbox.class);
+        first.setName("modified");
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+    }
+
+    /**
+     * Expired entries are revalidated with If-None-Match and a 304 keeps the cached body
+     */
+    @Test
+    public void testConditionalRevalidation() throws Exception {
+        cache = createCache(10, 0, 0);
+        String url = toolbox("/toolboxes/1", "Toolbox 1");
+
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+        Assert.assertEquals(2, ssc.getRequestCount());
+        Assert.assertEquals(1, ssc.getNotModifiedCount());
+
+        //A changed document must be picked up
+        toolbox("/toolboxes/1", "Toolbox 1 v2");
+        Assert.assertEquals("Toolbox 1 v2", cache.get(url, Toolbox.class).getName());
+        Assert.assertEquals(3, ssc.getRequestCount());
+        Assert.assertEquals(1, ssc.getNotModifiedCount());
+    }
+
+    /**
+     * Within the stale-while-revalidate window the cached copy is returned immediately and refreshed in the background
+     */
+    @Test(timeout = 10000)
+    public void testStaleWhileRevalidate() throws Exception {
+        cache = createCache(10, 0, 60000);
+        String url = toolbox("/toolboxes/1", "Toolbox 1");
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+
+        toolbox("/toolboxes/1", "Toolbox 1 v2");
+        ssc.setDelay(500);
+        long start = System.currentTimeMillis();
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+        Assert.assertTrue(System.currentTimeMillis() - start < 500);
+
+        //Eventually the background refresh lands
+        while (!"Toolbox 1 v2".equals(cache.get(url, Toolbox.class).getName())) {
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * An unreachable SSC shouldn't break pages that have already seen the entry
+     */
+    @Test
+    public void testStaleServedOnError() throws Exception {
+        cache = createCache(10, 0, 0);
+        String url = toolbox("/toolboxes/1", "Toolbox 1");
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+
+        ssc.close();
+        Assert.assertEquals("Toolbox 1", cache.get(url, Toolbox.class).getName());
+    }
+
+    /**
+     * The least recently used entries are dropped once the cache is full
+     */
+    @Test
+    public void testSizeBounded() throws Exception {
+        cache = createCache(2, 60000, 60000);
+        String url1 = toolbox("/toolboxes/1", "Toolbox 1");
+        String url2 = toolbox("/toolboxes/2", "Toolbox 2");
+        String url3 = toolbox("/toolboxes/3", "Toolbox 3");
+
+        cache.get(url1, Toolbox.class);
+        cache.get(url2, Toolbox.class);
+        cache.get(url1, Toolbox.class);
+        cache.get(url3, Toolbox.class); //evicts url2
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3, ssc.getRequestCount());
+
+        cache.get(url1, Toolbox.class);
+        Assert.assertEquals(3, ssc.getRequestCount());
+        cache.get(url2, Toolbox.class);
+        Assert.assertEquals(4, ssc.getRequestCount());
+    }
+
+    /**
+     * Concurrent misses for the same URL share a single request
+     */
+    @Test(timeout = 10000)
+    public void testConcurrentMissesShareRequest() throws Exception {
+        cache = createCache(10, 60000, 60000);
+        final String url = toolbox("/toolboxes/1", "Toolbox 1");
+        ssc.setDelay(300);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Toolbox>> futures = new ArrayList<Future<Toolbox>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Toolbox>() {
+                    @Override
+                    public Toolbox call() throws Exception {
+                        return cache.get(url, Toolbox.class);
+                    }
+                }));
+            }
+            for (Future<Toolbox> future : futures) {
+                Assert.assertEquals("Toolbox 1", future.get().getName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(1, ssc.getRequestCount());
+    }
+
+    /**
+     * A revalidation rejected by a full queue must not stop the entry from being revalidated by a later get
+     */
+    @Test(timeout = 20000)
+    public void testRejectedRevalidationRetried() throws Exception {
+        //The revalidator runs at most 2 at once with REVALIDATION_QUEUE_SIZE more queued, the rest are rejected
+        int count = ScmEntryCache.REVALIDATION_QUEUE_SIZE + 3;
+        cache = createCache(count, 0, 60000);
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            urls.add(toolbox("/toolboxes/" + i, "Toolbox " + i));
+            cache.get(urls.get(i), Toolbox.class);
+        }
+
+        ssc.setDelay(1000);
+        for (String url : urls) {
+            cache.get(url, Toolbox.class);
+        }
+        String lastUrl = toolbox("/toolboxes/" + (count - 1), "Toolbox v2");
+        ssc.setDelay(0);
+
+        //Once the queue drains the rejected entry should be revalidated again
+        while (!"Toolbox v2".equals(cache.get(lastUrl, Toolbox.class).getName())) {
+            Thread.sleep(50);
+        }
+    }
+}
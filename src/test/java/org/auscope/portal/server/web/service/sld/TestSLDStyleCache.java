@@ -0,0 +1,133 @@
+package org.auscope.portal.server.web.service.sld;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.auscope.portal.server.web.service.sld.SLDStyleCache.RenderedStyle;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit tests for SLDStyleCache
+ */
+public class TestSLDStyleCache {
+
+    private static class CountingRenderer implements Callable<String> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final String sld;
+
+        public CountingRenderer(String sld) {
+            this.sld = sld;
+        }
+
+        @Override
+        public String call() throws Exception {
+            calls.incrementAndGet();
+            return sld;
+        }
+    }
+
+    @Test
+    public void testCachedByParameters() throws Exception {
+        SLDStyleCache cache = new SLDStyleCache();
+        CountingRenderer renderer = new CountingRenderer("<sld/>");
+
+        RenderedStyle first = cache.getStyle(renderer, "/style.do", "a", null);
+        RenderedStyle second = cache.getStyle(renderer, "/style.do", "a", null);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, renderer.calls.get());
+
+        //Different parameters (including null vs "null" and different splits) are different styles
+        cache.getStyle(renderer, "/style.do", "a", "null");
+        cache.getStyle(renderer, "/style.do", "a", "");
+        cache.getStyle(renderer, "/style.doa", "", null);
+        cache.getStyle(renderer, "/other.do", "a", null);
+        Assert.assertEquals(5, renderer.calls.get());
+        Assert.assertEquals(5, cache.getRenderCount());
+        Assert.assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        SLDStyleCache cache = new SLDStyleCache(2);
+        CountingRenderer renderer = new CountingRenderer("<sld/>");
+
+        cache.getStyle(renderer, "1");
+        cache.getStyle(renderer, "2");
+        cache.getStyle(renderer, "1");
+        cache.getStyle(renderer, "3"); //evicts 2
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3, renderer.calls.get());
+
+        cache.getStyle(renderer, "1");
+        Assert.assertEquals(3, renderer.calls.get());
+        cache.getStyle(renderer, "2");
+        Assert.assertEquals(4, renderer.calls.get());
+    }
+
+    @Test
+    public void testFailedRenderNotCached() throws Exception {
+        SLDStyleCache cache = new SLDStyleCache();
+        try {
+            cache.getStyle(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw new IllegalStateException("boom");
+                }
+            }, "key");
+            Assert.fail("Expected exception");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testETagDependsOnContent() {
+        RenderedStyle a = new RenderedStyle("<sld>a</sld>");
+        Assert.assertEquals(a.getETag(), new RenderedStyle("<sld>a</sld>").getETag());
+        Assert.assertNotEquals(a.getETag(), new RenderedStyle("<sld>b</sld>").getETag());
+        Assert.assertTrue(a.getETag().startsWith("\"") && a.getETag().endsWith("\""));
+    }
+
+    @Test
+    public void testWriteStyle() throws Exception {
+        SLDStyleCache cache = new SLDStyleCache();
+        RenderedStyle style = new RenderedStyle("<sld>é</sld>");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        cache.writeStyle(new MockHttpServletRequest(), response, style);
+        Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        Assert.assertEquals("text/xml", response.getContentType());
+        Assert.assertEquals(style.getETag(), response.getHeader("ETag"));
+        Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+        Assert.assertArrayEquals(style.getBytes(), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testWriteStyleNotModified() throws Exception {
+        SLDStyleCache cache = new SLDStyleCache();
+        RenderedStyle style = new RenderedStyle("<sld/>");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"other\", W/" + style.getETag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        cache.writeStyle(request, response, style);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        Assert.assertEquals(style.getETag(), response.getHeader("ETag"));
+        Assert.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testMatchesETag() {
+        Assert.assertFalse(SLDStyleCache.matchesETag(null, "\"a\""));
+        Assert.assertFalse(SLDStyleCache.matchesETag("", "\"a\""));
+        Assert.assertFalse(SLDStyleCache.matchesETag("\"b\"", "\"a\""));
+        Assert.assertTrue(SLDStyleCache.matchesETag("\"a\"", "\"a\""));
+        Assert.assertTrue(SLDStyleCache.matchesETag("\"b\" , \"a\"", "\"a\""));
+        Assert.assertTrue(SLDStyleCache.matchesETag("*", "\"a\""));
+    }
+}
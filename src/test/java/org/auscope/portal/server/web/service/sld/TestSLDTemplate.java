@@ -0,0 +1,72 @@
+package org.auscope.portal.server.web.service.sld;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for SLDTemplate
+ */
+public class TestSLDTemplate {
+
+    @Test
+    public void testRender() {
+        SLDTemplate template = SLDTemplate.compile("<Rule><Name>[name]</Name>[filter]<Fill>[color]</Fill><Stroke>[color]</Stroke></Rule>", "name", "filter", "color");
+        Assert.assertEquals("<Rule><Name>n</Name><ogc:Filter/><Fill>#FF0000</Fill><Stroke>#FF0000</Stroke></Rule>",
+                template.render("n", "<ogc:Filter/>", "#FF0000"));
+    }
+
+    /**
+     * Only declared names are slots - other square brackets (eg XPath predicates) are literal
+     */
+    @Test
+    public void testUndeclaredBracketsAreLiteral() {
+        SLDTemplate template = SLDTemplate.compile("<PropertyName>member[1]/[other]</PropertyName>[filter]", "filter");
+        Assert.assertEquals("<PropertyName>member[1]/[other]</PropertyName>f", template.render("f"));
+    }
+
+    /**
+     * Values are never scanned for placeholders and nulls render like String concatenation
+     */
+    @Test
+    public void testValuesAreNotExpanded() {
+        SLDTemplate template = SLDTemplate.compile("[a]-[b]", "a", "b");
+        Assert.assertEquals("[b]-x", template.render("[b]", "x"));
+        Assert.assertEquals("null-x", template.render((String) null, "x"));
+    }
+
+    @Test
+    public void testRenderAppends() {
+        SLDTemplate template = SLDTemplate.compile("<a>[v]</a>", "v");
+        StringBuilder sb = new StringBuilder("<root>");
+        template.render(sb, "1");
+        template.render(sb, "2");
+        Assert.assertEquals("<root><a>1</a><a>2</a>", sb.toString());
+    }
+
+    @Test
+    public void testNoParameters() {
+        Assert.assertEquals("<a>[v]</a>", SLDTemplate.compile("<a>[v]</a>").render());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongValueCount() {
+        SLDTemplate.compile("<a>[v]</a>", "v").render("1", "2");
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        SLDTemplate template = SLDTemplate.load("/org/auscope/portal/slds/erl_MineView.sld", "name", "filter", "color");
+        String sld = template.render("erl:MineView", "<ogc:Filter/>", "#a51f2f");
+        Assert.assertTrue(sld.contains("<Name>erl:MineView</Name>"));
+        Assert.assertTrue(sld.contains("<ogc:Filter/>"));
+        Assert.assertTrue(sld.contains("<CssParameter name=\"stroke\">#a51f2f</CssParameter>"));
+        Assert.assertFalse(sld.contains("[color]"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadMissing() throws IOException {
+        SLDTemplate.load("/org/auscope/portal/slds/does-not-exist.sld");
+    }
+}
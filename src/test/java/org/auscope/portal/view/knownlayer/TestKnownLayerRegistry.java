@@ -0,0 +1,153 @@
+package org.auscope.portal.view.knownlayer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.auscope.portal.core.uifilter.FilterCollection;
+import org.auscope.portal.core.view.knownlayer.CSWRecordSelector;
+import org.auscope.portal.core.view.knownlayer.KnownLayer;
+import org.auscope.portal.core.view.knownlayer.WFSSelector;
+import org.auscope.portal.server.config.KnownLayers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for KnownLayerRegistry
+ */
+public class TestKnownLayerRegistry {
+
+    private static final String TEST_RESOURCE = "org/auscope/portal/view/knownlayer/known-layers.json";
+
+    private KnownLayerRegistry load(String json) throws Exception {
+        return KnownLayerRegistry.load(new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Layers are only created when first requested and are then reused
+     */
+    @Test
+    public void testLazyCreation() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(TEST_RESOURCE));
+        Assert.assertEquals(4, registry.size());
+        Assert.assertEquals(0, registry.getMaterialisedCount());
+        Assert.assertEquals("Test Mine", registry.getDefinition("test-mine").getName());
+        Assert.assertEquals(0, registry.getMaterialisedCount());
+
+        KnownLayer layer = registry.getLayer("test-mine");
+        Assert.assertEquals(1, registry.getMaterialisedCount());
+        Assert.assertSame(layer, registry.getLayer("test-mine"));
+        Assert.assertEquals(1, registry.getMaterialisedCount());
+        Assert.assertNull(registry.getLayer("does-not-exist"));
+
+        Assert.assertEquals("test-mine", layer.getId());
+        Assert.assertEquals("Test Mine", layer.getName());
+        Assert.assertEquals(16, layer.getIconAnchor().x);
+        Assert.assertEquals(32, layer.getIconSize().height);
+        WFSSelector selector = (WFSSelector) layer.getKnownLayerSelector();
+        Assert.assertEquals("er:MiningFeatureOccurrence", selector.getFeatureTypeName());
+        Assert.assertArrayEquals(new String[] {"er:Mine", "gsml:MappedFeature"}, selector.getRelatedFeatureTypeNames());
+
+        FilterCollection filters = layer.getFilterCollection();
+        Assert.assertEquals(3, filters.getOptionalFilters().size());
+        Assert.assertEquals(1, filters.getMandatoryFilters().size());
+
+        Assert.assertTrue(registry.getLayer("test-geophysics").getKnownLayerSelector() instanceof CSWRecordSelector);
+        Assert.assertTrue(registry.getLayer("test-geophysics").isHidden());
+        Assert.assertTrue(registry.getLayer("test-seismology").getKnownLayerSelector() instanceof IRISSelector);
+        Assert.assertNull(registry.getLayer("test-boreholes").getFilterCollection());
+    }
+
+    /**
+     * Definitions are indexed by group and service endpoint
+     */
+    @Test
+    public void testIndexes() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(TEST_RESOURCE));
+
+        Assert.assertEquals(Arrays.asList("Earth Resources", "Boreholes", "Passive Seismic"), Arrays.asList(registry.getGroups().toArray()));
+        Assert.assertEquals(Arrays.asList("test-mine", "test-geophysics"), registry.getIdsByGroup("Earth Resources"));
+        Assert.assertTrue(registry.getIdsByGroup("Unknown").isEmpty());
+
+        Assert.assertEquals(Arrays.asList("test-boreholes"), registry.getIdsByServiceEndpoint("https://example.org/geoserver/wfs"));
+        Assert.assertEquals(Arrays.asList("test-seismology"), registry.getIdsByServiceEndpoint("http://example.org:80"));
+        Assert.assertTrue(registry.getIdsByServiceEndpoint("http://unknown.example.org/wfs").isEmpty());
+        Assert.assertEquals(0, registry.getMaterialisedCount());
+    }
+
+    /**
+     * A KnownLayerList only creates the layers that are accessed
+     */
+    @Test
+    public void testKnownLayerList() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(TEST_RESOURCE));
+        List<KnownLayer> layers = registry.getLayers("test-seismology", "test-mine");
+        Assert.assertEquals(2, layers.size());
+        Assert.assertEquals(0, registry.getMaterialisedCount());
+
+        Assert.assertEquals("test-mine", layers.get(1).getId());
+        Assert.assertEquals(1, registry.getMaterialisedCount());
+        Assert.assertSame(registry.getLayer("test-mine"), layers.get(1));
+    }
+
+    /**
+     * Lists can't refer to undefined layers
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testKnownLayerListUndefined() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(TEST_RESOURCE));
+        registry.getLayers("test-mine", "does-not-exist");
+    }
+
+    /**
+     * Ids must be unique
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateId() throws Exception {
+        load("[{\"id\": \"layer\", \"selector\": {\"type\": \"WMS\", \"layerName\": \"a\"}},"
+                + "{\"id\": \"layer\", \"selector\": {\"type\": \"WMS\", \"layerName\": \"b\"}}]");
+    }
+
+    /**
+     * Unsupported filters are rejected as the definitions are loaded (rather than when the layer is first used)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedFilter() throws Exception {
+        load("[{\"id\": \"layer\", \"selector\": {\"type\": \"WMS\", \"layerName\": \"a\"},"
+                + "\"mandatoryFilters\": [{\"type\": \"UIDate\", \"label\": \"Date\", \"parameter\": \"date\"}]}]");
+    }
+
+    /**
+     * The size of the registry and the number of created layers are reported as metrics
+     */
+    @Test
+    public void testMetrics() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(TEST_RESOURCE));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+
+        registry.getLayer("test-mine");
+        Assert.assertEquals(4, meterRegistry.find(KnownLayerRegistry.DEFINITIONS_METRIC).gauge().value(), 0.001);
+        Assert.assertEquals(1, meterRegistry.find(KnownLayerRegistry.MATERIALISED_METRIC).gauge().value(), 0.001);
+        Assert.assertNotNull(meterRegistry.find(KnownLayerRegistry.LOAD_TIME_METRIC).timeGauge());
+    }
+
+    /**
+     * Every layer shipped with the portal can be created from its definition
+     */
+    @Test
+    public void testPortalKnownLayers() throws Exception {
+        KnownLayerRegistry registry = KnownLayerRegistry.load(new ClassPathResource(KnownLayers.KNOWN_LAYERS_RESOURCE));
+        Assert.assertTrue(registry.size() > 0);
+        for (String id : registry.getIds()) {
+            KnownLayer layer = registry.getLayer(id);
+            Assert.assertEquals(id, layer.getId());
+            Assert.assertNotNull(layer.getKnownLayerSelector());
+        }
+        Assert.assertEquals(registry.size(), registry.getMaterialisedCount());
+    }
+}